@@ -1,12 +1,16 @@
 package com.fawroo.iam.config;
 
+import org.jboss.resteasy.client.jaxrs.ResteasyClientBuilder;
 import org.keycloak.OAuth2Constants;
+import org.keycloak.admin.client.JacksonProvider;
 import org.keycloak.admin.client.Keycloak;
 import org.keycloak.admin.client.KeycloakBuilder;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import jakarta.ws.rs.client.ClientBuilder;
+
 @Configuration
 public class KeycloakConfig {
     
@@ -25,6 +29,10 @@ public class KeycloakConfig {
     @Value("${keycloak.client-id}")
     private String clientId;
     
+    // Le pool par défaut du client admin (10) limite les opérations parallèles
+    @Value("${keycloak.connection-pool-size:32}")
+    private int connectionPoolSize;
+
     // @Value("${keycloak.client-secret}")
     // private String clientSecret;
     
@@ -38,6 +46,10 @@ public class KeycloakConfig {
                 // .clientSecret(clientSecret)
                 .username(username)
                 .password(password)
+                .resteasyClient(((ResteasyClientBuilder) ClientBuilder.newBuilder())
+                        .connectionPoolSize(connectionPoolSize)
+                        .register(JacksonProvider.class, 100)
+                        .build())
                 .build();
     }
 }
\ No newline at end of file
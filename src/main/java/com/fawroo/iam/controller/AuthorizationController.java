@@ -1,5 +1,6 @@
 package com.fawroo.iam.controller;
 
+import com.fawroo.iam.model.dto.PermissionCheckRequest;
 import com.fawroo.iam.service.AuthorizationService;
 import lombok.RequiredArgsConstructor;
 import org.keycloak.representations.idm.authorization.PolicyRepresentation;
@@ -59,4 +60,48 @@ public class AuthorizationController {
         Map<String, Object> permissions = authorizationService.getAuthorizationPermissions(realmName, userId);
         return ResponseEntity.ok(permissions);
     }
-}
\ No newline at end of file
+
+    @GetMapping("/users/{userId}/roles/{roleName}")
+    public ResponseEntity<Map<String, Object>> checkUserRole(
+            @PathVariable String realmName,
+            @PathVariable String userId,
+            @PathVariable String roleName,
+            @RequestParam(required = false) String clientId) {
+        boolean granted = authorizationService.hasRole(realmName, userId, clientId, roleName);
+        return ResponseEntity.ok(Map.of("userId", userId, "role", roleName, "granted", granted));
+    }
+
+    @GetMapping("/clients/{clientId}/evaluate")
+    public ResponseEntity<Map<String, Object>> evaluatePermission(
+            @PathVariable String realmName,
+            @PathVariable String clientId,
+            @RequestParam String userId,
+            @RequestParam String resource,
+            @RequestParam(required = false) String scope) {
+        Map<String, Object> decision = authorizationService.evaluatePermission(realmName, clientId, userId, resource, scope);
+        return ResponseEntity.ok(decision);
+    }
+
+    @PostMapping("/clients/{clientId}/evaluate")
+    public ResponseEntity<Map<String, Object>> evaluatePermissions(
+            @PathVariable String realmName,
+            @PathVariable String clientId,
+            @RequestBody PermissionCheckRequest request) {
+        Map<String, Object> decisions = authorizationService.evaluatePermissions(realmName, clientId, request);
+        return ResponseEntity.ok(decisions);
+    }
+
+    @GetMapping("/clients/{clientId}/pdp")
+    public ResponseEntity<Map<String, Object>> getPolicyDecisionStatus(
+            @PathVariable String realmName,
+            @PathVariable String clientId) {
+        return ResponseEntity.ok(authorizationService.getPolicyDecisionStatus(realmName, clientId, false));
+    }
+
+    @PostMapping("/clients/{clientId}/pdp/reload")
+    public ResponseEntity<Map<String, Object>> reloadPolicyDecisionPoint(
+            @PathVariable String realmName,
+            @PathVariable String clientId) {
+        return ResponseEntity.ok(authorizationService.getPolicyDecisionStatus(realmName, clientId, true));
+    }
+}
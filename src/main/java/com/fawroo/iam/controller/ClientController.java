@@ -1,12 +1,19 @@
 package com.fawroo.iam.controller;
 
+import com.fawroo.iam.model.dto.ClientBulkApplyRequest;
+import com.fawroo.iam.model.dto.ClientSecretRotationRequest;
+import com.fawroo.iam.model.dto.ClientSummary;
+import com.fawroo.iam.service.ClientBulkService;
+import com.fawroo.iam.service.ClientSecretRotationService;
 import com.fawroo.iam.service.ClientService;
 import lombok.RequiredArgsConstructor;
 import org.keycloak.representations.idm.ClientRepresentation;
 import org.keycloak.representations.idm.ClientScopeRepresentation;
 import org.keycloak.representations.idm.ProtocolMapperRepresentation;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Map;
@@ -17,6 +24,8 @@ import java.util.Map;
 public class ClientController {
 
     private final ClientService clientService;
+    private final ClientBulkService clientBulkService;
+    private final ClientSecretRotationService clientSecretRotationService;
 
     @PostMapping
     public ResponseEntity<String> createClient(
@@ -32,6 +41,45 @@ public class ClientController {
         return ResponseEntity.ok(clients);
     }
 
+    @GetMapping("/summary")
+    public ResponseEntity<List<ClientSummary>> getClientSummaries(
+            @PathVariable String realmName,
+            @RequestParam(required = false) String search,
+            @RequestParam(defaultValue = "0") int first,
+            @RequestParam(defaultValue = "100") int max) {
+        List<ClientSummary> clients = clientService.getClientSummaries(realmName, search, first, max);
+        return ResponseEntity.ok(clients);
+    }
+
+    @PostMapping("/bulk/apply")
+    public ResponseEntity<StreamingResponseBody> bulkApplyClients(
+            @PathVariable String realmName,
+            @RequestBody ClientBulkApplyRequest request) {
+        clientBulkService.validateRequest(request);
+        StreamingResponseBody body = outputStream -> clientBulkService.streamApply(realmName, request, outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
+    @PostMapping("/secret-rotation")
+    public ResponseEntity<StreamingResponseBody> rotateClientSecrets(
+            @PathVariable String realmName,
+            @RequestBody ClientSecretRotationRequest request) {
+        clientSecretRotationService.validateRequest(request);
+        StreamingResponseBody body = outputStream -> clientSecretRotationService.streamRotate(realmName, request,
+                outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
+    @GetMapping("/secret-rotation")
+    public ResponseEntity<List<Map<String, Object>>> getSecretRotationSchedules(@PathVariable String realmName) {
+        List<Map<String, Object>> schedules = clientSecretRotationService.getSchedules(realmName);
+        return ResponseEntity.ok(schedules);
+    }
+
     @GetMapping("/{clientId}")
     public ResponseEntity<ClientRepresentation> getClientById(
             @PathVariable String realmName,
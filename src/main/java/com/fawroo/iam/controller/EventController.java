@@ -1,12 +1,20 @@
 package com.fawroo.iam.controller;
 
+import com.fawroo.iam.model.dto.EventPage;
+import com.fawroo.iam.service.EventExportService;
+import com.fawroo.iam.service.EventIngestionService;
 import com.fawroo.iam.service.EventService;
+import com.fawroo.iam.service.EventStreamService;
 import lombok.RequiredArgsConstructor;
 import org.keycloak.representations.idm.AdminEventRepresentation;
 import org.keycloak.representations.idm.EventRepresentation;
 import org.keycloak.representations.idm.RealmEventsConfigRepresentation;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Map;
@@ -17,6 +25,9 @@ import java.util.Map;
 public class EventController {
 
     private final EventService eventService;
+    private final EventIngestionService eventIngestionService;
+    private final EventExportService eventExportService;
+    private final EventStreamService eventStreamService;
 
     @GetMapping
     public ResponseEntity<List<EventRepresentation>> getRealmEvents(
@@ -34,6 +45,56 @@ public class EventController {
         return ResponseEntity.ok(events);
     }
 
+    @GetMapping("/store")
+    public ResponseEntity<EventPage<EventRepresentation>> searchStoredEvents(
+            @PathVariable String realmName,
+            @RequestParam Map<String, String> params) {
+        EventPage<EventRepresentation> page = eventService.searchStoredEvents(realmName, params);
+        return ResponseEntity.ok(page);
+    }
+
+    @GetMapping("/admin/store")
+    public ResponseEntity<EventPage<AdminEventRepresentation>> searchStoredAdminEvents(
+            @PathVariable String realmName,
+            @RequestParam Map<String, String> params) {
+        EventPage<AdminEventRepresentation> page = eventService.searchStoredAdminEvents(realmName, params);
+        return ResponseEntity.ok(page);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportEvents(
+            @PathVariable String realmName,
+            @RequestParam Map<String, String> params) {
+        eventExportService.validateExportRequest(params);
+        boolean csv = EventExportService.FORMAT_CSV.equalsIgnoreCase(params.get("format"));
+        String fileName = realmName + "-" + params.getOrDefault("kind", "login") + "-events"
+                + (csv ? ".csv" : ".ndjson");
+        StreamingResponseBody body = outputStream -> eventExportService.exportEvents(realmName, params, outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(csv ? "text/csv" : "application/x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(body);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEvents(
+            @PathVariable String realmName,
+            @RequestParam Map<String, String> params) {
+        return eventStreamService.subscribe(realmName, params);
+    }
+
+    @GetMapping("/ingestion")
+    public ResponseEntity<Map<String, Object>> getIngestionStatus(@PathVariable String realmName) {
+        Map<String, Object> status = eventIngestionService.getIngestionStatus(realmName);
+        return ResponseEntity.ok(status);
+    }
+
+    @PostMapping("/ingestion")
+    public ResponseEntity<Map<String, Object>> runIngestion(@PathVariable String realmName) {
+        Map<String, Object> result = eventIngestionService.ingestRealm(realmName);
+        return ResponseEntity.ok(result);
+    }
+
     @GetMapping("/config")
     public ResponseEntity<RealmEventsConfigRepresentation> getEventConfig(@PathVariable String realmName) {
         RealmEventsConfigRepresentation config = eventService.getEventConfig(realmName);
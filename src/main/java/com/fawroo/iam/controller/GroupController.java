@@ -6,7 +6,9 @@ import java.util.Map;
 import org.keycloak.representations.idm.GroupRepresentation;
 import org.keycloak.representations.idm.RoleRepresentation;
 import org.keycloak.representations.idm.UserRepresentation;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -15,9 +17,14 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fawroo.iam.model.dto.MemberPage;
+import com.fawroo.iam.service.GroupMemberService;
 import com.fawroo.iam.service.GroupService;
+import com.fawroo.iam.service.GroupTreeService;
 
 import lombok.RequiredArgsConstructor;
 
@@ -27,6 +34,8 @@ import lombok.RequiredArgsConstructor;
 public class GroupController {
 
     private final GroupService groupService;
+    private final GroupTreeService groupTreeService;
+    private final GroupMemberService groupMemberService;
 
     @PostMapping
     public ResponseEntity<Map<String, String>> createGroup(@PathVariable String realmName,
@@ -73,10 +82,36 @@ public class GroupController {
     
     @GetMapping("/{groupId}/members")
     public ResponseEntity<List<UserRepresentation>> getGroupMembers(@PathVariable String realmName,
-                                                                  @PathVariable String groupId) {
-        List<UserRepresentation> members = groupService.getGroupMembers(realmName, groupId);
+                                                                  @PathVariable String groupId,
+                                                                  @RequestParam(defaultValue = "0") int first,
+                                                                  @RequestParam(defaultValue = "100") int max) {
+        List<UserRepresentation> members = groupService.getGroupMembers(realmName, groupId, first, max);
         return ResponseEntity.ok(members);
     }
+
+    @GetMapping("/{groupId}/members/page")
+    public ResponseEntity<MemberPage> getGroupMembersPage(@PathVariable String realmName,
+                                                          @PathVariable String groupId,
+                                                          @RequestParam(required = false) String cursor,
+                                                          @RequestParam(defaultValue = "100") int max,
+                                                          @RequestParam(defaultValue = "false") boolean includeSubgroups,
+                                                          @RequestParam(defaultValue = "true") boolean brief) {
+        MemberPage page = groupMemberService.getMembersPage(realmName, groupId, cursor, max, includeSubgroups, brief);
+        return ResponseEntity.ok(page);
+    }
+
+    @GetMapping("/{groupId}/members/export")
+    public ResponseEntity<StreamingResponseBody> exportGroupMembers(@PathVariable String realmName,
+                                                                    @PathVariable String groupId,
+                                                                    @RequestParam(defaultValue = "false") boolean includeSubgroups,
+                                                                    @RequestParam(defaultValue = "true") boolean brief) {
+        StreamingResponseBody body = outputStream -> groupMemberService.exportMembers(realmName, groupId,
+                includeSubgroups, brief, outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + groupId + "-members.ndjson\"")
+                .body(body);
+    }
     
     @GetMapping("/{groupId}/roles")
     public ResponseEntity<List<RoleRepresentation>> getGroupRoles(@PathVariable String realmName,
@@ -92,4 +127,50 @@ public class GroupController {
         groupService.assignRoleToGroup(realmName, groupId, role);
         return ResponseEntity.ok().build();
     }
-}
\ No newline at end of file
+
+    // ========== GROUP HIERARCHY SNAPSHOT ==========
+
+    @GetMapping("/tree")
+    public ResponseEntity<List<Map<String, Object>>> getGroupTree(@PathVariable String realmName,
+                                                                  @RequestParam(required = false) String rootId,
+                                                                  @RequestParam(required = false) Integer depth) {
+        return ResponseEntity.ok(groupTreeService.getTree(realmName, rootId, depth));
+    }
+
+    @GetMapping("/tree/path")
+    public ResponseEntity<Map<String, Object>> getGroupTreeNodeByPath(@PathVariable String realmName,
+                                                                      @RequestParam String path) {
+        return ResponseEntity.ok(groupTreeService.getByPath(realmName, path));
+    }
+
+    @GetMapping("/tree/status")
+    public ResponseEntity<Map<String, Object>> getGroupTreeStatus(@PathVariable String realmName) {
+        return ResponseEntity.ok(groupTreeService.getStatus(realmName));
+    }
+
+    @PostMapping("/tree/refresh")
+    public ResponseEntity<Map<String, Object>> refreshGroupTree(@PathVariable String realmName) {
+        return ResponseEntity.ok(groupTreeService.refresh(realmName));
+    }
+
+    @GetMapping("/{groupId}/subtree")
+    public ResponseEntity<List<Map<String, Object>>> getGroupSubtree(@PathVariable String realmName,
+                                                                     @PathVariable String groupId) {
+        return ResponseEntity.ok(groupTreeService.getSubtree(realmName, groupId));
+    }
+
+    @GetMapping("/{groupId}/ancestors")
+    public ResponseEntity<List<Map<String, Object>>> getGroupAncestors(@PathVariable String realmName,
+                                                                       @PathVariable String groupId) {
+        return ResponseEntity.ok(groupTreeService.getAncestors(realmName, groupId));
+    }
+
+    @GetMapping("/{groupId}/tree/members")
+    public ResponseEntity<Map<String, Object>> getSnapshotMembers(@PathVariable String realmName,
+                                                                  @PathVariable String groupId,
+                                                                  @RequestParam(defaultValue = "false") boolean includeSubgroups,
+                                                                  @RequestParam(defaultValue = "0") int first,
+                                                                  @RequestParam(defaultValue = "100") int max) {
+        return ResponseEntity.ok(groupTreeService.getMembers(realmName, groupId, includeSubgroups, first, max));
+    }
+}
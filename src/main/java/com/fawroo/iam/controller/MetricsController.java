@@ -0,0 +1,42 @@
+package com.fawroo.iam.controller;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.fawroo.iam.service.MetricsService;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/admin/realms/{realmName}/metrics")
+@RequiredArgsConstructor
+public class MetricsController {
+
+    private final MetricsService metricsService;
+
+    @GetMapping
+    public ResponseEntity<List<String>> getMetricNames(@PathVariable String realmName) {
+        List<String> metrics = metricsService.getMetricNames(realmName);
+        return ResponseEntity.ok(metrics);
+    }
+
+    @GetMapping("/{metric}")
+    public ResponseEntity<Map<String, Object>> getSeries(
+            @PathVariable String realmName,
+            @PathVariable String metric,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(defaultValue = "auto") String resolution) {
+        Map<String, Object> series = metricsService.getSeries(realmName, metric, from, to, resolution);
+        return ResponseEntity.ok(series);
+    }
+}
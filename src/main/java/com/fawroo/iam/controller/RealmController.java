@@ -7,6 +7,7 @@ import java.util.Map;
 import org.keycloak.representations.idm.RealmRepresentation;
 import org.keycloak.representations.idm.UserRepresentation;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -17,8 +18,12 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fawroo.iam.model.dto.PolicyRolloutRequest;
+import com.fawroo.iam.service.PolicyRolloutService;
 import com.fawroo.iam.service.RealmService;
+import com.fawroo.iam.service.SecurityPostureService;
 
 import lombok.RequiredArgsConstructor;
 
@@ -28,6 +33,8 @@ import lombok.RequiredArgsConstructor;
 public class RealmController {
 
     private final RealmService realmService;
+    private final PolicyRolloutService policyRolloutService;
+    private final SecurityPostureService securityPostureService;
 
     @PostMapping
     public ResponseEntity<Void> createRealm(@RequestBody RealmRepresentation realmRepresentation) {
@@ -35,6 +42,23 @@ public class RealmController {
         return ResponseEntity.status(HttpStatus.CREATED).build();
     }
 
+    // Déploiement multi-realms des paramètres de sécurité (NDJSON)
+    @PostMapping("/policy-rollout")
+    public ResponseEntity<StreamingResponseBody> rolloutPolicy(@RequestBody PolicyRolloutRequest request) {
+        policyRolloutService.validateRequest(request);
+        StreamingResponseBody body = outputStream -> policyRolloutService.streamRollout(request, outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
+    // Score de posture de sécurité de tous les realms (du plus faible au plus élevé)
+    @GetMapping("/security-posture")
+    public ResponseEntity<List<Map<String, Object>>> getSecurityPostureScores(
+            @RequestParam(defaultValue = "false") boolean refresh) {
+        return ResponseEntity.ok(securityPostureService.getAllPostureScores(refresh));
+    }
+
     @GetMapping
     public ResponseEntity<List<RealmRepresentation>> getAllRealms() {
         List<RealmRepresentation> realms = realmService.getAllRealms();
@@ -1,6 +1,7 @@
 package com.fawroo.iam.controller;
 
 import java.util.List;
+import java.util.Map;
 
 import org.keycloak.representations.idm.RoleRepresentation;
 import org.springframework.http.HttpStatus;
@@ -12,8 +13,10 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.fawroo.iam.service.RoleCatalogService;
 import com.fawroo.iam.service.RoleService;
 
 import lombok.RequiredArgsConstructor;
@@ -24,6 +27,7 @@ import lombok.RequiredArgsConstructor;
 public class RoleController {
 
     private final RoleService roleService;
+    private final RoleCatalogService roleCatalogService;
 
     @PostMapping
     public ResponseEntity<Void> createRealmRole(@PathVariable String realmName, 
@@ -38,6 +42,28 @@ public class RoleController {
         return ResponseEntity.ok(roles);
     }
     
+    @GetMapping("/catalog")
+    public ResponseEntity<Map<String, Object>> getRoleCatalog(@PathVariable String realmName,
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String clientId,
+            @RequestParam(defaultValue = "false") boolean realmOnly,
+            @RequestParam(defaultValue = "name") String sort,
+            @RequestParam(defaultValue = "0") int first,
+            @RequestParam(defaultValue = "50") int max,
+            @RequestParam(defaultValue = "false") boolean refresh) {
+        Map<String, Object> catalog = roleCatalogService.getCatalog(realmName, search, clientId, realmOnly, sort,
+                first, max, refresh);
+        return ResponseEntity.ok(catalog);
+    }
+
+    @GetMapping("/catalog/detail")
+    public ResponseEntity<Map<String, Object>> getRoleCatalogDetail(@PathVariable String realmName,
+            @RequestParam(required = false) String clientId,
+            @RequestParam String name) {
+        Map<String, Object> detail = roleCatalogService.getRoleDetail(realmName, clientId, name);
+        return ResponseEntity.ok(detail);
+    }
+
     @GetMapping("/{roleName}")
     public ResponseEntity<RoleRepresentation> getRealmRole(@PathVariable String realmName, 
                                                          @PathVariable String roleName) {
@@ -1,22 +1,35 @@
 package com.fawroo.iam.controller;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.keycloak.representations.idm.ComponentRepresentation;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fawroo.iam.model.dto.BulkItemResult;
+import com.fawroo.iam.model.dto.BulkUserOperationRequest;
+import com.fawroo.iam.service.BruteForceScanService;
+import com.fawroo.iam.service.BulkUserOperationService;
+import com.fawroo.iam.service.LoginFailureAggregationService;
+import com.fawroo.iam.service.RealmSettingsService;
+import com.fawroo.iam.service.SecurityPostureService;
 import com.fawroo.iam.service.SecurityService;
 
 import lombok.RequiredArgsConstructor;
@@ -29,16 +42,26 @@ import lombok.extern.slf4j.Slf4j;
 public class SecurityController {
 
     private final SecurityService securityService;
+    private final LoginFailureAggregationService loginFailureAggregationService;
+    private final BulkUserOperationService bulkUserOperationService;
+    private final RealmSettingsService realmSettingsService;
+    private final SecurityPostureService securityPostureService;
+    private final BruteForceScanService bruteForceScanService;
 
     // ========== PASSWORD POLICY ENDPOINTS ==========
 
     @PutMapping("/password-policy")
     public ResponseEntity<Void> setPasswordPolicy(
             @PathVariable String realmName,
-            @RequestBody Map<String, String> policyRequest) {
+            @RequestBody Map<String, String> policyRequest,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        // "policy": null (ou "") retire la politique ; le champ absent est une erreur
+        if (policyRequest == null || !policyRequest.containsKey("policy")) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "policy is required");
+        }
         String policy = policyRequest.get("policy");
-        securityService.setPasswordPolicy(realmName, policy);
-        return ResponseEntity.ok().build();
+        Map<String, Object> result = securityService.setPasswordPolicy(realmName, policy, ifMatch);
+        return ResponseEntity.ok().eTag((String) result.get("version")).build();
     }
 
     @GetMapping("/password-policy")
@@ -52,9 +75,10 @@ public class SecurityController {
     @PutMapping("/brute-force-protection")
     public ResponseEntity<Void> configureBruteForceProtection(
             @PathVariable String realmName,
-            @RequestBody Map<String, String> config) {
-        securityService.configureBruteForceProtection(realmName, config);
-        return ResponseEntity.ok().build();
+            @RequestBody Map<String, String> config,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Map<String, Object> result = securityService.configureBruteForceProtection(realmName, config, ifMatch);
+        return ResponseEntity.ok().eTag((String) result.get("version")).build();
     }
 
     @DeleteMapping("/brute-force-protection/users/{userId}")
@@ -73,14 +97,82 @@ public class SecurityController {
         return ResponseEntity.ok(loginFailures);
     }
 
+    @GetMapping("/brute-force-protection/scan")
+    public ResponseEntity<Map<String, Object>> scanBruteForceStatus(
+            @PathVariable String realmName,
+            @RequestParam(defaultValue = "events") String mode,
+            @RequestParam(defaultValue = "false") boolean refresh) {
+        Map<String, Object> scan = bruteForceScanService.getScan(realmName, parseMode(mode), refresh);
+        return ResponseEntity.ok(scan);
+    }
+
+    // ========== LOGIN FAILURE AGGREGATION ENDPOINTS ==========
+
+    @GetMapping("/login-failures/top")
+    public ResponseEntity<List<Map<String, Object>>> getTopLoginFailureOffenders(
+            @PathVariable String realmName,
+            @RequestParam(defaultValue = "user") String dimension,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) Integer minutes) {
+        List<Map<String, Object>> offenders = loginFailureAggregationService.getTopOffenders(realmName,
+                parseDimension(dimension), limit, minutes);
+        return ResponseEntity.ok(offenders);
+    }
+
+    @GetMapping("/login-failures/rates")
+    public ResponseEntity<Map<String, Object>> getLoginFailureRates(
+            @PathVariable String realmName,
+            @RequestParam(required = false) Integer minutes) {
+        Map<String, Object> rates = loginFailureAggregationService.getRates(realmName, minutes);
+        return ResponseEntity.ok(rates);
+    }
+
+    @GetMapping("/login-failures/heatmap")
+    public ResponseEntity<Map<String, Object>> getLoginFailureHeatmap(
+            @PathVariable String realmName,
+            @RequestParam(defaultValue = "ip") String dimension,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) Integer minutes) {
+        Map<String, Object> heatmap = loginFailureAggregationService.getHeatmap(realmName,
+                parseDimension(dimension), limit, minutes);
+        return ResponseEntity.ok(heatmap);
+    }
+
     // ========== SSL/TLS CONFIGURATION ENDPOINTS ==========
 
     @PutMapping("/ssl")
     public ResponseEntity<Void> configureSSL(
             @PathVariable String realmName,
-            @RequestBody Map<String, String> sslConfig) {
-        securityService.configureSSL(realmName, sslConfig);
-        return ResponseEntity.ok().build();
+            @RequestBody Map<String, String> sslConfig,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Map<String, Object> result = securityService.configureSSL(realmName, sslConfig, ifMatch);
+        return ResponseEntity.ok().eTag((String) result.get("version")).build();
+    }
+
+    // ========== REALM SETTINGS ENDPOINTS ==========
+
+    @GetMapping("/settings")
+    public ResponseEntity<Map<String, Object>> getRealmSettings(@PathVariable String realmName) {
+        Map<String, Object> settings = realmSettingsService.getSettings(realmName);
+        return ResponseEntity.ok()
+                .eTag((String) settings.get("version"))
+                .body(settings);
+    }
+
+    @PatchMapping("/settings")
+    public ResponseEntity<Map<String, Object>> patchRealmSettings(
+            @PathVariable String realmName,
+            @RequestBody Map<String, Object> changes,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Map<String, Object> result;
+        try {
+            result = realmSettingsService.applyChanges(realmName, changes, ifMatch);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        return ResponseEntity.ok()
+                .eTag((String) result.get("version"))
+                .body(result);
     }
 
     // ========== SECURITY COMPONENTS ENDPOINTS ==========
@@ -96,20 +188,10 @@ public class SecurityController {
     // ========== SECURITY STATUS ENDPOINTS ==========
 
     @GetMapping("/status")
-    public ResponseEntity<Map<String, Object>> getSecurityStatus(@PathVariable String realmName) {
+    public ResponseEntity<Map<String, Object>> getSecurityStatus(@PathVariable String realmName,
+            @RequestParam(defaultValue = "false") boolean refresh) {
         try {
-            // Récupérer les informations de sécurité actuelles
-            List<String> passwordPolicy = securityService.getPasswordPolicyTypes(realmName);
-            
-            Map<String, Object> status = Map.of(
-                "realm", realmName,
-                "passwordPolicy", passwordPolicy,
-                "bruteForceProtection", getBruteForceProtectionStatus(realmName),
-                "sslConfigured", isSSLConfigured(realmName),
-                "timestamp", java.time.LocalDateTime.now()
-            );
-            
-            return ResponseEntity.ok(status);
+            return ResponseEntity.ok(securityPostureService.getSecurityStatus(realmName, refresh));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Collections.singletonMap("error", e.getMessage()));
@@ -119,48 +201,38 @@ public class SecurityController {
     // ========== BULK SECURITY OPERATIONS ==========
 
     @PostMapping("/bulk/clear-brute-force")
-    public ResponseEntity<Map<String, String>> clearBruteForceForMultipleUsers(
+    public ResponseEntity<Map<String, Object>> clearBruteForceForMultipleUsers(
             @PathVariable String realmName,
             @RequestBody List<String> userIds) {
-        try {
-            int clearedCount = 0;
-            for (String userId : userIds) {
-                try {
-                    securityService.clearBruteForceForUser(realmName, userId);
-                    clearedCount++;
-                } catch (Exception e) {
-                    log.warn("Failed to clear brute force for user {}: {}", userId, e.getMessage());
-                }
-            }
-            
-            return ResponseEntity.ok(Collections.singletonMap("clearedUsers", clearedCount+ ""));
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Collections.singletonMap("error", e.getMessage()));
-        }
+        BulkUserOperationRequest request = new BulkUserOperationRequest();
+        request.setOperation(BulkUserOperationService.Operation.BRUTE_FORCE_CLEAR.name());
+        request.setUserIds(userIds);
+        List<BulkItemResult> results = Collections.synchronizedList(new ArrayList<>());
+        Map<String, Object> summary = bulkUserOperationService.execute(realmName, request, results::add);
+        userIds.forEach(userId -> bruteForceScanService.markDirty(realmName, userId));
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("clearedUsers", String.valueOf(summary.get("succeeded")));
+        response.put("summary", summary);
+        response.put("results", results);
+        return ResponseEntity.ok(response);
     }
 
     // ========== HELPER METHODS ==========
 
-    private Map<String, Object> getBruteForceProtectionStatus(String realmName) {
+    private LoginFailureAggregationService.Dimension parseDimension(String dimension) {
         try {
-            // Implémentation pour récupérer le statut de la protection brute force
-            return Map.of(
-                "enabled", true, // À implémenter selon vos besoins
-                "maxLoginFailures", 30,
-                "waitIncrementSeconds", 60
-            );
-        } catch (Exception e) {
-            return Map.of("enabled", false, "error", e.getMessage());
+            return LoginFailureAggregationService.Dimension.valueOf(dimension.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown dimension: " + dimension);
         }
     }
 
-    private boolean isSSLConfigured(String realmName) {
+    private BruteForceScanService.Mode parseMode(String mode) {
         try {
-            // Implémentation pour vérifier si SSL est configuré
-            return true; // À implémenter selon vos besoins
-        } catch (Exception e) {
-            return false;
+            return BruteForceScanService.Mode.valueOf(mode.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown scan mode: " + mode);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,83 @@
+package com.fawroo.iam.controller;
+
+import java.util.Map;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fawroo.iam.model.dto.OfflineSessionRevokeRequest;
+import com.fawroo.iam.model.dto.SessionRevocationRequest;
+import com.fawroo.iam.service.OfflineSessionSweepService;
+import com.fawroo.iam.service.SessionInventoryService;
+import com.fawroo.iam.service.SessionRevocationService;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/admin/realms/{realmName}/sessions")
+@RequiredArgsConstructor
+public class SessionController {
+
+    private final SessionInventoryService sessionInventoryService;
+    private final SessionRevocationService sessionRevocationService;
+    private final OfflineSessionSweepService offlineSessionSweepService;
+
+    // ========== SESSION INVENTORY ENDPOINTS ==========
+
+    @GetMapping("/inventory")
+    public ResponseEntity<Map<String, Object>> getInventory(
+            @PathVariable String realmName,
+            @RequestParam(defaultValue = "false") boolean refresh,
+            @RequestParam(defaultValue = "20") int topIps) {
+        return ResponseEntity.ok(sessionInventoryService.getInventorySummary(realmName, refresh, topIps));
+    }
+
+    // ========== SESSION REVOCATION ENDPOINTS ==========
+
+    @PostMapping("/revoke/resolve")
+    public ResponseEntity<Map<String, Object>> resolveRevocationTargets(@PathVariable String realmName,
+            @RequestBody SessionRevocationRequest request) {
+        return ResponseEntity.ok(sessionRevocationService.resolve(realmName, request));
+    }
+
+    @PostMapping("/revoke")
+    public ResponseEntity<StreamingResponseBody> revokeSessions(@PathVariable String realmName,
+            @RequestBody SessionRevocationRequest request) {
+        sessionRevocationService.validateRequest(request);
+        StreamingResponseBody body = outputStream -> sessionRevocationService.streamRevoke(realmName, request, outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
+    // ========== OFFLINE SESSION AUDIT ENDPOINTS ==========
+
+    @GetMapping("/offline/audit")
+    public ResponseEntity<Map<String, Object>> getOfflineSessionAudit(
+            @PathVariable String realmName,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "100") int size) {
+        return ResponseEntity.ok(offlineSessionSweepService.getAudit(realmName, page, size));
+    }
+
+    @PostMapping("/offline/sweep")
+    public ResponseEntity<Map<String, Object>> sweepOfflineSessions(
+            @PathVariable String realmName,
+            @RequestParam(defaultValue = "0") int maxClients) {
+        return ResponseEntity.ok(offlineSessionSweepService.sweepRealm(realmName, maxClients));
+    }
+
+    @PostMapping("/offline/revoke")
+    public ResponseEntity<Map<String, Object>> revokeStaleOfflineSessions(@PathVariable String realmName,
+            @RequestBody OfflineSessionRevokeRequest request) {
+        return ResponseEntity.ok(offlineSessionSweepService.revokeStale(realmName, request));
+    }
+}
@@ -11,21 +11,34 @@ import org.keycloak.representations.idm.GroupRepresentation;
 import org.keycloak.representations.idm.RoleRepresentation;
 import org.keycloak.representations.idm.UserRepresentation;
 import org.keycloak.representations.idm.UserSessionRepresentation;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fawroo.iam.model.dto.BulkUserOperationRequest;
 import com.fawroo.iam.model.dto.PasswordUpdateRequest;
+import com.fawroo.iam.model.dto.UserPatchRequest;
 import com.fawroo.iam.model.dto.UserProfile;
 import com.fawroo.iam.model.dto.UserRequest;
+import com.fawroo.iam.service.BulkUserOperationService;
+import com.fawroo.iam.service.UserIndexService;
+import com.fawroo.iam.service.UserProvisioningService;
 import com.fawroo.iam.service.UserService;
 
 import lombok.RequiredArgsConstructor;
@@ -36,6 +49,9 @@ import lombok.RequiredArgsConstructor;
 public class UserController {
 
     private final UserService userService;
+    private final BulkUserOperationService bulkUserOperationService;
+    private final UserProvisioningService userProvisioningService;
+    private final UserIndexService userIndexService;
 
     @PostMapping
     public ResponseEntity<Map<String, String>> createUser(@RequestBody UserRequest userRequest,  @RequestParam(required = true) String realm) {
@@ -46,8 +62,10 @@ public class UserController {
 
     @GetMapping("/{userId}")
     public ResponseEntity<UserProfile> getUser(@PathVariable String userId, @RequestParam(required = true) String realm) {
-        UserProfile profile = userService.getUserProfile(userId, realm);
-        return ResponseEntity.ok(profile);
+        UserRepresentation user = userService.getUserById(userId, realm);
+        return ResponseEntity.ok()
+                .eTag(userService.getUserVersion(user))
+                .body(mapToUserProfile(user));
     }
 
     @GetMapping("/username/{username}")
@@ -57,6 +75,18 @@ public class UserController {
         return ResponseEntity.ok(profile);
     }
 
+    @GetMapping("/email/{email}")
+    public ResponseEntity<UserProfile> getUserByEmail(@PathVariable String email, @RequestParam(required = true) String realm) {
+        UserRepresentation user = userService.getUserByEmail(email, realm);
+        UserProfile profile = mapToUserProfile(user);
+        return ResponseEntity.ok(profile);
+    }
+
+    @GetMapping("/index/stats")
+    public ResponseEntity<Map<String, Object>> getUserIndexStats(@RequestParam(required = true) String realm) {
+        return ResponseEntity.ok(userIndexService.getIndexStats(realm));
+    }
+
     @GetMapping
     public ResponseEntity<List<UserProfile>> getAllUsers(@RequestParam(required = true) String realm) {
         List<UserRepresentation> users = userService.getAllUsers(realm);
@@ -87,6 +117,17 @@ public class UserController {
         return ResponseEntity.ok().build();
     }
 
+    @PatchMapping("/{userId}")
+    public ResponseEntity<Void> patchUser(@PathVariable String userId,
+            @RequestBody UserPatchRequest patchRequest,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestParam(required = true) String realm) {
+        String version = userService.patchUser(userId, patchRequest, realm, ifMatch);
+        return ResponseEntity.ok()
+                .eTag(version)
+                .build();
+    }
+
     @DeleteMapping("/{userId}")
     public ResponseEntity<Void> deleteUser(@PathVariable String userId, @RequestParam(required = true) String realm) {
         userService.deleteUser(userId, realm);
@@ -225,9 +266,38 @@ public class UserController {
     }
 
     @PostMapping("/bulk/disable")
-    public ResponseEntity<Void> bulkDisableUsers(@RequestBody List<String> userIds, @RequestParam(required = true) String realm) {
-        userService.bulkDisableUsers(userIds, realm);
-        return ResponseEntity.ok().build();
+    public ResponseEntity<Map<String, Object>> bulkDisableUsers(@RequestBody List<String> userIds, @RequestParam(required = true) String realm) {
+        BulkUserOperationRequest request = new BulkUserOperationRequest();
+        request.setOperation(BulkUserOperationService.Operation.DISABLE.name());
+        request.setUserIds(userIds);
+        Map<String, Object> summary = bulkUserOperationService.execute(realm, request, result -> { });
+        return ResponseEntity.ok(summary);
+    }
+
+    @PostMapping("/bulk")
+    public ResponseEntity<StreamingResponseBody> bulkUserOperation(@RequestBody BulkUserOperationRequest request,
+            @RequestParam(required = true) String realm) {
+        bulkUserOperationService.validateRequest(request);
+        StreamingResponseBody body = outputStream -> bulkUserOperationService.streamExecute(realm, request, outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
+    @PostMapping(value = "/bulk/provision", consumes = "multipart/form-data")
+    public ResponseEntity<StreamingResponseBody> provisionUsers(@RequestPart("file") MultipartFile file,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "skip") String onConflict,
+            @RequestParam(required = true) String realm) {
+        if (file.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "File is empty");
+        }
+        userProvisioningService.validateRequest(format, onConflict);
+        StreamingResponseBody body = outputStream -> userProvisioningService.provisionUsers(realm,
+                file.getInputStream(), format, onConflict, outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
     }
 
     @GetMapping("/stats")
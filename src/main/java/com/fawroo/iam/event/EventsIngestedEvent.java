@@ -0,0 +1,26 @@
+package com.fawroo.iam.event;
+
+import java.util.List;
+
+import org.keycloak.representations.idm.AdminEventRepresentation;
+import org.keycloak.representations.idm.EventRepresentation;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Publié après chaque lot d'événements Keycloak nouvellement stockés (transaction validée)
+@Getter
+@AllArgsConstructor
+public class EventsIngestedEvent {
+    private final String realmName;
+    private final List<EventRepresentation> loginEvents;
+    private final List<AdminEventRepresentation> adminEvents;
+
+    public static EventsIngestedEvent login(String realmName, List<EventRepresentation> events) {
+        return new EventsIngestedEvent(realmName, events, List.of());
+    }
+
+    public static EventsIngestedEvent admin(String realmName, List<AdminEventRepresentation> events) {
+        return new EventsIngestedEvent(realmName, List.of(), events);
+    }
+}
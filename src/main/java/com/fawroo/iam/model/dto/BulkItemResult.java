@@ -0,0 +1,15 @@
+package com.fawroo.iam.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkItemResult {
+    private String id;
+    private boolean success;
+    private String error;
+    private long durationMs;
+}
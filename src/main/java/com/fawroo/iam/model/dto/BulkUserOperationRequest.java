@@ -0,0 +1,17 @@
+package com.fawroo.iam.model.dto;
+
+import java.util.List;
+
+import lombok.Data;
+
+@Data
+public class BulkUserOperationRequest {
+    // DISABLE, ENABLE, LOGOUT, DELETE, GROUP_ADD, GROUP_REMOVE, ROLE_GRANT, ROLE_REVOKE, BRUTE_FORCE_CLEAR
+    private String operation;
+    private List<String> userIds;
+    private String groupId;
+    private List<String> roles;
+    // Rôles client si renseigné, rôles realm sinon
+    private String clientId;
+    private Integer parallelism;
+}
@@ -0,0 +1,23 @@
+package com.fawroo.iam.model.dto;
+
+import java.util.List;
+import java.util.Map;
+
+import lombok.Data;
+
+@Data
+public class ClientBulkApplyRequest {
+    // Modèles nommés : champs d'une ClientRepresentation (ex. {"publicClient": false, "protocol": "openid-connect"})
+    private Map<String, Map<String, Object>> templates;
+    private List<ClientItem> clients;
+    private Integer parallelism;
+    private Boolean dryRun;
+
+    @Data
+    public static class ClientItem {
+        private String clientId;
+        private String template;
+        // Champs propres au client, fusionnés par-dessus le modèle (les objets comme "attributes" sont fusionnés clé par clé)
+        private Map<String, Object> overrides;
+    }
+}
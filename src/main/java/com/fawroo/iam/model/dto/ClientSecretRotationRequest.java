@@ -0,0 +1,19 @@
+package com.fawroo.iam.model.dto;
+
+import java.util.List;
+
+import lombok.Data;
+
+@Data
+public class ClientSecretRotationRequest {
+    // clientId ciblés ; par défaut tous les clients confidentiels du realm
+    private List<String> clientIds;
+    // Seuls les secrets plus anciens que ce nombre de jours sont régénérés
+    private Integer olderThanDays;
+    // Planification enregistrée pour les clients traités (null = inchangée, 0 = supprimée)
+    private Integer rotationDays;
+    // Durée pendant laquelle l'ancien secret reste accepté
+    private Integer overlapMinutes;
+    private Integer parallelism;
+    private Boolean dryRun;
+}
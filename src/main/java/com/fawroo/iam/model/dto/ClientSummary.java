@@ -0,0 +1,15 @@
+package com.fawroo.iam.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClientSummary {
+    private String id;
+    private String clientId;
+    private Boolean enabled;
+    private String protocol;
+}
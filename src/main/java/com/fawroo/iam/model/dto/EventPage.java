@@ -0,0 +1,16 @@
+package com.fawroo.iam.model.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventPage<T> {
+    private List<T> events;
+    // Curseur opaque "time:id" à renvoyer pour la page suivante (null = fin)
+    private String nextCursor;
+}
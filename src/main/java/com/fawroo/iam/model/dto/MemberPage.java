@@ -0,0 +1,18 @@
+package com.fawroo.iam.model.dto;
+
+import java.util.List;
+
+import org.keycloak.representations.idm.UserRepresentation;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MemberPage {
+    private List<UserRepresentation> members;
+    // Curseur opaque à renvoyer pour la page suivante (null = fin)
+    private String nextCursor;
+}
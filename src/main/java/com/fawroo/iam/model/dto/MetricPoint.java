@@ -0,0 +1,18 @@
+package com.fawroo.iam.model.dto;
+
+import java.time.Instant;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MetricPoint {
+    private Instant timestamp;
+    private double average;
+    private double min;
+    private double max;
+    private long samples;
+}
@@ -0,0 +1,13 @@
+package com.fawroo.iam.model.dto;
+
+import java.util.List;
+
+import lombok.Data;
+
+@Data
+public class OfflineSessionRevokeRequest {
+    // Identifiants des signalements du balayage ; tous les signalements du realm si all = true
+    private List<Long> findingIds;
+    private Boolean all;
+    private Integer parallelism;
+}
@@ -0,0 +1,17 @@
+package com.fawroo.iam.model.dto;
+
+import java.util.List;
+
+import lombok.Data;
+
+@Data
+public class PermissionCheckRequest {
+    private String userId;
+    private List<Check> checks;
+
+    @Data
+    public static class Check {
+        private String resource;
+        private String scope;
+    }
+}
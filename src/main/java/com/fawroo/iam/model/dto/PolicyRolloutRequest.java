@@ -0,0 +1,22 @@
+package com.fawroo.iam.model.dto;
+
+import java.util.List;
+import java.util.Map;
+
+import lombok.Data;
+
+@Data
+public class PolicyRolloutRequest {
+    // Realms ciblés explicitement et/ou par sélecteur sur les attributs du realm (ex. {"env": "prod"})
+    private List<String> realms;
+    private Map<String, String> selector;
+    // Paramètres scalaires du realm à appliquer (ex. passwordPolicy, bruteForceProtected, sslRequired)
+    private Map<String, Object> settings;
+    // Realms appliqués en premier, un par un ; sans liste explicite, les canaryCount premiers realms ciblés
+    private List<String> canaryRealms;
+    private Integer canaryCount;
+    // Arrêt du déploiement si un realm canari échoue (true par défaut)
+    private Boolean haltOnCanaryFailure;
+    private Integer parallelism;
+    private Boolean dryRun;
+}
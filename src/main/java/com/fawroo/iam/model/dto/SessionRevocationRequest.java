@@ -0,0 +1,22 @@
+package com.fawroo.iam.model.dto;
+
+import java.util.List;
+
+import lombok.Data;
+
+@Data
+public class SessionRevocationRequest {
+    // Sélecteurs combinés en union : un utilisateur ciblé par l'un d'eux est déconnecté
+    private List<String> userIds;
+    private List<String> groupIds;
+    private Boolean includeSubgroups;
+    // Rôles effectifs (composites et groupes compris) ; rôles client si roleClientId est renseigné
+    private List<String> roles;
+    private String roleClientId;
+    // Utilisateurs ayant une session active sur l'un de ces clients
+    private List<String> clientIds;
+    // Utilisateurs ayant une session active depuis l'une de ces plages (CIDR ou adresse seule)
+    private List<String> ipRanges;
+    private Integer parallelism;
+    private Boolean dryRun;
+}
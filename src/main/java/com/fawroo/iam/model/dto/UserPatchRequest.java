@@ -0,0 +1,19 @@
+package com.fawroo.iam.model.dto;
+
+import java.util.List;
+import java.util.Map;
+
+import lombok.Data;
+
+// Seuls les champs non null sont envoyés à Keycloak
+@Data
+public class UserPatchRequest {
+    private String email;
+    private String firstName;
+    private String lastName;
+    private Boolean enabled;
+    private Boolean emailVerified;
+    // Fusion par clé ; une valeur null supprime l'attribut
+    private Map<String, List<String>> attributes;
+    private List<String> requiredActions;
+}
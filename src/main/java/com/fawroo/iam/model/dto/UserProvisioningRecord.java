@@ -0,0 +1,24 @@
+package com.fawroo.iam.model.dto;
+
+import java.util.List;
+import java.util.Map;
+
+import lombok.Data;
+
+@Data
+public class UserProvisioningRecord {
+    private String username;
+    private String email;
+    private String firstName;
+    private String lastName;
+    private Boolean enabled;
+    private Boolean emailVerified;
+    private String password;
+    private boolean temporaryPassword;
+    private Map<String, List<String>> attributes;
+    // Chemins de groupes (/parent/enfant)
+    private List<String> groups;
+    private List<String> realmRoles;
+    // clientId -> noms de rôles
+    private Map<String, List<String>> clientRoles;
+}
@@ -0,0 +1,65 @@
+package com.fawroo.iam.model.entity;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Planification et dernière rotation du secret d'un client confidentiel
+@Entity
+@Table(name = "client_secret_rotation",
+        indexes = {
+                @Index(name = "idx_client_secret_rotation_next", columnList = "next_rotation_at"),
+                @Index(name = "idx_client_secret_rotation_overlap", columnList = "overlap_until")
+        })
+@Getter
+@Setter
+@NoArgsConstructor
+public class ClientSecretRotation {
+
+    // realm_name + ":" + client_uuid
+    @Id
+    @Column(length = 170)
+    private String id;
+
+    @Column(name = "realm_name", nullable = false, length = 100)
+    private String realmName;
+
+    @Column(name = "client_uuid", nullable = false, length = 64)
+    private String clientUuid;
+
+    @Column(name = "client_id")
+    private String clientId;
+
+    // Période de rotation planifiée ; null = pas de rotation automatique
+    @Column(name = "rotation_days")
+    private Integer rotationDays;
+
+    @Column(name = "last_rotated_at")
+    private Instant lastRotatedAt;
+
+    @Column(name = "next_rotation_at")
+    private Instant nextRotationAt;
+
+    // Fin de la fenêtre pendant laquelle l'ancien secret reste accepté ; null une fois invalidé
+    @Column(name = "overlap_until")
+    private Instant overlapUntil;
+
+    @Column(name = "rotation_count", nullable = false)
+    private int rotationCount;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    public ClientSecretRotation(String realmName, String clientUuid) {
+        this.id = realmName + ":" + clientUuid;
+        this.realmName = realmName;
+        this.clientUuid = clientUuid;
+    }
+}
@@ -0,0 +1,54 @@
+package com.fawroo.iam.model.entity;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Position de l'ingestion pour un realm et un flux (LOGIN ou ADMIN)
+@Entity
+@Table(name = "event_ingestion_cursor")
+@Getter
+@Setter
+@NoArgsConstructor
+public class EventIngestionCursor {
+
+    public static final String LOGIN = "LOGIN";
+    public static final String ADMIN = "ADMIN";
+
+    @Id
+    @Column(name = "id", length = 120)
+    private String id;
+
+    @Column(name = "realm_name", nullable = false, length = 100)
+    private String realmName;
+
+    @Column(name = "stream", nullable = false, length = 16)
+    private String stream;
+
+    // Horodatage (epoch ms) du dernier événement ingéré
+    @Column(name = "last_event_time", nullable = false)
+    private long lastEventTime;
+
+    @Column(name = "last_run_at")
+    private Instant lastRunAt;
+
+    @Column(name = "total_ingested", nullable = false)
+    private long totalIngested;
+
+    public EventIngestionCursor(String realmName, String stream, long lastEventTime) {
+        this.id = cursorId(realmName, stream);
+        this.realmName = realmName;
+        this.stream = stream;
+        this.lastEventTime = lastEventTime;
+    }
+
+    public static String cursorId(String realmName, String stream) {
+        return realmName + ":" + stream;
+    }
+}
@@ -0,0 +1,40 @@
+package com.fawroo.iam.model.entity;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+public enum MetricResolution {
+    MINUTE("1m", ChronoUnit.MINUTES),
+    HOUR("1h", ChronoUnit.HOURS),
+    DAY("1d", ChronoUnit.DAYS);
+
+    private final String code;
+    private final ChronoUnit unit;
+
+    MetricResolution(String code, ChronoUnit unit) {
+        this.code = code;
+        this.unit = unit;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public Duration getStep() {
+        return unit.getDuration();
+    }
+
+    public Instant truncate(Instant instant) {
+        return instant.truncatedTo(unit);
+    }
+
+    public static MetricResolution fromCode(String code) {
+        for (MetricResolution resolution : values()) {
+            if (resolution.code.equalsIgnoreCase(code) || resolution.name().equalsIgnoreCase(code)) {
+                return resolution;
+            }
+        }
+        throw new IllegalArgumentException("Unknown metric resolution: " + code);
+    }
+}
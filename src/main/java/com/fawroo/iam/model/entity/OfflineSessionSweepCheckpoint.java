@@ -0,0 +1,56 @@
+package com.fawroo.iam.model.entity;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Avancement du balayage des sessions offline d'un realm (reprise client par client)
+@Entity
+@Table(name = "offline_session_sweep_checkpoint")
+@Getter
+@Setter
+@NoArgsConstructor
+public class OfflineSessionSweepCheckpoint {
+
+    @Id
+    @Column(name = "realm_name", length = 100)
+    private String realmName;
+
+    @Column(name = "pass_started_at")
+    private Instant passStartedAt;
+
+    // Dernier client (UUID, ordre croissant) entièrement balayé dans la passe en cours ; null entre deux passes
+    @Column(name = "last_client_uuid", length = 64)
+    private String lastClientUuid;
+
+    @Column(name = "clients_swept", nullable = false)
+    private int clientsSwept;
+
+    @Column(name = "sessions_scanned", nullable = false)
+    private long sessionsScanned;
+
+    @Column(name = "stale_found", nullable = false)
+    private long staleFound;
+
+    @Column(name = "last_run_at")
+    private Instant lastRunAt;
+
+    @Column(name = "last_completed_at")
+    private Instant lastCompletedAt;
+
+    @Column(name = "last_pass_sessions", nullable = false)
+    private long lastPassSessions;
+
+    @Column(name = "last_pass_stale", nullable = false)
+    private long lastPassStale;
+
+    public OfflineSessionSweepCheckpoint(String realmName) {
+        this.realmName = realmName;
+    }
+}
@@ -0,0 +1,71 @@
+package com.fawroo.iam.model.entity;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Entity
+@Table(name = "realm_metric_sample",
+        uniqueConstraints = @UniqueConstraint(name = "uk_realm_metric_bucket",
+                columnNames = { "realm_name", "metric", "resolution", "bucket_start" }),
+        indexes = @Index(name = "idx_realm_metric_resolution_bucket",
+                columnList = "resolution, bucket_start"))
+@Getter
+@Setter
+@NoArgsConstructor
+public class RealmMetricSample {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "realm_name", nullable = false, length = 100)
+    private String realmName;
+
+    @Column(name = "metric", nullable = false, length = 64)
+    private String metric;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "resolution", nullable = false, length = 8)
+    private MetricResolution resolution;
+
+    @Column(name = "bucket_start", nullable = false)
+    private Instant bucketStart;
+
+    // Moyenne pondérée des échantillons agrégés dans ce bucket
+    @Column(name = "avg_value", nullable = false)
+    private double average;
+
+    @Column(name = "min_value", nullable = false)
+    private double minValue;
+
+    @Column(name = "max_value", nullable = false)
+    private double maxValue;
+
+    @Column(name = "sample_count", nullable = false)
+    private long sampleCount;
+
+    public RealmMetricSample(String realmName, String metric, MetricResolution resolution, Instant bucketStart,
+            double average, double minValue, double maxValue, long sampleCount) {
+        this.realmName = realmName;
+        this.metric = metric;
+        this.resolution = resolution;
+        this.bucketStart = bucketStart;
+        this.average = average;
+        this.minValue = minValue;
+        this.maxValue = maxValue;
+        this.sampleCount = sampleCount;
+    }
+}
@@ -0,0 +1,68 @@
+package com.fawroo.iam.model.entity;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Session offline signalée par le balayage (trop ancienne ou inactive)
+@Entity
+@Table(name = "stale_offline_session",
+        indexes = {
+                @Index(name = "idx_stale_offline_session_start", columnList = "realm_name, session_start"),
+                @Index(name = "idx_stale_offline_session_client", columnList = "realm_name, client_uuid")
+        })
+@Getter
+@Setter
+@NoArgsConstructor
+public class StaleOfflineSession {
+
+    public static final String AGE = "AGE";
+    public static final String IDLE = "IDLE";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "realm_name", nullable = false, length = 100)
+    private String realmName;
+
+    @Column(name = "session_id", nullable = false, length = 64)
+    private String sessionId;
+
+    @Column(name = "client_uuid", nullable = false, length = 64)
+    private String clientUuid;
+
+    @Column(name = "client_id", length = 255)
+    private String clientId;
+
+    @Column(name = "user_id", length = 64)
+    private String userId;
+
+    @Column(name = "username", length = 255)
+    private String username;
+
+    @Column(name = "ip_address", length = 64)
+    private String ipAddress;
+
+    // Horodatages Keycloak (epoch ms)
+    @Column(name = "session_start", nullable = false)
+    private long sessionStart;
+
+    @Column(name = "last_access", nullable = false)
+    private long lastAccess;
+
+    @Column(name = "reason", nullable = false, length = 8)
+    private String reason;
+
+    @Column(name = "detected_at", nullable = false)
+    private Instant detectedAt;
+}
@@ -0,0 +1,78 @@
+package com.fawroo.iam.model.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Copie locale d'un événement d'administration Keycloak (AdminEventRepresentation)
+@Entity
+@Table(name = "keycloak_admin_event",
+        uniqueConstraints = @UniqueConstraint(name = "uk_keycloak_admin_event_fingerprint",
+                columnNames = { "realm_name", "fingerprint" }),
+        indexes = {
+                @Index(name = "idx_keycloak_admin_event_time", columnList = "realm_name, event_time, id"),
+                @Index(name = "idx_keycloak_admin_event_operation",
+                        columnList = "realm_name, operation_type, event_time"),
+                @Index(name = "idx_keycloak_admin_event_resource",
+                        columnList = "realm_name, resource_type, event_time"),
+                @Index(name = "idx_keycloak_admin_event_user", columnList = "realm_name, auth_user_id, event_time"),
+                @Index(name = "idx_keycloak_admin_event_client",
+                        columnList = "realm_name, auth_client_id, event_time"),
+                @Index(name = "idx_keycloak_admin_event_ip", columnList = "realm_name, auth_ip_address, event_time")
+        })
+@Getter
+@Setter
+@NoArgsConstructor
+public class StoredAdminEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "keycloak_admin_event_seq")
+    @SequenceGenerator(name = "keycloak_admin_event_seq", sequenceName = "keycloak_admin_event_seq",
+            allocationSize = 100)
+    private Long id;
+
+    @Column(name = "realm_name", nullable = false, length = 100)
+    private String realmName;
+
+    @Column(name = "event_time", nullable = false)
+    private long time;
+
+    @Column(name = "operation_type", length = 32)
+    private String operationType;
+
+    @Column(name = "resource_type", length = 64)
+    private String resourceType;
+
+    @Column(name = "resource_path", length = 1024)
+    private String resourcePath;
+
+    @Column(name = "auth_realm_id", length = 64)
+    private String authRealmId;
+
+    @Column(name = "auth_client_id", length = 64)
+    private String authClientId;
+
+    @Column(name = "auth_user_id", length = 64)
+    private String authUserId;
+
+    @Column(name = "auth_ip_address", length = 64)
+    private String authIpAddress;
+
+    @Column(name = "error")
+    private String error;
+
+    @Column(name = "representation", columnDefinition = "text")
+    private String representation;
+
+    @Column(name = "fingerprint", nullable = false, length = 32)
+    private String fingerprint;
+}
@@ -0,0 +1,68 @@
+package com.fawroo.iam.model.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Copie locale d'un événement de login Keycloak (EventRepresentation)
+@Entity
+@Table(name = "keycloak_event",
+        uniqueConstraints = @UniqueConstraint(name = "uk_keycloak_event_fingerprint",
+                columnNames = { "realm_name", "fingerprint" }),
+        indexes = {
+                @Index(name = "idx_keycloak_event_time", columnList = "realm_name, event_time, id"),
+                @Index(name = "idx_keycloak_event_type", columnList = "realm_name, type, event_time"),
+                @Index(name = "idx_keycloak_event_user", columnList = "realm_name, user_id, event_time"),
+                @Index(name = "idx_keycloak_event_client", columnList = "realm_name, client_id, event_time"),
+                @Index(name = "idx_keycloak_event_ip", columnList = "realm_name, ip_address, event_time")
+        })
+@Getter
+@Setter
+@NoArgsConstructor
+public class StoredEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "keycloak_event_seq")
+    @SequenceGenerator(name = "keycloak_event_seq", sequenceName = "keycloak_event_seq", allocationSize = 100)
+    private Long id;
+
+    @Column(name = "realm_name", nullable = false, length = 100)
+    private String realmName;
+
+    @Column(name = "event_time", nullable = false)
+    private long time;
+
+    @Column(name = "type", length = 64)
+    private String type;
+
+    @Column(name = "client_id")
+    private String clientId;
+
+    @Column(name = "user_id", length = 64)
+    private String userId;
+
+    @Column(name = "session_id", length = 64)
+    private String sessionId;
+
+    @Column(name = "ip_address", length = 64)
+    private String ipAddress;
+
+    @Column(name = "error")
+    private String error;
+
+    // Détails sérialisés en JSON
+    @Column(name = "details", columnDefinition = "text")
+    private String details;
+
+    @Column(name = "fingerprint", nullable = false, length = 32)
+    private String fingerprint;
+}
@@ -0,0 +1,17 @@
+package com.fawroo.iam.repository;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.fawroo.iam.model.entity.ClientSecretRotation;
+
+public interface ClientSecretRotationRepository extends JpaRepository<ClientSecretRotation, String> {
+
+    List<ClientSecretRotation> findByRealmNameOrderByClientIdAsc(String realmName);
+
+    List<ClientSecretRotation> findByNextRotationAtLessThanEqual(Instant now);
+
+    List<ClientSecretRotation> findByOverlapUntilLessThanEqual(Instant now);
+}
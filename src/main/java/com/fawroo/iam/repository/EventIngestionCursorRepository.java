@@ -0,0 +1,12 @@
+package com.fawroo.iam.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.fawroo.iam.model.entity.EventIngestionCursor;
+
+public interface EventIngestionCursorRepository extends JpaRepository<EventIngestionCursor, String> {
+
+    List<EventIngestionCursor> findByRealmName(String realmName);
+}
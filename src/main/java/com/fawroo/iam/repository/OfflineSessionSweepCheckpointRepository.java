@@ -0,0 +1,8 @@
+package com.fawroo.iam.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.fawroo.iam.model.entity.OfflineSessionSweepCheckpoint;
+
+public interface OfflineSessionSweepCheckpointRepository extends JpaRepository<OfflineSessionSweepCheckpoint, String> {
+}
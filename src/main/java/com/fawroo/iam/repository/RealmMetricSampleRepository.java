@@ -0,0 +1,47 @@
+package com.fawroo.iam.repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.fawroo.iam.model.entity.MetricResolution;
+import com.fawroo.iam.model.entity.RealmMetricSample;
+
+public interface RealmMetricSampleRepository extends JpaRepository<RealmMetricSample, Long> {
+
+    Optional<RealmMetricSample> findByRealmNameAndMetricAndResolutionAndBucketStart(
+            String realmName, String metric, MetricResolution resolution, Instant bucketStart);
+
+    List<RealmMetricSample> findByRealmNameAndMetricAndResolutionAndBucketStartBetweenOrderByBucketStartAsc(
+            String realmName, String metric, MetricResolution resolution, Instant from, Instant to);
+
+    @Query("select distinct s.metric from RealmMetricSample s where s.realmName = :realmName order by s.metric")
+    List<String> findMetricNames(@Param("realmName") String realmName);
+
+    // Agrège [realmName, metric, sum(avg * count), min, max, sum(count)] sur une fenêtre d'une résolution
+    @Query("select s.realmName, s.metric, sum(s.average * s.sampleCount), min(s.minValue), max(s.maxValue), "
+            + "sum(s.sampleCount) from RealmMetricSample s "
+            + "where s.resolution = :resolution and s.bucketStart >= :from and s.bucketStart < :to "
+            + "group by s.realmName, s.metric")
+    List<Object[]> aggregateWindow(@Param("resolution") MetricResolution resolution,
+            @Param("from") Instant from, @Param("to") Instant to);
+
+    @Query("select max(s.bucketStart) from RealmMetricSample s where s.resolution = :resolution")
+    Instant findLatestBucketStart(@Param("resolution") MetricResolution resolution);
+
+    @Query("select min(s.bucketStart) from RealmMetricSample s where s.resolution = :resolution")
+    Instant findEarliestBucketStart(@Param("resolution") MetricResolution resolution);
+
+    @Modifying
+    @Query("delete from RealmMetricSample s where s.resolution = :resolution and s.bucketStart = :bucketStart")
+    int deleteBucket(@Param("resolution") MetricResolution resolution, @Param("bucketStart") Instant bucketStart);
+
+    @Modifying
+    @Query("delete from RealmMetricSample s where s.resolution = :resolution and s.bucketStart < :before")
+    int deleteOlderThan(@Param("resolution") MetricResolution resolution, @Param("before") Instant before);
+}
@@ -0,0 +1,40 @@
+package com.fawroo.iam.repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.fawroo.iam.model.entity.StaleOfflineSession;
+
+public interface StaleOfflineSessionRepository extends JpaRepository<StaleOfflineSession, Long> {
+
+    Page<StaleOfflineSession> findByRealmNameOrderBySessionStartAsc(String realmName, Pageable pageable);
+
+    List<StaleOfflineSession> findByRealmName(String realmName);
+
+    List<StaleOfflineSession> findByRealmNameAndIdIn(String realmName, Collection<Long> ids);
+
+    long countByRealmName(String realmName);
+
+    @Modifying
+    @Query("delete from StaleOfflineSession s where s.realmName = :realmName and s.clientUuid = :clientUuid")
+    int deleteByClient(@Param("realmName") String realmName, @Param("clientUuid") String clientUuid);
+
+    // Signalements antérieurs à la passe terminée (clients disparus ou sans session offline)
+    @Modifying
+    @Query("delete from StaleOfflineSession s where s.realmName = :realmName and s.detectedAt < :before")
+    int deleteDetectedBefore(@Param("realmName") String realmName, @Param("before") Instant before);
+
+    @Modifying
+    @Query("delete from StaleOfflineSession s where s.realmName = :realmName and s.userId = :userId "
+            + "and s.clientId = :clientId")
+    int deleteByUserAndClient(@Param("realmName") String realmName, @Param("userId") String userId,
+            @Param("clientId") String clientId);
+}
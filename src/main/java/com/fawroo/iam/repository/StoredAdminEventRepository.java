@@ -0,0 +1,22 @@
+package com.fawroo.iam.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.fawroo.iam.model.entity.StoredAdminEvent;
+
+public interface StoredAdminEventRepository
+        extends JpaRepository<StoredAdminEvent, Long>, JpaSpecificationExecutor<StoredAdminEvent> {
+
+    @Query("select e.fingerprint from StoredAdminEvent e "
+            + "where e.realmName = :realmName and e.fingerprint in :fingerprints")
+    List<String> findExistingFingerprints(@Param("realmName") String realmName,
+            @Param("fingerprints") Collection<String> fingerprints);
+
+    long countByRealmName(String realmName);
+}
@@ -18,7 +18,7 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 @RequiredArgsConstructor
 public class AuthService {
-    private final UserService userService;
+    private final UserIndexService userIndexService;
 
     @Value("${keycloak.auth-server-url}")
     private String keycloakUrl;
@@ -140,20 +140,9 @@ public class AuthService {
     // ========== HELPER METHODS ==========
 
     private UserRepresentation getUserInfo(String username, String realm) {
-        try {
-            // Essayer d'abord par username
-            return userService.getUserByUsername(username, realm);
-        } catch (Exception e) {
-            try {
-                // Si ça échoue, essayer de chercher par email
-                return userService.searchUsers(username, 0, 1, realm)
-                        .stream()
-                        .findFirst()
-                        .orElseThrow(() -> new RuntimeException("User not found"));
-            } catch (Exception ex) {
-                throw new RuntimeException("User not found with identifier: " + username);
-            }
-        }
+        // Correspondance exacte sur le username puis sur l'email, via l'index local
+        return userIndexService.findByUsernameOrEmail(realm, username)
+                .orElseThrow(() -> new RuntimeException("User not found with identifier: " + username));
     }
 
     private TokenResponse convertToTokenResponse(AccessTokenResponse source, UserRepresentation user) {
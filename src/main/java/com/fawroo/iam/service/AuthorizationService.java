@@ -2,17 +2,16 @@ package com.fawroo.iam.service;
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 import org.keycloak.admin.client.Keycloak;
-import org.keycloak.representations.idm.GroupRepresentation;
-import org.keycloak.representations.idm.RoleRepresentation;
 import org.keycloak.representations.idm.authorization.PolicyRepresentation;
 import org.keycloak.representations.idm.authorization.ResourceRepresentation;
 import org.keycloak.representations.idm.authorization.ResourceServerRepresentation;
 import org.keycloak.representations.idm.authorization.ScopeRepresentation;
 import org.springframework.stereotype.Service;
 
+import com.fawroo.iam.model.dto.PermissionCheckRequest;
+
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -22,19 +21,23 @@ import lombok.extern.slf4j.Slf4j;
 public class AuthorizationService {
 
     private final Keycloak keycloak;
+    private final ClientIdResolver clientIdResolver;
+    private final EffectivePermissionService effectivePermissionService;
+    private final PolicyDecisionService policyDecisionService;
 
     // ENABLE AUTHORIZATION SERVICES FOR CLIENT
     public void enableAuthorizationServices(String realmName, String clientId) {
         try {
-            var client = keycloak.realms().realm(realmName).clients().findByClientId(clientId).get(0);
-            var authzSettings = keycloak.realms().realm(realmName).clients().get(client.getId()).authorization();
-
             ResourceServerRepresentation settings = new ResourceServerRepresentation();
             settings.setAllowRemoteResourceManagement(true);
             settings.setPolicyEnforcementMode(
                     org.keycloak.representations.idm.authorization.PolicyEnforcementMode.ENFORCING);
 
-            authzSettings.update(settings);
+            clientIdResolver.withClient(realmName, clientId, client -> {
+                client.authorization().update(settings);
+                return null;
+            });
+            policyDecisionService.invalidate(realmName, clientId);
             log.info("Authorization services enabled for client: {}", clientId);
         } catch (Exception e) {
             log.error("Error enabling authorization services for client {}: {}", clientId, e.getMessage());
@@ -45,9 +48,9 @@ public class AuthorizationService {
     // CREATE RESOURCE
     public void createResource(String realmName, String clientId, ResourceRepresentation resource) {
         try {
-            var client = keycloak.realms().realm(realmName).clients().findByClientId(clientId).get(0);
-            keycloak.realms().realm(realmName).clients().get(client.getId()).authorization().resources()
-                    .create(resource);
+            clientIdResolver.withClient(realmName, clientId,
+                    client -> client.authorization().resources().create(resource));
+            policyDecisionService.invalidate(realmName, clientId);
             log.info("Resource created successfully for client: {}", clientId);
         } catch (Exception e) {
             log.error("Error creating resource for client {}: {}", clientId, e.getMessage());
@@ -58,8 +61,8 @@ public class AuthorizationService {
     // CREATE POLICY
     public void createPolicy(String realmName, String clientId, PolicyRepresentation policy) {
         try {
-            var client = keycloak.realms().realm(realmName).clients().findByClientId(clientId).get(0);
-            keycloak.realms().realm(realmName).clients().get(client.getId()).authorization().policies().create(policy);
+            clientIdResolver.withClient(realmName, clientId, client -> client.authorization().policies().create(policy));
+            policyDecisionService.invalidate(realmName, clientId);
             log.info("Policy created successfully for client: {}", clientId);
         } catch (Exception e) {
             log.error("Error creating policy for client {}: {}", clientId, e.getMessage());
@@ -70,8 +73,8 @@ public class AuthorizationService {
     // CREATE SCOPE
     public void createScope(String realmName, String clientId, ScopeRepresentation scope) {
         try {
-            var client = keycloak.realms().realm(realmName).clients().findByClientId(clientId).get(0);
-            keycloak.realms().realm(realmName).clients().get(client.getId()).authorization().scopes().create(scope);
+            clientIdResolver.withClient(realmName, clientId, client -> client.authorization().scopes().create(scope));
+            policyDecisionService.invalidate(realmName, clientId);
             log.info("Scope created successfully for client: {}", clientId);
         } catch (Exception e) {
             log.error("Error creating scope for client {}: {}", clientId, e.getMessage());
@@ -79,19 +82,11 @@ public class AuthorizationService {
         }
     }
 
-    // GET AUTHORIZATION PERMISSIONS
+    // GET AUTHORIZATION PERMISSIONS (effective roles: composites, client roles and group inheritance expanded)
     public Map<String, Object> getAuthorizationPermissions(String realmName, String userId) {
         try {
-            var userResource = keycloak.realms().realm(realmName).users().get(userId);
-            // Récupérer les rôles et groupes de l'utilisateur comme proxy des permissions
-            var roles = userResource.roles().realmLevel().listAll();
-            var groups = userResource.groups();
-
-            Map<String, Object> permissions = new HashMap<>();
-            permissions.put("roles", roles.stream().map(RoleRepresentation::getName).collect(Collectors.toList()));
-            permissions.put("groups", groups.stream().map(GroupRepresentation::getName).collect(Collectors.toList()));
-            permissions.put("userId", userId);
-
+            Map<String, Object> permissions = new HashMap<>(effectivePermissionService.getEffectivePermissions(realmName, userId));
+            permissions.put("roles", permissions.get("realmRoles"));
             log.info("Retrieved authorization permissions for user: {}", userId);
             return permissions;
         } catch (Exception e) {
@@ -99,4 +94,36 @@ public class AuthorizationService {
             throw new RuntimeException("Failed to get authorization permissions: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    // CHECK USER ROLE
+    public boolean hasRole(String realmName, String userId, String clientId, String roleName) {
+        try {
+            return effectivePermissionService.hasRole(realmName, userId, clientId, roleName);
+        } catch (Exception e) {
+            log.error("Error checking role {} for user {}: {}", roleName, userId, e.getMessage());
+            throw new RuntimeException("Failed to check role: " + e.getMessage());
+        }
+    }
+
+    // EVALUATE PERMISSION (local policy decision point)
+    public Map<String, Object> evaluatePermission(String realmName, String clientId, String userId, String resource,
+            String scope) {
+        return policyDecisionService.evaluate(realmName, clientId, userId, resource, scope);
+    }
+
+    // EVALUATE PERMISSIONS IN BATCH
+    public Map<String, Object> evaluatePermissions(String realmName, String clientId, PermissionCheckRequest request) {
+        return policyDecisionService.evaluateAll(realmName, clientId, request);
+    }
+
+    // GET / RELOAD LOCAL POLICY DECISION POINT
+    public Map<String, Object> getPolicyDecisionStatus(String realmName, String clientId, boolean reload) {
+        try {
+            return reload ? policyDecisionService.reload(realmName, clientId)
+                    : policyDecisionService.getStatus(realmName, clientId);
+        } catch (Exception e) {
+            log.error("Error loading authorization settings for client {}: {}", clientId, e.getMessage());
+            throw new RuntimeException("Failed to load authorization settings: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.fawroo.iam.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.admin.client.resource.RealmResource;
+import org.keycloak.representations.idm.AdminEventRepresentation;
+import org.keycloak.representations.idm.EventRepresentation;
+import org.keycloak.representations.idm.RealmRepresentation;
+import org.keycloak.representations.idm.UserRepresentation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.fawroo.iam.event.EventsIngestedEvent;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * Comptes verrouillés ou proches du seuil de la protection brute force.
+ * - balayage complet : pagination des utilisateurs et bruteForceUserStatus en parallèle ;
+ * - rafraîchissement incrémental : seuls les utilisateurs déjà signalés, ceux qui ont des échecs
+ *   récents (agrégation des événements) et ceux touchés par un événement d'échec depuis le
+ *   dernier passage sont vérifiés à nouveau.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class BruteForceScanService {
+
+    public enum Mode {
+        EVENTS, FULL
+    }
+
+    private static final String LOGIN_FAILURE_RESOURCE = "USER_LOGIN_FAILURE";
+    private static final String BRUTE_FORCE_USERS_PATH = "attack-detection/brute-force/users";
+
+    private final Keycloak keycloak;
+    private final KeycloakTaskRunner taskRunner;
+    private final RealmSnapshotService realmSnapshotService;
+    private final LoginFailureAggregationService loginFailureAggregationService;
+
+    @Value("${iam.security.brute-force-scan.near-threshold-ratio:0.5}")
+    private double nearThresholdRatio;
+
+    @Value("${iam.security.brute-force-scan.refresh-seconds:30}")
+    private long refreshSeconds;
+
+    @Value("${iam.security.brute-force-scan.page-size:500}")
+    private int pageSize;
+
+    @Value("${iam.security.brute-force-scan.parallelism:8}")
+    private int parallelism;
+
+    // Nombre maximal d'utilisateurs en échec récent vérifiés à chaque rafraîchissement
+    @Value("${iam.security.brute-force-scan.max-candidates:5000}")
+    private int maxCandidates;
+
+    // Mêmes types que l'agrégation : seuls les échecs peuvent rapprocher un compte du seuil
+    @Value("${iam.events.aggregation.failure-types:LOGIN_ERROR,CLIENT_LOGIN_ERROR,CODE_TO_TOKEN_ERROR,REFRESH_TOKEN_ERROR}")
+    private Set<String> failureTypes;
+
+    // Au-delà, les nouveaux utilisateurs ne sont plus marqués : les échecs récents restent couverts
+    // par l'agrégation (max-candidates) au prochain rafraîchissement
+    @Value("${iam.security.brute-force-scan.max-dirty-users:10000}")
+    private int maxDirtyUsers;
+
+    private final Map<String, ScanState> states = new ConcurrentHashMap<>();
+    private final Map<String, Object> scanLocks = new ConcurrentHashMap<>();
+
+    // GET SCAN (incremental refresh, or full user scan when requested)
+    public Map<String, Object> getScan(String realmName, Mode mode, boolean refresh) {
+        ScanState state = states.computeIfAbsent(realmName, k -> new ScanState());
+        long start = System.currentTimeMillis();
+        int checked = 0;
+        synchronized (scanLocks.computeIfAbsent(realmName, k -> new Object())) {
+            try {
+                RealmRepresentation realm = realmSnapshotService.get(realmName, false);
+                int failureFactor = realm.getFailureFactor() != null ? realm.getFailureFactor() : 30;
+                int nearThreshold = Math.max(1, (int) Math.ceil(failureFactor * nearThresholdRatio));
+                if (mode == Mode.FULL) {
+                    checked = fullScan(realmName, state, nearThreshold);
+                } else if (refresh || !state.dirty.isEmpty()
+                        || System.currentTimeMillis() - state.lastRefreshAt > refreshSeconds * 1000L) {
+                    checked = incrementalRefresh(realmName, state, nearThreshold);
+                }
+                return describe(realmName, state, realm, failureFactor, nearThreshold, checked,
+                        System.currentTimeMillis() - start);
+            } catch (Exception e) {
+                log.error("Error scanning brute force status for realm {}: {}", realmName, e.getMessage());
+                throw new RuntimeException("Failed to scan brute force status: " + e.getMessage());
+            }
+        }
+    }
+
+    // MARK USER DIRTY (re-checked on the next refresh)
+    public void markDirty(String realmName, String userId) {
+        ScanState state = states.get(realmName);
+        if (state != null && userId != null) {
+            markDirty(state, userId);
+        }
+    }
+
+    @EventListener
+    public void onEventsIngested(EventsIngestedEvent ingested) {
+        ScanState state = states.get(ingested.getRealmName());
+        if (state == null) {
+            return;
+        }
+        for (EventRepresentation event : ingested.getLoginEvents()) {
+            String userId = event.getUserId();
+            // Un succès ne change le statut que d'un compte déjà signalé (compteur remis à zéro)
+            if (userId != null && (failureTypes.contains(event.getType()) || state.flagged.containsKey(userId))) {
+                markDirty(state, userId);
+            }
+        }
+        for (AdminEventRepresentation event : ingested.getAdminEvents()) {
+            String path = event.getResourcePath();
+            if (!LOGIN_FAILURE_RESOURCE.equals(event.getResourceType()) || path == null) {
+                continue;
+            }
+            if (path.startsWith(BRUTE_FORCE_USERS_PATH + "/")) {
+                markDirty(state, path.substring(BRUTE_FORCE_USERS_PATH.length() + 1));
+            } else if (path.equals(BRUTE_FORCE_USERS_PATH)) {
+                // Effacement global : tous les comptes signalés sont revérifiés
+                state.dirty.addAll(state.flagged.keySet());
+            }
+        }
+    }
+
+    private void markDirty(ScanState state, String userId) {
+        if (state.dirty.size() < maxDirtyUsers || state.dirty.contains(userId)) {
+            state.dirty.add(userId);
+        }
+    }
+
+    // ========== SCAN ==========
+
+    private int fullScan(String realmName, ScanState state, int nearThreshold) {
+        RealmResource realm = keycloak.realm(realmName);
+        Map<String, Flagged> flagged = new ConcurrentHashMap<>();
+        Set<String> failed = ConcurrentHashMap.newKeySet();
+        int checked = 0;
+        int first = 0;
+        while (true) {
+            List<UserRepresentation> page = realm.users().list(first, pageSize);
+            Map<String, String> usernames = new LinkedHashMap<>();
+            page.forEach(user -> usernames.put(user.getId(), user.getUsername()));
+            failed.addAll(checkUsers(realm, usernames, nearThreshold, flagged));
+            checked += page.size();
+            if (page.size() < pageSize) {
+                break;
+            }
+            first += pageSize;
+            taskRunner.throttle();
+        }
+        // Statut illisible : l'entrée précédente est conservée et l'utilisateur revérifié au prochain passage
+        failed.forEach(userId -> {
+            Flagged previous = state.flagged.get(userId);
+            if (previous != null) {
+                flagged.put(userId, previous);
+            }
+        });
+        state.flagged.clear();
+        state.flagged.putAll(flagged);
+        state.dirty.clear();
+        state.dirty.addAll(failed);
+        state.lastFullScanAt = System.currentTimeMillis();
+        state.lastRefreshAt = state.lastFullScanAt;
+        log.info("Full brute force scan for realm {}: {} users checked, {} flagged", realmName, checked,
+                flagged.size());
+        return checked;
+    }
+
+    private int incrementalRefresh(String realmName, ScanState state, int nearThreshold) {
+        Set<String> candidates = new LinkedHashSet<>(state.flagged.keySet());
+        // Instantané de l'ensemble "dirty" : les ajouts concurrents restent pour le prochain passage
+        List<String> dirty = new ArrayList<>(state.dirty);
+        candidates.addAll(dirty);
+        for (Map<String, Object> offender : loginFailureAggregationService.getTopOffenders(realmName,
+                LoginFailureAggregationService.Dimension.USER, maxCandidates, null)) {
+            candidates.add((String) offender.get("user"));
+        }
+
+        Map<String, String> usernames = new LinkedHashMap<>();
+        candidates.forEach(userId -> {
+            Flagged known = state.flagged.get(userId);
+            usernames.put(userId, known != null ? known.username() : null);
+        });
+        Map<String, Flagged> flagged = new ConcurrentHashMap<>();
+        Set<String> failed = checkUsers(keycloak.realm(realmName), usernames, nearThreshold, flagged);
+
+        candidates.forEach(userId -> {
+            if (failed.contains(userId)) {
+                // Statut non lu : ni signalé ni blanchi, l'entrée précédente reste en place
+                return;
+            }
+            Flagged updated = flagged.get(userId);
+            if (updated != null) {
+                state.flagged.put(userId, updated);
+            } else {
+                state.flagged.remove(userId);
+            }
+        });
+        dirty.stream().filter(userId -> !failed.contains(userId)).forEach(state.dirty::remove);
+        // Les utilisateurs en échec sont revérifiés au prochain passage
+        state.dirty.addAll(failed);
+        state.lastRefreshAt = System.currentTimeMillis();
+        return candidates.size();
+    }
+
+    // Renvoie les utilisateurs dont le statut n'a pas pu être lu
+    private Set<String> checkUsers(RealmResource realm, Map<String, String> usernames, int nearThreshold,
+            Map<String, Flagged> flagged) {
+        Set<String> failed = ConcurrentHashMap.newKeySet();
+        taskRunner.<String, Map<String, Object>>forEach(usernames.keySet(), parallelism,
+                userId -> realm.attackDetection().bruteForceUserStatus(userId),
+                (userId, status, error) -> {
+                    if (error != null) {
+                        log.warn("Could not get brute force status for user {}: {}", userId, error.getMessage());
+                        failed.add(userId);
+                        return;
+                    }
+                    if (status == null) {
+                        return;
+                    }
+                    int failures = status.get("numFailures") instanceof Number n ? n.intValue() : 0;
+                    boolean locked = Boolean.TRUE.equals(status.get("disabled"));
+                    if (locked || failures >= nearThreshold) {
+                        flagged.put(userId, new Flagged(userId, usernames.get(userId), locked, failures,
+                                status.get("lastFailure"), status.get("lastIPFailure"), System.currentTimeMillis()));
+                    }
+                });
+        return failed;
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private Map<String, Object> describe(String realmName, ScanState state, RealmRepresentation realm,
+            int failureFactor, int nearThreshold, int checked, long durationMs) {
+        List<Flagged> sorted = state.flagged.values().stream()
+                .sorted(Comparator.comparing(Flagged::locked).reversed()
+                        .thenComparing(Comparator.comparingInt(Flagged::numFailures).reversed()))
+                .toList();
+        Map<String, Object> scan = new LinkedHashMap<>();
+        scan.put("realm", realmName);
+        scan.put("bruteForceProtected", Boolean.TRUE.equals(realm.isBruteForceProtected()));
+        scan.put("failureFactor", failureFactor);
+        scan.put("nearThreshold", nearThreshold);
+        scan.put("locked", sorted.stream().filter(Flagged::locked).toList());
+        scan.put("nearThresholdUsers", sorted.stream().filter(flagged -> !flagged.locked()).toList());
+        scan.put("usersChecked", checked);
+        scan.put("pendingUsers", state.dirty.size());
+        scan.put("lastFullScanAt", state.lastFullScanAt > 0 ? state.lastFullScanAt : null);
+        scan.put("lastRefreshAt", state.lastRefreshAt);
+        scan.put("durationMs", durationMs);
+        return scan;
+    }
+
+    public record Flagged(String userId, String username, boolean locked, int numFailures, Object lastFailure,
+            Object lastIPFailure, long checkedAt) {
+    }
+
+    private static class ScanState {
+        private final Map<String, Flagged> flagged = new ConcurrentHashMap<>();
+        private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+        private volatile long lastFullScanAt;
+        private volatile long lastRefreshAt;
+    }
+}
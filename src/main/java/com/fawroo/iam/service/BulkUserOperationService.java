@@ -0,0 +1,220 @@
+package com.fawroo.iam.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.admin.client.resource.RealmResource;
+import org.keycloak.admin.client.resource.RoleScopeResource;
+import org.keycloak.representations.idm.RoleRepresentation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fawroo.iam.model.dto.BulkItemResult;
+import com.fawroo.iam.model.dto.BulkUserOperationRequest;
+
+import jakarta.ws.rs.core.Response;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class BulkUserOperationService {
+
+    public enum Operation {
+        DISABLE, ENABLE, LOGOUT, DELETE, GROUP_ADD, GROUP_REMOVE, ROLE_GRANT, ROLE_REVOKE, BRUTE_FORCE_CLEAR
+    }
+
+    @FunctionalInterface
+    public interface ResultListener {
+        void onResult(BulkItemResult result);
+    }
+
+    private final Keycloak keycloak;
+    private final UserService userService;
+    private final UserIndexService userIndexService;
+    private final KeycloakTaskRunner taskRunner;
+    private final ClientIdResolver clientIdResolver;
+    private final ObjectMapper objectMapper;
+
+    @Value("${iam.bulk.default-parallelism:8}")
+    private int defaultParallelism;
+
+    @Value("${iam.bulk.max-parallelism:32}")
+    private int maxParallelism;
+
+    // VALIDATE BULK REQUEST (avant l'ouverture du flux de réponse)
+    public Operation validateRequest(BulkUserOperationRequest request) {
+        if (request == null || request.getOperation() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "operation is required");
+        }
+        Operation operation;
+        try {
+            operation = Operation.valueOf(request.getOperation().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Unsupported bulk operation: " + request.getOperation());
+        }
+        if (request.getUserIds() == null || request.getUserIds().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "userIds is required");
+        }
+        if ((operation == Operation.GROUP_ADD || operation == Operation.GROUP_REMOVE) && request.getGroupId() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "groupId is required for " + operation);
+        }
+        if ((operation == Operation.ROLE_GRANT || operation == Operation.ROLE_REVOKE)
+                && (request.getRoles() == null || request.getRoles().isEmpty())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "roles is required for " + operation);
+        }
+        return operation;
+    }
+
+    // EXECUTE BULK OPERATION (per-item results pushed to the listener)
+    public Map<String, Object> execute(String realm, BulkUserOperationRequest request, ResultListener listener) {
+        Operation operation = validateRequest(request);
+        RealmResource realmResource = keycloak.realm(realm);
+        UserTask task = prepareTask(realmResource, realm, operation, request);
+        int parallelism = Math.min(maxParallelism,
+                request.getParallelism() != null ? request.getParallelism() : defaultParallelism);
+
+        long start = System.currentTimeMillis();
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        // Un écouteur en échec (client du flux déconnecté) arrête la soumission des éléments suivants
+        AtomicBoolean aborted = new AtomicBoolean();
+        taskRunner.<String, Long>forEach(request.getUserIds(), parallelism, userId -> {
+            long itemStart = System.currentTimeMillis();
+            task.run(userId);
+            return System.currentTimeMillis() - itemStart;
+        }, (userId, duration, error) -> {
+            BulkItemResult result;
+            if (error == null) {
+                succeeded.incrementAndGet();
+                result = new BulkItemResult(userId, true, null, duration);
+            } else {
+                failed.incrementAndGet();
+                log.warn("Bulk {} failed for user {}: {}", operation, userId, error.getMessage());
+                result = new BulkItemResult(userId, false, error.getMessage(), 0);
+            }
+            try {
+                listener.onResult(result);
+            } catch (RuntimeException e) {
+                if (aborted.compareAndSet(false, true)) {
+                    log.warn("Bulk {} in realm {} aborted, result listener failed: {}", operation, realm,
+                            e.getMessage());
+                }
+            }
+        }, aborted::get);
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("operation", operation.name());
+        summary.put("total", request.getUserIds().size());
+        summary.put("succeeded", succeeded.get());
+        summary.put("failed", failed.get());
+        summary.put("skipped", request.getUserIds().size() - succeeded.get() - failed.get());
+        summary.put("aborted", aborted.get());
+        summary.put("durationMs", System.currentTimeMillis() - start);
+        log.info("Bulk {} in realm {}: {} succeeded, {} failed", operation, realm, succeeded.get(), failed.get());
+        return summary;
+    }
+
+    // STREAM BULK OPERATION (NDJSON : une ligne par utilisateur puis une ligne de synthèse)
+    public void streamExecute(String realm, BulkUserOperationRequest request, OutputStream outputStream)
+            throws IOException {
+        Object writeLock = new Object();
+        Map<String, Object> summary = execute(realm, request, result -> {
+            synchronized (writeLock) {
+                try {
+                    writeLine(outputStream, result);
+                } catch (IOException e) {
+                    throw new RuntimeException("Failed to write bulk result: " + e.getMessage());
+                }
+            }
+        });
+        synchronized (writeLock) {
+            writeLine(outputStream, Map.of("summary", summary));
+        }
+    }
+
+    // ========== HELPER METHODS ==========
+
+    @FunctionalInterface
+    private interface UserTask {
+        void run(String userId) throws Exception;
+    }
+
+    // Les résolutions communes (rôles, client) sont faites une seule fois avant la parallélisation
+    private UserTask prepareTask(RealmResource realmResource, String realm, Operation operation,
+            BulkUserOperationRequest request) {
+        switch (operation) {
+            case DISABLE:
+                return userId -> userService.setUserEnabled(userId, false, realm);
+            case ENABLE:
+                return userId -> userService.setUserEnabled(userId, true, realm);
+            case LOGOUT:
+                return userId -> realmResource.users().get(userId).logout();
+            case DELETE:
+                return userId -> {
+                    try (Response response = realmResource.users().delete(userId)) {
+                        if (response.getStatus() >= 300) {
+                            throw new RuntimeException("HTTP " + response.getStatus());
+                        }
+                    }
+                    userIndexService.invalidate(realm, userId);
+                };
+            case GROUP_ADD:
+                return userId -> realmResource.users().get(userId).joinGroup(request.getGroupId());
+            case GROUP_REMOVE:
+                return userId -> realmResource.users().get(userId).leaveGroup(request.getGroupId());
+            case ROLE_GRANT:
+            case ROLE_REVOKE:
+                return prepareRoleTask(realmResource, realm, operation, request);
+            case BRUTE_FORCE_CLEAR:
+                return userId -> realmResource.attackDetection().clearBruteForceForUser(userId);
+            default:
+                throw new IllegalArgumentException("Unsupported bulk operation: " + operation);
+        }
+    }
+
+    private UserTask prepareRoleTask(RealmResource realmResource, String realm, Operation operation,
+            BulkUserOperationRequest request) {
+        String clientUuid = null;
+        if (request.getClientId() != null) {
+            clientUuid = clientIdResolver.findClientUuid(realm, request.getClientId())
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                            "Client not found: " + request.getClientId()));
+        }
+        List<RoleRepresentation> roles = new ArrayList<>();
+        for (String roleName : request.getRoles()) {
+            roles.add(clientUuid != null
+                    ? realmResource.clients().get(clientUuid).roles().get(roleName).toRepresentation()
+                    : realmResource.roles().get(roleName).toRepresentation());
+        }
+        String targetClient = clientUuid;
+        return userId -> {
+            RoleScopeResource scope = targetClient != null
+                    ? realmResource.users().get(userId).roles().clientLevel(targetClient)
+                    : realmResource.users().get(userId).roles().realmLevel();
+            if (operation == Operation.ROLE_GRANT) {
+                scope.add(roles);
+            } else {
+                scope.remove(roles);
+            }
+        };
+    }
+
+    private void writeLine(OutputStream outputStream, Object value) throws IOException {
+        outputStream.write(objectMapper.writeValueAsBytes(value));
+        outputStream.write('\n');
+        outputStream.flush();
+    }
+}
@@ -0,0 +1,242 @@
+package com.fawroo.iam.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.keycloak.admin.client.CreatedResponseUtil;
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.admin.client.resource.ClientsResource;
+import org.keycloak.representations.idm.ClientRepresentation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fawroo.iam.model.dto.ClientBulkApplyRequest;
+
+import jakarta.ws.rs.core.Response;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * Création / mise à jour de clients en masse à partir de modèles nommés.
+ * - chaque client = modèle + surcharges, appliqué en parallèle (plafond de concurrence) ;
+ * - empreinte MD5 du client voulu comparée à celle du client existant restreint aux mêmes champs :
+ *   un client identique n'est pas réécrit ;
+ * - les protocolMappers du modèle ne sont posés qu'à la création (Keycloak les ignore à la mise à jour)
+ *   et ne participent pas à la comparaison d'un client existant.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ClientBulkService {
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+
+    private final Keycloak keycloak;
+    private final ClientIdResolver clientIdResolver;
+    private final KeycloakTaskRunner taskRunner;
+    private final ObjectMapper objectMapper;
+
+    @Value("${iam.bulk.default-parallelism:8}")
+    private int defaultParallelism;
+
+    @Value("${iam.bulk.max-parallelism:32}")
+    private int maxParallelism;
+
+    // VALIDATE BULK APPLY REQUEST (avant l'ouverture du flux de réponse)
+    public void validateRequest(ClientBulkApplyRequest request) {
+        if (request == null || request.getClients() == null || request.getClients().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "clients is required");
+        }
+        Map<String, Map<String, Object>> templates = request.getTemplates() != null ? request.getTemplates() : Map.of();
+        Set<String> clientIds = new HashSet<>();
+        for (ClientBulkApplyRequest.ClientItem item : request.getClients()) {
+            if (item.getClientId() == null || item.getClientId().isBlank()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "clientId is required for every client");
+            }
+            if (!clientIds.add(item.getClientId())) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Duplicate clientId: " + item.getClientId());
+            }
+            if (item.getTemplate() != null && !templates.containsKey(item.getTemplate())) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown template: " + item.getTemplate());
+            }
+        }
+    }
+
+    // STREAM BULK APPLY (NDJSON : une ligne par client, puis la synthèse)
+    public void streamApply(String realmName, ClientBulkApplyRequest request, OutputStream outputStream)
+            throws IOException {
+        validateRequest(request);
+        long start = System.currentTimeMillis();
+        boolean dryRun = Boolean.TRUE.equals(request.getDryRun());
+        int parallelism = Math.min(maxParallelism,
+                request.getParallelism() != null ? request.getParallelism() : defaultParallelism);
+        ClientsResource clients = keycloak.realm(realmName).clients();
+
+        Object writeLock = new Object();
+        Map<String, AtomicInteger> counts = new LinkedHashMap<>();
+        for (String action : List.of("created", "updated", "unchanged", "failed")) {
+            counts.put(action, new AtomicInteger());
+        }
+        taskRunner.<ClientBulkApplyRequest.ClientItem, String>forEach(request.getClients(), parallelism,
+                item -> apply(realmName, clients, render(request, item), dryRun),
+                (item, action, error) -> {
+                    Map<String, Object> line = new LinkedHashMap<>();
+                    line.put("clientId", item.getClientId());
+                    line.put("success", error == null);
+                    if (error == null) {
+                        counts.get(action).incrementAndGet();
+                        line.put("action", action);
+                    } else {
+                        counts.get("failed").incrementAndGet();
+                        log.warn("Bulk apply failed for client {}: {}", item.getClientId(), error.getMessage());
+                        line.put("error", error.getMessage());
+                    }
+                    synchronized (writeLock) {
+                        try {
+                            writeLine(outputStream, line);
+                        } catch (IOException e) {
+                            throw new RuntimeException("Failed to write bulk apply result: " + e.getMessage());
+                        }
+                    }
+                });
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("clients", request.getClients().size());
+        counts.forEach((action, count) -> summary.put(action, count.get()));
+        summary.put("dryRun", dryRun);
+        summary.put("durationMs", System.currentTimeMillis() - start);
+        log.info("Bulk client apply in realm {}: {}", realmName, summary);
+        synchronized (writeLock) {
+            writeLine(outputStream, Map.of("summary", summary));
+        }
+    }
+
+    // ========== HELPER METHODS ==========
+
+    // Crée, met à jour ou ignore un client ; renvoie l'action effectuée
+    private String apply(String realmName, ClientsResource clients, Map<String, Object> desired, boolean dryRun) {
+        String clientId = (String) desired.get("clientId");
+        List<ClientRepresentation> found = clients.findByClientId(clientId);
+        if (found.isEmpty()) {
+            if (!dryRun) {
+                taskRunner.throttle();
+                try (Response response = clients.create(objectMapper.convertValue(desired, ClientRepresentation.class))) {
+                    if (response.getStatus() != 201) {
+                        throw new RuntimeException("HTTP " + response.getStatus());
+                    }
+                    clientIdResolver.register(realmName, clientId, CreatedResponseUtil.getCreatedId(response));
+                }
+            }
+            return "created";
+        }
+
+        ClientRepresentation existing = found.get(0);
+        clientIdResolver.register(realmName, clientId, existing.getId());
+        Map<String, Object> compared = new LinkedHashMap<>(desired);
+        compared.remove("protocolMappers");
+        Object current = project(objectMapper.convertValue(existing, MAP_TYPE), compared);
+        if (contentHash(compared).equals(contentHash(current))) {
+            return "unchanged";
+        }
+        if (!dryRun) {
+            ClientRepresentation update = objectMapper.convertValue(compared, ClientRepresentation.class);
+            update.setId(existing.getId());
+            taskRunner.throttle();
+            clients.get(existing.getId()).update(update);
+        }
+        return "updated";
+    }
+
+    // Modèle + surcharges, normalisé par un aller-retour ClientRepresentation (champs inconnus rejetés, nulls retirés)
+    private Map<String, Object> render(ClientBulkApplyRequest request, ClientBulkApplyRequest.ClientItem item) {
+        Map<String, Object> merged = new LinkedHashMap<>();
+        if (item.getTemplate() != null) {
+            merge(merged, request.getTemplates().get(item.getTemplate()));
+        }
+        if (item.getOverrides() != null) {
+            merge(merged, item.getOverrides());
+        }
+        merged.put("clientId", item.getClientId());
+        merged.remove("id");
+        ClientRepresentation client;
+        try {
+            client = objectMapper.readerFor(ClientRepresentation.class)
+                    .with(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                    .readValue(objectMapper.<JsonNode>valueToTree(merged));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid client definition for " + item.getClientId() + ": "
+                    + e.getMessage());
+        }
+        Map<String, Object> rendered = objectMapper.convertValue(client, MAP_TYPE);
+        rendered.values().removeIf(value -> value == null);
+        return rendered;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void merge(Map<String, Object> target, Map<String, Object> source) {
+        source.forEach((key, value) -> {
+            if (value instanceof Map && target.get(key) instanceof Map) {
+                Map<String, Object> nested = new LinkedHashMap<>((Map<String, Object>) target.get(key));
+                merge(nested, (Map<String, Object>) value);
+                target.put(key, nested);
+            } else {
+                target.put(key, value);
+            }
+        });
+    }
+
+    // Restreint la représentation existante aux champs (et sous-champs) présents dans la version voulue
+    @SuppressWarnings("unchecked")
+    private static Object project(Object existing, Object desired) {
+        if (desired instanceof Map && existing instanceof Map) {
+            Map<String, Object> projected = new LinkedHashMap<>();
+            ((Map<String, Object>) desired).keySet()
+                    .forEach(key -> projected.put(key, project(((Map<String, Object>) existing).get(key),
+                            ((Map<String, Object>) desired).get(key))));
+            return projected;
+        }
+        if (desired instanceof List && existing instanceof List
+                && ((List<?>) desired).size() == ((List<?>) existing).size()) {
+            List<Object> projected = new ArrayList<>();
+            for (int i = 0; i < ((List<?>) desired).size(); i++) {
+                projected.add(project(((List<?>) existing).get(i), ((List<?>) desired).get(i)));
+            }
+            return projected;
+        }
+        return existing;
+    }
+
+    private String contentHash(Object content) {
+        try {
+            Object normalized = content instanceof Map ? new TreeMap<>((Map<?, ?>) content) : content;
+            byte[] bytes = objectMapper.writer().with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+                    .writeValueAsBytes(normalized);
+            return DigestUtils.md5DigestAsHex(bytes);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to compute client content hash: " + e.getMessage());
+        }
+    }
+
+    private void writeLine(OutputStream outputStream, Object value) throws IOException {
+        outputStream.write(objectMapper.writeValueAsBytes(value));
+        outputStream.write('\n');
+        outputStream.flush();
+    }
+}
@@ -0,0 +1,150 @@
+package com.fawroo.iam.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.admin.client.resource.ClientResource;
+import org.keycloak.representations.idm.AdminEventRepresentation;
+import org.keycloak.representations.idm.ClientRepresentation;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.fawroo.iam.event.EventsIngestedEvent;
+
+import jakarta.ws.rs.NotFoundException;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * Correspondance clientId <-> UUID par realm, partagée par tous les services.
+ * Un clientId ne change de UUID qu'à la suppression/recréation du client : les entrées
+ * vivent jusqu'à invalidation (ClientService, suppression/import de realm, événement admin CLIENT,
+ * ou 404 sur l'UUID en cache via withClient).
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ClientIdResolver {
+
+    private static final String CLIENTS_PATH = "clients/";
+
+    private final Keycloak keycloak;
+
+    private final Map<String, RealmClients> realms = new ConcurrentHashMap<>();
+
+    // GET CLIENT UUID
+    public String getClientUuid(String realmName, String clientId) {
+        return findClientUuid(realmName, clientId)
+                .orElseThrow(() -> new RuntimeException("Client not found: " + clientId));
+    }
+
+    // FIND CLIENT UUID
+    public Optional<String> findClientUuid(String realmName, String clientId) {
+        RealmClients clients = realm(realmName);
+        String uuid = clients.uuidByClientId.get(clientId);
+        if (uuid != null) {
+            return Optional.of(uuid);
+        }
+        List<ClientRepresentation> found = keycloak.realm(realmName).clients().findByClientId(clientId);
+        if (found.isEmpty()) {
+            return Optional.empty();
+        }
+        clients.put(clientId, found.get(0).getId());
+        return Optional.of(found.get(0).getId());
+    }
+
+    // CALL CLIENT RESOURCE (a 404 on a cached UUID evicts it, the clientId is resolved again and the call retried once)
+    public <T> T withClient(String realmName, String clientId, Function<ClientResource, T> call) {
+        String uuid = getClientUuid(realmName, clientId);
+        try {
+            return call.apply(keycloak.realm(realmName).clients().get(uuid));
+        } catch (NotFoundException e) {
+            evictClientUuid(realmName, uuid);
+            String current = findClientUuid(realmName, clientId).orElseThrow(() -> e);
+            if (current.equals(uuid)) {
+                // Le client existe toujours : le 404 concerne une sous-ressource
+                throw e;
+            }
+            log.info("Client {} in realm {} was recreated, UUID {} replaced by {}", clientId, realmName, uuid, current);
+            return call.apply(keycloak.realm(realmName).clients().get(current));
+        }
+    }
+
+    // GET CLIENT ID (reverse lookup)
+    public String getClientId(String realmName, String clientUuid) {
+        RealmClients clients = realm(realmName);
+        String clientId = clients.clientIdByUuid.get(clientUuid);
+        if (clientId == null) {
+            clientId = keycloak.realm(realmName).clients().get(clientUuid).toRepresentation().getClientId();
+            clients.put(clientId, clientUuid);
+        }
+        return clientId;
+    }
+
+    // REGISTER CLIENTS (listings already fetched elsewhere warm the map for free)
+    public void registerAll(String realmName, List<ClientRepresentation> clientRepresentations) {
+        RealmClients clients = realm(realmName);
+        clientRepresentations.forEach(client -> clients.put(client.getClientId(), client.getId()));
+    }
+
+    public void register(String realmName, String clientId, String clientUuid) {
+        realm(realmName).put(clientId, clientUuid);
+    }
+
+    // INVALIDATE CLIENT
+    public void evictClientUuid(String realmName, String clientUuid) {
+        RealmClients clients = realms.get(realmName);
+        if (clients != null) {
+            clients.removeUuid(clientUuid);
+        }
+    }
+
+    public void invalidateRealm(String realmName) {
+        realms.remove(realmName);
+    }
+
+    @EventListener
+    public void onEventsIngested(EventsIngestedEvent ingested) {
+        for (AdminEventRepresentation event : ingested.getAdminEvents()) {
+            String path = event.getResourcePath();
+            if (!"CLIENT".equals(event.getResourceType()) || "CREATE".equals(event.getOperationType())
+                    || path == null || !path.startsWith(CLIENTS_PATH)) {
+                continue;
+            }
+            int end = path.indexOf('/', CLIENTS_PATH.length());
+            evictClientUuid(ingested.getRealmName(),
+                    end < 0 ? path.substring(CLIENTS_PATH.length()) : path.substring(CLIENTS_PATH.length(), end));
+        }
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private RealmClients realm(String realmName) {
+        return realms.computeIfAbsent(realmName, r -> new RealmClients());
+    }
+
+    private static class RealmClients {
+        private final Map<String, String> uuidByClientId = new ConcurrentHashMap<>();
+        private final Map<String, String> clientIdByUuid = new ConcurrentHashMap<>();
+
+        private void put(String clientId, String uuid) {
+            String previous = clientIdByUuid.put(uuid, clientId);
+            if (previous != null && !previous.equals(clientId)) {
+                uuidByClientId.remove(previous, uuid);
+            }
+            uuidByClientId.put(clientId, uuid);
+        }
+
+        private void removeUuid(String uuid) {
+            String clientId = clientIdByUuid.remove(uuid);
+            if (clientId != null) {
+                uuidByClientId.remove(clientId, uuid);
+            }
+        }
+    }
+}
@@ -0,0 +1,447 @@
+package com.fawroo.iam.service;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.admin.client.resource.ClientResource;
+import org.keycloak.admin.client.resource.ClientsResource;
+import org.keycloak.representations.idm.ClientRepresentation;
+import org.keycloak.representations.idm.CredentialRepresentation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fawroo.iam.model.dto.ClientSecretRotationRequest;
+import com.fawroo.iam.model.entity.ClientSecretRotation;
+import com.fawroo.iam.repository.ClientSecretRotationRepository;
+
+import jakarta.ws.rs.NotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * Rotation des secrets des clients confidentiels.
+ * - sélection par âge du secret (dernière rotation enregistrée, sinon attribut client.secret.creation.time) ;
+ * - régénération en parallèle (generateNewSecret), chaque nouveau secret étant écrit immédiatement dans
+ *   un fichier NDJSON local (un fichier par exécution, lisible par le seul propriétaire) ;
+ * - fenêtre de recouvrement : l'ancien secret est invalidé (invalidateRotatedSecret) à son expiration.
+ *   Keycloak ne conserve l'ancien secret que si la politique client "secret-rotation" est active sur le
+ *   realm ; sans elle, l'ancien secret cesse de fonctionner dès la rotation. La présence d'un secret
+ *   précédent est vérifiée après chaque rotation (getClientRotatedSecret) : la fenêtre n'est enregistrée
+ *   que dans ce cas et la ligne NDJSON du client l'indique (overlap).
+ * La planification (rotationDays) et la dernière rotation de chaque client sont persistées.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ClientSecretRotationService {
+
+    private static final String SECRET_CREATION_TIME = "client.secret.creation.time";
+    private static final Set<String> SECRET_AUTHENTICATORS = Set.of("client-secret", "client-secret-jwt");
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")
+            .withZone(ZoneOffset.UTC);
+
+    private final Keycloak keycloak;
+    private final KeycloakTaskRunner taskRunner;
+    private final ClientSecretRotationRepository rotationRepository;
+    private final ObjectMapper objectMapper;
+
+    // Une seule rotation à la fois par realm (planificateur + déclenchement manuel)
+    private final Set<String> runningRealms = ConcurrentHashMap.newKeySet();
+
+    @Value("${iam.clients.secret-rotation.sink-directory:./client-secrets}")
+    private String sinkDirectory;
+
+    @Value("${iam.clients.secret-rotation.overlap-minutes:60}")
+    private int defaultOverlapMinutes;
+
+    @Value("${iam.clients.secret-rotation.page-size:200}")
+    private int pageSize;
+
+    @Value("${iam.clients.secret-rotation.parallelism:4}")
+    private int defaultParallelism;
+
+    @Value("${iam.bulk.max-parallelism:32}")
+    private int maxParallelism;
+
+    @Value("${iam.clients.secret-rotation.scheduler.enabled:true}")
+    private boolean schedulerEnabled;
+
+    // VALIDATE ROTATION REQUEST (avant l'ouverture du flux de réponse)
+    public void validateRequest(ClientSecretRotationRequest request) {
+        if (request == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Rotation request is required");
+        }
+        if (request.getOlderThanDays() != null && request.getOlderThanDays() < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "olderThanDays must be positive");
+        }
+        if (request.getRotationDays() != null && request.getRotationDays() < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "rotationDays must be positive");
+        }
+        if (request.getOverlapMinutes() != null && request.getOverlapMinutes() < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "overlapMinutes must be positive");
+        }
+    }
+
+    // STREAM ROTATION (NDJSON : plan, une ligne par client sans le secret, synthèse)
+    public Map<String, Object> streamRotate(String realmName, ClientSecretRotationRequest request,
+            OutputStream outputStream) throws IOException {
+        validateRequest(request);
+        if (!runningRealms.add(realmName)) {
+            throw new RuntimeException("Client secret rotation already running for realm: " + realmName);
+        }
+        try {
+            return rotate(realmName, request, outputStream);
+        } finally {
+            runningRealms.remove(realmName);
+        }
+    }
+
+    // GET ROTATION SCHEDULES
+    public List<Map<String, Object>> getSchedules(String realmName) {
+        return rotationRepository.findByRealmNameOrderByClientIdAsc(realmName).stream()
+                .map(this::describe)
+                .toList();
+    }
+
+    // RECORD MANUAL ROTATION (ClientService.generateClientSecret)
+    public void recordRotation(String realmName, String clientUuid, String clientId) {
+        try {
+            ClientSecretRotation rotation = rotationRepository.findById(realmName + ":" + clientUuid)
+                    .orElseGet(() -> new ClientSecretRotation(realmName, clientUuid));
+            markRotated(rotation, clientId, Instant.now(), 0, null);
+            rotationRepository.save(rotation);
+        } catch (Exception e) {
+            log.warn("Could not record secret rotation for client {}: {}", clientUuid, e.getMessage());
+        }
+    }
+
+    // ROTATE DUE CLIENTS (planification persistée)
+    @Scheduled(fixedDelayString = "${iam.clients.secret-rotation.scheduler.interval-ms:3600000}",
+            initialDelayString = "${iam.clients.secret-rotation.scheduler.initial-delay-ms:300000}")
+    public void rotateDue() {
+        if (!schedulerEnabled) {
+            return;
+        }
+        invalidateExpiredOverlaps();
+        Map<String, List<ClientSecretRotation>> dueByRealm = rotationRepository
+                .findByNextRotationAtLessThanEqual(Instant.now()).stream()
+                .collect(Collectors.groupingBy(ClientSecretRotation::getRealmName));
+        dueByRealm.forEach((realmName, due) -> {
+            ClientSecretRotationRequest request = new ClientSecretRotationRequest();
+            request.setClientIds(due.stream().map(ClientSecretRotation::getClientId).toList());
+            try {
+                Map<String, Object> summary = streamRotate(realmName, request, OutputStream.nullOutputStream());
+                log.info("Scheduled client secret rotation for realm {}: {}", realmName, summary);
+            } catch (Exception e) {
+                log.warn("Scheduled client secret rotation failed for realm {}: {}", realmName, e.getMessage());
+            }
+        });
+    }
+
+    // INVALIDATE EXPIRED OVERLAP WINDOWS
+    public int invalidateExpiredOverlaps() {
+        List<ClientSecretRotation> expired = rotationRepository.findByOverlapUntilLessThanEqual(Instant.now());
+        AtomicInteger invalidated = new AtomicInteger();
+        taskRunner.<ClientSecretRotation, Boolean>forEach(expired, defaultParallelism, rotation -> {
+            keycloak.realm(rotation.getRealmName()).clients().get(rotation.getClientUuid()).invalidateRotatedSecret();
+            return true;
+        }, (rotation, done, error) -> {
+            if (error != null) {
+                log.warn("Could not invalidate rotated secret of client {} in realm {}: {}", rotation.getClientId(),
+                        rotation.getRealmName(), error.getMessage());
+                return;
+            }
+            rotation.setOverlapUntil(null);
+            rotationRepository.save(rotation);
+            invalidated.incrementAndGet();
+        });
+        return invalidated.get();
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private record Candidate(String uuid, String clientId, Instant secretSince) {
+    }
+
+    // Nouveau secret ; overlap = l'ancien reste valide (politique "secret-rotation" active sur le realm)
+    private record NewSecret(String value, boolean overlap) {
+    }
+
+    private Map<String, Object> rotate(String realmName, ClientSecretRotationRequest request,
+            OutputStream outputStream) throws IOException {
+        long start = System.currentTimeMillis();
+        boolean dryRun = Boolean.TRUE.equals(request.getDryRun());
+        int parallelism = Math.min(maxParallelism,
+                request.getParallelism() != null ? request.getParallelism() : defaultParallelism);
+        int overlapMinutes = request.getOverlapMinutes() != null ? request.getOverlapMinutes() : defaultOverlapMinutes;
+        ClientsResource clients = keycloak.realm(realmName).clients();
+        List<Candidate> candidates = findCandidates(realmName, clients, request);
+
+        Object writeLock = new Object();
+        Map<String, Object> plan = new LinkedHashMap<>();
+        plan.put("candidates", candidates.size());
+        plan.put("olderThanDays", request.getOlderThanDays());
+        plan.put("overlapMinutes", overlapMinutes);
+        plan.put("dryRun", dryRun);
+        writeLine(outputStream, Map.of("plan", plan));
+
+        AtomicInteger rotated = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        Path sinkFile = null;
+        if (dryRun) {
+            for (Candidate candidate : candidates) {
+                writeLine(outputStream, candidateLine(candidate));
+            }
+        } else if (!candidates.isEmpty()) {
+            try (SecretSink sink = new SecretSink(realmName)) {
+                sinkFile = sink.file;
+                taskRunner.<Candidate, NewSecret>forEach(candidates, parallelism,
+                        candidate -> {
+                            ClientResource client = clients.get(candidate.uuid());
+                            CredentialRepresentation secret = client.generateNewSecret();
+                            return new NewSecret(secret.getValue(), overlapMinutes > 0 && hasRotatedSecret(client));
+                        },
+                        (candidate, secret, error) -> {
+                            Instant now = Instant.now();
+                            Map<String, Object> line = candidateLine(candidate);
+                            line.put("success", error == null);
+                            if (error == null) {
+                                rotated.incrementAndGet();
+                                line.put("rotatedAt", now);
+                                line.put("overlap", secret.overlap());
+                                try {
+                                    sink.write(realmName, candidate, secret.value(), now);
+                                } catch (RuntimeException e) {
+                                    // Le secret a bien changé dans Keycloak : la rotation reste enregistrée
+                                    log.error("Secret of client {} rotated but not written to the sink: {}",
+                                            candidate.clientId(), e.getMessage());
+                                    line.put("sinkError", e.getMessage());
+                                }
+                            } else {
+                                failed.incrementAndGet();
+                                log.warn("Secret rotation failed for client {}: {}", candidate.clientId(),
+                                        error.getMessage());
+                                line.put("error", error.getMessage());
+                            }
+                            // Sans ancien secret conservé par Keycloak, aucune fenêtre de recouvrement à invalider
+                            persist(realmName, candidate, request.getRotationDays(), error == null ? now : null,
+                                    error == null && secret.overlap() ? overlapMinutes : 0, error);
+                            synchronized (writeLock) {
+                                try {
+                                    writeLine(outputStream, line);
+                                } catch (IOException e) {
+                                    throw new RuntimeException("Failed to write rotation result: " + e.getMessage());
+                                }
+                            }
+                        });
+            }
+        }
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("candidates", candidates.size());
+        summary.put("rotated", rotated.get());
+        summary.put("failed", failed.get());
+        summary.put("sinkFile", sinkFile != null ? sinkFile.toString() : null);
+        summary.put("dryRun", dryRun);
+        summary.put("durationMs", System.currentTimeMillis() - start);
+        synchronized (writeLock) {
+            writeLine(outputStream, Map.of("summary", summary));
+        }
+        return summary;
+    }
+
+    // Clients confidentiels authentifiés par secret, filtrés par clientId et par âge du secret
+    private List<Candidate> findCandidates(String realmName, ClientsResource clients,
+            ClientSecretRotationRequest request) {
+        Set<String> wanted = request.getClientIds() != null ? new HashSet<>(request.getClientIds()) : null;
+        Map<String, ClientSecretRotation> recorded = rotationRepository.findByRealmNameOrderByClientIdAsc(realmName)
+                .stream().collect(Collectors.toMap(ClientSecretRotation::getClientUuid, rotation -> rotation));
+        Instant threshold = request.getOlderThanDays() != null
+                ? Instant.now().minus(request.getOlderThanDays(), ChronoUnit.DAYS)
+                : null;
+
+        List<Candidate> candidates = new ArrayList<>();
+        int first = 0;
+        while (true) {
+            List<ClientRepresentation> page;
+            try {
+                page = clients.findAll(null, null, null, first, pageSize);
+            } catch (Exception e) {
+                log.error("Error listing clients of realm {}: {}", realmName, e.getMessage());
+                throw new RuntimeException("Failed to list clients: " + e.getMessage());
+            }
+            for (ClientRepresentation client : page) {
+                if (!isSecretClient(client) || (wanted != null && !wanted.contains(client.getClientId()))) {
+                    continue;
+                }
+                ClientSecretRotation rotation = recorded.get(client.getId());
+                Instant since = rotation != null && rotation.getLastRotatedAt() != null
+                        ? rotation.getLastRotatedAt()
+                        : secretCreationTime(client);
+                // Âge inconnu : le secret est considéré comme trop ancien
+                if (threshold == null || since == null || !since.isAfter(threshold)) {
+                    candidates.add(new Candidate(client.getId(), client.getClientId(), since));
+                }
+            }
+            if (page.size() < pageSize) {
+                break;
+            }
+            first += pageSize;
+        }
+        return candidates;
+    }
+
+    // Keycloak répond 404 quand le client n'a pas de secret précédent conservé
+    private static boolean hasRotatedSecret(ClientResource client) {
+        try {
+            CredentialRepresentation rotated = client.getClientRotatedSecret();
+            return rotated != null && rotated.getValue() != null;
+        } catch (NotFoundException e) {
+            return false;
+        }
+    }
+
+    private static boolean isSecretClient(ClientRepresentation client) {
+        return !Boolean.TRUE.equals(client.isPublicClient()) && !Boolean.TRUE.equals(client.isBearerOnly())
+                && (client.getClientAuthenticatorType() == null
+                        || SECRET_AUTHENTICATORS.contains(client.getClientAuthenticatorType()));
+    }
+
+    private static Instant secretCreationTime(ClientRepresentation client) {
+        String created = client.getAttributes() != null ? client.getAttributes().get(SECRET_CREATION_TIME) : null;
+        try {
+            return created != null ? Instant.ofEpochSecond(Long.parseLong(created)) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void persist(String realmName, Candidate candidate, Integer rotationDays, Instant rotatedAt,
+            int overlapMinutes, Exception error) {
+        try {
+            ClientSecretRotation rotation = rotationRepository.findById(realmName + ":" + candidate.uuid())
+                    .orElseGet(() -> new ClientSecretRotation(realmName, candidate.uuid()));
+            if (rotationDays != null) {
+                rotation.setRotationDays(rotationDays > 0 ? rotationDays : null);
+            }
+            if (rotatedAt != null) {
+                markRotated(rotation, candidate.clientId(), rotatedAt, overlapMinutes, null);
+            } else {
+                rotation.setClientId(candidate.clientId());
+                rotation.setLastError(truncate(error.getMessage()));
+            }
+            rotationRepository.save(rotation);
+        } catch (Exception e) {
+            log.warn("Could not persist secret rotation of client {}: {}", candidate.clientId(), e.getMessage());
+        }
+    }
+
+    private static void markRotated(ClientSecretRotation rotation, String clientId, Instant rotatedAt,
+            int overlapMinutes, String error) {
+        rotation.setClientId(clientId);
+        rotation.setLastRotatedAt(rotatedAt);
+        rotation.setRotationCount(rotation.getRotationCount() + 1);
+        rotation.setOverlapUntil(overlapMinutes > 0 ? rotatedAt.plus(overlapMinutes, ChronoUnit.MINUTES) : null);
+        rotation.setNextRotationAt(rotation.getRotationDays() != null
+                ? rotatedAt.plus(rotation.getRotationDays(), ChronoUnit.DAYS)
+                : null);
+        rotation.setLastError(error);
+    }
+
+    private Map<String, Object> candidateLine(Candidate candidate) {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("clientId", candidate.clientId());
+        line.put("secretSince", candidate.secretSince());
+        return line;
+    }
+
+    private Map<String, Object> describe(ClientSecretRotation rotation) {
+        Map<String, Object> schedule = new LinkedHashMap<>();
+        schedule.put("clientId", rotation.getClientId());
+        schedule.put("clientUuid", rotation.getClientUuid());
+        schedule.put("rotationDays", rotation.getRotationDays());
+        schedule.put("lastRotatedAt", rotation.getLastRotatedAt());
+        schedule.put("nextRotationAt", rotation.getNextRotationAt());
+        schedule.put("overlapUntil", rotation.getOverlapUntil());
+        schedule.put("rotationCount", rotation.getRotationCount());
+        schedule.put("lastError", rotation.getLastError());
+        return schedule;
+    }
+
+    private static String truncate(String message) {
+        return message != null && message.length() > 500 ? message.substring(0, 500) : message;
+    }
+
+    private void writeLine(OutputStream outputStream, Object value) throws IOException {
+        outputStream.write(objectMapper.writeValueAsBytes(value));
+        outputStream.write('\n');
+        outputStream.flush();
+    }
+
+    // Fichier NDJSON des nouveaux secrets, écrit et vidé ligne par ligne au fil des rotations
+    private class SecretSink implements Closeable {
+        private final Path file;
+        private final BufferedWriter writer;
+
+        private SecretSink(String realmName) throws IOException {
+            Path directory = Paths.get(sinkDirectory);
+            Files.createDirectories(directory);
+            this.file = directory.resolve(realmName + "-client-secrets-" + FILE_TIMESTAMP.format(Instant.now())
+                    + ".ndjson");
+            if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+                Files.createFile(file, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+            } else {
+                Files.createFile(file);
+            }
+            this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        }
+
+        private synchronized void write(String realmName, Candidate candidate, String secret, Instant rotatedAt) {
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("realm", realmName);
+            line.put("clientId", candidate.clientId());
+            line.put("clientUuid", candidate.uuid());
+            line.put("secret", secret);
+            line.put("rotatedAt", rotatedAt);
+            try {
+                writer.write(objectMapper.writeValueAsString(line));
+                writer.newLine();
+                writer.flush();
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to write secret sink: " + e.getMessage());
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+}
@@ -3,12 +3,15 @@ package com.fawroo.iam.service;
 import java.util.List;
 import java.util.Map;
 
+import org.keycloak.admin.client.CreatedResponseUtil;
 import org.keycloak.admin.client.Keycloak;
 import org.keycloak.representations.idm.ClientRepresentation;
 import org.keycloak.representations.idm.ClientScopeRepresentation;
 import org.keycloak.representations.idm.ProtocolMapperRepresentation;
 import org.springframework.stereotype.Service;
 
+import com.fawroo.iam.model.dto.ClientSummary;
+
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -18,11 +21,17 @@ import lombok.extern.slf4j.Slf4j;
 public class ClientService {
 
     private final Keycloak keycloak;
+    private final ClientIdResolver clientIdResolver;
+    private final ClientSecretRotationService clientSecretRotationService;
 
     // CREATE CLIENT
     public String createClient(String realmName, ClientRepresentation clientRepresentation) {
         try {
             var response = keycloak.realms().realm(realmName).clients().create(clientRepresentation);
+            if (response.getStatus() == 201) {
+                clientIdResolver.register(realmName, clientRepresentation.getClientId(),
+                        CreatedResponseUtil.getCreatedId(response));
+            }
             log.info("Client created successfully: {} in realm {}", clientRepresentation.getClientId(), realmName);
             return "Client created successfully";
         } catch (Exception e) {
@@ -41,6 +50,22 @@ public class ClientService {
         }
     }
 
+    // GET CLIENT SUMMARIES (projection id/clientId/enabled/protocol, paged, optional clientId search)
+    public List<ClientSummary> getClientSummaries(String realmName, String search, int first, int max) {
+        try {
+            List<ClientRepresentation> clients = keycloak.realms().realm(realmName).clients()
+                    .findAll(search, null, search != null, first, max);
+            clientIdResolver.registerAll(realmName, clients);
+            return clients.stream()
+                    .map(client -> new ClientSummary(client.getId(), client.getClientId(), client.isEnabled(),
+                            client.getProtocol()))
+                    .toList();
+        } catch (Exception e) {
+            log.error("Error getting client summaries for realm {}: {}", realmName, e.getMessage());
+            throw new RuntimeException("Failed to get clients: " + e.getMessage());
+        }
+    }
+
     // GET CLIENT BY ID
     public ClientRepresentation getClientById(String realmName, String clientId) {
         try {
@@ -54,11 +79,7 @@ public class ClientService {
     // GET CLIENT BY CLIENT_ID
     public ClientRepresentation getClientByClientId(String realmName, String clientId) {
         try {
-            List<ClientRepresentation> clients = keycloak.realms().realm(realmName).clients().findByClientId(clientId);
-            if (clients.isEmpty()) {
-                throw new RuntimeException("Client not found with clientId: " + clientId);
-            }
-            return clients.get(0);
+            return clientIdResolver.withClient(realmName, clientId, client -> client.toRepresentation());
         } catch (Exception e) {
             log.error("Error getting client by clientId {}: {}", clientId, e.getMessage());
             throw new RuntimeException("Failed to get client: " + e.getMessage());
@@ -69,6 +90,7 @@ public class ClientService {
     public void updateClient(String realmName, String clientId, ClientRepresentation clientRepresentation) {
         try {
             keycloak.realms().realm(realmName).clients().get(clientId).update(clientRepresentation);
+            clientIdResolver.evictClientUuid(realmName, clientId);
             log.info("Client updated successfully: {} in realm {}", clientId, realmName);
         } catch (Exception e) {
             log.error("Error updating client {}: {}", clientId, e.getMessage());
@@ -80,6 +102,7 @@ public class ClientService {
     public void deleteClient(String realmName, String clientId) {
         try {
             keycloak.realms().realm(realmName).clients().get(clientId).remove();
+            clientIdResolver.evictClientUuid(realmName, clientId);
             log.info("Client deleted successfully: {} from realm {}", clientId, realmName);
         } catch (Exception e) {
             log.error("Error deleting client {}: {}", clientId, e.getMessage());
@@ -90,7 +113,8 @@ public class ClientService {
     // GENERATE CLIENT SECRET
     public Map<String, String> generateClientSecret(String realmName, String clientId) {
         try {
-            var credential = keycloak.realms().realm(realmName).clients().get(clientId).getSecret();
+            var credential = keycloak.realms().realm(realmName).clients().get(clientId).generateNewSecret();
+            clientSecretRotationService.recordRotation(realmName, clientId, clientIdResolver.getClientId(realmName, clientId));
             return Map.of("secret", credential.getValue());
         } catch (Exception e) {
             log.error("Error generating client secret for {}: {}", clientId, e.getMessage());
@@ -0,0 +1,66 @@
+package com.fawroo.iam.service;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/*
+ * Ensemble compact d'identifiants Keycloak : les UUID sont stockés comme deux long dans une table
+ * à adressage ouvert (16 octets par entrée au lieu d'une String), les autres dans un HashSet.
+ * Non thread-safe.
+ */
+final class CompactIdSet {
+    private long[] most = new long[1024];
+    private long[] least = new long[1024];
+    private boolean[] used = new boolean[1024];
+    private int size;
+    private final Set<String> others = new HashSet<>();
+
+    boolean add(String id) {
+        UUID uuid;
+        try {
+            uuid = UUID.fromString(id);
+        } catch (IllegalArgumentException e) {
+            return others.add(id);
+        }
+        if ((size + 1) * 2 > used.length) {
+            grow();
+        }
+        return insert(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
+
+    int size() {
+        return size + others.size();
+    }
+
+    private boolean insert(long msb, long lsb) {
+        int mask = used.length - 1;
+        int slot = Long.hashCode(msb * 31 + lsb) & mask;
+        while (used[slot]) {
+            if (most[slot] == msb && least[slot] == lsb) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        used[slot] = true;
+        most[slot] = msb;
+        least[slot] = lsb;
+        size++;
+        return true;
+    }
+
+    private void grow() {
+        long[] oldMost = most;
+        long[] oldLeast = least;
+        boolean[] oldUsed = used;
+        most = new long[oldUsed.length * 2];
+        least = new long[oldUsed.length * 2];
+        used = new boolean[oldUsed.length * 2];
+        size = 0;
+        for (int i = 0; i < oldUsed.length; i++) {
+            if (oldUsed[i]) {
+                insert(oldMost[i], oldLeast[i]);
+            }
+        }
+    }
+}
@@ -20,6 +20,7 @@ import lombok.extern.slf4j.Slf4j;
 public class DashboardService {
 
     private final Keycloak keycloak;
+    private final SessionInventoryService sessionInventoryService;
 
     @Value("${keycloak.realm}")
     private String realm;
@@ -118,11 +119,11 @@ public class DashboardService {
         }
     }
 
-    private int getActiveSessionsCount(String realmName) {
+    // GET ACTIVE SESSIONS COUNT
+    public int getActiveSessionsCount(String realmName) {
         try {
-            // Utiliser les sessions client pour obtenir le nombre de sessions actives
-            var clientStats = keycloak.realms().realm(realmName).getClientSessionStats();
-            return clientStats != null ? clientStats.size() : 0;
+            // Sessions distinctes de l'inventaire (getClientSessionStats ne donne que les clients)
+            return sessionInventoryService.getActiveSessionsCount(realmName);
         } catch (Exception e) {
             return 0;
         }
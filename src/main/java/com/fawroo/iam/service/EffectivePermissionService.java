@@ -0,0 +1,463 @@
+package com.fawroo.iam.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.admin.client.resource.RealmResource;
+import org.keycloak.representations.idm.AdminEventRepresentation;
+import org.keycloak.representations.idm.ClientMappingsRepresentation;
+import org.keycloak.representations.idm.ClientRepresentation;
+import org.keycloak.representations.idm.GroupRepresentation;
+import org.keycloak.representations.idm.MappingsRepresentation;
+import org.keycloak.representations.idm.RoleRepresentation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.fawroo.iam.event.EventsIngestedEvent;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * Rôles effectifs d'un utilisateur : mappings directs + groupes (et leurs ancêtres),
+ * composites développés. Le graphe des rôles est compilé par realm en BitSet
+ * (un bit par rôle, fermeture transitive pré-calculée) ; un utilisateur ne coûte
+ * ensuite que ses mappings directs et ses groupes, mis en cache.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class EffectivePermissionService {
+
+    private static final Set<String> GRAPH_RESOURCE_TYPES = Set.of("REALM_ROLE", "CLIENT_ROLE", "GROUP", "CLIENT",
+            "REALM_ROLE_MAPPING", "CLIENT_ROLE_MAPPING");
+    private static final Set<String> USER_RESOURCE_TYPES = Set.of("USER", "GROUP_MEMBERSHIP",
+            "REALM_ROLE_MAPPING", "CLIENT_ROLE_MAPPING");
+
+    private final Keycloak keycloak;
+    private final KeycloakTaskRunner taskRunner;
+    private final ClientIdResolver clientIdResolver;
+
+    @Value("${iam.permissions.graph-ttl-minutes:15}")
+    private long graphTtlMinutes;
+
+    @Value("${iam.permissions.user-ttl-minutes:5}")
+    private long userTtlMinutes;
+
+    @Value("${iam.permissions.max-cached-users:50000}")
+    private int maxCachedUsers;
+
+    @Value("${iam.permissions.parallelism:8}")
+    private int parallelism;
+
+    private final Map<String, RoleGraph> graphs = new ConcurrentHashMap<>();
+    private final Map<String, Object> graphLocks = new ConcurrentHashMap<>();
+    private final Map<String, UserGrants> users = new ConcurrentHashMap<>();
+
+    // GET EFFECTIVE PERMISSIONS
+    public Map<String, Object> getEffectivePermissions(String realmName, String userId) {
+        try {
+            RoleGraph graph = getRoleGraph(realmName);
+            UserGrants grants = getUserGrants(realmName, userId);
+            BitSet roles = grants.effectiveRoles(graph);
+
+            List<String> realmRoles = new ArrayList<>();
+            Map<String, List<String>> clientRoles = new TreeMap<>();
+            for (int bit = roles.nextSetBit(0); bit >= 0; bit = roles.nextSetBit(bit + 1)) {
+                RoleRef role = graph.roles.get(bit);
+                if (role.clientId == null) {
+                    realmRoles.add(role.name);
+                } else {
+                    clientRoles.computeIfAbsent(role.clientId, k -> new ArrayList<>()).add(role.name);
+                }
+            }
+            realmRoles.sort(null);
+            clientRoles.values().forEach(names -> names.sort(null));
+
+            Map<String, Object> permissions = new LinkedHashMap<>();
+            permissions.put("userId", userId);
+            permissions.put("realmRoles", realmRoles);
+            permissions.put("clientRoles", clientRoles);
+            permissions.put("groups", graph.groupNames(grants.groupIds));
+            permissions.put("groupPaths", graph.groupPaths(grants.groupIds));
+            permissions.put("roleCount", roles.cardinality());
+            permissions.put("graphBuiltAt", graph.builtAt);
+            return permissions;
+        } catch (Exception e) {
+            log.error("Error resolving effective permissions for user {}: {}", userId, e.getMessage());
+            throw new RuntimeException("Failed to resolve effective permissions: " + e.getMessage());
+        }
+    }
+
+    // HAS ROLE (realm role, or client role when clientId is set)
+    public boolean hasRole(String realmName, String userId, String clientId, String roleName) {
+        RoleGraph graph = getRoleGraph(realmName);
+        Integer bit = graph.bitOf(clientId, roleName);
+        if (bit == null) {
+            return false;
+        }
+        return getUserGrants(realmName, userId).effectiveRoles(graph).get(bit);
+    }
+
+    // GET ROLE GRAPH (compiled once per realm, rebuilt when stale)
+    public RoleGraph getRoleGraph(String realmName) {
+        RoleGraph graph = graphs.get(realmName);
+        if (graph != null && !graph.isExpired(graphTtlMinutes)) {
+            return graph;
+        }
+        synchronized (graphLocks.computeIfAbsent(realmName, k -> new Object())) {
+            graph = graphs.get(realmName);
+            if (graph == null || graph.isExpired(graphTtlMinutes)) {
+                graph = buildRoleGraph(realmName);
+                graphs.put(realmName, graph);
+            }
+            return graph;
+        }
+    }
+
+    // GET USER GRANTS (direct role mappings + group memberships)
+    public UserGrants getUserGrants(String realmName, String userId) {
+        String key = realmName + "/" + userId;
+        UserGrants grants = users.get(key);
+        if (grants != null && !grants.isExpired(userTtlMinutes)) {
+            return grants;
+        }
+        var userResource = keycloak.realm(realmName).users().get(userId);
+        MappingsRepresentation mappings = userResource.roles().getAll();
+        List<String> groupIds = userResource.groups().stream().map(GroupRepresentation::getId).toList();
+        grants = new UserGrants(userId, roleIds(mappings), groupIds);
+        // Au-delà du plafond, les droits sont calculés sans être mis en cache
+        if (users.size() < maxCachedUsers || users.containsKey(key)) {
+            users.put(key, grants);
+        }
+        return grants;
+    }
+
+    // INVALIDATE USER
+    public void invalidateUser(String realmName, String userId) {
+        users.remove(realmName + "/" + userId);
+    }
+
+    // INVALIDATE REALM GRAPH
+    public void invalidateRealm(String realmName) {
+        RoleGraph graph = graphs.get(realmName);
+        if (graph != null) {
+            graph.stale = true;
+        }
+    }
+
+    // EVICT EXPIRED USER GRANTS
+    @Scheduled(fixedDelayString = "${iam.permissions.eviction-interval-ms:60000}")
+    public void evictExpiredUsers() {
+        users.values().removeIf(grants -> grants.isExpired(userTtlMinutes));
+    }
+
+    @EventListener
+    public void onEventsIngested(EventsIngestedEvent ingested) {
+        String realmName = ingested.getRealmName();
+        for (AdminEventRepresentation event : ingested.getAdminEvents()) {
+            String path = event.getResourcePath() != null ? event.getResourcePath() : "";
+            if (path.startsWith("users/")) {
+                if (USER_RESOURCE_TYPES.contains(event.getResourceType())) {
+                    int end = path.indexOf('/', 6);
+                    invalidateUser(realmName, end < 0 ? path.substring(6) : path.substring(6, end));
+                }
+            } else if (GRAPH_RESOURCE_TYPES.contains(event.getResourceType())) {
+                invalidateRealm(realmName);
+            }
+        }
+    }
+
+    // ========== GRAPH COMPILATION ==========
+
+    private RoleGraph buildRoleGraph(String realmName) {
+        long start = System.currentTimeMillis();
+        RealmResource realm = keycloak.realm(realmName);
+
+        List<RoleRef> roles = new ArrayList<>();
+        for (RoleRepresentation role : realm.roles().list()) {
+            roles.add(new RoleRef(role.getId(), null, role.getName(), Boolean.TRUE.equals(role.isComposite())));
+        }
+        List<ClientRepresentation> clients = realm.clients().findAll();
+        clientIdResolver.registerAll(realmName, clients);
+        List<List<RoleRepresentation>> clientRoles = taskRunner.mapAll(clients, parallelism,
+                client -> realm.clients().get(client.getId()).roles().list());
+        for (int i = 0; i < clients.size(); i++) {
+            for (RoleRepresentation role : clientRoles.get(i)) {
+                roles.add(new RoleRef(role.getId(), clients.get(i).getClientId(), role.getName(),
+                        Boolean.TRUE.equals(role.isComposite())));
+            }
+        }
+        RoleGraph graph = new RoleGraph(roles);
+
+        // Arcs composites, puis fermeture transitive
+        List<RoleRef> composites = roles.stream().filter(role -> role.composite).toList();
+        List<Set<RoleRepresentation>> children = taskRunner.mapAll(composites, parallelism,
+                role -> realm.rolesById().getRoleComposites(role.id));
+        List<BitSet> edges = new ArrayList<>(roles.size());
+        for (int i = 0; i < roles.size(); i++) {
+            edges.add(new BitSet());
+        }
+        for (int i = 0; i < composites.size(); i++) {
+            BitSet targets = edges.get(graph.bitById.get(composites.get(i).id));
+            for (RoleRepresentation child : children.get(i)) {
+                Integer bit = graph.bitById.get(child.getId());
+                if (bit != null) {
+                    targets.set(bit);
+                }
+            }
+        }
+        for (int i = 0; i < roles.size(); i++) {
+            graph.closure[i] = reachable(i, edges);
+        }
+
+        // Groupes : rôles mappés + ceux des ancêtres, développés
+        List<GroupRepresentation> topLevel = realm.groups().groups(null, null, null, false);
+        Deque<GroupRepresentation> pending = new ArrayDeque<>(topLevel);
+        Map<String, BitSet> inherited = new HashMap<>();
+        while (!pending.isEmpty()) {
+            GroupRepresentation group = pending.pop();
+            BitSet effective = (BitSet) inherited.getOrDefault(group.getId(), new BitSet()).clone();
+            if (group.getRealmRoles() != null) {
+                group.getRealmRoles().forEach(name -> graph.orClosure(effective, graph.bitOf(null, name)));
+            }
+            if (group.getClientRoles() != null) {
+                group.getClientRoles().forEach((clientId, names) ->
+                        names.forEach(name -> graph.orClosure(effective, graph.bitOf(clientId, name))));
+            }
+            graph.groupRoles.put(group.getId(), effective);
+            graph.groupNames.put(group.getId(), group.getName());
+            graph.groupPaths.put(group.getId(), group.getPath());
+            if (group.getSubGroups() != null) {
+                for (GroupRepresentation child : group.getSubGroups()) {
+                    inherited.put(child.getId(), effective);
+                    pending.push(child);
+                }
+            }
+        }
+
+        log.info("Role graph for realm {} compiled: {} roles, {} composites, {} groups in {} ms", realmName,
+                roles.size(), composites.size(), graph.groupRoles.size(), System.currentTimeMillis() - start);
+        return graph;
+    }
+
+    private BitSet reachable(int start, List<BitSet> edges) {
+        BitSet visited = new BitSet();
+        Deque<Integer> stack = new ArrayDeque<>();
+        stack.push(start);
+        while (!stack.isEmpty()) {
+            int current = stack.pop();
+            if (visited.get(current)) {
+                continue;
+            }
+            visited.set(current);
+            BitSet next = edges.get(current);
+            for (int bit = next.nextSetBit(0); bit >= 0; bit = next.nextSetBit(bit + 1)) {
+                if (!visited.get(bit)) {
+                    stack.push(bit);
+                }
+            }
+        }
+        return visited;
+    }
+
+    private List<String> roleIds(MappingsRepresentation mappings) {
+        List<String> ids = new ArrayList<>();
+        if (mappings.getRealmMappings() != null) {
+            mappings.getRealmMappings().forEach(role -> ids.add(role.getId()));
+        }
+        if (mappings.getClientMappings() != null) {
+            for (ClientMappingsRepresentation client : mappings.getClientMappings().values()) {
+                if (client.getMappings() != null) {
+                    client.getMappings().forEach(role -> ids.add(role.getId()));
+                }
+            }
+        }
+        return ids;
+    }
+
+    // ========== SNAPSHOT STRUCTURES ==========
+
+    public record RoleRef(String id, String clientId, String name, boolean composite) {
+    }
+
+    public static class RoleGraph {
+        private final List<RoleRef> roles;
+        private final Map<String, Integer> bitById = new HashMap<>();
+        private final Map<String, Integer> bitByKey = new HashMap<>();
+        private final BitSet[] closure;
+        private final Map<String, BitSet> groupRoles = new HashMap<>();
+        private final Map<String, String> groupNames = new HashMap<>();
+        private final Map<String, String> groupPaths = new HashMap<>();
+        private final long builtAt = System.currentTimeMillis();
+        private volatile boolean stale;
+
+        private RoleGraph(List<RoleRef> roles) {
+            this.roles = roles;
+            this.closure = new BitSet[roles.size()];
+            for (int i = 0; i < roles.size(); i++) {
+                RoleRef role = roles.get(i);
+                bitById.put(role.id, i);
+                bitByKey.put(key(role.clientId, role.name), i);
+            }
+        }
+
+        private static String key(String clientId, String roleName) {
+            return clientId == null ? roleName : clientId + "\u0000" + roleName;
+        }
+
+        public Integer bitOf(String clientId, String roleName) {
+            return bitByKey.get(key(clientId, roleName));
+        }
+
+        public Integer bitOfRoleId(String roleId) {
+            return bitById.get(roleId);
+        }
+
+        public List<RoleRef> roles() {
+            return roles;
+        }
+
+        // Rôles contenus dans le rôle donné par composition (lui-même inclus)
+        public List<RoleRef> rolesGrantedBy(Integer bit) {
+            List<RoleRef> granted = new ArrayList<>();
+            if (bit != null) {
+                BitSet reachable = closure[bit];
+                for (int i = reachable.nextSetBit(0); i >= 0; i = reachable.nextSetBit(i + 1)) {
+                    granted.add(roles.get(i));
+                }
+            }
+            return granted;
+        }
+
+        // Rôles dont la fermeture contient le rôle donné (lui-même inclus)
+        public List<RoleRef> rolesGranting(Integer bit) {
+            List<RoleRef> granting = new ArrayList<>();
+            if (bit != null) {
+                for (int i = 0; i < closure.length; i++) {
+                    if (closure[i].get(bit)) {
+                        granting.add(roles.get(i));
+                    }
+                }
+            }
+            return granting;
+        }
+
+        // Groupes dont les rôles effectifs (hérités des ancêtres compris) contiennent le rôle donné
+        public List<String> groupsGranting(Integer bit) {
+            List<String> granting = new ArrayList<>();
+            if (bit != null) {
+                groupRoles.forEach((groupId, roles) -> {
+                    if (roles.get(bit)) {
+                        granting.add(groupId);
+                    }
+                });
+            }
+            return granting;
+        }
+
+        public String groupPath(String groupId) {
+            return groupPaths.get(groupId);
+        }
+
+        public Collection<String> groupIds() {
+            return groupPaths.keySet();
+        }
+
+        public long getBuiltAt() {
+            return builtAt;
+        }
+
+        private void orClosure(BitSet target, Integer bit) {
+            if (bit != null) {
+                target.or(closure[bit]);
+            }
+        }
+
+        private List<String> groupNames(List<String> groupIds) {
+            return lookup(groupNames, groupIds);
+        }
+
+        private List<String> groupPaths(List<String> groupIds) {
+            return lookup(groupPaths, groupIds);
+        }
+
+        // Un nom par groupe d'appartenance (deux groupes homonymes restent deux entrées), triés
+        private static List<String> lookup(Map<String, String> values, List<String> groupIds) {
+            List<String> found = new ArrayList<>();
+            groupIds.forEach(id -> {
+                String value = values.get(id);
+                if (value != null) {
+                    found.add(value);
+                }
+            });
+            found.sort(null);
+            return found;
+        }
+
+        private boolean isExpired(long ttlMinutes) {
+            return stale || System.currentTimeMillis() - builtAt > ttlMinutes * 60_000L;
+        }
+    }
+
+    public static class UserGrants {
+        private final String userId;
+        private final List<String> directRoleIds;
+        private final List<String> groupIds;
+        private final long loadedAt = System.currentTimeMillis();
+        // Rôles effectifs mémorisés pour la dernière version du graphe utilisée
+        private volatile RoleGraph evaluatedGraph;
+        private volatile BitSet evaluatedRoles;
+
+        private UserGrants(String userId, List<String> directRoleIds, List<String> groupIds) {
+            this.userId = userId;
+            this.directRoleIds = directRoleIds;
+            this.groupIds = groupIds;
+        }
+
+        public String getUserId() {
+            return userId;
+        }
+
+        private boolean isExpired(long ttlMinutes) {
+            return System.currentTimeMillis() - loadedAt > ttlMinutes * 60_000L;
+        }
+
+        public List<String> getGroupIds() {
+            return groupIds;
+        }
+
+        public BitSet effectiveRoles(RoleGraph graph) {
+            BitSet roles = evaluatedRoles;
+            if (evaluatedGraph == graph && roles != null) {
+                return roles;
+            }
+            roles = new BitSet();
+            for (String roleId : directRoleIds) {
+                graph.orClosure(roles, graph.bitOfRoleId(roleId));
+            }
+            for (String groupId : groupIds) {
+                BitSet groupRoles = graph.groupRoles.get(groupId);
+                if (groupRoles != null) {
+                    roles.or(groupRoles);
+                }
+            }
+            evaluatedRoles = roles;
+            evaluatedGraph = graph;
+            return roles;
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.fawroo.iam.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.admin.client.resource.RealmResource;
+import org.keycloak.representations.idm.AdminEventRepresentation;
+import org.keycloak.representations.idm.AuthDetailsRepresentation;
+import org.keycloak.representations.idm.EventRepresentation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fawroo.iam.model.dto.EventPage;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class EventExportService {
+
+    public static final String FORMAT_NDJSON = "ndjson";
+    public static final String FORMAT_CSV = "csv";
+
+    private static final String LOGIN_CSV_HEADER = "time,type,realmId,clientId,userId,sessionId,ipAddress,error,details";
+    private static final String ADMIN_CSV_HEADER =
+            "time,operationType,resourceType,resourcePath,authRealmId,authClientId,authUserId,authIpAddress,error";
+
+    private final Keycloak keycloak;
+    private final EventService eventService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${iam.events.export.page-size:1000}")
+    private int pageSize;
+
+    // VALIDATE EXPORT REQUEST (before the response is committed)
+    public void validateExportRequest(Map<String, String> params) {
+        String format = params.getOrDefault("format", FORMAT_NDJSON).toLowerCase();
+        if (!FORMAT_NDJSON.equals(format) && !FORMAT_CSV.equals(format)) {
+            throw new IllegalArgumentException("Unsupported export format: " + format);
+        }
+        if ("keycloak".equalsIgnoreCase(params.get("source"))) {
+            requiredDate(params, "dateFrom");
+        }
+    }
+
+    /*
+     * Exporte les événements page par page directement dans le flux de réponse.
+     * source=store : pagination keyset (time, id) sur la base locale ;
+     * source=keycloak : un jour à la fois, pour que l'offset first/max reste borné par le volume d'une journée.
+     */
+    public long exportEvents(String realmName, Map<String, String> params, OutputStream outputStream)
+            throws IOException {
+        validateExportRequest(params);
+        String format = params.getOrDefault("format", FORMAT_NDJSON).toLowerCase();
+        boolean admin = "admin".equalsIgnoreCase(params.getOrDefault("kind", "login"));
+        boolean fromKeycloak = "keycloak".equalsIgnoreCase(params.getOrDefault("source", "store"));
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        if (FORMAT_CSV.equals(format)) {
+            writer.write(admin ? ADMIN_CSV_HEADER : LOGIN_CSV_HEADER);
+            writer.write('\n');
+        }
+
+        long exported;
+        if (fromKeycloak) {
+            exported = admin ? exportAdminFromKeycloak(realmName, params, format, writer)
+                    : exportLoginFromKeycloak(realmName, params, format, writer);
+        } else {
+            exported = admin ? exportAdminFromStore(realmName, params, format, writer)
+                    : exportLoginFromStore(realmName, params, format, writer);
+        }
+        writer.flush();
+        log.info("Exported {} {} events for realm {} as {}", exported, admin ? "admin" : "login", realmName, format);
+        return exported;
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private long exportLoginFromStore(String realmName, Map<String, String> params, String format, Writer writer)
+            throws IOException {
+        Map<String, String> pageParams = new HashMap<>(params);
+        pageParams.put("max", String.valueOf(pageSize));
+        pageParams.remove("cursor");
+        long count = 0;
+        while (true) {
+            EventPage<EventRepresentation> page = eventService.searchStoredEvents(realmName, pageParams);
+            for (EventRepresentation event : page.getEvents()) {
+                writeLoginEvent(event, format, writer);
+            }
+            count += page.getEvents().size();
+            writer.flush();
+            if (page.getNextCursor() == null) {
+                return count;
+            }
+            pageParams.put("cursor", page.getNextCursor());
+        }
+    }
+
+    private long exportAdminFromStore(String realmName, Map<String, String> params, String format, Writer writer)
+            throws IOException {
+        Map<String, String> pageParams = new HashMap<>(params);
+        pageParams.put("max", String.valueOf(pageSize));
+        pageParams.remove("cursor");
+        long count = 0;
+        while (true) {
+            EventPage<AdminEventRepresentation> page = eventService.searchStoredAdminEvents(realmName, pageParams);
+            for (AdminEventRepresentation event : page.getEvents()) {
+                writeAdminEvent(event, format, writer);
+            }
+            count += page.getEvents().size();
+            writer.flush();
+            if (page.getNextCursor() == null) {
+                return count;
+            }
+            pageParams.put("cursor", page.getNextCursor());
+        }
+    }
+
+    private long exportLoginFromKeycloak(String realmName, Map<String, String> params, String format,
+            Writer writer) throws IOException {
+        RealmResource realmResource = keycloak.realms().realm(realmName);
+        List<String> types = params.get("type") != null ? List.of(params.get("type").split(",")) : null;
+        long count = 0;
+        // Du jour le plus récent au plus ancien, comme l'ordre natif de Keycloak
+        for (LocalDate day = requiredDate(params, "dateTo"); !day.isBefore(requiredDate(params, "dateFrom"));
+                day = day.minusDays(1)) {
+            String date = day.toString();
+            for (int first = 0;; first += pageSize) {
+                List<EventRepresentation> page = realmResource.getEvents(types, params.get("client"),
+                        params.get("user"), date, date, params.get("ipAddress"), first, pageSize);
+                for (EventRepresentation event : page) {
+                    writeLoginEvent(event, format, writer);
+                }
+                count += page.size();
+                writer.flush();
+                if (page.size() < pageSize) {
+                    break;
+                }
+            }
+        }
+        return count;
+    }
+
+    private long exportAdminFromKeycloak(String realmName, Map<String, String> params, String format,
+            Writer writer) throws IOException {
+        RealmResource realmResource = keycloak.realms().realm(realmName);
+        List<String> operationTypes = params.get("operationType") != null
+                ? List.of(params.get("operationType").split(","))
+                : null;
+        List<String> resourceTypes = params.get("resourceType") != null
+                ? List.of(params.get("resourceType").split(","))
+                : null;
+        long count = 0;
+        for (LocalDate day = requiredDate(params, "dateTo"); !day.isBefore(requiredDate(params, "dateFrom"));
+                day = day.minusDays(1)) {
+            String date = day.toString();
+            for (int first = 0;; first += pageSize) {
+                List<AdminEventRepresentation> page = realmResource.getAdminEvents(operationTypes,
+                        params.get("authRealm"), params.get("authClient"), params.get("authUser"),
+                        params.get("authIpAddress"), params.get("resourcePath"), resourceTypes, date, date, first,
+                        pageSize);
+                for (AdminEventRepresentation event : page) {
+                    writeAdminEvent(event, format, writer);
+                }
+                count += page.size();
+                writer.flush();
+                if (page.size() < pageSize) {
+                    break;
+                }
+            }
+        }
+        return count;
+    }
+
+    private void writeLoginEvent(EventRepresentation event, String format, Writer writer) throws IOException {
+        if (FORMAT_NDJSON.equals(format)) {
+            writer.write(objectMapper.writeValueAsString(event));
+        } else {
+            writeCsvRow(writer, isoTime(event.getTime()), event.getType(), event.getRealmId(), event.getClientId(),
+                    event.getUserId(), event.getSessionId(), event.getIpAddress(), event.getError(),
+                    event.getDetails() != null ? objectMapper.writeValueAsString(event.getDetails()) : null);
+        }
+        writer.write('\n');
+    }
+
+    private void writeAdminEvent(AdminEventRepresentation event, String format, Writer writer) throws IOException {
+        if (FORMAT_NDJSON.equals(format)) {
+            writer.write(objectMapper.writeValueAsString(event));
+        } else {
+            AuthDetailsRepresentation auth = event.getAuthDetails() != null ? event.getAuthDetails()
+                    : new AuthDetailsRepresentation();
+            writeCsvRow(writer, isoTime(event.getTime()), event.getOperationType(), event.getResourceType(),
+                    event.getResourcePath(), auth.getRealmId(), auth.getClientId(), auth.getUserId(),
+                    auth.getIpAddress(), event.getError());
+        }
+        writer.write('\n');
+    }
+
+    private void writeCsvRow(Writer writer, String... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            String value = values[i];
+            if (value == null) {
+                continue;
+            }
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0
+                    || value.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(value);
+            }
+        }
+    }
+
+    private String isoTime(long epochMillis) {
+        return Instant.ofEpochMilli(epochMillis).toString();
+    }
+
+    private LocalDate requiredDate(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null || value.isBlank()) {
+            if ("dateTo".equals(name)) {
+                return LocalDate.now(ZoneOffset.UTC);
+            }
+            throw new IllegalArgumentException("Parameter '" + name + "' (yyyy-MM-dd) is required for Keycloak export");
+        }
+        return LocalDate.parse(value);
+    }
+}
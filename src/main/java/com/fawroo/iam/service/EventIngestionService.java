@@ -0,0 +1,323 @@
+package com.fawroo.iam.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.admin.client.resource.RealmResource;
+import org.keycloak.representations.idm.AdminEventRepresentation;
+import org.keycloak.representations.idm.AuthDetailsRepresentation;
+import org.keycloak.representations.idm.EventRepresentation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.DigestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fawroo.iam.event.EventsIngestedEvent;
+import com.fawroo.iam.model.entity.EventIngestionCursor;
+import com.fawroo.iam.model.entity.StoredAdminEvent;
+import com.fawroo.iam.model.entity.StoredEvent;
+import com.fawroo.iam.repository.EventIngestionCursorRepository;
+import com.fawroo.iam.repository.StoredAdminEventRepository;
+import com.fawroo.iam.repository.StoredEventRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class EventIngestionService {
+
+    private final Keycloak keycloak;
+    private final RealmService realmService;
+    private final ObjectMapper objectMapper;
+    private final StoredEventRepository eventRepository;
+    private final StoredAdminEventRepository adminEventRepository;
+    private final EventIngestionCursorRepository cursorRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Un seul cycle d'ingestion à la fois par realm (planificateur + déclenchement manuel)
+    private final Set<String> runningRealms = ConcurrentHashMap.newKeySet();
+
+    // Realms ajoutés à la volée (abonnés SSE) en plus de la liste configurée
+    private final Set<String> watchedRealms = ConcurrentHashMap.newKeySet();
+
+    @Value("${iam.events.ingestion.enabled:true}")
+    private boolean enabled;
+
+    @Value("${iam.events.ingestion.realms:}")
+    private List<String> realms;
+
+    @Value("${iam.events.ingestion.page-size:500}")
+    private int pageSize;
+
+    // Profondeur de l'historique repris lors de la première ingestion d'un realm
+    @Value("${iam.events.ingestion.backfill-days:7}")
+    private int backfillDays;
+
+    // INGEST ALL REALMS
+    @Scheduled(fixedDelayString = "${iam.events.ingestion.interval-ms:30000}",
+            initialDelayString = "${iam.events.ingestion.initial-delay-ms:30000}")
+    public void ingestAll() {
+        if (!enabled) {
+            return;
+        }
+        Set<String> targets = new LinkedHashSet<>(realmService.getRealmNames(realms));
+        targets.addAll(watchedRealms);
+        for (String realmName : targets) {
+            try {
+                ingestRealm(realmName);
+            } catch (Exception e) {
+                log.warn("Event ingestion failed for realm {}: {}", realmName, e.getMessage());
+            }
+        }
+    }
+
+    // WATCH REALM (ingest it even when it is not in the configured list)
+    public void watchRealm(String realmName) {
+        if (realms != null && !realms.isEmpty() && !realms.contains(realmName) && watchedRealms.add(realmName)) {
+            log.info("Realm {} added to event ingestion", realmName);
+        }
+    }
+
+    // UNWATCH REALM (last subscriber gone; configured realms are not affected)
+    public void unwatchRealm(String realmName) {
+        if (watchedRealms.remove(realmName)) {
+            log.info("Realm {} removed from event ingestion", realmName);
+        }
+    }
+
+    // INGEST ONE REALM (login + admin events)
+    public Map<String, Object> ingestRealm(String realmName) {
+        if (!runningRealms.add(realmName)) {
+            throw new RuntimeException("Event ingestion already running for realm: " + realmName);
+        }
+        try {
+            RealmResource realmResource = keycloak.realms().realm(realmName);
+            int loginEvents = ingestLoginEvents(realmName, realmResource);
+            int adminEvents = ingestAdminEvents(realmName, realmResource);
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("realmName", realmName);
+            result.put("loginEventsIngested", loginEvents);
+            result.put("adminEventsIngested", adminEvents);
+            result.put("timestamp", Instant.now());
+            if (loginEvents + adminEvents > 0) {
+                log.info("Ingested {} login and {} admin events for realm {}", loginEvents, adminEvents, realmName);
+            }
+            return result;
+        } finally {
+            runningRealms.remove(realmName);
+        }
+    }
+
+    // GET INGESTION STATUS
+    public Map<String, Object> getIngestionStatus(String realmName) {
+        try {
+            Map<String, Object> status = new LinkedHashMap<>();
+            status.put("realmName", realmName);
+            status.put("enabled", enabled);
+            status.put("running", runningRealms.contains(realmName));
+            status.put("storedLoginEvents", eventRepository.countByRealmName(realmName));
+            status.put("storedAdminEvents", adminEventRepository.countByRealmName(realmName));
+            for (EventIngestionCursor cursor : cursorRepository.findByRealmName(realmName)) {
+                Map<String, Object> cursorInfo = new LinkedHashMap<>();
+                cursorInfo.put("lastEventTime", cursor.getLastEventTime());
+                cursorInfo.put("lastRunAt", cursor.getLastRunAt());
+                cursorInfo.put("totalIngested", cursor.getTotalIngested());
+                status.put(cursor.getStream().toLowerCase() + "Cursor", cursorInfo);
+            }
+            return status;
+        } catch (Exception e) {
+            log.error("Error getting ingestion status for {}: {}", realmName, e.getMessage());
+            throw new RuntimeException("Failed to get ingestion status: " + e.getMessage());
+        }
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private int ingestLoginEvents(String realmName, RealmResource realmResource) {
+        return ingest(realmName, EventIngestionCursor.LOGIN,
+                (first, dateFrom) -> realmResource.getEvents(null, null, null, dateFrom, null, null, first, pageSize),
+                EventRepresentation::getTime,
+                batch -> storeLoginEvents(realmName, batch),
+                stored -> eventPublisher.publishEvent(EventsIngestedEvent.login(realmName, stored)));
+    }
+
+    private int ingestAdminEvents(String realmName, RealmResource realmResource) {
+        return ingest(realmName, EventIngestionCursor.ADMIN,
+                (first, dateFrom) -> realmResource.getAdminEvents(null, null, null, null, null, null, null,
+                        dateFrom, null, first, pageSize),
+                AdminEventRepresentation::getTime,
+                batch -> storeAdminEvents(realmName, batch),
+                stored -> eventPublisher.publishEvent(EventsIngestedEvent.admin(realmName, stored)));
+    }
+
+    /*
+     * Keycloak renvoie les événements du plus récent au plus ancien. On pagine depuis le début
+     * jusqu'à atteindre le curseur ; chaque page est écrite immédiatement (mémoire constante),
+     * les doublons (bornes, décalages de pagination) sont écartés par empreinte.
+     * Les événements réellement nouveaux sont publiés (EventsIngestedEvent) une fois la transaction validée.
+     */
+    private <T> int ingest(String realmName, String stream, PageFetcher<T> fetcher, Function<T, Long> timeOf,
+            Function<List<T>, List<T>> store, Consumer<List<T>> onStored) {
+        EventIngestionCursor cursor = cursorRepository.findById(EventIngestionCursor.cursorId(realmName, stream))
+                .orElseGet(() -> new EventIngestionCursor(realmName, stream,
+                        Instant.now().minus(backfillDays, ChronoUnit.DAYS).toEpochMilli()));
+        long since = cursor.getLastEventTime();
+        // Le filtre dateFrom de Keycloak est au jour près : on prend un jour de marge et on filtre ensuite
+        String dateFrom = LocalDate.ofInstant(Instant.ofEpochMilli(since), ZoneOffset.UTC).minusDays(1).toString();
+
+        long newest = since;
+        int ingested = 0;
+        int first = 0;
+        while (true) {
+            List<T> page = fetcher.fetch(first, dateFrom);
+            if (page == null || page.isEmpty()) {
+                break;
+            }
+            List<T> fresh = new ArrayList<>(page.size());
+            boolean reachedCursor = false;
+            for (T event : page) {
+                long time = timeOf.apply(event);
+                if (time < since) {
+                    reachedCursor = true;
+                    break;
+                }
+                newest = Math.max(newest, time);
+                fresh.add(event);
+            }
+            if (!fresh.isEmpty()) {
+                List<T> stored = transactionTemplate.execute(status -> store.apply(fresh));
+                if (stored != null && !stored.isEmpty()) {
+                    ingested += stored.size();
+                    onStored.accept(stored);
+                }
+            }
+            if (reachedCursor || page.size() < pageSize) {
+                break;
+            }
+            first += pageSize;
+        }
+
+        cursor.setLastEventTime(newest);
+        cursor.setLastRunAt(Instant.now());
+        cursor.setTotalIngested(cursor.getTotalIngested() + ingested);
+        cursorRepository.save(cursor);
+        return ingested;
+    }
+
+    private List<EventRepresentation> storeLoginEvents(String realmName, List<EventRepresentation> events) {
+        Map<String, StoredEvent> byFingerprint = new LinkedHashMap<>();
+        Map<String, EventRepresentation> sources = new LinkedHashMap<>();
+        for (EventRepresentation event : events) {
+            StoredEvent stored = toStoredEvent(realmName, event);
+            if (byFingerprint.putIfAbsent(stored.getFingerprint(), stored) == null) {
+                sources.put(stored.getFingerprint(), event);
+            }
+        }
+        for (String existing : eventRepository.findExistingFingerprints(realmName, byFingerprint.keySet())) {
+            byFingerprint.remove(existing);
+            sources.remove(existing);
+        }
+        eventRepository.saveAll(byFingerprint.values());
+        return new ArrayList<>(sources.values());
+    }
+
+    private List<AdminEventRepresentation> storeAdminEvents(String realmName, List<AdminEventRepresentation> events) {
+        Map<String, StoredAdminEvent> byFingerprint = new LinkedHashMap<>();
+        Map<String, AdminEventRepresentation> sources = new LinkedHashMap<>();
+        for (AdminEventRepresentation event : events) {
+            StoredAdminEvent stored = toStoredAdminEvent(realmName, event);
+            if (byFingerprint.putIfAbsent(stored.getFingerprint(), stored) == null) {
+                sources.put(stored.getFingerprint(), event);
+            }
+        }
+        for (String existing : adminEventRepository.findExistingFingerprints(realmName, byFingerprint.keySet())) {
+            byFingerprint.remove(existing);
+            sources.remove(existing);
+        }
+        adminEventRepository.saveAll(byFingerprint.values());
+        return new ArrayList<>(sources.values());
+    }
+
+    private StoredEvent toStoredEvent(String realmName, EventRepresentation event) {
+        StoredEvent stored = new StoredEvent();
+        stored.setRealmName(realmName);
+        stored.setTime(event.getTime());
+        stored.setType(event.getType());
+        stored.setClientId(event.getClientId());
+        stored.setUserId(event.getUserId());
+        stored.setSessionId(event.getSessionId());
+        stored.setIpAddress(event.getIpAddress());
+        stored.setError(event.getError());
+        stored.setDetails(writeJson(event.getDetails() != null ? new TreeMap<>(event.getDetails()) : null));
+        stored.setFingerprint(fingerprint(event.getTime(), event.getType(), event.getClientId(), event.getUserId(),
+                event.getSessionId(), event.getIpAddress(), event.getError(), stored.getDetails()));
+        return stored;
+    }
+
+    private StoredAdminEvent toStoredAdminEvent(String realmName, AdminEventRepresentation event) {
+        StoredAdminEvent stored = new StoredAdminEvent();
+        stored.setRealmName(realmName);
+        stored.setTime(event.getTime());
+        stored.setOperationType(event.getOperationType());
+        stored.setResourceType(event.getResourceType());
+        stored.setResourcePath(event.getResourcePath());
+        stored.setError(event.getError());
+        stored.setRepresentation(event.getRepresentation());
+        AuthDetailsRepresentation auth = event.getAuthDetails();
+        if (auth != null) {
+            stored.setAuthRealmId(auth.getRealmId());
+            stored.setAuthClientId(auth.getClientId());
+            stored.setAuthUserId(auth.getUserId());
+            stored.setAuthIpAddress(auth.getIpAddress());
+        }
+        stored.setFingerprint(fingerprint(event.getTime(), event.getOperationType(), event.getResourceType(),
+                event.getResourcePath(), stored.getAuthClientId(), stored.getAuthUserId(),
+                stored.getAuthIpAddress(), event.getError(), event.getRepresentation()));
+        return stored;
+    }
+
+    private String writeJson(Object value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private String fingerprint(Object... parts) {
+        StringBuilder builder = new StringBuilder();
+        for (Object part : parts) {
+            builder.append(part).append('|');
+        }
+        return DigestUtils.md5DigestAsHex(builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @FunctionalInterface
+    private interface PageFetcher<T> {
+        List<T> fetch(int first, String dateFrom);
+    }
+}
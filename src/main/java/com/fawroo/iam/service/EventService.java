@@ -1,14 +1,29 @@
 package com.fawroo.iam.service;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
 import org.keycloak.admin.client.Keycloak;
 import org.keycloak.representations.idm.AdminEventRepresentation;
+import org.keycloak.representations.idm.AuthDetailsRepresentation;
 import org.keycloak.representations.idm.EventRepresentation;
 import org.keycloak.representations.idm.RealmEventsConfigRepresentation;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fawroo.iam.model.dto.EventPage;
+import com.fawroo.iam.model.entity.StoredAdminEvent;
+import com.fawroo.iam.model.entity.StoredEvent;
+import com.fawroo.iam.repository.StoredAdminEventRepository;
+import com.fawroo.iam.repository.StoredEventRepository;
+
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -17,7 +32,14 @@ import lombok.extern.slf4j.Slf4j;
 @RequiredArgsConstructor
 public class EventService {
 
+    private static final int MAX_STORED_PAGE_SIZE = 1000;
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Order.desc("time"), Sort.Order.desc("id"));
+
     private final Keycloak keycloak;
+    private final ObjectMapper objectMapper;
+    private final StoredEventRepository storedEventRepository;
+    private final StoredAdminEventRepository storedAdminEventRepository;
+    private final RealmSnapshotService realmSnapshotService;
 
     // GET REALM EVENTS
     public List<EventRepresentation> getRealmEvents(String realmName, Map<String, String> params) {
@@ -72,6 +94,8 @@ public class EventService {
     public void updateEventConfig(String realmName, RealmEventsConfigRepresentation config) {
         try {
             keycloak.realms().realm(realmName).updateRealmEventsConfig(config);
+            // eventsEnabled, adminEventsEnabled... font partie de la RealmRepresentation en cache
+            realmSnapshotService.invalidate(realmName);
             log.info("Event config updated successfully for realm: {}", realmName);
         } catch (Exception e) {
             log.error("Error updating event config for {}: {}", realmName, e.getMessage());
@@ -100,4 +124,175 @@ public class EventService {
             throw new RuntimeException("Failed to clear admin events: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    // SEARCH STORED EVENTS (local store, keyset pagination)
+    public EventPage<EventRepresentation> searchStoredEvents(String realmName, Map<String, String> params) {
+        try {
+            Specification<StoredEvent> spec = (root, query, cb) -> cb.equal(root.get("realmName"), realmName);
+            spec = spec.and(in("type", params.get("type")))
+                    .and(equal("clientId", params.get("client")))
+                    .and(equal("userId", params.get("user")))
+                    .and(equal("ipAddress", params.get("ipAddress")))
+                    .and(timeRange(params.get("dateFrom"), params.get("dateTo")))
+                    .and(before(params.get("cursor")));
+            int max = pageSize(params);
+
+            List<StoredEvent> rows = storedEventRepository.findBy(spec,
+                    q -> q.sortBy(NEWEST_FIRST).limit(max).all());
+            List<EventRepresentation> events = new ArrayList<>(rows.size());
+            rows.forEach(row -> events.add(toRepresentation(row)));
+
+            String nextCursor = null;
+            if (rows.size() == max) {
+                StoredEvent last = rows.get(rows.size() - 1);
+                nextCursor = last.getTime() + ":" + last.getId();
+            }
+            return new EventPage<>(events, nextCursor);
+        } catch (Exception e) {
+            log.error("Error searching stored events for {}: {}", realmName, e.getMessage());
+            throw new RuntimeException("Failed to search stored events: " + e.getMessage());
+        }
+    }
+
+    // SEARCH STORED ADMIN EVENTS (local store, keyset pagination)
+    public EventPage<AdminEventRepresentation> searchStoredAdminEvents(String realmName, Map<String, String> params) {
+        try {
+            Specification<StoredAdminEvent> spec = (root, query, cb) -> cb.equal(root.get("realmName"), realmName);
+            spec = spec.and(in("operationType", params.get("operationType")))
+                    .and(in("resourceType", params.get("resourceType")))
+                    .and(equal("authClientId", params.get("authClient")))
+                    .and(equal("authUserId", params.get("authUser")))
+                    .and(equal("authIpAddress", params.get("authIpAddress")))
+                    .and(timeRange(params.get("dateFrom"), params.get("dateTo")))
+                    .and(before(params.get("cursor")));
+            String resourcePath = params.get("resourcePath");
+            if (resourcePath != null) {
+                // Même convention que Keycloak : '*' comme joker
+                spec = spec.and((root, query, cb) -> cb.like(root.get("resourcePath"), resourcePath.replace('*', '%')));
+            }
+            int max = pageSize(params);
+
+            List<StoredAdminEvent> rows = storedAdminEventRepository.findBy(spec,
+                    q -> q.sortBy(NEWEST_FIRST).limit(max).all());
+            List<AdminEventRepresentation> events = new ArrayList<>(rows.size());
+            rows.forEach(row -> events.add(toRepresentation(row)));
+
+            String nextCursor = null;
+            if (rows.size() == max) {
+                StoredAdminEvent last = rows.get(rows.size() - 1);
+                nextCursor = last.getTime() + ":" + last.getId();
+            }
+            return new EventPage<>(events, nextCursor);
+        } catch (Exception e) {
+            log.error("Error searching stored admin events for {}: {}", realmName, e.getMessage());
+            throw new RuntimeException("Failed to search stored admin events: " + e.getMessage());
+        }
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private <T> Specification<T> equal(String attribute, String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(root.get(attribute), value);
+    }
+
+    private <T> Specification<T> in(String attribute, String commaSeparated) {
+        if (commaSeparated == null || commaSeparated.isBlank()) {
+            return null;
+        }
+        List<String> values = List.of(commaSeparated.split(","));
+        return (root, query, cb) -> root.get(attribute).in(values);
+    }
+
+    private <T> Specification<T> timeRange(String dateFrom, String dateTo) {
+        Long from = parseTime(dateFrom, false);
+        Long to = parseTime(dateTo, true);
+        if (from == null && to == null) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            if (from != null && to != null) {
+                return cb.between(root.get("time"), from, to);
+            }
+            return from != null ? cb.ge(root.get("time"), from) : cb.le(root.get("time"), to);
+        };
+    }
+
+    // Keyset : (time, id) strictement avant le curseur "time:id"
+    private <T> Specification<T> before(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        String[] parts = cursor.split(":");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        long time = Long.parseLong(parts[0]);
+        long id = Long.parseLong(parts[1]);
+        return (root, query, cb) -> cb.or(
+                cb.lt(root.get("time"), time),
+                cb.and(cb.equal(root.get("time"), time), cb.lt(root.get("id"), id)));
+    }
+
+    // Accepte un epoch en millisecondes, une date ISO (yyyy-MM-dd) ou un instant ISO
+    private Long parseTime(String value, boolean endOfDay) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        if (value.chars().allMatch(Character::isDigit)) {
+            return Long.parseLong(value);
+        }
+        if (value.length() == 10) {
+            LocalDate date = LocalDate.parse(value);
+            Instant start = (endOfDay ? date.plusDays(1) : date).atStartOfDay(ZoneOffset.UTC).toInstant();
+            return endOfDay ? start.toEpochMilli() - 1 : start.toEpochMilli();
+        }
+        return Instant.parse(value).toEpochMilli();
+    }
+
+    private int pageSize(Map<String, String> params) {
+        int max = Integer.parseInt(params.getOrDefault("max", "100"));
+        return Math.max(1, Math.min(max, MAX_STORED_PAGE_SIZE));
+    }
+
+    private EventRepresentation toRepresentation(StoredEvent stored) {
+        EventRepresentation event = new EventRepresentation();
+        event.setTime(stored.getTime());
+        event.setType(stored.getType());
+        event.setRealmId(stored.getRealmName());
+        event.setClientId(stored.getClientId());
+        event.setUserId(stored.getUserId());
+        event.setSessionId(stored.getSessionId());
+        event.setIpAddress(stored.getIpAddress());
+        event.setError(stored.getError());
+        if (stored.getDetails() != null) {
+            try {
+                event.setDetails(objectMapper.readValue(stored.getDetails(), new TypeReference<Map<String, String>>() {
+                }));
+            } catch (Exception e) {
+                log.debug("Could not read stored event details: {}", e.getMessage());
+            }
+        }
+        return event;
+    }
+
+    private AdminEventRepresentation toRepresentation(StoredAdminEvent stored) {
+        AdminEventRepresentation event = new AdminEventRepresentation();
+        event.setTime(stored.getTime());
+        event.setRealmId(stored.getRealmName());
+        event.setOperationType(stored.getOperationType());
+        event.setResourceType(stored.getResourceType());
+        event.setResourcePath(stored.getResourcePath());
+        event.setRepresentation(stored.getRepresentation());
+        event.setError(stored.getError());
+        AuthDetailsRepresentation auth = new AuthDetailsRepresentation();
+        auth.setRealmId(stored.getAuthRealmId());
+        auth.setClientId(stored.getAuthClientId());
+        auth.setUserId(stored.getAuthUserId());
+        auth.setIpAddress(stored.getAuthIpAddress());
+        event.setAuthDetails(auth);
+        return event;
+    }
+}
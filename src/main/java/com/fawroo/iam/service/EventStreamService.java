@@ -0,0 +1,233 @@
+package com.fawroo.iam.service;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.representations.idm.AdminEventRepresentation;
+import org.keycloak.representations.idm.EventRepresentation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fawroo.iam.event.EventsIngestedEvent;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.ws.rs.NotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * Diffusion en Server-Sent Events des événements nouvellement ingérés.
+ * L'ingestion reste le seul "poller" Keycloak par realm ; les abonnés ne génèrent aucune requête Keycloak.
+ * Chaque abonné a sa propre file bornée, vidée sur un thread virtuel : un client lent ne bloque ni
+ * l'ingestion ni les autres abonnés, et il est déconnecté quand sa file déborde.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class EventStreamService {
+
+    private final Keycloak keycloak;
+    private final EventIngestionService eventIngestionService;
+
+    private final Map<String, List<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Value("${iam.events.stream.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    // Événements en attente par abonné avant déconnexion d'un client trop lent
+    @Value("${iam.events.stream.queue-size:1000}")
+    private int queueSize;
+
+    // SUBSCRIBE TO REALM EVENTS
+    public SseEmitter subscribe(String realmName, Map<String, String> params) {
+        try {
+            keycloak.realm(realmName).toRepresentation();
+        } catch (NotFoundException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Realm not found: " + realmName);
+        } catch (Exception e) {
+            log.error("Error checking realm {} before subscribing: {}", realmName, e.getMessage());
+            throw new RuntimeException("Failed to subscribe to events: " + e.getMessage());
+        }
+        try {
+            Subscription subscription = new Subscription(realmName, new SseEmitter(timeoutMs), queueSize,
+                    params.getOrDefault("kind", "all").toLowerCase(),
+                    params.get("type") != null ? Set.of(params.get("type").split(",")) : null,
+                    params.get("user"),
+                    params.get("client"));
+
+            int active;
+            synchronized (subscriptions) {
+                List<Subscription> realmSubscriptions = subscriptions.computeIfAbsent(realmName,
+                        name -> new CopyOnWriteArrayList<>());
+                realmSubscriptions.add(subscription);
+                active = realmSubscriptions.size();
+                // S'assure que le realm est ingéré même s'il n'est pas dans la liste configurée
+                eventIngestionService.watchRealm(realmName);
+            }
+            subscription.emitter.onCompletion(() -> unsubscribe(subscription));
+            subscription.emitter.onTimeout(() -> unsubscribe(subscription));
+            subscription.emitter.onError(error -> unsubscribe(subscription));
+
+            enqueue(subscription, SseEmitter.event().name("connected").data(Map.of("realmName", realmName)));
+            log.info("New event stream subscriber for realm {} ({} active)", realmName, active);
+            return subscription.emitter;
+        } catch (Exception e) {
+            log.error("Error subscribing to events for {}: {}", realmName, e.getMessage());
+            throw new RuntimeException("Failed to subscribe to events: " + e.getMessage());
+        }
+    }
+
+    // GET ACTIVE SUBSCRIBERS COUNT
+    public int getSubscriberCount(String realmName) {
+        List<Subscription> realmSubscriptions = subscriptions.get(realmName);
+        return realmSubscriptions != null ? realmSubscriptions.size() : 0;
+    }
+
+    // FAN OUT INGESTED EVENTS (mise en file uniquement, aucun envoi sur le thread d'ingestion)
+    @EventListener
+    public void onEventsIngested(EventsIngestedEvent ingested) {
+        List<Subscription> realmSubscriptions = subscriptions.get(ingested.getRealmName());
+        if (realmSubscriptions == null || realmSubscriptions.isEmpty()) {
+            return;
+        }
+        for (Subscription subscription : realmSubscriptions) {
+            if (!"admin".equals(subscription.kind)) {
+                for (EventRepresentation event : ingested.getLoginEvents()) {
+                    if (subscription.matches(event)) {
+                        enqueue(subscription, SseEmitter.event().name("login").data(event));
+                    }
+                }
+            }
+            if (!"login".equals(subscription.kind)) {
+                for (AdminEventRepresentation event : ingested.getAdminEvents()) {
+                    if (subscription.matches(event)) {
+                        enqueue(subscription, SseEmitter.event().name("admin").data(event));
+                    }
+                }
+            }
+        }
+    }
+
+    // KEEP-ALIVE (détecte les clients déconnectés et garde les proxies ouverts)
+    @Scheduled(fixedDelayString = "${iam.events.stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        subscriptions.values().forEach(realmSubscriptions -> realmSubscriptions
+                .forEach(subscription -> enqueue(subscription, SseEmitter.event().comment("keepalive"))));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private void enqueue(Subscription subscription, SseEmitter.SseEventBuilder event) {
+        if (subscription.closed) {
+            return;
+        }
+        if (!subscription.queue.offer(event)) {
+            log.warn("Event stream subscriber for realm {} is too slow ({} events queued), disconnecting",
+                    subscription.realmName, subscription.queue.size());
+            close(subscription, new IllegalStateException("Subscriber queue overflow"));
+            return;
+        }
+        if (subscription.draining.compareAndSet(false, true)) {
+            senders.execute(() -> drain(subscription));
+        }
+    }
+
+    // Un seul thread d'envoi actif par abonné : l'ordre des événements est conservé
+    private void drain(Subscription subscription) {
+        while (true) {
+            SseEmitter.SseEventBuilder event;
+            while ((event = subscription.queue.poll()) != null) {
+                try {
+                    subscription.emitter.send(event);
+                } catch (IOException | IllegalStateException e) {
+                    log.debug("Dropping event stream subscriber for realm {}: {}", subscription.realmName,
+                            e.getMessage());
+                    close(subscription, e);
+                    return;
+                }
+            }
+            subscription.draining.set(false);
+            // Un événement arrivé entre le dernier poll et la remise à false relance la boucle
+            if (subscription.queue.isEmpty() || !subscription.draining.compareAndSet(false, true)) {
+                return;
+            }
+        }
+    }
+
+    private void close(Subscription subscription, Exception error) {
+        subscription.closed = true;
+        subscription.queue.clear();
+        unsubscribe(subscription);
+        subscription.emitter.completeWithError(error);
+    }
+
+    private void unsubscribe(Subscription subscription) {
+        synchronized (subscriptions) {
+            List<Subscription> realmSubscriptions = subscriptions.get(subscription.realmName);
+            if (realmSubscriptions == null || !realmSubscriptions.remove(subscription)) {
+                return;
+            }
+            if (realmSubscriptions.isEmpty()) {
+                subscriptions.remove(subscription.realmName);
+                eventIngestionService.unwatchRealm(subscription.realmName);
+            }
+        }
+    }
+
+    private static final class Subscription {
+        private final String realmName;
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+        private final String kind;
+        private final Set<String> types;
+        private final String userId;
+        private final String clientId;
+
+        Subscription(String realmName, SseEmitter emitter, int queueSize, String kind, Set<String> types,
+                String userId, String clientId) {
+            this.realmName = realmName;
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(queueSize);
+            this.kind = kind;
+            this.types = types;
+            this.userId = userId;
+            this.clientId = clientId;
+        }
+
+        boolean matches(EventRepresentation event) {
+            return (types == null || types.contains(event.getType()))
+                    && (userId == null || userId.equals(event.getUserId()))
+                    && (clientId == null || clientId.equals(event.getClientId()));
+        }
+
+        boolean matches(AdminEventRepresentation event) {
+            var auth = event.getAuthDetails();
+            return (types == null || types.contains(event.getOperationType()))
+                    && (userId == null || (auth != null && userId.equals(auth.getUserId())))
+                    && (clientId == null || (auth != null && clientId.equals(auth.getClientId())));
+        }
+    }
+}
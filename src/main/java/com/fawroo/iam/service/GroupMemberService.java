@@ -0,0 +1,130 @@
+package com.fawroo.iam.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.admin.client.resource.GroupsResource;
+import org.keycloak.representations.idm.GroupRepresentation;
+import org.keycloak.representations.idm.UserRepresentation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fawroo.iam.model.dto.MemberPage;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * Parcours paginé des membres d'un groupe via members(first, max) : aucune liste complète
+ * n'est matérialisée. Le sous-arbre n'est parcouru que par l'export NDJSON, dédoublonné de bout en bout.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class GroupMemberService {
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final Keycloak keycloak;
+    private final ObjectMapper objectMapper;
+
+    @Value("${iam.groups.members.export-page-size:500}")
+    private int exportPageSize;
+
+    // GET MEMBERS PAGE (cursor = offset in the direct members of the group)
+    public MemberPage getMembersPage(String realmName, String groupId, String cursor, int max,
+            boolean includeSubgroups, boolean briefRepresentation) {
+        if (includeSubgroups) {
+            // Un curseur ne peut pas dédoublonner entre pages : seul l'export parcourt le sous-arbre
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "includeSubgroups is not supported with cursor paging, use GET .../members/export instead");
+        }
+        int pageSize = Math.min(Math.max(1, max), MAX_PAGE_SIZE);
+        int offset = parseCursor(cursor);
+        try {
+            List<UserRepresentation> members = keycloak.realm(realmName).groups().group(groupId)
+                    .members(offset, pageSize, briefRepresentation);
+            String nextCursor = members.size() < pageSize ? null : String.valueOf(offset + members.size());
+            return new MemberPage(members, nextCursor);
+        } catch (Exception e) {
+            log.error("Error getting members page for group {}: {}", groupId, e.getMessage());
+            throw new RuntimeException("Failed to get group members: " + e.getMessage());
+        }
+    }
+
+    // EXPORT MEMBERS (NDJSON, whole subtree deduplicated)
+    public void exportMembers(String realmName, String groupId, boolean includeSubgroups, boolean briefRepresentation,
+            OutputStream outputStream) throws IOException {
+        GroupsResource groups = keycloak.realm(realmName).groups();
+        List<String> groupIds = groupIds(groups, groupId, includeSubgroups);
+        CompactIdSet seen = new CompactIdSet();
+        long exported = 0;
+        long duplicates = 0;
+        for (String id : groupIds) {
+            int first = 0;
+            while (true) {
+                List<UserRepresentation> page = groups.group(id).members(first, exportPageSize, briefRepresentation);
+                for (UserRepresentation user : page) {
+                    if (!seen.add(user.getId())) {
+                        duplicates++;
+                        continue;
+                    }
+                    outputStream.write(objectMapper.writeValueAsBytes(user));
+                    outputStream.write('\n');
+                    exported++;
+                }
+                outputStream.flush();
+                if (page.size() < exportPageSize) {
+                    break;
+                }
+                first += exportPageSize;
+            }
+        }
+        log.info("Exported {} members of group {} ({} groups, {} duplicates skipped)", exported, groupId,
+                groupIds.size(), duplicates);
+    }
+
+    // ========== HELPER METHODS ==========
+
+    // Groupe racine puis sous-groupes en pré-ordre (ordre stable pour les curseurs)
+    private List<String> groupIds(GroupsResource groups, String groupId, boolean includeSubgroups) {
+        if (!includeSubgroups) {
+            return List.of(groupId);
+        }
+        List<String> ids = new ArrayList<>();
+        Deque<GroupRepresentation> pending = new ArrayDeque<>();
+        pending.push(groups.group(groupId).toRepresentation());
+        while (!pending.isEmpty()) {
+            GroupRepresentation group = pending.pop();
+            ids.add(group.getId());
+            List<GroupRepresentation> children = group.getSubGroups() != null ? group.getSubGroups() : List.of();
+            for (int i = children.size() - 1; i >= 0; i--) {
+                pending.push(children.get(i));
+            }
+        }
+        return ids;
+    }
+
+    private int parseCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+        try {
+            int offset = Integer.parseInt(cursor.trim());
+            if (offset >= 0) {
+                return offset;
+            }
+        } catch (NumberFormatException e) {
+            // Rejeté ci-dessous
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor: " + cursor);
+    }
+}
@@ -20,6 +20,7 @@ import lombok.extern.slf4j.Slf4j;
 public class GroupService {
 
     private final Keycloak keycloak;
+    private final GroupTreeService groupTreeService;
 
     // CREATE GROUP
     public String createGroup(String realmName, GroupRepresentation groupRepresentation) {
@@ -28,6 +29,7 @@ public class GroupService {
             
             if (response.getStatus() == 201) {
                 String groupId = extractGroupIdFromLocation(response.getLocation());
+                groupTreeService.invalidate(realmName);
                 log.info("Group created successfully: {} in realm {}", groupRepresentation.getName(), realmName);
                 return groupId;
             } else {
@@ -74,6 +76,7 @@ public class GroupService {
         try {
             groupRepresentation.setId(groupId);
             keycloak.realms().realm(realmName).groups().group(groupId).update(groupRepresentation);
+            groupTreeService.invalidate(realmName);
             log.info("Group updated successfully: {} in realm {}", groupRepresentation.getName(), realmName);
         } catch (Exception e) {
             log.error("Error updating group {}: {}", groupId, e.getMessage());
@@ -85,6 +88,7 @@ public class GroupService {
     public void deleteGroup(String realmName, String groupId) {
         try {
             keycloak.realms().realm(realmName).groups().group(groupId).remove();
+            groupTreeService.invalidate(realmName);
             log.info("Group deleted successfully: {} from realm {}", groupId, realmName);
         } catch (Exception e) {
             log.error("Error deleting group {}: {}", groupId, e.getMessage());
@@ -92,10 +96,10 @@ public class GroupService {
         }
     }
     
-    // GET GROUP MEMBERS
-    public List<UserRepresentation> getGroupMembers(String realmName, String groupId) {
+    // GET GROUP MEMBERS (paged)
+    public List<UserRepresentation> getGroupMembers(String realmName, String groupId, int first, int max) {
         try {
-            return keycloak.realms().realm(realmName).groups().group(groupId).members();
+            return keycloak.realms().realm(realmName).groups().group(groupId).members(first, max);
         } catch (Exception e) {
             log.error("Error getting group members for group {}: {}", groupId, e.getMessage());
             throw new RuntimeException("Failed to get group members: " + e.getMessage());
@@ -118,6 +122,7 @@ public class GroupService {
             List<RoleRepresentation> roles = new ArrayList<>();
             roles.add(role);
             keycloak.realms().realm(realmName).groups().group(groupId).roles().realmLevel().add(roles);
+            groupTreeService.invalidate(realmName);
             log.info("Role {} assigned to group {}", role.getName(), groupId);
         } catch (Exception e) {
             log.error("Error assigning role to group {}: {}", groupId, e.getMessage());
@@ -0,0 +1,393 @@
+package com.fawroo.iam.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.admin.client.resource.RealmResource;
+import org.keycloak.representations.idm.AdminEventRepresentation;
+import org.keycloak.representations.idm.GroupRepresentation;
+import org.keycloak.representations.idm.UserRepresentation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.fawroo.iam.event.EventsIngestedEvent;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * Instantané de la hiérarchie des groupes d'un realm : groupes, rôles mappés et membres directs.
+ * Les noeuds sont numérotés en pré-ordre : un sous-arbre est un intervalle contigu [index, end),
+ * ce qui rend les requêtes sous-arbre/ancêtre locales et sans récursion.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class GroupTreeService {
+
+    private static final Set<String> GROUP_RESOURCE_TYPES = Set.of("GROUP", "GROUP_MEMBERSHIP",
+            "REALM_ROLE_MAPPING", "CLIENT_ROLE_MAPPING");
+
+    private final Keycloak keycloak;
+    private final KeycloakTaskRunner taskRunner;
+
+    @Value("${iam.groups.snapshot.refresh-minutes:15}")
+    private long refreshMinutes;
+
+    @Value("${iam.groups.snapshot.include-members:true}")
+    private boolean includeMembers;
+
+    @Value("${iam.groups.snapshot.member-page-size:1000}")
+    private int memberPageSize;
+
+    @Value("${iam.groups.snapshot.parallelism:8}")
+    private int parallelism;
+
+    private final Map<String, GroupTree> trees = new ConcurrentHashMap<>();
+    private final Map<String, Object> treeLocks = new ConcurrentHashMap<>();
+    // Incrémentée à chaque invalidation : un instantané construit avant la dernière invalidation est périmé
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    // GET GROUP TREE (nested, optionally from a root and limited in depth)
+    public List<Map<String, Object>> getTree(String realmName, String rootId, Integer depth) {
+        GroupTree tree = getSnapshot(realmName);
+        List<GroupNode> roots = rootId != null ? List.of(tree.node(rootId)) : tree.roots();
+        return roots.stream()
+                .map(root -> toNested(tree, root,
+                        depth == null ? Integer.MAX_VALUE : saturatedAdd(root.depth, Math.max(0, depth))))
+                .toList();
+    }
+
+    // GET GROUP BY PATH
+    public Map<String, Object> getByPath(String realmName, String path) {
+        GroupTree tree = getSnapshot(realmName);
+        GroupNode node = tree.byPath.get(path.startsWith("/") ? path : "/" + path);
+        if (node == null) {
+            throw new RuntimeException("Group not found: " + path);
+        }
+        return toSummary(tree, node);
+    }
+
+    // GET SUBTREE (flat, pre-order)
+    public List<Map<String, Object>> getSubtree(String realmName, String groupId) {
+        GroupTree tree = getSnapshot(realmName);
+        GroupNode root = tree.node(groupId);
+        List<Map<String, Object>> subtree = new ArrayList<>(root.end - root.index);
+        for (int i = root.index; i < root.end; i++) {
+            subtree.add(toSummary(tree, tree.nodes.get(i)));
+        }
+        return subtree;
+    }
+
+    // GET ANCESTORS (root first)
+    public List<Map<String, Object>> getAncestors(String realmName, String groupId) {
+        GroupTree tree = getSnapshot(realmName);
+        Deque<Map<String, Object>> ancestors = new ArrayDeque<>();
+        GroupNode node = tree.node(groupId);
+        while (node.parentIndex >= 0) {
+            node = tree.nodes.get(node.parentIndex);
+            ancestors.addFirst(toSummary(tree, node));
+        }
+        return new ArrayList<>(ancestors);
+    }
+
+    // IS ANCESTOR (O(1) thanks to pre-order intervals)
+    public boolean isAncestor(String realmName, String ancestorId, String groupId) {
+        GroupTree tree = getSnapshot(realmName);
+        GroupNode ancestor = tree.node(ancestorId);
+        GroupNode node = tree.node(groupId);
+        return node.index > ancestor.index && node.index < ancestor.end;
+    }
+
+    // GET MEMBERS (paged, direct or whole subtree deduplicated)
+    public Map<String, Object> getMembers(String realmName, String groupId, boolean includeSubgroups, int first,
+            int max) {
+        GroupTree tree = getSnapshot(realmName);
+        if (!tree.includesMembers) {
+            throw new IllegalStateException("Group snapshot was built without members");
+        }
+        GroupNode root = tree.node(groupId);
+        Map<String, String> members = new LinkedHashMap<>();
+        int end = includeSubgroups ? root.end : root.index + 1;
+        for (int i = root.index; i < end; i++) {
+            GroupNode node = tree.nodes.get(i);
+            for (int m = 0; m < node.memberIds.length; m++) {
+                members.putIfAbsent(node.memberIds[m], node.memberUsernames[m]);
+            }
+        }
+        List<Map<String, Object>> page = members.entrySet().stream()
+                .skip(Math.max(0, first))
+                .limit(Math.max(0, max))
+                .map(entry -> Map.<String, Object>of("id", entry.getKey(),
+                        "username", entry.getValue() != null ? entry.getValue() : ""))
+                .toList();
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("groupId", groupId);
+        result.put("includeSubgroups", includeSubgroups);
+        result.put("total", members.size());
+        result.put("first", first);
+        result.put("members", page);
+        result.put("snapshotBuiltAt", tree.builtAt);
+        return result;
+    }
+
+    // GET SNAPSHOT STATUS
+    public Map<String, Object> getStatus(String realmName) {
+        GroupTree tree = getSnapshot(realmName);
+        long memberships = tree.nodes.stream().mapToLong(node -> node.memberCount).sum();
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("realm", realmName);
+        status.put("groups", tree.nodes.size());
+        status.put("topLevelGroups", tree.roots().size());
+        status.put("memberships", memberships);
+        status.put("includesMembers", tree.includesMembers);
+        status.put("builtAt", tree.builtAt);
+        status.put("buildMs", tree.buildMs);
+        return status;
+    }
+
+    // REFRESH SNAPSHOT
+    public Map<String, Object> refresh(String realmName) {
+        invalidate(realmName);
+        return getStatus(realmName);
+    }
+
+    // INVALIDATE SNAPSHOT
+    public void invalidate(String realmName) {
+        generation(realmName).incrementAndGet();
+    }
+
+    @EventListener
+    public void onEventsIngested(EventsIngestedEvent ingested) {
+        for (AdminEventRepresentation event : ingested.getAdminEvents()) {
+            String path = event.getResourcePath() != null ? event.getResourcePath() : "";
+            boolean groupChange = "GROUP".equals(event.getResourceType()) || "GROUP_MEMBERSHIP".equals(event.getResourceType())
+                    || (GROUP_RESOURCE_TYPES.contains(event.getResourceType()) && path.startsWith("groups/"));
+            if (groupChange) {
+                invalidate(ingested.getRealmName());
+                return;
+            }
+        }
+    }
+
+    // GET SNAPSHOT (built once, rebuilt when stale or expired)
+    public GroupTree getSnapshot(String realmName) {
+        AtomicLong generation = generation(realmName);
+        GroupTree tree = trees.get(realmName);
+        if (tree != null && !tree.isExpired(refreshMinutes, generation.get())) {
+            return tree;
+        }
+        synchronized (treeLocks.computeIfAbsent(realmName, k -> new Object())) {
+            tree = trees.get(realmName);
+            if (tree == null || tree.isExpired(refreshMinutes, generation.get())) {
+                try {
+                    // Génération lue avant les appels Keycloak : une invalidation pendant la construction l'emporte
+                    tree = build(realmName, generation.get());
+                } catch (Exception e) {
+                    log.error("Error building group snapshot for realm {}: {}", realmName, e.getMessage());
+                    throw new RuntimeException("Failed to build group snapshot: " + e.getMessage());
+                }
+                trees.put(realmName, tree);
+            }
+            return tree;
+        }
+    }
+
+    // ========== SNAPSHOT BUILD ==========
+
+    private GroupTree build(String realmName, long generation) {
+        long start = System.currentTimeMillis();
+        RealmResource realm = keycloak.realm(realmName);
+        List<GroupRepresentation> topLevel = realm.groups().groups(null, null, null, false);
+
+        GroupTree tree = new GroupTree(includeMembers, generation);
+        for (GroupRepresentation group : topLevel) {
+            index(tree, group, -1, 0);
+        }
+
+        if (includeMembers) {
+            List<List<UserRepresentation>> members = taskRunner.mapAll(tree.nodes, parallelism,
+                    node -> loadMembers(realm, node.id));
+            for (int i = 0; i < tree.nodes.size(); i++) {
+                GroupNode node = tree.nodes.get(i);
+                List<UserRepresentation> users = members.get(i);
+                node.memberIds = new String[users.size()];
+                node.memberUsernames = new String[users.size()];
+                for (int m = 0; m < users.size(); m++) {
+                    node.memberIds[m] = users.get(m).getId();
+                    node.memberUsernames[m] = users.get(m).getUsername();
+                }
+                node.memberCount = users.size();
+            }
+        }
+
+        tree.buildMs = System.currentTimeMillis() - start;
+        log.info("Group snapshot for realm {} built: {} groups in {} ms", realmName, tree.nodes.size(), tree.buildMs);
+        return tree;
+    }
+
+    // Pré-ordre itératif : l'intervalle [index, end) couvre tout le sous-arbre
+    private void index(GroupTree tree, GroupRepresentation root, int parentIndex, int depth) {
+        Deque<Object[]> stack = new ArrayDeque<>();
+        stack.push(new Object[] { root, parentIndex, depth, false });
+        while (!stack.isEmpty()) {
+            Object[] frame = stack.pop();
+            if ((Boolean) frame[3]) {
+                GroupNode done = (GroupNode) frame[0];
+                done.end = tree.nodes.size();
+                continue;
+            }
+            GroupRepresentation group = (GroupRepresentation) frame[0];
+            GroupNode node = new GroupNode(group, tree.nodes.size(), (Integer) frame[1], (Integer) frame[2]);
+            tree.nodes.add(node);
+            tree.byId.put(node.id, node);
+            tree.byPath.put(node.path, node);
+            if (node.parentIndex >= 0) {
+                tree.nodes.get(node.parentIndex).childIndexes.add(node.index);
+            }
+            stack.push(new Object[] { node, null, null, true });
+            List<GroupRepresentation> children = group.getSubGroups() != null ? group.getSubGroups() : List.of();
+            for (int i = children.size() - 1; i >= 0; i--) {
+                stack.push(new Object[] { children.get(i), node.index, node.depth + 1, false });
+            }
+        }
+    }
+
+    private List<UserRepresentation> loadMembers(RealmResource realm, String groupId) {
+        List<UserRepresentation> members = new ArrayList<>();
+        int first = 0;
+        while (true) {
+            List<UserRepresentation> page = realm.groups().group(groupId).members(first, memberPageSize, true);
+            members.addAll(page);
+            if (page.size() < memberPageSize) {
+                return members;
+            }
+            first += memberPageSize;
+            taskRunner.throttle();
+        }
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private AtomicLong generation(String realmName) {
+        return generations.computeIfAbsent(realmName, k -> new AtomicLong());
+    }
+
+    private static int saturatedAdd(int a, int b) {
+        long sum = (long) a + b;
+        return sum > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) sum;
+    }
+
+    private Map<String, Object> toSummary(GroupTree tree, GroupNode node) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("id", node.id);
+        summary.put("name", node.name);
+        summary.put("path", node.path);
+        summary.put("depth", node.depth);
+        summary.put("parentId", node.parentIndex >= 0 ? tree.nodes.get(node.parentIndex).id : null);
+        summary.put("subGroupCount", node.childIndexes.size());
+        summary.put("descendantCount", node.end - node.index - 1);
+        summary.put("memberCount", node.memberCount);
+        summary.put("realmRoles", node.realmRoles);
+        summary.put("clientRoles", node.clientRoles);
+        return summary;
+    }
+
+    private Map<String, Object> toNested(GroupTree tree, GroupNode node, int maxDepth) {
+        Map<String, Object> nested = toSummary(tree, node);
+        if (node.depth < maxDepth) {
+            nested.put("subGroups", node.childIndexes.stream()
+                    .map(index -> toNested(tree, tree.nodes.get(index), maxDepth))
+                    .toList());
+        }
+        return nested;
+    }
+
+    public static class GroupTree {
+        private final List<GroupNode> nodes = new ArrayList<>();
+        private final Map<String, GroupNode> byId = new HashMap<>();
+        private final Map<String, GroupNode> byPath = new HashMap<>();
+        private final boolean includesMembers;
+        private final long generation;
+        private final long builtAt = System.currentTimeMillis();
+        private long buildMs;
+
+        private GroupTree(boolean includesMembers, long generation) {
+            this.includesMembers = includesMembers;
+            this.generation = generation;
+        }
+
+        private GroupNode node(String groupId) {
+            GroupNode node = byId.get(groupId);
+            if (node == null) {
+                throw new RuntimeException("Group not found: " + groupId);
+            }
+            return node;
+        }
+
+        private List<GroupNode> roots() {
+            return nodes.stream().filter(node -> node.parentIndex < 0).toList();
+        }
+
+        public Set<String> memberIds(String groupId, boolean includeSubgroups) {
+            GroupNode root = node(groupId);
+            Set<String> ids = new LinkedHashSet<>();
+            int end = includeSubgroups ? root.end : root.index + 1;
+            for (int i = root.index; i < end; i++) {
+                ids.addAll(List.of(nodes.get(i).memberIds));
+            }
+            return ids;
+        }
+
+        public boolean includesMembers() {
+            return includesMembers;
+        }
+
+        public long getBuiltAt() {
+            return builtAt;
+        }
+
+        private boolean isExpired(long refreshMinutes, long currentGeneration) {
+            return generation != currentGeneration || System.currentTimeMillis() - builtAt > refreshMinutes * 60_000L;
+        }
+    }
+
+    private static class GroupNode {
+        private final String id;
+        private final String name;
+        private final String path;
+        private final int index;
+        private final int parentIndex;
+        private final int depth;
+        private final List<Integer> childIndexes = new ArrayList<>();
+        private final List<String> realmRoles;
+        private final Map<String, List<String>> clientRoles;
+        private int end;
+        private int memberCount;
+        private String[] memberIds = new String[0];
+        private String[] memberUsernames = new String[0];
+
+        private GroupNode(GroupRepresentation group, int index, int parentIndex, int depth) {
+            this.id = group.getId();
+            this.name = group.getName();
+            this.path = group.getPath();
+            this.index = index;
+            this.parentIndex = parentIndex;
+            this.depth = depth;
+            this.realmRoles = group.getRealmRoles() != null ? group.getRealmRoles() : List.of();
+            this.clientRoles = group.getClientRoles() != null ? group.getClientRoles() : Map.of();
+        }
+    }
+}
@@ -22,6 +22,7 @@ public class ImportService {
 
     private final Keycloak keycloak;
     private final ObjectMapper objectMapper;
+    private final ClientIdResolver clientIdResolver;
 
     // IMPORTER UN REALM COMPLET (version finale)
     public String importRealm(MultipartFile file) {
@@ -44,7 +45,7 @@ public class ImportService {
             cleanRealmForImport(realmRep);
 
             // Créer le realm
-            keycloak.realms().create(realmRep);
+            createRealm(realmRep);
             log.info("Base realm created: {}", realmName);
 
             // Importer TOUS les éléments supplémentaires APRÈS la création du realm
@@ -268,10 +269,10 @@ public class ImportService {
 
                     if (roles != null && !roles.isEmpty()) {
                         // Trouver le client par son clientId
-                        var clients = keycloak.realms().realm(realmName).clients().findByClientId(clientId);
+                        var clientUuidLookup = clientIdResolver.findClientUuid(realmName, clientId);
 
-                        if (!clients.isEmpty()) {
-                            String clientUuid = clients.get(0).getId();
+                        if (clientUuidLookup.isPresent()) {
+                            String clientUuid = clientUuidLookup.get();
                             assignRolesToClient(userResource, realmName, clientUuid, clientId, roles, username);
                         } else {
                             log.warn("Client not found for roles assignment: {} for user {}", clientId, username);
@@ -655,6 +656,12 @@ private boolean isDefaultRole(String roleName) {
         }
     }
 
+    // Crée le realm et oublie les UUID de clients mis en cache pour un ancien realm du même nom
+    private void createRealm(RealmRepresentation realmRep) {
+        keycloak.realms().create(realmRep);
+        clientIdResolver.invalidateRealm(realmRep.getRealm());
+    }
+
     // IMPORTER AVEC OPTIONS (version corrigée)
     public String importRealmWithOptions(MultipartFile file, boolean importUsers, boolean importClients,
             boolean importRoles, boolean importGroups, boolean skipExisting) {
@@ -673,7 +680,7 @@ private boolean isDefaultRole(String roleName) {
             cleanRealmForImport(realmRep);
 
             // Créer le realm de base d'abord
-            keycloak.realms().create(realmRep);
+            createRealm(realmRep);
             log.info("Base realm created: {}", realmName);
 
             // Importer les éléments supplémentaires selon les options
@@ -711,7 +718,7 @@ private boolean isDefaultRole(String roleName) {
             RealmRepresentation realmRep = objectMapper.convertValue(realmMap, RealmRepresentation.class);
 
             cleanRealmForImport(realmRep);
-            keycloak.realms().create(realmRep);
+            createRealm(realmRep);
 
             String realmName = realmRep.getRealm();
 
@@ -732,7 +739,7 @@ private boolean isDefaultRole(String roleName) {
         try {
             RealmRepresentation realmRep = objectMapper.convertValue(realmConfig, RealmRepresentation.class);
             cleanRealmForImport(realmRep);
-            keycloak.realms().create(realmRep);
+            createRealm(realmRep);
 
             log.info("Realm imported successfully from JSON: {}", realmRep.getRealm());
             return "Realm imported successfully: " + realmRep.getRealm();
@@ -758,7 +765,7 @@ private boolean isDefaultRole(String roleName) {
             realmRep.setGroups(null);
             realmRep.setDefaultGroups(null);
 
-            keycloak.realms().create(realmRep);
+            createRealm(realmRep);
 
             log.info("Realm configuration imported successfully: {}", realmRep.getRealm());
             return "Realm configuration imported successfully: " + realmRep.getRealm();
@@ -0,0 +1,152 @@
+package com.fawroo.iam.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * Exécution parallèle bornée des appels Keycloak.
+ * - un plafond global de concurrence partagé par toutes les opérations de masse ;
+ * - une limite de débit (requêtes/seconde) espacée régulièrement ;
+ * - un parallélisme local par opération, qui sert aussi de contre-pression sur l'itération des éléments.
+ */
+@Component
+@Slf4j
+public class KeycloakTaskRunner {
+
+    @FunctionalInterface
+    public interface ItemTask<T, R> {
+        R apply(T item) throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface ResultHandler<T, R> {
+        // Appelé une fois par élément, depuis les threads de travail : l'implémentation doit être thread-safe
+        void onResult(T item, R result, Exception error);
+    }
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore globalPermits;
+    private final long intervalNanos;
+    private final Object rateLock = new Object();
+    private long nextPermitNanos = System.nanoTime();
+
+    public KeycloakTaskRunner(@Value("${iam.keycloak.max-concurrency:16}") int maxConcurrency,
+            @Value("${iam.keycloak.max-requests-per-second:50}") int maxRequestsPerSecond) {
+        this.globalPermits = new Semaphore(maxConcurrency);
+        this.intervalNanos = maxRequestsPerSecond > 0 ? 1_000_000_000L / maxRequestsPerSecond : 0;
+    }
+
+    // THROTTLE (à appeler avant chaque requête Keycloak supplémentaire d'une même tâche)
+    public void throttle() {
+        if (intervalNanos == 0) {
+            return;
+        }
+        long waitNanos;
+        synchronized (rateLock) {
+            long now = System.nanoTime();
+            long slot = Math.max(now, nextPermitNanos);
+            nextPermitNanos = slot + intervalNanos;
+            waitNanos = slot - now;
+        }
+        if (waitNanos > 0) {
+            LockSupport.parkNanos(waitNanos);
+        }
+    }
+
+    // RUN ALL (streamed results, bounded parallelism)
+    public <T, R> void forEach(Iterable<T> items, int parallelism, ItemTask<T, R> task,
+            ResultHandler<T, R> handler) {
+        forEach(items, parallelism, task, handler, () -> false);
+    }
+
+    // RUN ALL, stops submitting new items once "cancelled" is true (tâches en cours terminées)
+    public <T, R> void forEach(Iterable<T> items, int parallelism, ItemTask<T, R> task,
+            ResultHandler<T, R> handler, BooleanSupplier cancelled) {
+        int permits = Math.max(1, parallelism);
+        Semaphore inFlight = new Semaphore(permits);
+        try {
+            for (T item : items) {
+                inFlight.acquire();
+                if (cancelled.getAsBoolean()) {
+                    inFlight.release();
+                    break;
+                }
+                executor.execute(() -> {
+                    try {
+                        R result = null;
+                        Exception error = null;
+                        try {
+                            result = runThrottled(item, task);
+                        } catch (Exception e) {
+                            error = e;
+                        }
+                        handler.onResult(item, result, error);
+                    } catch (Exception e) {
+                        log.warn("Result handler failed: {}", e.getMessage());
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+            // Attend la fin des tâches en cours
+            inFlight.acquire(permits);
+            inFlight.release(permits);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Bulk execution interrupted");
+        }
+    }
+
+    // MAP ALL (results in input order, fails on the first error)
+    public <T, R> List<R> mapAll(Collection<T> items, int parallelism, ItemTask<T, R> task) {
+        List<T> inputs = new ArrayList<>(items);
+        List<R> results = new ArrayList<>(inputs.size());
+        Exception[] firstError = new Exception[1];
+        for (int i = 0; i < inputs.size(); i++) {
+            results.add(null);
+        }
+        List<Integer> indexes = new ArrayList<>(inputs.size());
+        for (int i = 0; i < inputs.size(); i++) {
+            indexes.add(i);
+        }
+        forEach(indexes, parallelism, index -> task.apply(inputs.get(index)), (index, result, error) -> {
+            synchronized (results) {
+                if (error != null && firstError[0] == null) {
+                    firstError[0] = error;
+                }
+                results.set(index, result);
+            }
+        });
+        if (firstError[0] != null) {
+            throw new RuntimeException(firstError[0].getMessage(), firstError[0]);
+        }
+        return results;
+    }
+
+    private <T, R> R runThrottled(T item, ItemTask<T, R> task) throws Exception {
+        globalPermits.acquire();
+        try {
+            throttle();
+            return task.apply(item);
+        } finally {
+            globalPermits.release();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,306 @@
+package com.fawroo.iam.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.keycloak.representations.idm.EventRepresentation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.fawroo.iam.event.EventsIngestedEvent;
+import com.fawroo.iam.model.entity.StoredEvent;
+import com.fawroo.iam.repository.StoredEventRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * Agrégation incrémentale des échecs de connexion sur une fenêtre glissante (buckets d'une minute).
+ * Alimentée par l'ingestion des événements, interrogée uniquement en mémoire.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class LoginFailureAggregationService {
+
+    public enum Dimension {
+        USER, IP, CLIENT
+    }
+
+    private static final long MINUTE_MS = 60_000L;
+    private static final String SUCCESS_TYPE = "LOGIN";
+
+    private final StoredEventRepository storedEventRepository;
+
+    private final Map<String, RealmCounters> realms = new ConcurrentHashMap<>();
+
+    @Value("${iam.events.aggregation.window-minutes:60}")
+    private int windowMinutes;
+
+    @Value("${iam.events.aggregation.failure-types:LOGIN_ERROR,CLIENT_LOGIN_ERROR,CODE_TO_TOKEN_ERROR,REFRESH_TOKEN_ERROR}")
+    private Set<String> failureTypes;
+
+    // WARM UP FROM LOCAL EVENT STORE
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            long since = (currentMinute() - windowMinutes + 1) * MINUTE_MS;
+            // Succès compris : sans eux, le taux d'échec après redémarrage serait calculé contre zéro succès
+            Set<String> types = new HashSet<>(failureTypes);
+            types.add(SUCCESS_TYPE);
+            List<StoredEvent> recent = storedEventRepository.findByTimeGreaterThanEqualAndTypeIn(since, types);
+            recent.forEach(event -> record(event.getRealmName(), event.getTime(), event.getType(),
+                    event.getUserId(), event.getIpAddress(), event.getClientId()));
+            log.info("Login failure aggregation warmed up with {} events", recent.size());
+        } catch (Exception e) {
+            log.warn("Could not warm up login failure aggregation: {}", e.getMessage());
+        }
+    }
+
+    // CONSUME INGESTED LOGIN EVENTS
+    @EventListener
+    public void onEventsIngested(EventsIngestedEvent ingested) {
+        for (EventRepresentation event : ingested.getLoginEvents()) {
+            record(ingested.getRealmName(), event.getTime(), event.getType(), event.getUserId(),
+                    event.getIpAddress(), event.getClientId());
+        }
+    }
+
+    // EVICT IDLE COUNTERS
+    @Scheduled(fixedDelayString = "${iam.events.aggregation.eviction-interval-ms:60000}")
+    public void evictIdleCounters() {
+        long oldest = currentMinute() - windowMinutes + 1;
+        realms.values().forEach(counters -> counters.byDimension.values()
+                .forEach(map -> map.values().removeIf(counter -> counter.lastMinute < oldest)));
+    }
+
+    // GET TOP OFFENDERS
+    public List<Map<String, Object>> getTopOffenders(String realmName, Dimension dimension, int limit,
+            Integer minutes) {
+        int span = window(minutes);
+        long to = currentMinute();
+        long from = to - span + 1;
+        RealmCounters counters = realms.get(realmName);
+        if (counters == null || limit <= 0) {
+            return List.of();
+        }
+
+        // Min-heap borné à "limit" éléments
+        PriorityQueue<Map.Entry<String, Long>> heap = new PriorityQueue<>(Map.Entry.comparingByValue());
+        counters.byDimension.get(dimension).forEach((key, counter) -> {
+            long failures = counter.sum(from, to);
+            if (failures == 0) {
+                return;
+            }
+            if (heap.size() < limit) {
+                heap.add(Map.entry(key, failures));
+            } else if (failures > heap.peek().getValue()) {
+                heap.poll();
+                heap.add(Map.entry(key, failures));
+            }
+        });
+
+        List<Map.Entry<String, Long>> sorted = new ArrayList<>(heap);
+        sorted.sort(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()));
+        List<Map<String, Object>> result = new ArrayList<>(sorted.size());
+        for (Map.Entry<String, Long> entry : sorted) {
+            Map<String, Object> offender = new LinkedHashMap<>();
+            offender.put(dimension.name().toLowerCase(), entry.getKey());
+            offender.put("failures", entry.getValue());
+            offender.put("failuresPerMinute", (double) entry.getValue() / span);
+            result.add(offender);
+        }
+        return result;
+    }
+
+    // GET FAILURE RATES
+    public Map<String, Object> getRates(String realmName, Integer minutes) {
+        int span = window(minutes);
+        long to = currentMinute();
+        long from = to - span + 1;
+        RealmCounters counters = realms.get(realmName);
+        long failures = counters != null ? counters.failures.sum(from, to) : 0;
+        long successes = counters != null ? counters.successes.sum(from, to) : 0;
+
+        Map<String, Object> rates = new LinkedHashMap<>();
+        rates.put("realmName", realmName);
+        rates.put("windowMinutes", span);
+        rates.put("failures", failures);
+        rates.put("successfulLogins", successes);
+        rates.put("failuresPerMinute", (double) failures / span);
+        rates.put("failureRatio", failures + successes > 0 ? (double) failures / (failures + successes) : 0.0);
+        rates.put("distinctUsers", counters != null ? counters.countActive(Dimension.USER, from, to) : 0);
+        rates.put("distinctIps", counters != null ? counters.countActive(Dimension.IP, from, to) : 0);
+        rates.put("timestamp", Instant.now());
+        return rates;
+    }
+
+    // GET HEATMAP (failures per minute for the top keys of a dimension)
+    public Map<String, Object> getHeatmap(String realmName, Dimension dimension, int limit, Integer minutes) {
+        int span = window(minutes);
+        long to = currentMinute();
+        long from = to - span + 1;
+
+        Map<String, long[]> rows = new LinkedHashMap<>();
+        RealmCounters counters = realms.get(realmName);
+        if (counters != null) {
+            for (Map<String, Object> offender : getTopOffenders(realmName, dimension, limit, span)) {
+                String key = (String) offender.get(dimension.name().toLowerCase());
+                SlidingWindowCounter counter = counters.byDimension.get(dimension).get(key);
+                if (counter != null) {
+                    rows.put(key, counter.series(from, to));
+                }
+            }
+        }
+
+        Map<String, Object> heatmap = new LinkedHashMap<>();
+        heatmap.put("realmName", realmName);
+        heatmap.put("dimension", dimension.name().toLowerCase());
+        heatmap.put("from", Instant.ofEpochMilli(from * MINUTE_MS));
+        heatmap.put("bucketSeconds", MINUTE_MS / 1000);
+        heatmap.put("total", counters != null ? counters.failures.series(from, to) : new long[span]);
+        heatmap.put("rows", rows);
+        return heatmap;
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private void record(String realmName, long time, String type, String userId, String ipAddress, String clientId) {
+        if (type == null) {
+            return;
+        }
+        boolean failure = failureTypes.contains(type);
+        if (!failure && !SUCCESS_TYPE.equals(type)) {
+            return;
+        }
+        long minute = time / MINUTE_MS;
+        if (minute <= currentMinute() - windowMinutes) {
+            return;
+        }
+        RealmCounters counters = realms.computeIfAbsent(realmName, name -> new RealmCounters(windowMinutes));
+        if (!failure) {
+            counters.successes.increment(minute);
+            return;
+        }
+        counters.failures.increment(minute);
+        counters.increment(Dimension.USER, userId, minute);
+        counters.increment(Dimension.IP, ipAddress, minute);
+        counters.increment(Dimension.CLIENT, clientId, minute);
+    }
+
+    private int window(Integer minutes) {
+        if (minutes == null || minutes <= 0) {
+            return windowMinutes;
+        }
+        return Math.min(minutes, windowMinutes);
+    }
+
+    private long currentMinute() {
+        return System.currentTimeMillis() / MINUTE_MS;
+    }
+
+    private static final class RealmCounters {
+        private final int slots;
+        private final SlidingWindowCounter failures;
+        private final SlidingWindowCounter successes;
+        private final Map<Dimension, Map<String, SlidingWindowCounter>> byDimension = new EnumMap<>(Dimension.class);
+
+        RealmCounters(int slots) {
+            this.slots = slots;
+            this.failures = new SlidingWindowCounter(slots);
+            this.successes = new SlidingWindowCounter(slots);
+            for (Dimension dimension : Dimension.values()) {
+                byDimension.put(dimension, new ConcurrentHashMap<>());
+            }
+        }
+
+        void increment(Dimension dimension, String key, long minute) {
+            if (key == null) {
+                return;
+            }
+            byDimension.get(dimension).computeIfAbsent(key, k -> new SlidingWindowCounter(slots)).increment(minute);
+        }
+
+        // Clés ayant au moins un échec dans [from, to] (les compteurs inactifs ne sont purgés que périodiquement)
+        long countActive(Dimension dimension, long from, long to) {
+            return byDimension.get(dimension).values().stream()
+                    .filter(counter -> counter.sum(from, to) > 0)
+                    .count();
+        }
+    }
+
+    /*
+     * Compteur circulaire sans verrou : un LongAdder (cellules striées) par minute, réutilisé
+     * quand la minute sort de la fenêtre. La réinitialisation d'un slot est faite par CAS ;
+     * un incrément concurrent pendant la bascule peut être perdu, ce qui est acceptable ici.
+     */
+    static final class SlidingWindowCounter {
+        private final LongAdder[] counts;
+        private final AtomicLongArray minutes;
+        private volatile long lastMinute;
+
+        SlidingWindowCounter(int size) {
+            counts = new LongAdder[size];
+            minutes = new AtomicLongArray(size);
+            for (int i = 0; i < size; i++) {
+                counts[i] = new LongAdder();
+                minutes.set(i, -1);
+            }
+        }
+
+        void increment(long minute) {
+            int slot = (int) (minute % counts.length);
+            long current = minutes.get(slot);
+            if (current != minute) {
+                if (current > minute) {
+                    return;
+                }
+                if (minutes.compareAndSet(slot, current, minute)) {
+                    counts[slot].reset();
+                } else if (minutes.get(slot) != minute) {
+                    return;
+                }
+            }
+            counts[slot].increment();
+            if (minute > lastMinute) {
+                lastMinute = minute;
+            }
+        }
+
+        long sum(long from, long to) {
+            long total = 0;
+            for (int i = 0; i < counts.length; i++) {
+                long minute = minutes.get(i);
+                if (minute >= from && minute <= to) {
+                    total += counts[i].sum();
+                }
+            }
+            return total;
+        }
+
+        long[] series(long from, long to) {
+            long[] values = new long[(int) (to - from + 1)];
+            for (int i = 0; i < counts.length; i++) {
+                long minute = minutes.get(i);
+                if (minute >= from && minute <= to) {
+                    values[(int) (minute - from)] = counts[i].sum();
+                }
+            }
+            return values;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.fawroo.iam.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fawroo.iam.model.dto.MetricPoint;
+import com.fawroo.iam.model.entity.MetricResolution;
+import com.fawroo.iam.model.entity.RealmMetricSample;
+import com.fawroo.iam.repository.RealmMetricSampleRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class MetricsService {
+
+    private final RealmService realmService;
+    private final DashboardService dashboardService;
+    private final RealmMetricSampleRepository sampleRepository;
+
+    @Value("${iam.metrics.enabled:true}")
+    private boolean enabled;
+
+    // Realms à échantillonner ; vide = tous les realms visibles par le compte admin
+    @Value("${iam.metrics.realms:}")
+    private List<String> realms;
+
+    @Value("${iam.metrics.retention.minute-hours:48}")
+    private int minuteRetentionHours;
+
+    @Value("${iam.metrics.retention.hour-days:30}")
+    private int hourRetentionDays;
+
+    @Value("${iam.metrics.retention.day-days:730}")
+    private int dayRetentionDays;
+
+    // SAMPLE ALL REALMS (1m)
+    @Scheduled(fixedDelayString = "${iam.metrics.sample-interval-ms:60000}",
+            initialDelayString = "${iam.metrics.initial-delay-ms:60000}")
+    @Transactional
+    public void sampleRealms() {
+        if (!enabled) {
+            return;
+        }
+        Instant bucket = MetricResolution.MINUTE.truncate(Instant.now());
+        for (String realmName : realmService.getRealmNames(realms)) {
+            try {
+                Map<String, Double> values = collectRealmMetrics(realmName);
+                values.forEach((metric, value) -> recordSample(realmName, metric, bucket, value));
+                log.debug("Sampled {} metrics for realm {}", values.size(), realmName);
+            } catch (Exception e) {
+                log.warn("Could not sample metrics for realm {}: {}", realmName, e.getMessage());
+            }
+        }
+    }
+
+    // ROLLUP 1m -> 1h AND APPLY RETENTION
+    @Scheduled(cron = "${iam.metrics.hourly-rollup-cron:0 2 * * * *}")
+    @Transactional
+    public void rollupHourly() {
+        if (!enabled) {
+            return;
+        }
+        rollupPending(MetricResolution.MINUTE, MetricResolution.HOUR);
+        applyRetention();
+    }
+
+    // ROLLUP 1h -> 1d
+    @Scheduled(cron = "${iam.metrics.daily-rollup-cron:0 10 0 * * *}", zone = "UTC")
+    @Transactional
+    public void rollupDaily() {
+        if (!enabled) {
+            return;
+        }
+        rollupPending(MetricResolution.HOUR, MetricResolution.DAY);
+    }
+
+    // GET AVAILABLE METRICS FOR REALM
+    public List<String> getMetricNames(String realmName) {
+        try {
+            return sampleRepository.findMetricNames(realmName);
+        } catch (Exception e) {
+            log.error("Error getting metric names for realm {}: {}", realmName, e.getMessage());
+            throw new RuntimeException("Failed to get metric names: " + e.getMessage());
+        }
+    }
+
+    // GET METRIC SERIES (range query, answered from the local store only)
+    public Map<String, Object> getSeries(String realmName, String metric, Instant from, Instant to,
+            String resolutionCode) {
+        try {
+            Instant end = to != null ? to : Instant.now();
+            Instant start = from != null ? from : end.minus(Duration.ofHours(1));
+            if (start.isAfter(end)) {
+                throw new IllegalArgumentException("'from' must be before 'to'");
+            }
+            MetricResolution resolution = resolutionCode == null || "auto".equalsIgnoreCase(resolutionCode)
+                    ? pickResolution(Duration.between(start, end))
+                    : MetricResolution.fromCode(resolutionCode);
+
+            List<MetricPoint> points = new ArrayList<>();
+            for (RealmMetricSample sample : sampleRepository
+                    .findByRealmNameAndMetricAndResolutionAndBucketStartBetweenOrderByBucketStartAsc(
+                            realmName, metric, resolution, resolution.truncate(start), end)) {
+                points.add(new MetricPoint(sample.getBucketStart(), sample.getAverage(), sample.getMinValue(),
+                        sample.getMaxValue(), sample.getSampleCount()));
+            }
+
+            Map<String, Object> series = new LinkedHashMap<>();
+            series.put("realmName", realmName);
+            series.put("metric", metric);
+            series.put("resolution", resolution.getCode());
+            series.put("from", start);
+            series.put("to", end);
+            series.put("points", points);
+            return series;
+        } catch (Exception e) {
+            log.error("Error getting metric series {} for realm {}: {}", metric, realmName, e.getMessage());
+            throw new RuntimeException("Failed to get metric series: " + e.getMessage());
+        }
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private Map<String, Double> collectRealmMetrics(String realmName) {
+        Map<String, Double> values = new LinkedHashMap<>();
+        realmService.getRealmStatistics(realmName).forEach((key, value) -> {
+            if (value instanceof Number number) {
+                values.put(key, number.doubleValue());
+            }
+        });
+        values.put("activeSessions", (double) dashboardService.getActiveSessionsCount(realmName));
+        return values;
+    }
+
+    private void recordSample(String realmName, String metric, Instant bucket, double value) {
+        RealmMetricSample sample = sampleRepository
+                .findByRealmNameAndMetricAndResolutionAndBucketStart(realmName, metric, MetricResolution.MINUTE, bucket)
+                .orElse(null);
+        if (sample == null) {
+            sampleRepository.save(new RealmMetricSample(realmName, metric, MetricResolution.MINUTE, bucket,
+                    value, value, value, 1));
+            return;
+        }
+        long count = sample.getSampleCount() + 1;
+        sample.setAverage((sample.getAverage() * sample.getSampleCount() + value) / count);
+        sample.setMinValue(Math.min(sample.getMinValue(), value));
+        sample.setMaxValue(Math.max(sample.getMaxValue(), value));
+        sample.setSampleCount(count);
+    }
+
+    // Tous les buckets cibles terminés depuis la dernière agrégation persistée (rattrapage après un arrêt),
+    // bornés par la plus ancienne donnée source encore conservée
+    private void rollupPending(MetricResolution source, MetricResolution target) {
+        Instant earliestSource = sampleRepository.findEarliestBucketStart(source);
+        if (earliestSource == null) {
+            return;
+        }
+        Instant latest = sampleRepository.findLatestBucketStart(target);
+        Instant bucket = target.truncate(earliestSource);
+        if (latest != null && latest.plus(target.getStep()).isAfter(bucket)) {
+            bucket = latest.plus(target.getStep());
+        }
+        Instant current = target.truncate(Instant.now());
+        while (bucket.isBefore(current)) {
+            rollup(source, target, bucket);
+            bucket = bucket.plus(target.getStep());
+        }
+    }
+
+    private void rollup(MetricResolution source, MetricResolution target, Instant bucketStart) {
+        Instant bucketEnd = bucketStart.plus(target.getStep());
+        List<Object[]> rows = sampleRepository.aggregateWindow(source, bucketStart, bucketEnd);
+        // Idempotent : on remplace le bucket cible s'il a déjà été calculé
+        sampleRepository.deleteBucket(target, bucketStart);
+        for (Object[] row : rows) {
+            long count = ((Number) row[5]).longValue();
+            if (count == 0) {
+                continue;
+            }
+            double average = ((Number) row[2]).doubleValue() / count;
+            sampleRepository.save(new RealmMetricSample((String) row[0], (String) row[1], target, bucketStart,
+                    average, ((Number) row[3]).doubleValue(), ((Number) row[4]).doubleValue(), count));
+        }
+        log.info("Rolled up {} series from {} to {} for bucket {}", rows.size(), source.getCode(), target.getCode(),
+                bucketStart);
+    }
+
+    private void applyRetention() {
+        Instant now = Instant.now();
+        int minutes = sampleRepository.deleteOlderThan(MetricResolution.MINUTE,
+                now.minus(Duration.ofHours(minuteRetentionHours)));
+        int hours = sampleRepository.deleteOlderThan(MetricResolution.HOUR,
+                now.minus(Duration.ofDays(hourRetentionDays)));
+        int days = sampleRepository.deleteOlderThan(MetricResolution.DAY,
+                now.minus(Duration.ofDays(dayRetentionDays)));
+        if (minutes + hours + days > 0) {
+            log.info("Metrics retention removed {} minute, {} hour and {} day samples", minutes, hours, days);
+        }
+    }
+
+    private MetricResolution pickResolution(Duration span) {
+        if (span.compareTo(Duration.ofHours(6)) <= 0) {
+            return MetricResolution.MINUTE;
+        }
+        if (span.compareTo(Duration.ofDays(14)) <= 0) {
+            return MetricResolution.HOUR;
+        }
+        return MetricResolution.DAY;
+    }
+}
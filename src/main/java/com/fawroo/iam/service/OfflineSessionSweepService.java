@@ -0,0 +1,347 @@
+package com.fawroo.iam.service;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.admin.client.resource.ClientResource;
+import org.keycloak.admin.client.resource.RealmResource;
+import org.keycloak.representations.idm.UserSessionRepresentation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fawroo.iam.model.dto.OfflineSessionRevokeRequest;
+import com.fawroo.iam.model.entity.OfflineSessionSweepCheckpoint;
+import com.fawroo.iam.model.entity.StaleOfflineSession;
+import com.fawroo.iam.repository.OfflineSessionSweepCheckpointRepository;
+import com.fawroo.iam.repository.StaleOfflineSessionRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * Balayage des sessions offline d'un realm : les clients ayant des sessions offline (getClientSessionStats)
+ * sont parcourus par UUID croissant ; les pages getOfflineUserSessions(first, max) d'un client sont lues
+ * en parallèle. Après chaque client, les signalements et le point de reprise sont enregistrés : un balayage
+ * interrompu (budget de clients atteint, redémarrage) reprend au client suivant.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class OfflineSessionSweepService {
+
+    private final Keycloak keycloak;
+    private final RealmService realmService;
+    private final KeycloakTaskRunner taskRunner;
+    private final OfflineSessionSweepCheckpointRepository checkpointRepository;
+    private final StaleOfflineSessionRepository staleSessionRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    // Un seul balayage à la fois par realm (planificateur + déclenchement manuel)
+    private final Set<String> runningRealms = ConcurrentHashMap.newKeySet();
+
+    @Value("${iam.sessions.offline.sweep.enabled:true}")
+    private boolean enabled;
+
+    @Value("${iam.sessions.offline.sweep.realms:}")
+    private List<String> realms;
+
+    // Nombre de clients balayés par exécution planifiée (0 = passe complète)
+    @Value("${iam.sessions.offline.sweep.clients-per-run:50}")
+    private int clientsPerRun;
+
+    @Value("${iam.sessions.offline.sweep.page-size:200}")
+    private int pageSize;
+
+    @Value("${iam.sessions.offline.sweep.parallelism:4}")
+    private int parallelism;
+
+    // Session signalée lorsqu'elle a été ouverte il y a plus de max-age-days...
+    @Value("${iam.sessions.offline.max-age-days:30}")
+    private int maxAgeDays;
+
+    // ... ou qu'elle n'a pas été utilisée depuis idle-days (0 = désactivé)
+    @Value("${iam.sessions.offline.idle-days:0}")
+    private int idleDays;
+
+    @Value("${iam.sessions.offline.revoke-parallelism:8}")
+    private int revokeParallelism;
+
+    // SWEEP ALL REALMS
+    @Scheduled(fixedDelayString = "${iam.sessions.offline.sweep.interval-ms:900000}",
+            initialDelayString = "${iam.sessions.offline.sweep.initial-delay-ms:120000}")
+    public void sweepAll() {
+        if (!enabled) {
+            return;
+        }
+        for (String realmName : realmService.getRealmNames(realms)) {
+            try {
+                sweepRealm(realmName, clientsPerRun);
+            } catch (Exception e) {
+                log.warn("Offline session sweep failed for realm {}: {}", realmName, e.getMessage());
+            }
+        }
+    }
+
+    // SWEEP ONE REALM (resumes from the checkpoint, stops after maxClients clients)
+    public Map<String, Object> sweepRealm(String realmName, int maxClients) {
+        if (!runningRealms.add(realmName)) {
+            throw new RuntimeException("Offline session sweep already running for realm: " + realmName);
+        }
+        try {
+            long start = System.currentTimeMillis();
+            RealmResource realm = keycloak.realm(realmName);
+            OfflineSessionSweepCheckpoint checkpoint = checkpointRepository.findById(realmName)
+                    .orElseGet(() -> new OfflineSessionSweepCheckpoint(realmName));
+            if (checkpoint.getLastClientUuid() == null) {
+                startPass(checkpoint);
+            }
+
+            List<Map<String, String>> clients = realm.getClientSessionStats().stream()
+                    .filter(stat -> parseLong(stat.get("offline")) > 0)
+                    .sorted(Comparator.comparing((Map<String, String> stat) -> stat.get("id")))
+                    .filter(stat -> checkpoint.getLastClientUuid() == null
+                            || stat.get("id").compareTo(checkpoint.getLastClientUuid()) > 0)
+                    .toList();
+
+            int swept = 0;
+            long scanned = 0;
+            long stale = 0;
+            for (Map<String, String> stat : clients) {
+                if (maxClients > 0 && swept >= maxClients) {
+                    break;
+                }
+                List<StaleOfflineSession> findings = new ArrayList<>();
+                long clientScanned = sweepClient(realm, realmName, stat.get("id"), stat.get("clientId"),
+                        parseLong(stat.get("offline")), findings);
+                scanned += clientScanned;
+                stale += findings.size();
+                swept++;
+                transactionTemplate.executeWithoutResult(status -> {
+                    staleSessionRepository.deleteByClient(realmName, stat.get("id"));
+                    staleSessionRepository.saveAll(findings);
+                    checkpoint.setLastClientUuid(stat.get("id"));
+                    checkpoint.setClientsSwept(checkpoint.getClientsSwept() + 1);
+                    checkpoint.setSessionsScanned(checkpoint.getSessionsScanned() + clientScanned);
+                    checkpoint.setStaleFound(checkpoint.getStaleFound() + findings.size());
+                    checkpointRepository.save(checkpoint);
+                });
+            }
+            checkpoint.setLastRunAt(Instant.now());
+            boolean completed = swept == clients.size();
+            transactionTemplate.executeWithoutResult(status -> {
+                if (completed) {
+                    completePass(realmName, checkpoint);
+                }
+                checkpointRepository.save(checkpoint);
+            });
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("realmName", realmName);
+            result.put("clientsSwept", swept);
+            result.put("clientsRemaining", clients.size() - swept);
+            result.put("sessionsScanned", scanned);
+            result.put("staleFound", stale);
+            result.put("passCompleted", completed);
+            result.put("durationMs", System.currentTimeMillis() - start);
+            log.info("Offline session sweep for realm {}: {} clients, {} sessions, {} stale{}", realmName, swept,
+                    scanned, stale, completed ? " (pass completed)" : "");
+            return result;
+        } finally {
+            runningRealms.remove(realmName);
+        }
+    }
+
+    // GET AUDIT (checkpoint + stale sessions, oldest first)
+    public Map<String, Object> getAudit(String realmName, int page, int size) {
+        try {
+            Map<String, Object> audit = new LinkedHashMap<>();
+            audit.put("realmName", realmName);
+            audit.put("running", runningRealms.contains(realmName));
+            audit.put("maxAgeDays", maxAgeDays);
+            audit.put("idleDays", idleDays);
+            checkpointRepository.findById(realmName).ifPresent(checkpoint -> audit.put("checkpoint", describe(checkpoint)));
+            Page<StaleOfflineSession> findings = staleSessionRepository.findByRealmNameOrderBySessionStartAsc(
+                    realmName, PageRequest.of(Math.max(0, page), Math.max(1, Math.min(size, 1000))));
+            audit.put("totalStale", findings.getTotalElements());
+            audit.put("page", findings.getNumber());
+            audit.put("sessions", findings.getContent());
+            return audit;
+        } catch (Exception e) {
+            log.error("Error getting offline session audit for realm {}: {}", realmName, e.getMessage());
+            throw new RuntimeException("Failed to get offline session audit: " + e.getMessage());
+        }
+    }
+
+    /*
+     * REVOKE STALE SESSIONS
+     * L'API d'administration ne supprime pas une session offline isolée : revokeConsent(clientId)
+     * retire le consentement et tous les jetons offline de l'utilisateur pour ce client.
+     */
+    public Map<String, Object> revokeStale(String realmName, OfflineSessionRevokeRequest request) {
+        List<StaleOfflineSession> findings;
+        if (request != null && Boolean.TRUE.equals(request.getAll())) {
+            findings = staleSessionRepository.findByRealmName(realmName);
+        } else if (request != null && request.getFindingIds() != null && !request.getFindingIds().isEmpty()) {
+            findings = staleSessionRepository.findByRealmNameAndIdIn(realmName, request.getFindingIds());
+        } else {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "findingIds or all=true is required");
+        }
+
+        Set<UserClient> targets = new LinkedHashSet<>();
+        findings.forEach(finding -> targets.add(new UserClient(finding.getUserId(), finding.getClientId())));
+        int parallel = request.getParallelism() != null ? Math.min(request.getParallelism(), 32) : revokeParallelism;
+
+        long start = System.currentTimeMillis();
+        RealmResource realm = keycloak.realm(realmName);
+        AtomicInteger revoked = new AtomicInteger();
+        List<Map<String, Object>> failures = new ArrayList<>();
+        taskRunner.<UserClient, Boolean>forEach(targets, parallel, target -> {
+            realm.users().get(target.userId()).revokeConsent(target.clientId());
+            return true;
+        }, (target, result, error) -> {
+            if (error == null) {
+                revoked.incrementAndGet();
+                transactionTemplate.executeWithoutResult(status ->
+                        staleSessionRepository.deleteByUserAndClient(realmName, target.userId(), target.clientId()));
+            } else {
+                log.warn("Offline session revocation failed for user {} on client {}: {}", target.userId(),
+                        target.clientId(), error.getMessage());
+                synchronized (failures) {
+                    failures.add(Map.of("userId", target.userId(), "clientId", target.clientId(),
+                            "error", String.valueOf(error.getMessage())));
+                }
+            }
+        });
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("realmName", realmName);
+        summary.put("sessions", findings.size());
+        summary.put("userClientPairs", targets.size());
+        summary.put("revoked", revoked.get());
+        summary.put("failed", failures.size());
+        summary.put("failures", failures);
+        summary.put("durationMs", System.currentTimeMillis() - start);
+        log.info("Revoked offline sessions in realm {}: {} user/client pairs, {} failed", realmName, revoked.get(),
+                failures.size());
+        return summary;
+    }
+
+    // ========== HELPER METHODS ==========
+
+    // Pages lues en parallèle à partir du nombre de sessions annoncé ; les doublons (pagination décalée) sont écartés
+    private long sweepClient(RealmResource realm, String realmName, String clientUuid, String clientId,
+            long expected, List<StaleOfflineSession> findings) {
+        ClientResource client = realm.clients().get(clientUuid);
+        List<Integer> offsets = new ArrayList<>();
+        for (long first = 0; first < expected; first += pageSize) {
+            offsets.add((int) first);
+        }
+        List<List<UserSessionRepresentation>> pages = new ArrayList<>(taskRunner.mapAll(offsets, parallelism,
+                first -> client.getOfflineUserSessions(first, pageSize)));
+        // Sessions créées pendant le balayage : pages supplémentaires lues séquentiellement
+        int next = offsets.size() * pageSize;
+        while (!pages.isEmpty() && pages.get(pages.size() - 1).size() == pageSize) {
+            taskRunner.throttle();
+            pages.add(client.getOfflineUserSessions(next, pageSize));
+            next += pageSize;
+        }
+
+        long now = System.currentTimeMillis();
+        long maxAgeMs = ChronoUnit.DAYS.getDuration().toMillis() * maxAgeDays;
+        long idleMs = ChronoUnit.DAYS.getDuration().toMillis() * idleDays;
+        Instant detectedAt = Instant.now();
+        CompactIdSet seen = new CompactIdSet();
+        long scanned = 0;
+        for (List<UserSessionRepresentation> page : pages) {
+            for (UserSessionRepresentation session : page) {
+                if (!seen.add(session.getId())) {
+                    continue;
+                }
+                scanned++;
+                String reason = null;
+                if (maxAgeDays > 0 && now - session.getStart() > maxAgeMs) {
+                    reason = StaleOfflineSession.AGE;
+                } else if (idleDays > 0 && now - session.getLastAccess() > idleMs) {
+                    reason = StaleOfflineSession.IDLE;
+                }
+                if (reason != null) {
+                    findings.add(toFinding(realmName, clientUuid, clientId, session, reason, detectedAt));
+                }
+            }
+        }
+        return scanned;
+    }
+
+    private StaleOfflineSession toFinding(String realmName, String clientUuid, String clientId,
+            UserSessionRepresentation session, String reason, Instant detectedAt) {
+        StaleOfflineSession finding = new StaleOfflineSession();
+        finding.setRealmName(realmName);
+        finding.setSessionId(session.getId());
+        finding.setClientUuid(clientUuid);
+        finding.setClientId(clientId);
+        finding.setUserId(session.getUserId());
+        finding.setUsername(session.getUsername());
+        finding.setIpAddress(session.getIpAddress());
+        finding.setSessionStart(session.getStart());
+        finding.setLastAccess(session.getLastAccess());
+        finding.setReason(reason);
+        finding.setDetectedAt(detectedAt);
+        return finding;
+    }
+
+    private void startPass(OfflineSessionSweepCheckpoint checkpoint) {
+        checkpoint.setPassStartedAt(Instant.now());
+        checkpoint.setClientsSwept(0);
+        checkpoint.setSessionsScanned(0);
+        checkpoint.setStaleFound(0);
+    }
+
+    private void completePass(String realmName, OfflineSessionSweepCheckpoint checkpoint) {
+        staleSessionRepository.deleteDetectedBefore(realmName, checkpoint.getPassStartedAt());
+        checkpoint.setLastCompletedAt(Instant.now());
+        checkpoint.setLastPassSessions(checkpoint.getSessionsScanned());
+        checkpoint.setLastPassStale(checkpoint.getStaleFound());
+        checkpoint.setLastClientUuid(null);
+    }
+
+    private Map<String, Object> describe(OfflineSessionSweepCheckpoint checkpoint) {
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("passStartedAt", checkpoint.getPassStartedAt());
+        info.put("passInProgress", checkpoint.getLastClientUuid() != null);
+        info.put("clientsSwept", checkpoint.getClientsSwept());
+        info.put("sessionsScanned", checkpoint.getSessionsScanned());
+        info.put("staleFound", checkpoint.getStaleFound());
+        info.put("lastRunAt", checkpoint.getLastRunAt());
+        info.put("lastCompletedAt", checkpoint.getLastCompletedAt());
+        info.put("lastPassSessions", checkpoint.getLastPassSessions());
+        info.put("lastPassStale", checkpoint.getLastPassStale());
+        return info;
+    }
+
+    private static long parseLong(String value) {
+        try {
+            return value != null ? Long.parseLong(value) : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private record UserClient(String userId, String clientId) {
+    }
+}
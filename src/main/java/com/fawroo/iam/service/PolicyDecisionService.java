@@ -0,0 +1,597 @@
+package com.fawroo.iam.service;
+
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.representations.idm.AdminEventRepresentation;
+import org.keycloak.representations.idm.authorization.DecisionStrategy;
+import org.keycloak.representations.idm.authorization.Logic;
+import org.keycloak.representations.idm.authorization.PolicyEnforcementMode;
+import org.keycloak.representations.idm.authorization.PolicyRepresentation;
+import org.keycloak.representations.idm.authorization.ResourceRepresentation;
+import org.keycloak.representations.idm.authorization.ResourceServerRepresentation;
+import org.keycloak.representations.idm.authorization.ScopeRepresentation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fawroo.iam.event.EventsIngestedEvent;
+import com.fawroo.iam.model.dto.PermissionCheckRequest;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * Point de décision local pour Keycloak Authorization Services.
+ * Les réglages exportés d'un resource server (exportSettings) sont compilés en mémoire :
+ * politiques role/group/user/time/aggregate et permissions resource/scope. Les autres types
+ * (js, client, regex...) ne sont pas évalués localement et refusent par défaut.
+ * Rechargement à chaud : événements admin AUTHORIZATION_* et vérification périodique du contenu
+ * des seuls serveurs utilisés depuis la vérification précédente ; les serveurs inactifs sont évincés.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class PolicyDecisionService {
+
+    // En dessous, l'évaluation séquentielle est plus rapide que le découpage parallèle
+    private static final int PARALLEL_BATCH_THRESHOLD = 64;
+    private static final DateTimeFormatter TIME_POLICY_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final Keycloak keycloak;
+    private final ObjectMapper objectMapper;
+    private final EffectivePermissionService effectivePermissionService;
+    private final ClientIdResolver clientIdResolver;
+
+    @Value("${iam.authz.pdp.max-batch-size:1000}")
+    private int maxBatchSize;
+
+    @Value("${iam.authz.pdp.idle-eviction-minutes:30}")
+    private long idleEvictionMinutes;
+
+    private final Map<String, CompiledResourceServer> servers = new ConcurrentHashMap<>();
+    private final Map<String, Object> serverLocks = new ConcurrentHashMap<>();
+
+    // EVALUATE PERMISSION
+    public Map<String, Object> evaluate(String realmName, String clientId, String userId, String resource, String scope) {
+        try {
+            CompiledResourceServer server = getResourceServer(realmName, clientId);
+            return server.evaluate(subject(realmName, userId), resource, scope);
+        } catch (Exception e) {
+            log.error("Error evaluating permission for user {} on {}: {}", userId, resource, e.getMessage());
+            throw new RuntimeException("Failed to evaluate permission: " + e.getMessage());
+        }
+    }
+
+    // EVALUATE PERMISSIONS IN BATCH (user context resolved once, checks evaluated in parallel)
+    public Map<String, Object> evaluateAll(String realmName, String clientId, PermissionCheckRequest request) {
+        if (request.getUserId() == null || request.getChecks() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "userId and checks are required");
+        }
+        if (request.getChecks().size() > maxBatchSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + maxBatchSize + " checks are allowed per request");
+        }
+        try {
+            long start = System.currentTimeMillis();
+            CompiledResourceServer server = getResourceServer(realmName, clientId);
+            Subject subject = subject(realmName, request.getUserId());
+            // Tout appel Keycloak est fait ici : les tâches parallèles (pool commun) n'évaluent qu'en mémoire
+            subject.resolve(server.userPolicies > 0);
+            var checks = request.getChecks().size() >= PARALLEL_BATCH_THRESHOLD
+                    ? request.getChecks().parallelStream()
+                    : request.getChecks().stream();
+            List<Map<String, Object>> results = checks
+                    .map(check -> server.evaluate(subject, check.getResource(), check.getScope()))
+                    .toList();
+
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("userId", request.getUserId());
+            response.put("clientId", clientId);
+            response.put("total", results.size());
+            response.put("granted", results.stream().filter(result -> Boolean.TRUE.equals(result.get("granted"))).count());
+            response.put("results", results);
+            response.put("durationMs", System.currentTimeMillis() - start);
+            return response;
+        } catch (ResponseStatusException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Error evaluating permissions for user {}: {}", request.getUserId(), e.getMessage());
+            throw new RuntimeException("Failed to evaluate permissions: " + e.getMessage());
+        }
+    }
+
+    // BUILD EVALUATION SUBJECT (roles and groups resolved once, reusable across many checks)
+    public Subject subject(String realmName, String userId) {
+        EffectivePermissionService.RoleGraph graph = effectivePermissionService.getRoleGraph(realmName);
+        EffectivePermissionService.UserGrants grants = effectivePermissionService.getUserGrants(realmName, userId);
+        return new Subject(realmName, userId, graph, grants.effectiveRoles(graph), grants.getGroupIds());
+    }
+
+    // GET COMPILED RESOURCE SERVER
+    public CompiledResourceServer getResourceServer(String realmName, String clientId) {
+        String key = realmName + "/" + clientId;
+        CompiledResourceServer server = servers.get(key);
+        if (server == null || server.stale) {
+            synchronized (serverLocks.computeIfAbsent(key, k -> new Object())) {
+                server = servers.get(key);
+                if (server == null || server.stale) {
+                    server = load(realmName, clientId, server);
+                    servers.put(key, server);
+                }
+            }
+        }
+        server.lastUsedAt = System.currentTimeMillis();
+        return server;
+    }
+
+    // RELOAD RESOURCE SERVER
+    public Map<String, Object> reload(String realmName, String clientId) {
+        CompiledResourceServer server = servers.get(realmName + "/" + clientId);
+        if (server != null) {
+            server.stale = true;
+        }
+        return getStatus(realmName, clientId);
+    }
+
+    // GET PDP STATUS
+    public Map<String, Object> getStatus(String realmName, String clientId) {
+        CompiledResourceServer server = getResourceServer(realmName, clientId);
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("clientId", clientId);
+        status.put("enforcementMode", server.enforcementMode);
+        status.put("decisionStrategy", server.decisionStrategy);
+        status.put("resources", server.resourcesByName.size());
+        status.put("policies", server.policyCount);
+        status.put("permissions", server.permissions.size());
+        status.put("unsupportedPolicies", server.unsupportedPolicies);
+        status.put("contentHash", server.contentHash);
+        status.put("loadedAt", server.loadedAt);
+        return status;
+    }
+
+    // INVALIDATE CLIENT
+    public void invalidate(String realmName, String clientId) {
+        CompiledResourceServer server = servers.get(realmName + "/" + clientId);
+        if (server != null) {
+            server.stale = true;
+        }
+    }
+
+    @EventListener
+    public void onEventsIngested(EventsIngestedEvent ingested) {
+        boolean authorizationChanged = ingested.getAdminEvents().stream()
+                .map(AdminEventRepresentation::getResourceType)
+                .anyMatch(type -> type != null && type.startsWith("AUTHORIZATION"));
+        if (authorizationChanged) {
+            // Le chemin d'un événement ne porte que l'UUID du client : on invalide les serveurs du realm
+            servers.values().stream()
+                    .filter(server -> server.realmName.equals(ingested.getRealmName()))
+                    .forEach(server -> server.stale = true);
+        }
+    }
+
+    /*
+     * Vérifie périodiquement le contenu exporté et ne recompile que s'il a changé. Seuls les serveurs
+     * utilisés depuis la vérification précédente sont réexportés ; les autres sont marqués à recharger
+     * au prochain usage, et évincés après iam.authz.pdp.idle-eviction-minutes sans usage.
+     */
+    @Scheduled(fixedDelayString = "${iam.authz.pdp.refresh-interval-ms:60000}", initialDelay = 60000)
+    public void refreshLoaded() {
+        long idleBefore = System.currentTimeMillis() - idleEvictionMinutes * 60_000L;
+        for (Map.Entry<String, CompiledResourceServer> entry : servers.entrySet()) {
+            CompiledResourceServer server = entry.getValue();
+            if (server.lastUsedAt < idleBefore) {
+                servers.remove(entry.getKey(), server);
+                serverLocks.remove(entry.getKey());
+                continue;
+            }
+            if (server.lastUsedAt < server.checkedAt) {
+                server.stale = true;
+                continue;
+            }
+            try {
+                CompiledResourceServer refreshed = load(server.realmName, server.clientId, server);
+                if (refreshed != server) {
+                    servers.put(entry.getKey(), refreshed);
+                }
+            } catch (Exception e) {
+                log.warn("Could not refresh authorization settings of {}: {}", entry.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    // ========== COMPILATION ==========
+
+    private CompiledResourceServer load(String realmName, String clientId, CompiledResourceServer previous) {
+        ResourceServerRepresentation settings = clientIdResolver.withClient(realmName, clientId,
+                client -> client.authorization().exportSettings());
+        String hash = contentHash(settings);
+        if (previous != null && hash.equals(previous.contentHash)) {
+            previous.checkedAt = System.currentTimeMillis();
+            previous.stale = false;
+            return previous;
+        }
+        CompiledResourceServer server = compile(realmName, clientId, settings, hash);
+        if (previous != null) {
+            server.lastUsedAt = previous.lastUsedAt;
+        }
+        log.info("Authorization settings of client {} in realm {} compiled: {} resources, {} permissions", clientId,
+                realmName, server.resourcesByName.size(), server.permissions.size());
+        return server;
+    }
+
+    private CompiledResourceServer compile(String realmName, String clientId, ResourceServerRepresentation settings,
+            String hash) {
+        CompiledResourceServer server = new CompiledResourceServer(realmName, clientId, hash);
+        server.enforcementMode = settings.getPolicyEnforcementMode() != null ? settings.getPolicyEnforcementMode()
+                : PolicyEnforcementMode.ENFORCING;
+        server.decisionStrategy = settings.getDecisionStrategy() != null ? settings.getDecisionStrategy()
+                : DecisionStrategy.UNANIMOUS;
+        if (settings.getResources() != null) {
+            for (ResourceRepresentation resource : settings.getResources()) {
+                server.resourcesByName.put(resource.getName(), resource);
+            }
+        }
+
+        List<PolicyRepresentation> policies = settings.getPolicies() != null ? settings.getPolicies() : List.of();
+        Map<String, PolicyRepresentation> definitions = new HashMap<>();
+        policies.forEach(policy -> definitions.put(policy.getName(), policy));
+        for (PolicyRepresentation policy : policies) {
+            if ("resource".equals(policy.getType()) || "scope".equals(policy.getType())) {
+                server.permissions.add(compilePermission(server, policy, definitions));
+            } else {
+                server.policyCount++;
+            }
+        }
+        return server;
+    }
+
+    private CompiledPermission compilePermission(CompiledResourceServer server, PolicyRepresentation permission,
+            Map<String, PolicyRepresentation> definitions) {
+        Map<String, String> config = config(permission);
+        List<Predicate<Subject>> policies = new ArrayList<>();
+        for (String name : readList(config.get("applyPolicies"), String.class)) {
+            policies.add(compilePolicy(server, name, definitions, new HashSet<>()));
+        }
+        return new CompiledPermission(permission.getName(), permission.getType(),
+                new HashSet<>(readList(config.get("resources"), String.class)),
+                new HashSet<>(readList(config.get("scopes"), String.class)),
+                config.get("defaultResourceType"),
+                strategy(permission.getDecisionStrategy()), policies);
+    }
+
+    private Predicate<Subject> compilePolicy(CompiledResourceServer server, String name,
+            Map<String, PolicyRepresentation> definitions, Set<String> visiting) {
+        PolicyRepresentation policy = definitions.get(name);
+        if (policy == null || !visiting.add(name)) {
+            return subject -> false;
+        }
+        Map<String, String> config = config(policy);
+        Predicate<Subject> predicate;
+        try {
+            predicate = switch (policy.getType()) {
+                case "role" -> rolePolicy(readList(config.get("roles"), Map.class));
+                case "group" -> groupPolicy(readList(config.get("groups"), Map.class));
+                case "user" -> {
+                    server.userPolicies++;
+                    yield userPolicy(new HashSet<>(readList(config.get("users"), String.class)));
+                }
+                case "time" -> timePolicy(config);
+                case "aggregate" -> {
+                    List<Predicate<Subject>> children = new ArrayList<>();
+                    for (String child : readList(config.get("applyPolicies"), String.class)) {
+                        children.add(compilePolicy(server, child, definitions, visiting));
+                    }
+                    yield combine(strategy(policy.getDecisionStrategy()), children);
+                }
+                default -> {
+                    server.unsupportedPolicies.add(policy.getName() + " (" + policy.getType() + ")");
+                    yield subject -> false;
+                }
+            };
+        } catch (DateTimeException | IllegalArgumentException e) {
+            // Configuration illisible : cette politique refuse (quelle que soit sa logique), les autres sont compilées
+            log.warn("Invalid {} policy {} for client {} in realm {}: {}", policy.getType(), name, server.clientId,
+                    server.realmName, e.getMessage());
+            server.unsupportedPolicies.add(policy.getName() + " (invalid " + policy.getType() + " configuration)");
+            visiting.remove(name);
+            return subject -> false;
+        }
+        visiting.remove(name);
+        return policy.getLogic() == Logic.NEGATIVE ? predicate.negate() : predicate;
+    }
+
+    // Rôles exportés par nom ("role" ou "clientId/role") ; un rôle "required" manquant refuse
+    @SuppressWarnings("rawtypes")
+    private Predicate<Subject> rolePolicy(List<Map> roles) {
+        List<Object[]> entries = new ArrayList<>();
+        for (Map role : roles) {
+            entries.add(new Object[] { String.valueOf(role.get("id")), Boolean.TRUE.equals(role.get("required")) });
+        }
+        return subject -> {
+            boolean any = false;
+            for (Object[] entry : entries) {
+                boolean granted = subject.hasRole((String) entry[0]);
+                if ((Boolean) entry[1] && !granted) {
+                    return false;
+                }
+                any |= granted;
+            }
+            return any;
+        };
+    }
+
+    @SuppressWarnings("rawtypes")
+    private Predicate<Subject> groupPolicy(List<Map> groups) {
+        List<Object[]> entries = new ArrayList<>();
+        for (Map group : groups) {
+            Object path = group.get("path") != null ? group.get("path") : group.get("id");
+            entries.add(new Object[] { String.valueOf(path), Boolean.TRUE.equals(group.get("extendChildren")) });
+        }
+        return subject -> {
+            for (String userGroup : subject.groupPaths()) {
+                for (Object[] entry : entries) {
+                    String path = (String) entry[0];
+                    if (userGroup.equals(path) || ((Boolean) entry[1] && userGroup.startsWith(path + "/"))) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        };
+    }
+
+    private Predicate<Subject> userPolicy(Set<String> users) {
+        return subject -> users.contains(subject.userId) || users.contains(subject.username());
+    }
+
+    // Dates et bornes lues à la compilation : une valeur illisible lève une exception ici, pas à l'évaluation
+    private Predicate<Subject> timePolicy(Map<String, String> config) {
+        LocalDateTime notBefore = parseTime(config.get("nbf"));
+        LocalDateTime notOnOrAfter = parseTime(config.get("noa"));
+        int[] dayMonth = range(config, "dayMonth");
+        int[] month = range(config, "month");
+        int[] year = range(config, "year");
+        int[] hour = range(config, "hour");
+        int[] minute = range(config, "minute");
+        return subject -> {
+            LocalDateTime now = LocalDateTime.now();
+            return (notBefore == null || !now.isBefore(notBefore))
+                    && (notOnOrAfter == null || now.isBefore(notOnOrAfter))
+                    && inRange(dayMonth, now.getDayOfMonth())
+                    && inRange(month, now.getMonthValue())
+                    && inRange(year, now.getYear())
+                    && inRange(hour, now.getHour())
+                    && inRange(minute, now.getMinute());
+        };
+    }
+
+    // ========== EVALUATION STRUCTURES ==========
+
+    public class Subject {
+        private final String realmName;
+        private final String userId;
+        private final EffectivePermissionService.RoleGraph graph;
+        private final BitSet roles;
+        private final List<String> groupIds;
+        private volatile List<String> groupPaths;
+        private volatile String username;
+
+        private Subject(String realmName, String userId, EffectivePermissionService.RoleGraph graph, BitSet roles,
+                List<String> groupIds) {
+            this.realmName = realmName;
+            this.userId = userId;
+            this.graph = graph;
+            this.roles = roles;
+            this.groupIds = groupIds;
+        }
+
+        private boolean hasRole(String role) {
+            Integer bit = graph.bitOfRoleId(role);
+            if (bit == null) {
+                int separator = role.indexOf('/');
+                if (separator > 0) {
+                    bit = graph.bitOf(role.substring(0, separator), role.substring(separator + 1));
+                }
+                if (bit == null) {
+                    bit = graph.bitOf(null, role);
+                }
+            }
+            return bit != null && roles.get(bit);
+        }
+
+        // Chemins de groupes et, si des politiques "user" l'exigent, nom d'utilisateur lus avant l'évaluation
+        private void resolve(boolean username) {
+            groupPaths();
+            if (username) {
+                username();
+            }
+        }
+
+        private List<String> groupPaths() {
+            if (groupPaths == null) {
+                groupPaths = groupIds.stream().map(graph::groupPath).filter(Objects::nonNull).toList();
+            }
+            return groupPaths;
+        }
+
+        private synchronized String username() {
+            if (username == null) {
+                username = keycloak.realm(realmName).users().get(userId).toRepresentation().getUsername();
+            }
+            return username;
+        }
+    }
+
+    private record CompiledPermission(String name, String type, Set<String> resources, Set<String> scopes,
+            String resourceType, DecisionStrategy strategy, List<Predicate<Subject>> policies) {
+
+        private boolean appliesTo(ResourceRepresentation resource, String resourceName, String scope) {
+            boolean resourceMatch = resources.contains(resourceName)
+                    || (resource != null && (resources.contains(resource.getId())
+                            || (resourceType != null && resourceType.equals(resource.getType()))));
+            if ("resource".equals(type)) {
+                return resourceMatch;
+            }
+            return scope != null && scopes.contains(scope) && (resources.isEmpty() || resourceMatch);
+        }
+    }
+
+    public static class CompiledResourceServer {
+        private final String realmName;
+        private final String clientId;
+        private final String contentHash;
+        private final long loadedAt = System.currentTimeMillis();
+        private volatile long checkedAt = loadedAt;
+        private volatile long lastUsedAt = loadedAt;
+        private final Map<String, ResourceRepresentation> resourcesByName = new HashMap<>();
+        private final List<CompiledPermission> permissions = new ArrayList<>();
+        private final List<String> unsupportedPolicies = new ArrayList<>();
+        private PolicyEnforcementMode enforcementMode;
+        private DecisionStrategy decisionStrategy;
+        private int policyCount;
+        private int userPolicies;
+        private volatile boolean stale;
+
+        private CompiledResourceServer(String realmName, String clientId, String contentHash) {
+            this.realmName = realmName;
+            this.clientId = clientId;
+            this.contentHash = contentHash;
+        }
+
+        public Map<String, Object> evaluate(Subject subject, String resourceName, String scope) {
+            Map<String, Object> decision = new LinkedHashMap<>();
+            decision.put("resource", resourceName);
+            decision.put("scope", scope);
+            ResourceRepresentation resource = resourcesByName.get(resourceName);
+            if (resource != null && scope != null && resource.getScopes() != null && !resource.getScopes().isEmpty()
+                    && resource.getScopes().stream().map(ScopeRepresentation::getName).noneMatch(scope::equals)) {
+                decision.put("granted", false);
+                decision.put("reason", "scope not defined on resource");
+                return decision;
+            }
+
+            List<String> granted = new ArrayList<>();
+            List<String> denied = new ArrayList<>();
+            for (CompiledPermission permission : permissions) {
+                if (permission.appliesTo(resource, resourceName, scope)) {
+                    boolean result = combine(permission.strategy, permission.policies).test(subject);
+                    (result ? granted : denied).add(permission.name);
+                }
+            }
+
+            boolean result;
+            String reason;
+            if (enforcementMode == PolicyEnforcementMode.DISABLED) {
+                result = true;
+                reason = "enforcement disabled";
+            } else if (granted.isEmpty() && denied.isEmpty()) {
+                result = enforcementMode == PolicyEnforcementMode.PERMISSIVE;
+                reason = "no applicable permission";
+            } else {
+                result = switch (decisionStrategy) {
+                    case AFFIRMATIVE -> !granted.isEmpty();
+                    case CONSENSUS -> granted.size() > denied.size();
+                    default -> denied.isEmpty();
+                };
+                reason = result ? "granted by " + granted : "denied by " + denied;
+            }
+            decision.put("granted", result);
+            decision.put("reason", reason);
+            return decision;
+        }
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private static Predicate<Subject> combine(DecisionStrategy strategy, List<Predicate<Subject>> policies) {
+        return subject -> {
+            if (policies.isEmpty()) {
+                return false;
+            }
+            int grants = 0;
+            for (Predicate<Subject> policy : policies) {
+                boolean result = policy.test(subject);
+                if (result) {
+                    grants++;
+                    if (strategy == DecisionStrategy.AFFIRMATIVE) {
+                        return true;
+                    }
+                } else if (strategy == DecisionStrategy.UNANIMOUS) {
+                    return false;
+                }
+            }
+            return strategy == DecisionStrategy.CONSENSUS ? grants > policies.size() - grants
+                    : strategy == DecisionStrategy.UNANIMOUS;
+        };
+    }
+
+    private static DecisionStrategy strategy(DecisionStrategy strategy) {
+        return strategy != null ? strategy : DecisionStrategy.UNANIMOUS;
+    }
+
+    private Map<String, String> config(PolicyRepresentation policy) {
+        return policy.getConfig() != null ? policy.getConfig() : Map.of();
+    }
+
+    // Une liste illisible lève une exception : la politique refuse, la permission empêche la compilation
+    private <T> List<T> readList(String json, Class<T> type) {
+        if (json == null || json.isBlank()) {
+            return List.of();
+        }
+        try {
+            return objectMapper.readValue(json,
+                    objectMapper.getTypeFactory().constructCollectionType(List.class, type));
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Could not parse policy configuration " + json + ": "
+                    + e.getMessage());
+        }
+    }
+
+    private String contentHash(ResourceServerRepresentation settings) {
+        try {
+            return DigestUtils.md5DigestAsHex(objectMapper.writeValueAsBytes(settings));
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to hash authorization settings: " + e.getMessage());
+        }
+    }
+
+    private static LocalDateTime parseTime(String value) {
+        return value == null || value.isBlank() ? null : LocalDateTime.parse(value, TIME_POLICY_FORMAT);
+    }
+
+    // Bornes [début, fin] d'un champ de politique temporelle (null si le champ est absent)
+    private static int[] range(Map<String, String> config, String field) {
+        String start = config.get(field);
+        if (start == null || start.isBlank()) {
+            return null;
+        }
+        String end = config.get(field + "End");
+        int from = Integer.parseInt(start.trim());
+        int to = end != null && !end.isBlank() ? Integer.parseInt(end.trim()) : from;
+        return new int[] { from, to };
+    }
+
+    private static boolean inRange(int[] range, int value) {
+        return range == null || (value >= range[0] && value <= range[1]);
+    }
+}
@@ -0,0 +1,208 @@
+package com.fawroo.iam.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.representations.idm.RealmRepresentation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fawroo.iam.model.dto.PolicyRolloutRequest;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * Déploiement d'un même jeu de paramètres sur plusieurs realms : les realms canaris sont appliqués
+ * d'abord, un par un, puis les autres en parallèle (plafond de concurrence). Chaque realm passe par
+ * RealmSettingsService (diff champ par champ, aucun PUT si rien ne change).
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class PolicyRolloutService {
+
+    private final Keycloak keycloak;
+    private final RealmSettingsService realmSettingsService;
+    private final KeycloakTaskRunner taskRunner;
+    private final ObjectMapper objectMapper;
+
+    @Value("${iam.rollout.default-parallelism:8}")
+    private int defaultParallelism;
+
+    @Value("${iam.rollout.max-parallelism:32}")
+    private int maxParallelism;
+
+    // VALIDATE ROLLOUT REQUEST (avant l'ouverture du flux de réponse)
+    public void validateRequest(PolicyRolloutRequest request) {
+        if (request == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Rollout request is required");
+        }
+        if ((request.getRealms() == null || request.getRealms().isEmpty())
+                && (request.getSelector() == null || request.getSelector().isEmpty())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "realms or selector is required");
+        }
+        try {
+            realmSettingsService.validateChanges(request.getSettings());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    // STREAM ROLLOUT (NDJSON : plan, une ligne par realm, synthèse)
+    public void streamRollout(PolicyRolloutRequest request, OutputStream outputStream) throws IOException {
+        validateRequest(request);
+        long start = System.currentTimeMillis();
+        List<String> targets = resolveRealms(request);
+        List<String> canaries = canaries(request, targets);
+        List<String> others = targets.stream().filter(realm -> !canaries.contains(realm)).toList();
+        boolean dryRun = Boolean.TRUE.equals(request.getDryRun());
+
+        Object writeLock = new Object();
+        Map<String, Object> plan = new LinkedHashMap<>();
+        plan.put("realms", targets.size());
+        plan.put("canaries", canaries);
+        plan.put("settings", request.getSettings().keySet());
+        plan.put("dryRun", dryRun);
+        writeLine(outputStream, Map.of("plan", plan));
+
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger updated = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        RealmResultWriter writer = (phase, realm, result, error, durationMs) -> {
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("realm", realm);
+            line.put("phase", phase);
+            line.put("success", error == null);
+            if (error == null) {
+                succeeded.incrementAndGet();
+                line.put("changed", result.get("changed"));
+                if (!dryRun && Boolean.TRUE.equals(result.get("realmUpdated"))) {
+                    updated.incrementAndGet();
+                }
+            } else {
+                failed.incrementAndGet();
+                line.put("error", error.getMessage());
+            }
+            line.put("durationMs", durationMs);
+            synchronized (writeLock) {
+                try {
+                    writeLine(outputStream, line);
+                } catch (IOException e) {
+                    throw new RuntimeException("Failed to write rollout result: " + e.getMessage());
+                }
+            }
+        };
+
+        // Canaris : séquentiels, pour s'arrêter avant de toucher les autres realms
+        boolean halted = false;
+        for (String realm : canaries) {
+            long itemStart = System.currentTimeMillis();
+            try {
+                writer.write("canary", realm, apply(realm, request, dryRun), null, System.currentTimeMillis() - itemStart);
+            } catch (Exception e) {
+                log.warn("Policy rollout failed on canary realm {}: {}", realm, e.getMessage());
+                writer.write("canary", realm, null, e, System.currentTimeMillis() - itemStart);
+                halted = !Boolean.FALSE.equals(request.getHaltOnCanaryFailure());
+            }
+            if (halted) {
+                break;
+            }
+        }
+
+        if (!halted && !others.isEmpty()) {
+            int parallelism = Math.min(maxParallelism,
+                    request.getParallelism() != null ? request.getParallelism() : defaultParallelism);
+            taskRunner.<String, RolloutOutcome>forEach(others, parallelism, realm -> {
+                long itemStart = System.currentTimeMillis();
+                return new RolloutOutcome(apply(realm, request, dryRun), System.currentTimeMillis() - itemStart);
+            }, (realm, outcome, error) -> {
+                if (error != null) {
+                    log.warn("Policy rollout failed on realm {}: {}", realm, error.getMessage());
+                }
+                writer.write("rollout", realm, outcome != null ? outcome.result() : null, error,
+                        outcome != null ? outcome.durationMs() : 0);
+            });
+        }
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("realms", targets.size());
+        summary.put("succeeded", succeeded.get());
+        summary.put("failed", failed.get());
+        summary.put("realmsUpdated", updated.get());
+        summary.put("skipped", targets.size() - succeeded.get() - failed.get());
+        summary.put("halted", halted);
+        summary.put("dryRun", dryRun);
+        summary.put("durationMs", System.currentTimeMillis() - start);
+        log.info("Policy rollout of {} on {} realms: {} succeeded, {} failed{}", request.getSettings().keySet(),
+                targets.size(), succeeded.get(), failed.get(), halted ? " (halted after canary failure)" : "");
+        synchronized (writeLock) {
+            writeLine(outputStream, Map.of("summary", summary));
+        }
+    }
+
+    // ========== HELPER METHODS ==========
+
+    @FunctionalInterface
+    private interface RealmResultWriter {
+        void write(String phase, String realm, Map<String, Object> result, Exception error, long durationMs);
+    }
+
+    private record RolloutOutcome(Map<String, Object> result, long durationMs) {
+    }
+
+    private Map<String, Object> apply(String realm, PolicyRolloutRequest request, boolean dryRun) {
+        return dryRun
+                ? realmSettingsService.previewChanges(realm, request.getSettings())
+                : realmSettingsService.applyChanges(realm, request.getSettings(), null);
+    }
+
+    // Realms explicites puis realms dont les attributs correspondent au sélecteur, sans doublon
+    private List<String> resolveRealms(PolicyRolloutRequest request) {
+        Set<String> realms = new LinkedHashSet<>();
+        if (request.getRealms() != null) {
+            realms.addAll(request.getRealms());
+        }
+        if (request.getSelector() != null && !request.getSelector().isEmpty()) {
+            try {
+                for (RealmRepresentation realm : keycloak.realms().findAll()) {
+                    Map<String, String> attributes = realm.getAttributes() != null ? realm.getAttributes() : Map.of();
+                    boolean matches = request.getSelector().entrySet().stream()
+                            .allMatch(label -> label.getValue().equals(attributes.get(label.getKey())));
+                    if (matches) {
+                        realms.add(realm.getRealm());
+                    }
+                }
+            } catch (Exception e) {
+                log.error("Error resolving rollout realms: {}", e.getMessage());
+                throw new RuntimeException("Failed to resolve rollout realms: " + e.getMessage());
+            }
+        }
+        return new ArrayList<>(realms);
+    }
+
+    private List<String> canaries(PolicyRolloutRequest request, List<String> targets) {
+        if (request.getCanaryRealms() != null && !request.getCanaryRealms().isEmpty()) {
+            return request.getCanaryRealms().stream().filter(targets::contains).toList();
+        }
+        int count = request.getCanaryCount() != null ? Math.max(0, request.getCanaryCount()) : 0;
+        return List.copyOf(targets.subList(0, Math.min(count, targets.size())));
+    }
+
+    private void writeLine(OutputStream outputStream, Object value) throws IOException {
+        outputStream.write(objectMapper.writeValueAsBytes(value));
+        outputStream.write('\n');
+        outputStream.flush();
+    }
+}
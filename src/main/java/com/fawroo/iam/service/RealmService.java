@@ -19,6 +19,8 @@ import lombok.extern.slf4j.Slf4j;
 public class RealmService {
 
     private final Keycloak keycloak;
+    private final RealmSnapshotService realmSnapshotService;
+    private final ClientIdResolver clientIdResolver;
 
     // CREATE REALM
     public void createRealm(RealmRepresentation realmRepresentation) {
@@ -41,6 +43,19 @@ public class RealmService {
         }
     }
 
+    // GET REALM NAMES (configured list, or every realm visible to the admin account)
+    public List<String> getRealmNames(List<String> configuredRealms) {
+        if (configuredRealms != null && !configuredRealms.isEmpty()) {
+            return configuredRealms;
+        }
+        try {
+            return keycloak.realms().findAll().stream().map(RealmRepresentation::getRealm).toList();
+        } catch (Exception e) {
+            log.warn("Could not list realms: {}", e.getMessage());
+            return List.of();
+        }
+    }
+
     // GET REALM BY NAME
     public RealmRepresentation getRealm(String realmName) {
         try {
@@ -56,6 +71,7 @@ public class RealmService {
         try {
             realmRepresentation.setRealm(realmName);
             keycloak.realms().realm(realmName).update(realmRepresentation);
+            realmSnapshotService.invalidate(realmName);
             log.info("Realm updated successfully: {}", realmName);
         } catch (Exception e) {
             log.error("Error updating realm {}: {}", realmName, e.getMessage());
@@ -67,6 +83,8 @@ public class RealmService {
     public void deleteRealm(String realmName) {
         try {
             keycloak.realms().realm(realmName).remove();
+            realmSnapshotService.invalidate(realmName);
+            clientIdResolver.invalidateRealm(realmName);
             log.info("Realm deleted successfully: {}", realmName);
         } catch (Exception e) {
             log.error("Error deleting realm {}: {}", realmName, e.getMessage());
@@ -0,0 +1,330 @@
+package com.fawroo.iam.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.admin.client.resource.RealmResource;
+import org.keycloak.representations.idm.RealmRepresentation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * Modifications des paramètres scalaires d'un realm (politique de mot de passe, brute force, SSL...).
+ * - diff champ par champ : le diff est appliqué sur la représentation complète relue juste avant
+ *   (Keycloak remet à leur valeur par défaut les champs absents d'un PUT) et aucune mise à jour
+ *   n'est faite si rien ne change ;
+ * - regroupement : les changements arrivés pendant une mise à jour en cours sont appliqués ensemble
+ *   par le thread suivant (une lecture + une écriture pour tout le lot) ;
+ * - concurrence optimiste : un changement accompagné d'une version (If-Match) est refusé si l'un des
+ *   champs qu'il touche a été modifié depuis cette version, dans Keycloak ou par un changement du lot.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class RealmSettingsService {
+
+    private static final int VERSION_HISTORY = 16;
+
+    private final Keycloak keycloak;
+    private final ObjectMapper objectMapper;
+    private final RealmSnapshotService realmSnapshotService;
+
+    // Fenêtre d'attente facultative avant l'application d'un lot (0 = regroupement des seuls changements concurrents)
+    @Value("${iam.realm-settings.batch-window-ms:0}")
+    private long batchWindowMs;
+
+    private final Map<String, RealmQueue> queues = new ConcurrentHashMap<>();
+    private volatile Set<String> scalarFields;
+
+    // GET REALM SETTINGS (scalar fields + version)
+    public Map<String, Object> getSettings(String realmName) {
+        try {
+            RealmQueue queue = queue(realmName);
+            Map<String, Object> fields = scalarValues(keycloak.realm(realmName).toRepresentation());
+            String version = queue.remember(fields);
+            Map<String, Object> settings = new LinkedHashMap<>();
+            settings.put("realm", realmName);
+            settings.put("version", version);
+            settings.put("settings", new TreeMap<>(fields));
+            return settings;
+        } catch (Exception e) {
+            log.error("Error getting realm settings for {}: {}", realmName, e.getMessage());
+            throw new RuntimeException("Failed to get realm settings: " + e.getMessage());
+        }
+    }
+
+    // APPLY CHANGES (field-level diff, batched with concurrent changes, optimistic check on ifMatch)
+    public Map<String, Object> applyChanges(String realmName, Map<String, ?> changes, String ifMatch) {
+        Map<String, Object> normalized = normalize(changes);
+        PendingChange change = new PendingChange(normalized, ifMatch);
+        RealmQueue queue = queue(realmName);
+        queue.pending.add(change);
+
+        // Le premier thread qui obtient le verrou applique tout ce qui est en attente, y compris les changements des autres
+        queue.lock.lock();
+        try {
+            if (!change.result.isDone()) {
+                if (batchWindowMs > 0) {
+                    Thread.sleep(batchWindowMs);
+                }
+                List<PendingChange> batch = new ArrayList<>();
+                PendingChange next;
+                while ((next = queue.pending.poll()) != null) {
+                    batch.add(next);
+                }
+                flush(realmName, queue, batch);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while applying realm settings");
+        } finally {
+            queue.lock.unlock();
+        }
+
+        try {
+            return change.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException("Failed to apply realm settings: " + e.getMessage());
+        }
+    }
+
+    // VALIDATE CHANGES (normalized values, before any Keycloak call)
+    public Map<String, Object> validateChanges(Map<String, ?> changes) {
+        return normalize(changes);
+    }
+
+    // PREVIEW CHANGES (fields that would be sent, nothing is written)
+    public Map<String, Object> previewChanges(String realmName, Map<String, ?> changes) {
+        Map<String, Object> normalized = normalize(changes);
+        try {
+            Map<String, Object> current = scalarValues(keycloak.realm(realmName).toRepresentation());
+            String version = queue(realmName).remember(current);
+            List<String> changed = normalized.entrySet().stream()
+                    .filter(entry -> !Objects.equals(current.get(entry.getKey()), entry.getValue()))
+                    .map(Map.Entry::getKey)
+                    .toList();
+            Map<String, Object> preview = new LinkedHashMap<>();
+            preview.put("realm", realmName);
+            preview.put("changed", changed);
+            preview.put("unchanged", normalized.keySet().stream().filter(field -> !changed.contains(field)).toList());
+            preview.put("version", version);
+            return preview;
+        } catch (Exception e) {
+            log.error("Error previewing realm settings for {}: {}", realmName, e.getMessage());
+            throw new RuntimeException("Failed to preview realm settings: " + e.getMessage());
+        }
+    }
+
+    // ========== BATCH APPLICATION ==========
+
+    private void flush(String realmName, RealmQueue queue, List<PendingChange> batch) {
+        try {
+            RealmResource realm = keycloak.realm(realmName);
+            RealmRepresentation representation = realm.toRepresentation();
+            Map<String, Object> current = scalarValues(representation);
+            String currentVersion = queue.remember(current);
+
+            Map<String, Object> running = new HashMap<>(current);
+            Map<String, Object> diff = new LinkedHashMap<>();
+            Map<PendingChange, List<String>> changedByChange = new LinkedHashMap<>();
+            for (PendingChange change : batch) {
+                String conflict = findConflict(queue, change, currentVersion, running);
+                if (conflict != null) {
+                    change.result.completeExceptionally(new ResponseStatusException(HttpStatus.PRECONDITION_FAILED,
+                            "Realm " + realmName + " has been modified: " + conflict));
+                    continue;
+                }
+                List<String> changed = new ArrayList<>();
+                change.fields.forEach((field, value) -> {
+                    if (!Objects.equals(running.get(field), value)) {
+                        running.put(field, value);
+                        diff.put(field, value);
+                        changed.add(field);
+                    }
+                });
+                changedByChange.put(change, changed);
+            }
+
+            if (!diff.isEmpty()) {
+                realm.update(objectMapper.updateValue(representation, diff));
+                realmSnapshotService.invalidate(realmName);
+                log.info("Realm {} updated: {} ({} change(s) batched)", realmName, diff.keySet(), batch.size());
+            }
+            String newVersion = queue.remember(running);
+            changedByChange.forEach((change, changed) -> {
+                Map<String, Object> result = new LinkedHashMap<>();
+                result.put("realm", realmName);
+                result.put("changed", changed);
+                result.put("unchanged", change.fields.keySet().stream().filter(field -> !changed.contains(field)).toList());
+                result.put("realmUpdated", !diff.isEmpty());
+                result.put("batchSize", batch.size());
+                result.put("version", newVersion);
+                change.result.complete(result);
+            });
+        } catch (Exception e) {
+            log.error("Error applying realm settings for {}: {}", realmName, e.getMessage());
+            RuntimeException failure = new RuntimeException("Failed to apply realm settings: " + e.getMessage());
+            batch.forEach(change -> change.result.completeExceptionally(failure));
+        }
+    }
+
+    // Champ touché par le changement et modifié depuis la version attendue (null si aucun conflit)
+    private String findConflict(RealmQueue queue, PendingChange change, String currentVersion,
+            Map<String, Object> running) {
+        if (change.expectedVersion == null) {
+            return null;
+        }
+        Map<String, Object> base = queue.history(change.expectedVersion);
+        if (base == null) {
+            // Version inconnue (trop ancienne) : on exige la version courante exacte
+            return change.expectedVersion.equals(currentVersion) ? null : "unknown version " + change.expectedVersion;
+        }
+        for (String field : change.fields.keySet()) {
+            if (!Objects.equals(base.get(field), running.get(field))) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private RealmQueue queue(String realmName) {
+        return queues.computeIfAbsent(realmName, k -> new RealmQueue());
+    }
+
+    // Valeurs converties par aller-retour dans RealmRepresentation : mêmes types que celles lues dans Keycloak
+    private Map<String, Object> normalize(Map<String, ?> changes) {
+        if (changes == null || changes.isEmpty()) {
+            throw new IllegalArgumentException("At least one realm setting is required");
+        }
+        Set<String> allowed = scalarFields();
+        for (Map.Entry<String, ?> entry : changes.entrySet()) {
+            if (!allowed.contains(entry.getKey())) {
+                throw new IllegalArgumentException("Unsupported realm setting: " + entry.getKey());
+            }
+            if (entry.getValue() == null) {
+                throw new IllegalArgumentException("Realm setting cannot be cleared: " + entry.getKey());
+            }
+        }
+        Map<String, Object> values;
+        try {
+            values = scalarValues(objectMapper.convertValue(changes, RealmRepresentation.class));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid realm settings: " + e.getMessage());
+        }
+        Map<String, Object> normalized = new LinkedHashMap<>();
+        changes.keySet().forEach(field -> normalized.put(field, values.get(field)));
+        return normalized;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> scalarValues(RealmRepresentation realm) {
+        Map<String, Object> all = objectMapper.convertValue(realm, Map.class);
+        Set<String> fields = scalarFields();
+        Map<String, Object> values = new HashMap<>();
+        all.forEach((field, value) -> {
+            if (fields.contains(field) && value != null) {
+                values.put(field, value);
+            }
+        });
+        return values;
+    }
+
+    // Propriétés scalaires de RealmRepresentation (les collections passent par leurs API dédiées)
+    private Set<String> scalarFields() {
+        Set<String> fields = scalarFields;
+        if (fields == null) {
+            JavaType type = objectMapper.constructType(RealmRepresentation.class);
+            fields = objectMapper.getSerializationConfig().introspect(type).findProperties().stream()
+                    .filter(property -> property.couldSerialize() && property.couldDeserialize())
+                    .filter(this::isScalar)
+                    .map(BeanPropertyDefinition::getName)
+                    .filter(name -> !"id".equals(name) && !"realm".equals(name))
+                    .collect(Collectors.toUnmodifiableSet());
+            scalarFields = fields;
+        }
+        return fields;
+    }
+
+    private boolean isScalar(BeanPropertyDefinition property) {
+        Class<?> raw = property.getRawPrimaryType();
+        return ClassUtils.isPrimitiveOrWrapper(raw) || raw == String.class || raw.isEnum();
+    }
+
+    private String computeVersion(Map<String, Object> fields) {
+        try {
+            byte[] bytes = objectMapper.writer().with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+                    .writeValueAsBytes(new TreeMap<>(fields));
+            return "\"" + DigestUtils.md5DigestAsHex(bytes) + "\"";
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to compute realm settings version: " + e.getMessage());
+        }
+    }
+
+    // Égalité par identité : deux changements identiques restent deux entrées du lot
+    private static final class PendingChange {
+        private final Map<String, Object> fields;
+        private final String expectedVersion;
+        private final CompletableFuture<Map<String, Object>> result = new CompletableFuture<>();
+
+        private PendingChange(Map<String, Object> fields, String expectedVersion) {
+            this.fields = fields;
+            this.expectedVersion = expectedVersion;
+        }
+    }
+
+    // File d'attente et historique des versions récentes d'un realm
+    private class RealmQueue {
+        private final ConcurrentLinkedQueue<PendingChange> pending = new ConcurrentLinkedQueue<>();
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<String, Map<String, Object>> versions = new LinkedHashMap<>(VERSION_HISTORY, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Map<String, Object>> eldest) {
+                return size() > VERSION_HISTORY;
+            }
+        };
+
+        private String remember(Map<String, Object> fields) {
+            String version = computeVersion(fields);
+            synchronized (versions) {
+                versions.put(version, Map.copyOf(fields));
+            }
+            return version;
+        }
+
+        private Map<String, Object> history(String version) {
+            synchronized (versions) {
+                return versions.get(version);
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.fawroo.iam.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.representations.idm.AdminEventRepresentation;
+import org.keycloak.representations.idm.RealmRepresentation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.fawroo.iam.event.EventsIngestedEvent;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * RealmRepresentation mise en cache par realm (lecture seule) : un seul toRepresentation() par période
+ * au lieu d'un par paramètre consulté. Invalidée par les mises à jour passant par RealmService,
+ * RealmSettingsService et EventService, et par les événements d'administration REALM ingérés.
+ * Les représentations renvoyées sont partagées entre appelants : ne jamais les modifier
+ * (copier avant toute mise à jour à envoyer à Keycloak).
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class RealmSnapshotService {
+
+    private final Keycloak keycloak;
+    private final KeycloakTaskRunner taskRunner;
+
+    @Value("${iam.realms.snapshot.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Value("${iam.realms.snapshot.parallelism:8}")
+    private int parallelism;
+
+    private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+    // GET REALM SNAPSHOT (shared instance, read-only)
+    public RealmRepresentation get(String realmName, boolean refresh) {
+        Snapshot snapshot = snapshots.get(realmName);
+        if (!refresh && snapshot != null && !snapshot.isExpired(ttlSeconds)) {
+            return snapshot.realm;
+        }
+        try {
+            RealmRepresentation realm = keycloak.realm(realmName).toRepresentation();
+            snapshots.put(realmName, new Snapshot(realm));
+            return realm;
+        } catch (Exception e) {
+            log.error("Error loading realm snapshot for {}: {}", realmName, e.getMessage());
+            throw new RuntimeException("Failed to load realm " + realmName + ": " + e.getMessage());
+        }
+    }
+
+    // GET ALL REALM SNAPSHOTS (one findAll, brief representations completed in parallel ; read-only)
+    public List<RealmRepresentation> getAll(boolean refresh) {
+        List<RealmRepresentation> listed;
+        try {
+            listed = keycloak.realms().findAll();
+        } catch (Exception e) {
+            log.error("Error listing realms: {}", e.getMessage());
+            throw new RuntimeException("Failed to list realms: " + e.getMessage());
+        }
+        List<RealmRepresentation> realms = new ArrayList<>(listed.size());
+        List<String> incomplete = new ArrayList<>();
+        for (RealmRepresentation realm : listed) {
+            Snapshot cached = snapshots.get(realm.getRealm());
+            if (!refresh && cached != null && !cached.isExpired(ttlSeconds)) {
+                realms.add(cached.realm);
+            } else if (realm.isBruteForceProtected() != null) {
+                // Représentation complète (droits de lecture sur le realm) : réutilisée telle quelle
+                snapshots.put(realm.getRealm(), new Snapshot(realm));
+                realms.add(realm);
+            } else {
+                incomplete.add(realm.getRealm());
+            }
+        }
+        if (!incomplete.isEmpty()) {
+            List<RealmRepresentation> loaded = new ArrayList<>();
+            taskRunner.<String, RealmRepresentation>forEach(incomplete, parallelism, realmName -> get(realmName, true),
+                    (realmName, realm, error) -> {
+                        if (error != null) {
+                            log.warn("Skipping realm {} in snapshot listing: {}", realmName, error.getMessage());
+                            return;
+                        }
+                        synchronized (loaded) {
+                            loaded.add(realm);
+                        }
+                    });
+            realms.addAll(loaded);
+        }
+        return realms;
+    }
+
+    // INVALIDATE REALM SNAPSHOT
+    public void invalidate(String realmName) {
+        snapshots.remove(realmName);
+    }
+
+    @EventListener
+    public void onEventsIngested(EventsIngestedEvent ingested) {
+        for (AdminEventRepresentation event : ingested.getAdminEvents()) {
+            if ("REALM".equals(event.getResourceType())) {
+                invalidate(ingested.getRealmName());
+                return;
+            }
+        }
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private static class Snapshot {
+        private final RealmRepresentation realm;
+        private final long loadedAt = System.currentTimeMillis();
+
+        private Snapshot(RealmRepresentation realm) {
+            this.realm = realm;
+        }
+
+        private boolean isExpired(long ttlSeconds) {
+            return System.currentTimeMillis() - loadedAt > ttlSeconds * 1000L;
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.fawroo.iam.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.admin.client.resource.RealmResource;
+import org.keycloak.admin.client.resource.RoleResource;
+import org.keycloak.representations.idm.AdminEventRepresentation;
+import org.keycloak.representations.idm.RoleRepresentation;
+import org.keycloak.representations.idm.UserRepresentation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fawroo.iam.event.EventsIngestedEvent;
+import com.fawroo.iam.service.EffectivePermissionService.RoleGraph;
+import com.fawroo.iam.service.EffectivePermissionService.RoleRef;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * Catalogue des rôles d'un realm (realm + clients) : liste paginée et filtrable, nombre de membres directs
+ * et informations de composition tirées du graphe de rôles compilé (EffectivePermissionService).
+ * Les nombres de membres sont conservés par rôle et ne sont recomptés (pages getUserMembers(first, max),
+ * rôles en parallèle) que lorsqu'ils manquent, ont expiré ou ont été touchés par un événement
+ * d'administration (mappings de rôles, suppression d'utilisateur).
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class RoleCatalogService {
+
+    private static final Set<String> ROLE_MAPPING_RESOURCE_TYPES = Set.of("REALM_ROLE_MAPPING", "CLIENT_ROLE_MAPPING");
+    private static final TypeReference<List<RoleRepresentation>> ROLE_LIST = new TypeReference<>() {
+    };
+
+    private final Keycloak keycloak;
+    private final KeycloakTaskRunner taskRunner;
+    private final EffectivePermissionService effectivePermissionService;
+    private final ClientIdResolver clientIdResolver;
+    private final ObjectMapper objectMapper;
+
+    @Value("${iam.roles.catalog.member-count-ttl-minutes:60}")
+    private long memberCountTtlMinutes;
+
+    @Value("${iam.roles.catalog.member-page-size:500}")
+    private int memberPageSize;
+
+    @Value("${iam.roles.catalog.parallelism:8}")
+    private int parallelism;
+
+    private final Map<String, Catalog> catalogs = new ConcurrentHashMap<>();
+
+    // GET ROLE CATALOG PAGE (sort = name | members)
+    public Map<String, Object> getCatalog(String realmName, String search, String clientId, boolean realmOnly,
+            String sort, int first, int max, boolean refresh) {
+        try {
+            Catalog catalog = catalogs.computeIfAbsent(realmName, k -> new Catalog());
+            if (refresh) {
+                effectivePermissionService.invalidateRealm(realmName);
+                catalog.countsInvalidatedAt = System.currentTimeMillis();
+            }
+            RoleGraph graph = effectivePermissionService.getRoleGraph(realmName);
+            if (catalog.graphBuiltAt != graph.getBuiltAt()) {
+                // Graphe recompilé : les comptes des rôles supprimés sont oubliés, les autres conservés
+                Set<String> roleIds = new HashSet<>();
+                graph.roles().forEach(role -> roleIds.add(role.id()));
+                catalog.counts.keySet().retainAll(roleIds);
+                catalog.graphBuiltAt = graph.getBuiltAt();
+            }
+            String needle = search != null && !search.isBlank() ? search.toLowerCase(Locale.ROOT) : null;
+            List<RoleRef> matching = graph.roles().stream()
+                    .filter(role -> !realmOnly || role.clientId() == null)
+                    .filter(role -> clientId == null || clientId.equals(role.clientId()))
+                    .filter(role -> needle == null || role.name().toLowerCase(Locale.ROOT).contains(needle))
+                    .sorted(Comparator.comparing((RoleRef role) -> role.clientId() != null)
+                            .thenComparing(role -> role.clientId() != null ? role.clientId() : "")
+                            .thenComparing(RoleRef::name))
+                    .toList();
+
+            boolean byMembers = "members".equalsIgnoreCase(sort);
+            if (byMembers) {
+                // Tri global : tous les rôles filtrés doivent être comptés
+                countMembers(realmName, catalog, matching);
+                matching = matching.stream()
+                        .sorted(Comparator.comparingInt((RoleRef role) -> catalog.counts.get(role.id()).members())
+                                .reversed())
+                        .toList();
+            }
+            int from = Math.min(Math.max(first, 0), matching.size());
+            List<RoleRef> page = matching.subList(from, Math.min(from + Math.max(max, 0), matching.size()));
+            if (!byMembers) {
+                countMembers(realmName, catalog, page);
+            }
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("total", matching.size());
+            result.put("first", from);
+            result.put("max", max);
+            result.put("roles", page.stream().map(role -> describe(graph, catalog, role)).toList());
+            result.put("graphBuiltAt", graph.getBuiltAt());
+            return result;
+        } catch (Exception e) {
+            log.error("Error building role catalog for realm {}: {}", realmName, e.getMessage());
+            throw new RuntimeException("Failed to get role catalog: " + e.getMessage());
+        }
+    }
+
+    // GET ROLE DETAIL (composite graph : rôles contenus, rôles et groupes qui l'accordent)
+    public Map<String, Object> getRoleDetail(String realmName, String clientId, String roleName) {
+        RoleGraph graph = effectivePermissionService.getRoleGraph(realmName);
+        Integer bit = graph.bitOf(clientId, roleName);
+        if (bit == null) {
+            throw new RuntimeException("Role not found: " + (clientId != null ? clientId + "/" : "") + roleName);
+        }
+        RoleRef role = graph.roles().get(bit);
+        Catalog catalog = catalogs.computeIfAbsent(realmName, k -> new Catalog());
+        try {
+            countMembers(realmName, catalog, List.of(role));
+        } catch (Exception e) {
+            log.error("Error counting members of role {}: {}", roleName, e.getMessage());
+            throw new RuntimeException("Failed to get role detail: " + e.getMessage());
+        }
+
+        Map<String, Object> detail = describe(graph, catalog, role);
+        detail.put("includes", graph.rolesGrantedBy(bit).stream()
+                .filter(included -> !included.id().equals(role.id()))
+                .map(RoleCatalogService::label)
+                .sorted()
+                .toList());
+        detail.put("includedIn", graph.rolesGranting(bit).stream()
+                .filter(parent -> !parent.id().equals(role.id()))
+                .map(RoleCatalogService::label)
+                .sorted()
+                .toList());
+        detail.put("groups", graph.groupsGranting(bit).stream()
+                .map(graph::groupPath)
+                .sorted(Comparator.nullsLast(Comparator.naturalOrder()))
+                .toList());
+        return detail;
+    }
+
+    // INVALIDATE MEMBER COUNTS
+    public void invalidateCounts(String realmName) {
+        Catalog catalog = catalogs.get(realmName);
+        if (catalog != null) {
+            catalog.countsInvalidatedAt = System.currentTimeMillis();
+        }
+    }
+
+    @EventListener
+    public void onEventsIngested(EventsIngestedEvent ingested) {
+        Catalog catalog = catalogs.get(ingested.getRealmName());
+        if (catalog == null) {
+            return;
+        }
+        for (AdminEventRepresentation event : ingested.getAdminEvents()) {
+            String path = event.getResourcePath() != null ? event.getResourcePath() : "";
+            if (!path.startsWith("users/")) {
+                continue;
+            }
+            if (ROLE_MAPPING_RESOURCE_TYPES.contains(event.getResourceType())) {
+                List<String> roleIds = mappedRoleIds(event);
+                if (roleIds != null) {
+                    catalog.dirty.addAll(roleIds);
+                } else {
+                    invalidateCounts(ingested.getRealmName());
+                }
+            } else if ("USER".equals(event.getResourceType()) && "DELETE".equals(event.getOperationType())) {
+                // Les rôles de l'utilisateur supprimé ne sont pas connus : tous les comptes sont à refaire
+                invalidateCounts(ingested.getRealmName());
+            }
+        }
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private record MemberCount(int members, long countedAt) {
+    }
+
+    // Compte en parallèle les rôles sans nombre à jour ; les pages d'un même rôle sont lues à la suite
+    private void countMembers(String realmName, Catalog catalog, List<RoleRef> roles) {
+        long now = System.currentTimeMillis();
+        List<RoleRef> stale = roles.stream().filter(role -> isStale(catalog, role, now)).toList();
+        if (stale.isEmpty()) {
+            return;
+        }
+        RealmResource realm = keycloak.realm(realmName);
+        List<Integer> counts = taskRunner.mapAll(stale, parallelism, role -> role.clientId() == null
+                ? countRoleMembers(realm.roles().get(role.name()))
+                : clientIdResolver.withClient(realmName, role.clientId(),
+                        client -> countRoleMembers(client.roles().get(role.name()))));
+        for (int i = 0; i < stale.size(); i++) {
+            catalog.dirty.remove(stale.get(i).id());
+            catalog.counts.put(stale.get(i).id(), new MemberCount(counts.get(i), now));
+        }
+    }
+
+    private int countRoleMembers(RoleResource resource) {
+        int members = 0;
+        int first = 0;
+        while (true) {
+            List<UserRepresentation> page = resource.getUserMembers(first, memberPageSize);
+            members += page.size();
+            if (page.size() < memberPageSize) {
+                return members;
+            }
+            first += memberPageSize;
+            taskRunner.throttle();
+        }
+    }
+
+    private boolean isStale(Catalog catalog, RoleRef role, long now) {
+        MemberCount count = catalog.counts.get(role.id());
+        return count == null || catalog.dirty.contains(role.id()) || count.countedAt() < catalog.countsInvalidatedAt
+                || now - count.countedAt() > memberCountTtlMinutes * 60_000L;
+    }
+
+    private Map<String, Object> describe(RoleGraph graph, Catalog catalog, RoleRef role) {
+        Integer bit = graph.bitOfRoleId(role.id());
+        MemberCount count = catalog.counts.get(role.id());
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("id", role.id());
+        entry.put("name", role.name());
+        entry.put("clientId", role.clientId());
+        entry.put("composite", role.composite());
+        entry.put("directMembers", count != null ? count.members() : null);
+        entry.put("membersCountedAt", count != null ? count.countedAt() : null);
+        entry.put("includesCount", graph.rolesGrantedBy(bit).size() - 1);
+        entry.put("includedInCount", graph.rolesGranting(bit).size() - 1);
+        entry.put("grantingGroupsCount", graph.groupsGranting(bit).size());
+        return entry;
+    }
+
+    // Rôles du mapping donnés par la représentation de l'événement (null si absente ou illisible)
+    private List<String> mappedRoleIds(AdminEventRepresentation event) {
+        if (event.getRepresentation() == null) {
+            return null;
+        }
+        try {
+            List<String> ids = new ArrayList<>();
+            for (RoleRepresentation role : objectMapper.readValue(event.getRepresentation(), ROLE_LIST)) {
+                if (role.getId() == null) {
+                    return null;
+                }
+                ids.add(role.getId());
+            }
+            return ids;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static String label(RoleRef role) {
+        return role.clientId() != null ? role.clientId() + "/" + role.name() : role.name();
+    }
+
+    private static class Catalog {
+        private final Map<String, MemberCount> counts = new ConcurrentHashMap<>();
+        private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+        private volatile long countsInvalidatedAt;
+        private volatile long graphBuiltAt;
+    }
+}
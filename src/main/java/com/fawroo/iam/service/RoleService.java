@@ -15,6 +15,7 @@ import lombok.extern.slf4j.Slf4j;
 public class RoleService {
 
     private final Keycloak keycloak;
+    private final ClientIdResolver clientIdResolver;
 
     // CREATE REALM ROLE
     public void createRealmRole(String realmName, RoleRepresentation roleRepresentation) {
@@ -72,8 +73,10 @@ public class RoleService {
     // CREATE CLIENT ROLE
     public void createClientRole(String realmName, String clientId, RoleRepresentation roleRepresentation) {
         try {
-            String clientUuid = getClientUuid(realmName, clientId);
-            keycloak.realms().realm(realmName).clients().get(clientUuid).roles().create(roleRepresentation);
+            clientIdResolver.withClient(realmName, clientId, client -> {
+                client.roles().create(roleRepresentation);
+                return null;
+            });
             log.info("Client role created successfully: {} for client {} in realm {}", 
                     roleRepresentation.getName(), clientId, realmName);
         } catch (Exception e) {
@@ -85,19 +88,10 @@ public class RoleService {
     // GET ALL CLIENT ROLES
     public List<RoleRepresentation> getAllClientRoles(String realmName, String clientId) {
         try {
-            String clientUuid = getClientUuid(realmName, clientId);
-            return keycloak.realms().realm(realmName).clients().get(clientUuid).roles().list();
+            return clientIdResolver.withClient(realmName, clientId, client -> client.roles().list());
         } catch (Exception e) {
             log.error("Error getting client roles for client {}: {}", clientId, e.getMessage());
             throw new RuntimeException("Failed to get client roles: " + e.getMessage());
         }
     }
-    
-    private String getClientUuid(String realmName, String clientId) {
-        List<org.keycloak.representations.idm.ClientRepresentation> clients = keycloak.realms().realm(realmName).clients().findByClientId(clientId);
-        if (clients.isEmpty()) {
-            throw new RuntimeException("Client not found: " + clientId);
-        }
-        return clients.get(0).getId();
-    }
 }
\ No newline at end of file
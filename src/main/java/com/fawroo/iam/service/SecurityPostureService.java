@@ -0,0 +1,171 @@
+package com.fawroo.iam.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import org.keycloak.representations.idm.RealmRepresentation;
+import org.springframework.stereotype.Service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * Posture de sécurité d'un realm calculée à partir d'une seule RealmRepresentation en cache
+ * (brute force, SSL, OTP, politique de mot de passe, sessions, événements) et score pondéré sur 100.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class SecurityPostureService {
+
+    private final RealmSnapshotService realmSnapshotService;
+
+    private record Check(String id, int weight, Predicate<Posture> passed) {
+    }
+
+    private record Posture(RealmRepresentation realm, Map<String, String> passwordPolicy) {
+    }
+
+    private static final List<Check> CHECKS = List.of(
+            new Check("sslRequired", 15, p -> sslConfigured(p.realm())),
+            new Check("bruteForceProtected", 20, p -> Boolean.TRUE.equals(p.realm().isBruteForceProtected())),
+            new Check("passwordMinLength12", 15, p -> intArg(p.passwordPolicy().get("length")) >= 12),
+            new Check("passwordComplexity", 10, p -> List.of("digits", "upperCase", "lowerCase", "specialChars")
+                    .stream().filter(p.passwordPolicy()::containsKey).count() >= 2),
+            new Check("passwordHistory", 5, p -> p.passwordPolicy().containsKey("passwordHistory")),
+            new Check("passwordNotUsername", 5, p -> p.passwordPolicy().containsKey("notUsername")),
+            new Check("verifyEmail", 5, p -> Boolean.TRUE.equals(p.realm().isVerifyEmail())),
+            new Check("loginEventsEnabled", 5, p -> Boolean.TRUE.equals(p.realm().isEventsEnabled())),
+            new Check("adminEventsEnabled", 5, p -> Boolean.TRUE.equals(p.realm().isAdminEventsEnabled())),
+            new Check("shortAccessTokens", 5, p -> p.realm().getAccessTokenLifespan() != null
+                    && p.realm().getAccessTokenLifespan() <= 900),
+            new Check("revokeRefreshToken", 5, p -> Boolean.TRUE.equals(p.realm().getRevokeRefreshToken())),
+            new Check("ssoIdleTimeout1h", 5, p -> p.realm().getSsoSessionIdleTimeout() != null
+                    && p.realm().getSsoSessionIdleTimeout() <= 3600));
+
+    // GET SECURITY STATUS (one cached realm representation)
+    public Map<String, Object> getSecurityStatus(String realmName, boolean refresh) {
+        RealmRepresentation realm = realmSnapshotService.get(realmName, refresh);
+        Posture posture = new Posture(realm, parsePasswordPolicy(realm.getPasswordPolicy()));
+
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("realm", realmName);
+        status.put("passwordPolicy", posture.passwordPolicy());
+        status.put("bruteForceProtection", bruteForceStatus(realm));
+        status.put("ssl", Map.of("sslRequired", String.valueOf(realm.getSslRequired()),
+                "configured", sslConfigured(realm)));
+        status.put("otpPolicy", otpStatus(realm));
+        status.put("sessions", sessionStatus(realm));
+        status.put("events", Map.of("loginEventsEnabled", Boolean.TRUE.equals(realm.isEventsEnabled()),
+                "adminEventsEnabled", Boolean.TRUE.equals(realm.isAdminEventsEnabled())));
+        status.put("posture", score(posture));
+        status.put("timestamp", java.time.LocalDateTime.now());
+        return status;
+    }
+
+    // GET POSTURE SCORES FOR ALL REALMS (lowest score first)
+    public List<Map<String, Object>> getAllPostureScores(boolean refresh) {
+        List<RealmRepresentation> realms = realmSnapshotService.getAll(refresh);
+        return realms.parallelStream()
+                .map(realm -> {
+                    Map<String, Object> score = new LinkedHashMap<>();
+                    score.put("realm", realm.getRealm());
+                    score.putAll(score(new Posture(realm, parsePasswordPolicy(realm.getPasswordPolicy()))));
+                    return score;
+                })
+                .sorted(Comparator.comparingInt((Map<String, Object> score) -> (Integer) score.get("score"))
+                        .thenComparing(score -> (String) score.get("realm")))
+                .toList();
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private Map<String, Object> score(Posture posture) {
+        int score = 0;
+        int max = 0;
+        List<String> failed = new ArrayList<>();
+        for (Check check : CHECKS) {
+            max += check.weight();
+            if (check.passed().test(posture)) {
+                score += check.weight();
+            } else {
+                failed.add(check.id());
+            }
+        }
+        int normalized = max > 0 ? Math.round(score * 100f / max) : 0;
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("score", normalized);
+        result.put("grade", normalized >= 90 ? "A" : normalized >= 75 ? "B" : normalized >= 60 ? "C"
+                : normalized >= 40 ? "D" : "F");
+        result.put("failedChecks", failed);
+        return result;
+    }
+
+    private Map<String, Object> bruteForceStatus(RealmRepresentation realm) {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", Boolean.TRUE.equals(realm.isBruteForceProtected()));
+        status.put("permanentLockout", Boolean.TRUE.equals(realm.isPermanentLockout()));
+        status.put("maxLoginFailures", realm.getFailureFactor());
+        status.put("waitIncrementSeconds", realm.getWaitIncrementSeconds());
+        status.put("maxFailureWaitSeconds", realm.getMaxFailureWaitSeconds());
+        status.put("maxDeltaTimeSeconds", realm.getMaxDeltaTimeSeconds());
+        status.put("quickLoginCheckMilliSeconds", realm.getQuickLoginCheckMilliSeconds());
+        status.put("minimumQuickLoginWaitSeconds", realm.getMinimumQuickLoginWaitSeconds());
+        return status;
+    }
+
+    private Map<String, Object> otpStatus(RealmRepresentation realm) {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("type", realm.getOtpPolicyType());
+        status.put("algorithm", realm.getOtpPolicyAlgorithm());
+        status.put("digits", realm.getOtpPolicyDigits());
+        status.put("period", realm.getOtpPolicyPeriod());
+        status.put("lookAheadWindow", realm.getOtpPolicyLookAheadWindow());
+        status.put("supportedApplications", realm.getOtpSupportedApplications());
+        return status;
+    }
+
+    private Map<String, Object> sessionStatus(RealmRepresentation realm) {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("accessTokenLifespan", realm.getAccessTokenLifespan());
+        status.put("ssoSessionIdleTimeout", realm.getSsoSessionIdleTimeout());
+        status.put("ssoSessionMaxLifespan", realm.getSsoSessionMaxLifespan());
+        status.put("offlineSessionIdleTimeout", realm.getOfflineSessionIdleTimeout());
+        status.put("revokeRefreshToken", Boolean.TRUE.equals(realm.getRevokeRefreshToken()));
+        return status;
+    }
+
+    private static boolean sslConfigured(RealmRepresentation realm) {
+        return realm.getSslRequired() != null && !"none".equalsIgnoreCase(realm.getSslRequired());
+    }
+
+    // "length(12) and digits(1) and notUsername(undefined)" -> {length=12, digits=1, notUsername=undefined}
+    private static Map<String, String> parsePasswordPolicy(String policy) {
+        Map<String, String> parsed = new LinkedHashMap<>();
+        if (policy == null || policy.isBlank()) {
+            return parsed;
+        }
+        for (String part : policy.split(" and ")) {
+            String trimmed = part.trim();
+            int open = trimmed.indexOf('(');
+            if (open > 0 && trimmed.endsWith(")")) {
+                parsed.put(trimmed.substring(0, open), trimmed.substring(open + 1, trimmed.length() - 1));
+            } else if (!trimmed.isEmpty()) {
+                parsed.put(trimmed, null);
+            }
+        }
+        return parsed;
+    }
+
+    private static int intArg(String value) {
+        try {
+            return value != null ? Integer.parseInt(value.trim()) : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -1,13 +1,16 @@
 package com.fawroo.iam.service;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.keycloak.admin.client.Keycloak;
 import org.keycloak.representations.idm.ComponentRepresentation;
 import org.keycloak.representations.idm.RealmRepresentation;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -18,14 +21,21 @@ import lombok.extern.slf4j.Slf4j;
 public class SecurityService {
 
     private final Keycloak keycloak;
+    private final RealmSettingsService realmSettingsService;
+    private final BruteForceScanService bruteForceScanService;
 
-    // SET PASSWORD POLICY
-    public void setPasswordPolicy(String realmName, String policy) {
+    // SET PASSWORD POLICY (field-level update, ifMatch optional ; null or blank clears the policy)
+    public Map<String, Object> setPasswordPolicy(String realmName, String policy, String ifMatch) {
         try {
-            RealmRepresentation realm = keycloak.realms().realm(realmName).toRepresentation();
-            realm.setPasswordPolicy(policy);
-            keycloak.realms().realm(realmName).update(realm);
+            // Keycloak ignore un champ null : la chaîne vide est la valeur qui retire la politique
+            Map<String, Object> result = realmSettingsService.applyChanges(realmName,
+                    Map.of("passwordPolicy", policy != null ? policy.trim() : ""), ifMatch);
             log.info("Password policy set successfully for realm: {}", realmName);
+            return result;
+        } catch (ResponseStatusException e) {
+            throw e;
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
         } catch (Exception e) {
             log.error("Error setting password policy for {}: {}", realmName, e.getMessage());
             throw new RuntimeException("Failed to set password policy: " + e.getMessage());
@@ -37,7 +47,7 @@ public class SecurityService {
         try {
             RealmRepresentation realm = keycloak.realms().realm(realmName).toRepresentation();
             String passwordPolicy = realm.getPasswordPolicy();
-            if (passwordPolicy != null) {
+            if (passwordPolicy != null && !passwordPolicy.isBlank()) {
                 return List.of(passwordPolicy.split(" and "));
             }
             return List.of();
@@ -47,15 +57,21 @@ public class SecurityService {
         }
     }
 
-    // CONFIGURE BRUTE FORCE PROTECTION
-    public void configureBruteForceProtection(String realmName, Map<String, String> config) {
+    // CONFIGURE BRUTE FORCE PROTECTION (field-level update, ifMatch optional)
+    public Map<String, Object> configureBruteForceProtection(String realmName, Map<String, String> config,
+            String ifMatch) {
         try {
-            RealmRepresentation realm = keycloak.realms().realm(realmName).toRepresentation();
-            realm.setBruteForceProtected(Boolean.parseBoolean(config.get("enabled")));
-            realm.setFailureFactor(Integer.parseInt(config.getOrDefault("failureFactor", "30")));
-            realm.setWaitIncrementSeconds(Integer.parseInt(config.getOrDefault("waitIncrementSeconds", "60")));
-            keycloak.realms().realm(realmName).update(realm);
+            Map<String, Object> changes = new LinkedHashMap<>();
+            changes.put("bruteForceProtected", Boolean.parseBoolean(config.get("enabled")));
+            changes.put("failureFactor", Integer.parseInt(config.getOrDefault("failureFactor", "30")));
+            changes.put("waitIncrementSeconds", Integer.parseInt(config.getOrDefault("waitIncrementSeconds", "60")));
+            Map<String, Object> result = realmSettingsService.applyChanges(realmName, changes, ifMatch);
             log.info("Brute force protection configured for realm: {}", realmName);
+            return result;
+        } catch (ResponseStatusException e) {
+            throw e;
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
         } catch (Exception e) {
             log.error("Error configuring brute force protection for {}: {}", realmName, e.getMessage());
             throw new RuntimeException("Failed to configure brute force protection: " + e.getMessage());
@@ -66,6 +82,7 @@ public class SecurityService {
     public void clearBruteForceForUser(String realmName, String userId) {
         try {
             keycloak.realms().realm(realmName).attackDetection().clearBruteForceForUser(userId);
+            bruteForceScanService.markDirty(realmName, userId);
             log.info("Brute force protection cleared for user: {}", userId);
         } catch (Exception e) {
             log.error("Error clearing brute force protection for user {}: {}", userId, e.getMessage());
@@ -94,13 +111,20 @@ public class SecurityService {
         }
     }
 
-    // CONFIGURE SSL/TLS
-    public void configureSSL(String realmName, Map<String, String> sslConfig) {
+    // CONFIGURE SSL/TLS (field-level update, ifMatch optional)
+    public Map<String, Object> configureSSL(String realmName, Map<String, String> sslConfig, String ifMatch) {
+        if (sslConfig == null || sslConfig.get("sslRequired") == null || sslConfig.get("sslRequired").isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "sslRequired is required");
+        }
         try {
-            RealmRepresentation realm = keycloak.realms().realm(realmName).toRepresentation();
-            realm.setSslRequired(sslConfig.get("sslRequired"));
-            keycloak.realms().realm(realmName).update(realm);
+            Map<String, Object> result = realmSettingsService.applyChanges(realmName,
+                    Map.of("sslRequired", sslConfig.get("sslRequired")), ifMatch);
             log.info("SSL configuration updated for realm: {}", realmName);
+            return result;
+        } catch (ResponseStatusException e) {
+            throw e;
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
         } catch (Exception e) {
             log.error("Error configuring SSL for {}: {}", realmName, e.getMessage());
             throw new RuntimeException("Failed to configure SSL: " + e.getMessage());
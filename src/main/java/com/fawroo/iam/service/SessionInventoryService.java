@@ -0,0 +1,196 @@
+package com.fawroo.iam.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.admin.client.resource.RealmResource;
+import org.keycloak.representations.idm.UserSessionRepresentation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * Inventaire des sessions actives d'un realm : pagination parallèle de getUserSessions(first, max)
+ * sur les clients ayant des sessions (getClientSessionStats), dédoublonnage par id de session
+ * (une session SSO apparaît sous chaque client utilisé), puis agrégats par client et par IP.
+ * Le résultat est mis en cache et recalculé au plus une fois par période.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class SessionInventoryService {
+
+    private final Keycloak keycloak;
+    private final KeycloakTaskRunner taskRunner;
+
+    @Value("${iam.sessions.inventory.refresh-seconds:120}")
+    private long refreshSeconds;
+
+    @Value("${iam.sessions.inventory.page-size:500}")
+    private int pageSize;
+
+    @Value("${iam.sessions.inventory.parallelism:8}")
+    private int parallelism;
+
+    private final Map<String, Inventory> inventories = new ConcurrentHashMap<>();
+    private final Map<String, Object> inventoryLocks = new ConcurrentHashMap<>();
+
+    // GET SESSION INVENTORY SUMMARY
+    public Map<String, Object> getInventorySummary(String realmName, boolean refresh, int topIps) {
+        Inventory inventory = getInventory(realmName, refresh);
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("realm", realmName);
+        summary.put("totalSessions", inventory.sessions.size());
+        summary.put("uniqueUsers", inventory.uniqueUsers);
+        summary.put("byClient", inventory.byClient);
+        summary.put("topIps", topEntries(inventory.byIp, topIps));
+        summary.put("distinctIps", inventory.byIp.size());
+        summary.put("oldestSessionStart", inventory.oldestStart);
+        summary.put("computedAt", inventory.computedAt);
+        summary.put("computeMs", inventory.computeMs);
+        return summary;
+    }
+
+    // GET ACTIVE SESSIONS COUNT (deduplicated)
+    public int getActiveSessionsCount(String realmName) {
+        return getInventory(realmName, false).sessions.size();
+    }
+
+    // GET INVENTORY (cached, recomputed when older than the refresh period)
+    public Inventory getInventory(String realmName, boolean refresh) {
+        Inventory inventory = inventories.get(realmName);
+        if (!refresh && inventory != null && !inventory.isExpired(refreshSeconds)) {
+            return inventory;
+        }
+        synchronized (inventoryLocks.computeIfAbsent(realmName, k -> new Object())) {
+            Inventory current = inventories.get(realmName);
+            // Un autre appel vient de recalculer pendant l'attente du verrou
+            if (current != null && current != inventory && !current.isExpired(refreshSeconds)) {
+                return current;
+            }
+            try {
+                current = compute(realmName);
+            } catch (Exception e) {
+                log.error("Error computing session inventory for realm {}: {}", realmName, e.getMessage());
+                throw new RuntimeException("Failed to compute session inventory: " + e.getMessage());
+            }
+            inventories.put(realmName, current);
+            return current;
+        }
+    }
+
+    // INVALIDATE INVENTORY
+    public void invalidate(String realmName) {
+        inventories.remove(realmName);
+    }
+
+    // ========== INVENTORY COMPUTATION ==========
+
+    private Inventory compute(String realmName) {
+        long start = System.currentTimeMillis();
+        RealmResource realm = keycloak.realm(realmName);
+
+        // Seuls les clients ayant des sessions actives sont parcourus
+        List<Map<String, String>> stats = realm.getClientSessionStats();
+        List<Map<String, String>> activeClients = stats.stream()
+                .filter(stat -> parseLong(stat.get("active")) > 0)
+                .toList();
+
+        List<List<UserSessionRepresentation>> pages = taskRunner.mapAll(activeClients, parallelism,
+                stat -> loadClientSessions(realm, stat.get("id")));
+
+        Inventory inventory = new Inventory();
+        CompactIdSet sessionIds = new CompactIdSet();
+        CompactIdSet userIds = new CompactIdSet();
+        for (int i = 0; i < activeClients.size(); i++) {
+            String clientId = activeClients.get(i).get("clientId");
+            List<UserSessionRepresentation> sessions = pages.get(i);
+            inventory.byClient.put(clientId, sessions.size());
+            for (UserSessionRepresentation session : sessions) {
+                if (!sessionIds.add(session.getId())) {
+                    continue;
+                }
+                inventory.sessions.add(new SessionEntry(session.getId(), session.getUserId(), session.getUsername(),
+                        session.getIpAddress(), session.getStart(), session.getLastAccess(),
+                        session.getClients() != null ? List.copyOf(session.getClients().values()) : List.of()));
+                userIds.add(session.getUserId());
+                if (session.getIpAddress() != null) {
+                    inventory.byIp.merge(session.getIpAddress(), 1, Integer::sum);
+                }
+                if (inventory.oldestStart == 0 || session.getStart() < inventory.oldestStart) {
+                    inventory.oldestStart = session.getStart();
+                }
+            }
+        }
+        inventory.uniqueUsers = userIds.size();
+        inventory.computeMs = System.currentTimeMillis() - start;
+        log.info("Session inventory for realm {}: {} sessions, {} users across {} clients in {} ms", realmName,
+                inventory.sessions.size(), inventory.uniqueUsers, activeClients.size(), inventory.computeMs);
+        return inventory;
+    }
+
+    private List<UserSessionRepresentation> loadClientSessions(RealmResource realm, String clientUuid) {
+        List<UserSessionRepresentation> sessions = new ArrayList<>();
+        int first = 0;
+        while (true) {
+            List<UserSessionRepresentation> page = realm.clients().get(clientUuid).getUserSessions(first, pageSize);
+            sessions.addAll(page);
+            if (page.size() < pageSize) {
+                return sessions;
+            }
+            first += pageSize;
+            taskRunner.throttle();
+        }
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private List<Map<String, Object>> topEntries(Map<String, Integer> counts, int limit) {
+        return counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .limit(Math.max(0, limit))
+                .map(entry -> Map.<String, Object>of("ip", entry.getKey(), "sessions", entry.getValue()))
+                .toList();
+    }
+
+    private static long parseLong(String value) {
+        try {
+            return value != null ? Long.parseLong(value) : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    public record SessionEntry(String id, String userId, String username, String ipAddress, long start,
+            long lastAccess, List<String> clients) {
+    }
+
+    public static class Inventory {
+        private final List<SessionEntry> sessions = new ArrayList<>();
+        private final Map<String, Integer> byClient = new LinkedHashMap<>();
+        private final Map<String, Integer> byIp = new HashMap<>();
+        private final long computedAt = System.currentTimeMillis();
+        private int uniqueUsers;
+        private long oldestStart;
+        private long computeMs;
+
+        public List<SessionEntry> getSessions() {
+            return sessions;
+        }
+
+        public long getComputedAt() {
+            return computedAt;
+        }
+
+        private boolean isExpired(long refreshSeconds) {
+            return System.currentTimeMillis() - computedAt > refreshSeconds * 1000L;
+        }
+    }
+}
@@ -0,0 +1,407 @@
+package com.fawroo.iam.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.admin.client.resource.RealmResource;
+import org.keycloak.admin.client.resource.RoleResource;
+import org.keycloak.representations.idm.UserRepresentation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fawroo.iam.model.dto.BulkUserOperationRequest;
+import com.fawroo.iam.model.dto.SessionRevocationRequest;
+import com.fawroo.iam.service.EffectivePermissionService.RoleGraph;
+import com.fawroo.iam.service.EffectivePermissionService.RoleRef;
+import com.fawroo.iam.service.GroupTreeService.GroupTree;
+import com.fawroo.iam.service.SessionInventoryService.SessionEntry;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * Révocation de sessions en masse : les cibles (groupes, rôles effectifs, clients, plages d'IP) sont
+ * résolues depuis les instantanés locaux (arbre des groupes, graphe des rôles, inventaire des sessions),
+ * puis les utilisateurs sont déconnectés via le moteur d'opérations de masse (parallélisme borné).
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class SessionRevocationService {
+
+    private final Keycloak keycloak;
+    private final KeycloakTaskRunner taskRunner;
+    private final BulkUserOperationService bulkUserOperationService;
+    private final GroupTreeService groupTreeService;
+    private final EffectivePermissionService effectivePermissionService;
+    private final SessionInventoryService sessionInventoryService;
+    private final ClientIdResolver clientIdResolver;
+    private final ObjectMapper objectMapper;
+
+    @Value("${iam.sessions.revocation.progress-every:200}")
+    private int progressEvery;
+
+    @Value("${iam.sessions.revocation.member-page-size:500}")
+    private int memberPageSize;
+
+    @Value("${iam.sessions.revocation.max-snapshot-age-seconds:60}")
+    private long maxSnapshotAgeSeconds;
+
+    // VALIDATE REVOCATION REQUEST (avant l'ouverture du flux de réponse)
+    public void validateRequest(SessionRevocationRequest request) {
+        if (request == null || (isEmpty(request.getUserIds()) && isEmpty(request.getGroupIds())
+                && isEmpty(request.getRoles()) && isEmpty(request.getClientIds()) && isEmpty(request.getIpRanges()))) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At least one of userIds, groupIds, roles, clientIds or ipRanges is required");
+        }
+        if (request.getIpRanges() != null) {
+            try {
+                request.getIpRanges().forEach(IpRange::parse);
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+            }
+        }
+    }
+
+    // RESOLVE TARGETS (dry run : utilisateurs ciblés et répartition par sélecteur)
+    public Map<String, Object> resolve(String realmName, SessionRevocationRequest request) {
+        validateRequest(request);
+        Targets targets = resolveTargets(realmName, request);
+        Map<String, Object> resolution = targets.describe();
+        resolution.put("userIds", targets.userIds);
+        return resolution;
+    }
+
+    // REVOKE SESSIONS (NDJSON : résolution, échecs, progression puis synthèse)
+    public void streamRevoke(String realmName, SessionRevocationRequest request, OutputStream outputStream)
+            throws IOException {
+        validateRequest(request);
+        long start = System.currentTimeMillis();
+        Targets targets = resolveTargets(realmName, request);
+        Object writeLock = new Object();
+        writeLine(outputStream, Map.of("resolved", targets.describe()));
+        if (Boolean.TRUE.equals(request.getDryRun())) {
+            writeLine(outputStream, Map.of("summary", Map.of("dryRun", true, "total", targets.userIds.size())));
+            return;
+        }
+
+        BulkUserOperationRequest logout = new BulkUserOperationRequest();
+        logout.setOperation(BulkUserOperationService.Operation.LOGOUT.name());
+        logout.setUserIds(new ArrayList<>(targets.userIds));
+        logout.setParallelism(request.getParallelism());
+        int total = targets.userIds.size();
+        AtomicInteger processed = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        if (total > 0) {
+            summary.putAll(bulkUserOperationService.execute(realmName, logout, result -> {
+                int done = processed.incrementAndGet();
+                if (!result.isSuccess()) {
+                    failed.incrementAndGet();
+                }
+                synchronized (writeLock) {
+                    try {
+                        if (!result.isSuccess()) {
+                            writeLine(outputStream, result);
+                        }
+                        if (progressEvery > 0 && (done % progressEvery == 0 || done == total)) {
+                            writeLine(outputStream, Map.of("progress", Map.of("processed", done, "total", total,
+                                    "failed", failed.get(), "elapsedMs", System.currentTimeMillis() - start)));
+                        }
+                    } catch (IOException e) {
+                        throw new RuntimeException("Failed to write revocation progress: " + e.getMessage());
+                    }
+                }
+            }));
+        }
+
+        // Les sessions révoquées ne doivent plus apparaître dans l'inventaire local
+        sessionInventoryService.invalidate(realmName);
+
+        summary.put("total", total);
+        summary.put("resolveMs", targets.resolveMs);
+        summary.put("durationMs", System.currentTimeMillis() - start);
+        summary.put("completedAt", System.currentTimeMillis());
+        log.info("Session revocation in realm {}: {} users targeted, {} failed in {} ms", realmName, total,
+                failed.get(), summary.get("durationMs"));
+        synchronized (writeLock) {
+            writeLine(outputStream, Map.of("summary", summary));
+        }
+    }
+
+    // ========== TARGET RESOLUTION ==========
+
+    private Targets resolveTargets(String realmName, SessionRevocationRequest request) {
+        long start = System.currentTimeMillis();
+        Targets targets = new Targets();
+        try {
+            RealmResource realm = keycloak.realm(realmName);
+            if (!isEmpty(request.getUserIds())) {
+                targets.add("users", request.getUserIds());
+            }
+            if (!isEmpty(request.getGroupIds())) {
+                boolean includeSubgroups = !Boolean.FALSE.equals(request.getIncludeSubgroups());
+                GroupTree tree = groupTree(realmName);
+                Set<String> members = new LinkedHashSet<>();
+                for (String groupId : request.getGroupIds()) {
+                    members.addAll(groupMembers(realmName, realm, tree, groupId, includeSubgroups));
+                }
+                targets.add("groups", members);
+            }
+            if (!isEmpty(request.getRoles())) {
+                targets.add("roles", roleMembers(realmName, realm, request.getRoleClientId(), request.getRoles()));
+            }
+            if (!isEmpty(request.getClientIds()) || !isEmpty(request.getIpRanges())) {
+                // Sessions fraîches : l'inventaire en cache peut dater de plusieurs minutes
+                List<SessionEntry> sessions = sessionInventoryService.getInventory(realmName, true).getSessions();
+                if (!isEmpty(request.getClientIds())) {
+                    Set<String> clientIds = Set.copyOf(request.getClientIds());
+                    targets.add("clients", sessions.stream()
+                            .filter(session -> session.clients().stream().anyMatch(clientIds::contains))
+                            .map(SessionEntry::userId)
+                            .toList());
+                }
+                if (!isEmpty(request.getIpRanges())) {
+                    List<IpRange> ranges = request.getIpRanges().stream().map(IpRange::parse).toList();
+                    targets.add("ipRanges", sessions.stream()
+                            .filter(session -> ranges.stream().anyMatch(range -> range.contains(session.ipAddress())))
+                            .map(SessionEntry::userId)
+                            .toList());
+                }
+            }
+        } catch (ResponseStatusException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Error resolving revocation targets in realm {}: {}", realmName, e.getMessage());
+            throw new RuntimeException("Failed to resolve revocation targets: " + e.getMessage());
+        }
+        targets.resolveMs = System.currentTimeMillis() - start;
+        return targets;
+    }
+
+    private Set<String> groupMembers(String realmName, RealmResource realm, GroupTree tree, String groupId, boolean includeSubgroups) {
+        if (tree.includesMembers()) {
+            return tree.memberIds(groupId, includeSubgroups);
+        }
+        // Instantané sans membres : pagination directe des groupes du sous-arbre
+        Set<String> members = new LinkedHashSet<>();
+        List<String> groupIds = includeSubgroups
+                ? groupTreeService.getSubtree(realmName, groupId).stream()
+                        .map(node -> (String) node.get("id"))
+                        .toList()
+                : List.of(groupId);
+        for (String id : groupIds) {
+            int first = 0;
+            while (true) {
+                List<UserRepresentation> page = realm.groups().group(id).members(first, memberPageSize, true);
+                page.forEach(user -> members.add(user.getId()));
+                if (page.size() < memberPageSize) {
+                    break;
+                }
+                first += memberPageSize;
+                taskRunner.throttle();
+            }
+        }
+        return members;
+    }
+
+    // Membres effectifs : titulaires directs du rôle ou d'un composite qui le contient, plus membres des groupes qui l'accordent
+    private Set<String> roleMembers(String realmName, RealmResource realm, String clientId, List<String> roleNames) {
+        RoleGraph graph = roleGraph(realmName);
+        Map<String, RoleRef> granting = new LinkedHashMap<>();
+        Set<String> groupIds = new LinkedHashSet<>();
+        for (String roleName : roleNames) {
+            Integer bit = graph.bitOf(clientId, roleName);
+            if (bit == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Role not found: " + roleName);
+            }
+            graph.rolesGranting(bit).forEach(role -> granting.put(role.id(), role));
+            groupIds.addAll(graph.groupsGranting(bit));
+        }
+
+        Set<String> members = new LinkedHashSet<>();
+        List<Set<String>> direct = taskRunner.mapAll(granting.values(), 4, role -> directRoleMembers(realm, realmName, role));
+        direct.forEach(members::addAll);
+        if (!groupIds.isEmpty()) {
+            GroupTree tree = groupTree(realmName);
+            for (String groupId : groupIds) {
+                // Les sous-groupes héritant du rôle figurent déjà dans groupIds
+                members.addAll(groupMembers(realmName, realm, tree, groupId, false));
+            }
+        }
+        return members;
+    }
+
+    private Set<String> directRoleMembers(RealmResource realm, String realmName, RoleRef role) {
+        if (role.clientId() != null) {
+            return clientIdResolver.withClient(realmName, role.clientId(),
+                    client -> roleMembers(client.roles().get(role.name())));
+        }
+        return roleMembers(realm.roles().get(role.name()));
+    }
+
+    private Set<String> roleMembers(RoleResource resource) {
+        Set<String> members = new LinkedHashSet<>();
+        int first = 0;
+        while (true) {
+            List<UserRepresentation> page = resource.getUserMembers(first, memberPageSize);
+            page.forEach(user -> members.add(user.getId()));
+            if (page.size() < memberPageSize) {
+                return members;
+            }
+            first += memberPageSize;
+            taskRunner.throttle();
+        }
+    }
+
+    // ========== HELPER METHODS ==========
+
+    // Instantanés en cache réutilisés tant qu'ils ont moins de max-snapshot-age-seconds, reconstruits sinon
+    private GroupTree groupTree(String realmName) {
+        GroupTree tree = groupTreeService.getSnapshot(realmName);
+        if (isTooOld(tree.getBuiltAt())) {
+            groupTreeService.invalidate(realmName);
+            tree = groupTreeService.getSnapshot(realmName);
+        }
+        return tree;
+    }
+
+    private RoleGraph roleGraph(String realmName) {
+        RoleGraph graph = effectivePermissionService.getRoleGraph(realmName);
+        if (isTooOld(graph.getBuiltAt())) {
+            effectivePermissionService.invalidateRealm(realmName);
+            graph = effectivePermissionService.getRoleGraph(realmName);
+        }
+        return graph;
+    }
+
+    private boolean isTooOld(long builtAt) {
+        return System.currentTimeMillis() - builtAt > maxSnapshotAgeSeconds * 1000L;
+    }
+
+    private static boolean isEmpty(List<String> values) {
+        return values == null || values.isEmpty();
+    }
+
+    private void writeLine(OutputStream outputStream, Object value) throws IOException {
+        outputStream.write(objectMapper.writeValueAsBytes(value));
+        outputStream.write('\n');
+        outputStream.flush();
+    }
+
+    private static class Targets {
+        private final Set<String> userIds = new LinkedHashSet<>();
+        private final Map<String, Integer> bySelector = new LinkedHashMap<>();
+        private long resolveMs;
+
+        private void add(String selector, Iterable<String> ids) {
+            int count = 0;
+            for (String id : ids) {
+                if (id != null) {
+                    userIds.add(id);
+                    count++;
+                }
+            }
+            bySelector.put(selector, count);
+        }
+
+        private Map<String, Object> describe() {
+            Map<String, Object> description = new LinkedHashMap<>();
+            description.put("targets", userIds.size());
+            description.put("bySelector", bySelector);
+            description.put("resolveMs", resolveMs);
+            return description;
+        }
+    }
+
+    // Plage CIDR IPv4/IPv6 (une adresse seule vaut /32 ou /128)
+    record IpRange(byte[] network, int prefix) {
+
+        static IpRange parse(String value) {
+            try {
+                String[] parts = value.trim().split("/", 2);
+                byte[] address = literalAddress(parts[0]);
+                if (address == null) {
+                    throw new IllegalArgumentException("Invalid IP range: " + value);
+                }
+                int prefix = parts.length > 1 ? Integer.parseInt(parts[1]) : address.length * 8;
+                if (prefix < 0 || prefix > address.length * 8) {
+                    throw new IllegalArgumentException("Invalid prefix length in IP range: " + value);
+                }
+                return new IpRange(address, prefix);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid IP range: " + value);
+            }
+        }
+
+        // Adresse littérale uniquement : IPv4 en notation pointée stricte (lue ici), IPv6 avec au moins un ':'
+        // (InetAddress la traite alors comme littéral). Tout le reste est refusé sans résolution DNS.
+        private static byte[] literalAddress(String value) {
+            if (value == null || value.isEmpty()) {
+                return null;
+            }
+            if (value.indexOf(':') < 0) {
+                return dottedQuad(value);
+            }
+            if (!value.chars().allMatch(c -> Character.digit(c, 16) >= 0 || c == '.' || c == ':')) {
+                return null;
+            }
+            try {
+                return InetAddress.getByName(value).getAddress();
+            } catch (UnknownHostException e) {
+                return null;
+            }
+        }
+
+        private static byte[] dottedQuad(String value) {
+            String[] parts = value.split("\\.", -1);
+            if (parts.length != 4) {
+                return null;
+            }
+            byte[] address = new byte[4];
+            for (int i = 0; i < 4; i++) {
+                if (parts[i].isEmpty() || parts[i].length() > 3 || !parts[i].chars().allMatch(Character::isDigit)) {
+                    return null;
+                }
+                int octet = Integer.parseInt(parts[i]);
+                if (octet > 255) {
+                    return null;
+                }
+                address[i] = (byte) octet;
+            }
+            return address;
+        }
+
+        boolean contains(String ip) {
+            byte[] address = literalAddress(ip);
+            if (address == null || address.length != network.length) {
+                return false;
+            }
+            int fullBytes = prefix / 8;
+            for (int i = 0; i < fullBytes; i++) {
+                if (address[i] != network[i]) {
+                    return false;
+                }
+            }
+            int remainingBits = prefix % 8;
+            if (remainingBits == 0) {
+                return true;
+            }
+            int mask = (0xFF << (8 - remainingBits)) & 0xFF;
+            return (address[fullBytes] & mask) == (network[fullBytes] & mask);
+        }
+    }
+}
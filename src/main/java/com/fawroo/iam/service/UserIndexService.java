@@ -0,0 +1,217 @@
+package com.fawroo.iam.service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.representations.idm.AdminEventRepresentation;
+import org.keycloak.representations.idm.UserRepresentation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.fawroo.iam.event.EventsIngestedEvent;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * Index local username/email -> utilisateur, par realm, en correspondance exacte.
+ * Alimenté à la demande (searchByUsername/searchByEmail exacts), invalidé par les événements
+ * d'administration ingérés et par les modifications faites via ce service ; le TTL sert de filet.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class UserIndexService {
+
+    private static final String USERS_PATH = "users/";
+
+    private final Keycloak keycloak;
+
+    @Value("${iam.users.index.ttl-minutes:10}")
+    private long ttlMinutes;
+
+    @Value("${iam.users.index.max-entries-per-realm:50000}")
+    private int maxEntriesPerRealm;
+
+    private final Map<String, RealmIndex> realms = new ConcurrentHashMap<>();
+
+    // FIND USER BY USERNAME (exact)
+    public Optional<UserRepresentation> findByUsername(String realm, String username) {
+        RealmIndex index = index(realm);
+        String key = normalize(username);
+        Optional<UserRepresentation> cached = index.lookup(index.byUsername, key, ttlMillis());
+        if (cached.isPresent()) {
+            return cached;
+        }
+        index.misses.incrementAndGet();
+        List<UserRepresentation> users = keycloak.realm(realm).users().searchByUsername(username, true);
+        return remember(index, users);
+    }
+
+    // FIND USER BY EMAIL (exact)
+    public Optional<UserRepresentation> findByEmail(String realm, String email) {
+        RealmIndex index = index(realm);
+        String key = normalize(email);
+        Optional<UserRepresentation> cached = index.lookup(index.byEmail, key, ttlMillis());
+        if (cached.isPresent()) {
+            return cached;
+        }
+        index.misses.incrementAndGet();
+        List<UserRepresentation> users = keycloak.realm(realm).users().searchByEmail(email, true);
+        return remember(index, users);
+    }
+
+    // FIND USER BY USERNAME OR EMAIL
+    public Optional<UserRepresentation> findByUsernameOrEmail(String realm, String identifier) {
+        Optional<UserRepresentation> user = findByUsername(realm, identifier);
+        if (user.isEmpty() && identifier.contains("@")) {
+            user = findByEmail(realm, identifier);
+        }
+        return user;
+    }
+
+    // INVALIDATE USER
+    public void invalidate(String realm, String userId) {
+        RealmIndex index = realms.get(realm);
+        if (index != null) {
+            index.remove(userId);
+        }
+    }
+
+    // GET INDEX STATS
+    public Map<String, Object> getIndexStats(String realm) {
+        RealmIndex index = index(realm);
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("realm", realm);
+        stats.put("entries", index.byId.size());
+        stats.put("hits", index.hits.get());
+        stats.put("misses", index.misses.get());
+        stats.put("invalidations", index.invalidations.get());
+        return stats;
+    }
+
+    // Les événements admin USER (UPDATE, DELETE, ACTION...) invalident l'entrée concernée
+    @EventListener
+    public void onEventsIngested(EventsIngestedEvent ingested) {
+        RealmIndex index = realms.get(ingested.getRealmName());
+        if (index == null) {
+            return;
+        }
+        for (AdminEventRepresentation event : ingested.getAdminEvents()) {
+            String path = event.getResourcePath();
+            if (!"USER".equals(event.getResourceType()) || path == null || !path.startsWith(USERS_PATH)) {
+                continue;
+            }
+            int end = path.indexOf('/', USERS_PATH.length());
+            index.remove(end < 0 ? path.substring(USERS_PATH.length()) : path.substring(USERS_PATH.length(), end));
+        }
+    }
+
+    // EVICT EXPIRED ENTRIES
+    @Scheduled(fixedDelayString = "${iam.users.index.eviction-interval-ms:60000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        long ttl = ttlMillis();
+        realms.values().forEach(index -> index.byId.values().stream()
+                .filter(entry -> now - entry.loadedAt > ttl)
+                .toList()
+                .forEach(entry -> index.remove(entry.user.getId())));
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private Optional<UserRepresentation> remember(RealmIndex index, List<UserRepresentation> users) {
+        if (users.isEmpty()) {
+            return Optional.empty();
+        }
+        UserRepresentation user = users.get(0);
+        if (index.byId.size() < maxEntriesPerRealm) {
+            index.put(user);
+        }
+        return Optional.of(user);
+    }
+
+    private RealmIndex index(String realm) {
+        return realms.computeIfAbsent(realm, r -> new RealmIndex());
+    }
+
+    private long ttlMillis() {
+        return ttlMinutes * 60_000L;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? null : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static class IndexedUser {
+        private final UserRepresentation user;
+        private final String username;
+        private final String email;
+        private final long loadedAt = System.currentTimeMillis();
+
+        private IndexedUser(UserRepresentation user) {
+            this.user = user;
+            this.username = normalize(user.getUsername());
+            this.email = normalize(user.getEmail());
+        }
+    }
+
+    private static class RealmIndex {
+        private final Map<String, IndexedUser> byId = new ConcurrentHashMap<>();
+        private final Map<String, String> byUsername = new ConcurrentHashMap<>();
+        private final Map<String, String> byEmail = new ConcurrentHashMap<>();
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+        private final AtomicLong invalidations = new AtomicLong();
+
+        private Optional<UserRepresentation> lookup(Map<String, String> keys, String key, long ttl) {
+            String userId = key != null ? keys.get(key) : null;
+            IndexedUser entry = userId != null ? byId.get(userId) : null;
+            if (entry == null || System.currentTimeMillis() - entry.loadedAt > ttl
+                    || !(key.equals(entry.username) || key.equals(entry.email))) {
+                return Optional.empty();
+            }
+            hits.incrementAndGet();
+            return Optional.of(entry.user);
+        }
+
+        private void put(UserRepresentation user) {
+            IndexedUser entry = new IndexedUser(user);
+            IndexedUser previous = byId.put(user.getId(), entry);
+            if (previous != null) {
+                unlink(previous);
+            }
+            if (entry.username != null) {
+                byUsername.put(entry.username, user.getId());
+            }
+            if (entry.email != null) {
+                byEmail.put(entry.email, user.getId());
+            }
+        }
+
+        private void remove(String userId) {
+            IndexedUser entry = byId.remove(userId);
+            if (entry != null) {
+                unlink(entry);
+                invalidations.incrementAndGet();
+            }
+        }
+
+        private void unlink(IndexedUser entry) {
+            if (entry.username != null) {
+                byUsername.remove(entry.username, entry.user.getId());
+            }
+            if (entry.email != null) {
+                byEmail.remove(entry.email, entry.user.getId());
+            }
+        }
+    }
+}
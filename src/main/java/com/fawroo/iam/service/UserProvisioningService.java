@@ -0,0 +1,572 @@
+package com.fawroo.iam.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import org.keycloak.admin.client.CreatedResponseUtil;
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.admin.client.resource.RealmResource;
+import org.keycloak.admin.client.resource.UserResource;
+import org.keycloak.representations.idm.CredentialRepresentation;
+import org.keycloak.representations.idm.RoleRepresentation;
+import org.keycloak.representations.idm.UserRepresentation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fawroo.iam.model.dto.UserProvisioningRecord;
+
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.Response;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * Provisioning en masse : parse -> validate -> create -> assign groups/roles.
+ * Le parsing avance au rythme des workers (contre-pression du KeycloakTaskRunner),
+ * la création et les affectations de plusieurs utilisateurs se recouvrent.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class UserProvisioningService {
+
+    public static final String FORMAT_NDJSON = "ndjson";
+    public static final String FORMAT_CSV = "csv";
+
+    public enum ConflictMode {
+        SKIP, UPDATE, FAIL
+    }
+
+    private static final Pattern EMAIL = Pattern.compile("^[^@\\s]+@[^@\\s]+\\.[^@\\s]+$");
+    private static final String MULTI_VALUE_SEPARATOR = "\\|";
+
+    private final Keycloak keycloak;
+    private final KeycloakTaskRunner taskRunner;
+    private final ClientIdResolver clientIdResolver;
+    private final ObjectMapper objectMapper;
+
+    @Value("${iam.bulk.provisioning.parallelism:8}")
+    private int parallelism;
+
+    @Value("${iam.bulk.provisioning.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${iam.bulk.provisioning.progress-every:500}")
+    private int progressEvery;
+
+    // VALIDATE PROVISIONING REQUEST
+    public void validateRequest(String format, String onConflict) {
+        if (!FORMAT_NDJSON.equalsIgnoreCase(format) && !FORMAT_CSV.equalsIgnoreCase(format)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported provisioning format: " + format);
+        }
+        conflictMode(onConflict);
+    }
+
+    // PROVISION USERS (NDJSON results + progress lines + summary)
+    public void provisionUsers(String realm, InputStream input, String format, String onConflict,
+            OutputStream outputStream) throws IOException {
+        ConflictMode conflictMode = conflictMode(onConflict);
+        RealmResource realmResource = keycloak.realm(realm);
+        ProvisioningContext context = new ProvisioningContext(realmResource, realm);
+        Object writeLock = new Object();
+        long start = System.currentTimeMillis();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            Iterable<ParsedLine> lines = FORMAT_CSV.equalsIgnoreCase(format)
+                    ? () -> new CsvRecordIterator(reader)
+                    : () -> new NdjsonRecordIterator(reader);
+
+            taskRunner.<ParsedLine, Map<String, Object>>forEach(lines, parallelism,
+                    line -> provisionLine(context, line, conflictMode),
+                    (line, result, error) -> {
+                        Map<String, Object> item = result != null ? result : failure(line, error);
+                        long processed = context.record(String.valueOf(item.get("status")));
+                        synchronized (writeLock) {
+                            writeLine(outputStream, item);
+                            if (progressEvery > 0 && processed % progressEvery == 0) {
+                                writeLine(outputStream, Map.of("progress", context.counters(processed, start)));
+                            }
+                        }
+                    });
+        }
+
+        Map<String, Object> summary = context.counters(context.processed.get(), start);
+        synchronized (writeLock) {
+            writeLine(outputStream, Map.of("summary", summary));
+        }
+        log.info("Provisioning in realm {} finished: {}", realm, summary);
+    }
+
+    // ========== PIPELINE STAGES ==========
+
+    private Map<String, Object> provisionLine(ProvisioningContext context, ParsedLine line,
+            ConflictMode conflictMode) throws Exception {
+        if (line.error != null) {
+            return failure(line, line.error);
+        }
+        UserProvisioningRecord record = line.record;
+        String validationError = validate(record);
+        if (validationError != null) {
+            return failure(line, validationError);
+        }
+
+        // Les références sont résolues avant la création pour ne pas créer d'utilisateur à moitié provisionné
+        List<String> groupIds = new ArrayList<>();
+        if (record.getGroups() != null) {
+            for (String path : record.getGroups()) {
+                groupIds.add(context.groupId(path));
+            }
+        }
+        List<RoleRepresentation> realmRoles = new ArrayList<>();
+        if (record.getRealmRoles() != null) {
+            for (String roleName : record.getRealmRoles()) {
+                realmRoles.add(context.realmRole(roleName));
+            }
+        }
+        Map<String, List<RoleRepresentation>> clientRoles = new HashMap<>();
+        if (record.getClientRoles() != null) {
+            for (Map.Entry<String, List<String>> entry : record.getClientRoles().entrySet()) {
+                String clientUuid = context.clientUuid(entry.getKey());
+                List<RoleRepresentation> roles = new ArrayList<>();
+                for (String roleName : entry.getValue()) {
+                    roles.add(context.clientRole(clientUuid, roleName));
+                }
+                clientRoles.put(clientUuid, roles);
+            }
+        }
+
+        String status = "CREATED";
+        UserRepresentation user = toUserRepresentation(record);
+        AtomicInteger createAttempts = new AtomicInteger();
+        String userId = withRetry(() -> {
+            createAttempts.incrementAndGet();
+            return createUser(context.realmResource, user);
+        });
+        if (userId == null && createAttempts.get() > 1) {
+            // 409 après une tentative en 5xx : la première création a abouti côté Keycloak
+            userId = withRetry(() -> findExistingUserId(context.realmResource, record));
+        } else if (userId == null) {
+            if (conflictMode == ConflictMode.FAIL) {
+                return failure(line, "User already exists: " + record.getUsername());
+            }
+            userId = withRetry(() -> findExistingUserId(context.realmResource, record));
+            if (conflictMode == ConflictMode.UPDATE) {
+                String existingId = userId;
+                withRetry(() -> {
+                    UserRepresentation update = toUserRepresentation(record);
+                    update.setCredentials(null);
+                    context.realmResource.users().get(existingId).update(update);
+                    return null;
+                });
+                status = "UPDATED";
+            } else {
+                // SKIP : l'utilisateur existant est laissé intact, affectations comprises
+                return result(line, userId, "EXISTS");
+            }
+        }
+
+        // Affectations idempotentes : rejouables sans effet de bord après un conflit
+        UserResource userResource = context.realmResource.users().get(userId);
+        for (String groupId : groupIds) {
+            taskRunner.throttle();
+            withRetry(() -> {
+                userResource.joinGroup(groupId);
+                return null;
+            });
+        }
+        if (!realmRoles.isEmpty()) {
+            taskRunner.throttle();
+            withRetry(() -> {
+                userResource.roles().realmLevel().add(realmRoles);
+                return null;
+            });
+        }
+        for (Map.Entry<String, List<RoleRepresentation>> entry : clientRoles.entrySet()) {
+            taskRunner.throttle();
+            withRetry(() -> {
+                userResource.roles().clientLevel(entry.getKey()).add(entry.getValue());
+                return null;
+            });
+        }
+
+        return result(line, userId, status);
+    }
+
+    private String validate(UserProvisioningRecord record) {
+        if (record.getUsername() == null || record.getUsername().isBlank()) {
+            return "username is required";
+        }
+        if (record.getEmail() != null && !record.getEmail().isBlank() && !EMAIL.matcher(record.getEmail()).matches()) {
+            return "invalid email: " + record.getEmail();
+        }
+        return null;
+    }
+
+    // Retourne null en cas de conflit (409)
+    private String createUser(RealmResource realmResource, UserRepresentation user) {
+        try (Response response = realmResource.users().create(user)) {
+            if (response.getStatus() == 409) {
+                return null;
+            }
+            return CreatedResponseUtil.getCreatedId(response);
+        }
+    }
+
+    private String findExistingUserId(RealmResource realmResource, UserProvisioningRecord record) {
+        List<UserRepresentation> users = realmResource.users().searchByUsername(record.getUsername(), true);
+        if (users.isEmpty() && record.getEmail() != null && !record.getEmail().isBlank()) {
+            // Conflit sur l'email plutôt que sur le username
+            users = realmResource.users().searchByEmail(record.getEmail(), true);
+        }
+        if (users.isEmpty()) {
+            throw new RuntimeException("Conflict reported but no existing user found for " + record.getUsername());
+        }
+        return users.get(0).getId();
+    }
+
+    @FunctionalInterface
+    private interface KeycloakCall<T> {
+        T call();
+    }
+
+    // Rejoue les erreurs transitoires (5xx, connexion) avec un backoff linéaire
+    private <T> T withRetry(KeycloakCall<T> call) throws InterruptedException {
+        for (int attempt = 1;; attempt++) {
+            try {
+                return call.call();
+            } catch (WebApplicationException | ProcessingException e) {
+                boolean transientError = e instanceof ProcessingException
+                        || ((WebApplicationException) e).getResponse().getStatus() >= 500;
+                if (!transientError || attempt >= maxAttempts) {
+                    throw e;
+                }
+                Thread.sleep(200L * attempt);
+            }
+        }
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private ConflictMode conflictMode(String onConflict) {
+        if (onConflict == null) {
+            return ConflictMode.SKIP;
+        }
+        try {
+            return ConflictMode.valueOf(onConflict.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported conflict mode: " + onConflict);
+        }
+    }
+
+    private UserRepresentation toUserRepresentation(UserProvisioningRecord record) {
+        UserRepresentation user = new UserRepresentation();
+        user.setUsername(record.getUsername());
+        user.setEmail(record.getEmail());
+        user.setFirstName(record.getFirstName());
+        user.setLastName(record.getLastName());
+        user.setEnabled(record.getEnabled() != null ? record.getEnabled() : Boolean.TRUE);
+        user.setEmailVerified(record.getEmailVerified());
+        user.setAttributes(record.getAttributes());
+        if (record.getPassword() != null && !record.getPassword().isEmpty()) {
+            CredentialRepresentation credential = new CredentialRepresentation();
+            credential.setType(CredentialRepresentation.PASSWORD);
+            credential.setValue(record.getPassword());
+            credential.setTemporary(record.isTemporaryPassword());
+            user.setCredentials(List.of(credential));
+        }
+        return user;
+    }
+
+    private Map<String, Object> result(ParsedLine line, String userId, String status) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("line", line.number);
+        result.put("username", line.record.getUsername());
+        result.put("userId", userId);
+        result.put("status", status);
+        return result;
+    }
+
+    private Map<String, Object> failure(ParsedLine line, Object error) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("line", line.number);
+        result.put("username", line.record != null ? line.record.getUsername() : null);
+        result.put("status", "FAILED");
+        result.put("error", error instanceof Exception ? ((Exception) error).getMessage() : error);
+        return result;
+    }
+
+    private void writeLine(OutputStream outputStream, Object value) {
+        try {
+            outputStream.write(objectMapper.writeValueAsBytes(value));
+            outputStream.write('\n');
+            outputStream.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static class ParsedLine {
+        private final long number;
+        private final UserProvisioningRecord record;
+        private final String error;
+
+        private ParsedLine(long number, UserProvisioningRecord record, String error) {
+            this.number = number;
+            this.record = record;
+            this.error = error;
+        }
+    }
+
+    // Caches de résolution partagés par les workers d'un même import
+    private class ProvisioningContext {
+        private final RealmResource realmResource;
+        private final Map<String, Optional<String>> groupIds = new ConcurrentHashMap<>();
+        private final Map<String, Optional<RoleRepresentation>> roles = new ConcurrentHashMap<>();
+        private final Map<String, AtomicLong> statusCounts = new ConcurrentHashMap<>();
+        private final AtomicLong processed = new AtomicLong();
+
+        private final String realmName;
+
+        private ProvisioningContext(RealmResource realmResource, String realmName) {
+            this.realmResource = realmResource;
+            this.realmName = realmName;
+        }
+
+        private String groupId(String path) {
+            String normalized = path.startsWith("/") ? path : "/" + path;
+            return groupIds.computeIfAbsent(normalized, p -> {
+                try {
+                    return Optional.of(realmResource.getGroupByPath(p).getId());
+                } catch (WebApplicationException e) {
+                    return Optional.empty();
+                }
+            }).orElseThrow(() -> new IllegalArgumentException("Group not found: " + normalized));
+        }
+
+        private String clientUuid(String clientId) {
+            return clientIdResolver.findClientUuid(realmName, clientId)
+                    .orElseThrow(() -> new IllegalArgumentException("Client not found: " + clientId));
+        }
+
+        private RoleRepresentation realmRole(String roleName) {
+            return roles.computeIfAbsent(roleName, name -> {
+                try {
+                    return Optional.of(realmResource.roles().get(name).toRepresentation());
+                } catch (WebApplicationException e) {
+                    return Optional.empty();
+                }
+            }).orElseThrow(() -> new IllegalArgumentException("Realm role not found: " + roleName));
+        }
+
+        private RoleRepresentation clientRole(String clientUuid, String roleName) {
+            return roles.computeIfAbsent(clientUuid + "/" + roleName, key -> {
+                try {
+                    return Optional.of(realmResource.clients().get(clientUuid).roles().get(roleName).toRepresentation());
+                } catch (WebApplicationException e) {
+                    return Optional.empty();
+                }
+            }).orElseThrow(() -> new IllegalArgumentException("Client role not found: " + roleName));
+        }
+
+        private long record(String status) {
+            statusCounts.computeIfAbsent(status, s -> new AtomicLong()).incrementAndGet();
+            return processed.incrementAndGet();
+        }
+
+        private Map<String, Object> counters(long processedCount, long start) {
+            long elapsed = Math.max(1, System.currentTimeMillis() - start);
+            Map<String, Object> counters = new LinkedHashMap<>();
+            counters.put("processed", processedCount);
+            statusCounts.forEach((status, count) -> counters.put(status.toLowerCase(), count.get()));
+            counters.put("elapsedMs", elapsed);
+            counters.put("usersPerSecond", processedCount * 1000 / elapsed);
+            return counters;
+        }
+    }
+
+    // ========== PARSERS ==========
+
+    private abstract static class RecordIterator implements Iterator<ParsedLine> {
+        protected final BufferedReader reader;
+        protected long lineNumber;
+        private ParsedLine next;
+
+        private RecordIterator(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        protected abstract ParsedLine parse(String line);
+
+        @Override
+        public boolean hasNext() {
+            if (next != null) {
+                return true;
+            }
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lineNumber++;
+                    if (!line.isBlank()) {
+                        next = parse(line);
+                        if (next != null) {
+                            return true;
+                        }
+                    }
+                }
+                return false;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public ParsedLine next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            ParsedLine line = next;
+            next = null;
+            return line;
+        }
+    }
+
+    private class NdjsonRecordIterator extends RecordIterator {
+
+        private NdjsonRecordIterator(BufferedReader reader) {
+            super(reader);
+        }
+
+        @Override
+        protected ParsedLine parse(String line) {
+            try {
+                return new ParsedLine(lineNumber, objectMapper.readValue(line, UserProvisioningRecord.class), null);
+            } catch (JsonProcessingException e) {
+                return new ParsedLine(lineNumber, null, "invalid JSON: " + e.getOriginalMessage());
+            }
+        }
+    }
+
+    /*
+     * CSV avec en-tête : username,email,firstName,lastName,enabled,emailVerified,password,temporaryPassword,
+     * groups,realmRoles,clientRoles (client:role), attr.<nom>. Les valeurs multiples sont séparées par '|'.
+     */
+    private static class CsvRecordIterator extends RecordIterator {
+        private List<String> header;
+
+        private CsvRecordIterator(BufferedReader reader) {
+            super(reader);
+        }
+
+        @Override
+        protected ParsedLine parse(String line) {
+            List<String> values = parseCsvLine(line);
+            if (header == null) {
+                header = values;
+                return null;
+            }
+            UserProvisioningRecord record = new UserProvisioningRecord();
+            try {
+                for (int i = 0; i < header.size() && i < values.size(); i++) {
+                    String value = values.get(i);
+                    if (value.isEmpty()) {
+                        continue;
+                    }
+                    apply(record, header.get(i).trim(), value);
+                }
+                return new ParsedLine(lineNumber, record, null);
+            } catch (IllegalArgumentException e) {
+                return new ParsedLine(lineNumber, record, e.getMessage());
+            }
+        }
+
+        private void apply(UserProvisioningRecord record, String column, String value) {
+            switch (column) {
+                case "username" -> record.setUsername(value);
+                case "email" -> record.setEmail(value);
+                case "firstName" -> record.setFirstName(value);
+                case "lastName" -> record.setLastName(value);
+                case "enabled" -> record.setEnabled(Boolean.parseBoolean(value));
+                case "emailVerified" -> record.setEmailVerified(Boolean.parseBoolean(value));
+                case "password" -> record.setPassword(value);
+                case "temporaryPassword" -> record.setTemporaryPassword(Boolean.parseBoolean(value));
+                case "groups" -> record.setGroups(split(value));
+                case "realmRoles" -> record.setRealmRoles(split(value));
+                case "clientRoles" -> {
+                    Map<String, List<String>> clientRoles = new HashMap<>();
+                    for (String entry : split(value)) {
+                        int separator = entry.indexOf(':');
+                        if (separator <= 0) {
+                            throw new IllegalArgumentException("clientRoles must be client:role, got " + entry);
+                        }
+                        clientRoles.computeIfAbsent(entry.substring(0, separator), k -> new ArrayList<>())
+                                .add(entry.substring(separator + 1));
+                    }
+                    record.setClientRoles(clientRoles);
+                }
+                default -> {
+                    if (column.startsWith("attr.")) {
+                        if (record.getAttributes() == null) {
+                            record.setAttributes(new HashMap<>());
+                        }
+                        record.getAttributes().put(column.substring(5), split(value));
+                    }
+                }
+            }
+        }
+
+        private static List<String> split(String value) {
+            return new ArrayList<>(Arrays.asList(value.split(MULTI_VALUE_SEPARATOR)));
+        }
+
+        private static List<String> parseCsvLine(String line) {
+            List<String> values = new ArrayList<>();
+            StringBuilder current = new StringBuilder();
+            boolean quoted = false;
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        current.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        current.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    values.add(current.toString());
+                    current.setLength(0);
+                } else {
+                    current.append(c);
+                }
+            }
+            values.add(current.toString());
+            return values;
+        }
+    }
+}
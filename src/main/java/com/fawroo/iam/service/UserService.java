@@ -2,6 +2,7 @@ package com.fawroo.iam.service;
 
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -16,10 +17,17 @@ import org.keycloak.representations.idm.RoleRepresentation;
 import org.keycloak.representations.idm.UserRepresentation;
 import org.keycloak.representations.idm.UserSessionRepresentation;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.server.ResponseStatusException;
 
 import com.fawroo.iam.model.dto.Credential;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fawroo.iam.model.dto.PasswordUpdateRequest;
+import com.fawroo.iam.model.dto.UserPatchRequest;
 import com.fawroo.iam.model.dto.UserProfile;
 import com.fawroo.iam.model.dto.UserRequest;
 
@@ -33,6 +41,9 @@ import lombok.extern.slf4j.Slf4j;
 public class UserService {
 
     private final Keycloak keycloak;
+    private final ObjectMapper objectMapper;
+    private final UserIndexService userIndexService;
+    private final EffectivePermissionService effectivePermissionService;
 
     // CREATE USER
     public String createUser(UserRequest userRequest, String realm) {
@@ -66,23 +77,28 @@ public class UserService {
         }
     }
 
-    // GET USER BY USERNAME
+    // GET USER BY USERNAME (exact match, served from the local index when possible)
     public UserRepresentation getUserByUsername(String username, String realm) {
         try {
-            List<UserRepresentation> users = keycloak.realm(realm).users()
-                    .search(username, 0, 1);
-
-            if (users.isEmpty()) {
-                throw new RuntimeException("User not found with username: " + username);
-            }
-
-            return users.get(0);
+            return userIndexService.findByUsername(realm, username)
+                    .orElseThrow(() -> new RuntimeException("User not found with username: " + username));
         } catch (Exception e) {
             log.error("Error getting user by username {}: {}", username, e.getMessage());
             throw new RuntimeException("Failed to get user: " + e.getMessage());
         }
     }
 
+    // GET USER BY EMAIL (exact match)
+    public UserRepresentation getUserByEmail(String email, String realm) {
+        try {
+            return userIndexService.findByEmail(realm, email)
+                    .orElseThrow(() -> new RuntimeException("User not found with email: " + email));
+        } catch (Exception e) {
+            log.error("Error getting user by email {}: {}", email, e.getMessage());
+            throw new RuntimeException("Failed to get user: " + e.getMessage());
+        }
+    }
+
     // GET ALL USERS
     public List<UserRepresentation> getAllUsers(String realm) {
         try {
@@ -111,6 +127,7 @@ public class UserService {
             user.setId(userId);
 
             userResource.update(user);
+            userIndexService.invalidate(realm, userId);
             log.info("User updated successfully: {}", userId);
         } catch (Exception e) {
             log.error("Error updating user {}: {}", userId, e.getMessage());
@@ -118,11 +135,57 @@ public class UserService {
         }
     }
 
+    // PATCH USER (field-level update, checked against the current Keycloak version when If-Match is given)
+    public String patchUser(String userId, UserPatchRequest patch, String realm, String ifMatch) {
+        try {
+            UserResource userResource = keycloak.realm(realm).users().get(userId);
+            UserRepresentation current = userResource.toRepresentation();
+            if (ifMatch != null && !getUserVersion(current).equals(ifMatch)) {
+                throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED,
+                        "User " + userId + " has been modified");
+            }
+
+            // Keycloak efface email, prénom et nom absents de la représentation : ils sont repris de l'utilisateur lu
+            UserRepresentation update = new UserRepresentation();
+            update.setEmail(patch.getEmail() != null ? patch.getEmail() : current.getEmail());
+            update.setFirstName(patch.getFirstName() != null ? patch.getFirstName() : current.getFirstName());
+            update.setLastName(patch.getLastName() != null ? patch.getLastName() : current.getLastName());
+            update.setEnabled(patch.getEnabled());
+            update.setEmailVerified(patch.getEmailVerified());
+            update.setRequiredActions(patch.getRequiredActions());
+            if (patch.getAttributes() != null) {
+                update.setAttributes(mergeAttributes(current.getAttributes(), patch.getAttributes()));
+            }
+            userResource.update(update);
+            userIndexService.invalidate(realm, userId);
+            log.info("User patched successfully: {}", userId);
+
+            // Relu pour que l'ETag reflète les valeurs normalisées par Keycloak
+            return getUserVersion(userResource.toRepresentation());
+        } catch (ResponseStatusException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Error patching user {}: {}", userId, e.getMessage());
+            throw new RuntimeException("Failed to patch user: " + e.getMessage());
+        }
+    }
+
+    // GET USER VERSION (ETag of a representation read from Keycloak)
+    public String getUserVersion(UserRepresentation user) {
+        try {
+            ObjectWriter writer = objectMapper.writer().with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+            return "\"" + DigestUtils.md5DigestAsHex(writer.writeValueAsBytes(user)) + "\"";
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to compute user version: " + e.getMessage());
+        }
+    }
+
     // DELETE USER
     public void deleteUser(String userId, String realm) {
         try {
             UserResource userResource = keycloak.realm(realm).users().get(userId);
             userResource.remove();
+            userIndexService.invalidate(realm, userId);
             log.info("User deleted successfully: {}", userId);
         } catch (Exception e) {
             log.error("Error deleting user {}: {}", userId, e.getMessage());
@@ -189,6 +252,7 @@ public class UserService {
             UserRepresentation user = userResource.toRepresentation();
             user.setEnabled(enabled);
             userResource.update(user);
+            userIndexService.invalidate(realm, userId);
             log.info("User {} enabled: {}", userId, enabled);
         } catch (Exception e) {
             log.error("Error setting enabled status for user {}: {}", userId, e.getMessage());
@@ -222,6 +286,7 @@ public class UserService {
         try {
             UserResource userResource = keycloak.realm(realm).users().get(userId);
             userResource.joinGroup(groupId);
+            effectivePermissionService.invalidateUser(realm, userId);
             log.info("User {} added to group {}", userId, groupId);
         } catch (Exception e) {
             log.error("Error adding user {} to group {}: {}", userId, groupId, e.getMessage());
@@ -234,6 +299,7 @@ public class UserService {
         try {
             UserResource userResource = keycloak.realm(realm).users().get(userId);
             userResource.leaveGroup(groupId);
+            effectivePermissionService.invalidateUser(realm, userId);
             log.info("User {} removed from group {}", userId, groupId);
         } catch (Exception e) {
             log.error("Error removing user {} from group {}: {}", userId, groupId, e.getMessage());
@@ -259,6 +325,7 @@ public class UserService {
             List<RoleRepresentation> roles = new ArrayList<>();
             roles.add(role);
             userResource.roles().realmLevel().add(roles);
+            effectivePermissionService.invalidateUser(realm, userId);
             log.info("Role {} assigned to user {}", role.getName(), userId);
         } catch (Exception e) {
             log.error("Error assigning role to user {}: {}", userId, e.getMessage());
@@ -273,6 +340,7 @@ public class UserService {
             List<RoleRepresentation> roles = new ArrayList<>();
             roles.add(role);
             userResource.roles().realmLevel().remove(roles);
+            effectivePermissionService.invalidateUser(realm, userId);
             log.info("Role {} removed from user {}", role.getName(), userId);
         } catch (Exception e) {
             log.error("Error removing role from user {}: {}", userId, e.getMessage());
@@ -373,19 +441,6 @@ public class UserService {
         }
     }
 
-    // BULK USER OPERATIONS - Disable multiple users
-    public void bulkDisableUsers(List<String> userIds, String realm) {
-        try {
-            for (String userId : userIds) {
-                setUserEnabled(userId, false, realm);
-            }
-            log.info("Bulk disabled {} users", userIds.size());
-        } catch (Exception e) {
-            log.error("Error in bulk disable operation: {}", e.getMessage());
-            throw new RuntimeException("Failed to bulk disable users: " + e.getMessage());
-        }
-    }
-
     // Helper methods
     private UserRepresentation mapToUserRepresentation(UserRequest userRequest) {
         UserRepresentation user = new UserRepresentation();
@@ -426,6 +481,19 @@ public class UserService {
         return profile;
     }
 
+    private Map<String, List<String>> mergeAttributes(Map<String, List<String>> current,
+            Map<String, List<String>> changes) {
+        Map<String, List<String>> merged = current != null ? new HashMap<>(current) : new HashMap<>();
+        changes.forEach((name, values) -> {
+            if (values == null) {
+                merged.remove(name);
+            } else {
+                merged.put(name, values);
+            }
+        });
+        return merged;
+    }
+
     private String extractUserIdFromLocation(URI location) {
         if (location != null) {
             String path = location.getPath();
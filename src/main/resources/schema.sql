@@ -0,0 +1,119 @@
+-- Tables locales de l'application (Keycloak reste la source de vérité)
+-- Exécuté au démarrage si spring.sql.init.mode=always
+
+-- Time-series des statistiques de realm (1m -> 1h -> 1d)
+CREATE TABLE IF NOT EXISTS realm_metric_sample (
+    id           BIGSERIAL PRIMARY KEY,
+    realm_name   VARCHAR(100)     NOT NULL,
+    metric       VARCHAR(64)      NOT NULL,
+    resolution   VARCHAR(8)       NOT NULL,
+    bucket_start TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    avg_value    DOUBLE PRECISION NOT NULL,
+    min_value    DOUBLE PRECISION NOT NULL,
+    max_value    DOUBLE PRECISION NOT NULL,
+    sample_count BIGINT           NOT NULL,
+    CONSTRAINT uk_realm_metric_bucket UNIQUE (realm_name, metric, resolution, bucket_start)
+);
+CREATE INDEX IF NOT EXISTS idx_realm_metric_resolution_bucket ON realm_metric_sample (resolution, bucket_start);
+
+-- Événements Keycloak ingérés localement (login et admin)
+CREATE SEQUENCE IF NOT EXISTS keycloak_event_seq INCREMENT BY 100;
+CREATE TABLE IF NOT EXISTS keycloak_event (
+    id          BIGINT       PRIMARY KEY,
+    realm_name  VARCHAR(100) NOT NULL,
+    event_time  BIGINT       NOT NULL,
+    type        VARCHAR(64),
+    client_id   VARCHAR(255),
+    user_id     VARCHAR(64),
+    session_id  VARCHAR(64),
+    ip_address  VARCHAR(64),
+    error       VARCHAR(255),
+    details     TEXT,
+    fingerprint VARCHAR(32)  NOT NULL,
+    CONSTRAINT uk_keycloak_event_fingerprint UNIQUE (realm_name, fingerprint)
+);
+CREATE INDEX IF NOT EXISTS idx_keycloak_event_time ON keycloak_event (realm_name, event_time, id);
+CREATE INDEX IF NOT EXISTS idx_keycloak_event_type ON keycloak_event (realm_name, type, event_time);
+CREATE INDEX IF NOT EXISTS idx_keycloak_event_user ON keycloak_event (realm_name, user_id, event_time);
+CREATE INDEX IF NOT EXISTS idx_keycloak_event_client ON keycloak_event (realm_name, client_id, event_time);
+CREATE INDEX IF NOT EXISTS idx_keycloak_event_ip ON keycloak_event (realm_name, ip_address, event_time);
+
+CREATE SEQUENCE IF NOT EXISTS keycloak_admin_event_seq INCREMENT BY 100;
+CREATE TABLE IF NOT EXISTS keycloak_admin_event (
+    id              BIGINT       PRIMARY KEY,
+    realm_name      VARCHAR(100) NOT NULL,
+    event_time      BIGINT       NOT NULL,
+    operation_type  VARCHAR(32),
+    resource_type   VARCHAR(64),
+    resource_path   VARCHAR(1024),
+    auth_realm_id   VARCHAR(64),
+    auth_client_id  VARCHAR(64),
+    auth_user_id    VARCHAR(64),
+    auth_ip_address VARCHAR(64),
+    error           VARCHAR(255),
+    representation  TEXT,
+    fingerprint     VARCHAR(32)  NOT NULL,
+    CONSTRAINT uk_keycloak_admin_event_fingerprint UNIQUE (realm_name, fingerprint)
+);
+CREATE INDEX IF NOT EXISTS idx_keycloak_admin_event_time ON keycloak_admin_event (realm_name, event_time, id);
+CREATE INDEX IF NOT EXISTS idx_keycloak_admin_event_operation ON keycloak_admin_event (realm_name, operation_type, event_time);
+CREATE INDEX IF NOT EXISTS idx_keycloak_admin_event_resource ON keycloak_admin_event (realm_name, resource_type, event_time);
+CREATE INDEX IF NOT EXISTS idx_keycloak_admin_event_user ON keycloak_admin_event (realm_name, auth_user_id, event_time);
+CREATE INDEX IF NOT EXISTS idx_keycloak_admin_event_client ON keycloak_admin_event (realm_name, auth_client_id, event_time);
+CREATE INDEX IF NOT EXISTS idx_keycloak_admin_event_ip ON keycloak_admin_event (realm_name, auth_ip_address, event_time);
+
+CREATE TABLE IF NOT EXISTS event_ingestion_cursor (
+    id              VARCHAR(120) PRIMARY KEY,
+    realm_name      VARCHAR(100) NOT NULL,
+    stream          VARCHAR(16)  NOT NULL,
+    last_event_time BIGINT       NOT NULL,
+    last_run_at     TIMESTAMP(6) WITH TIME ZONE,
+    total_ingested  BIGINT       NOT NULL
+);
+
+-- Balayage des sessions offline : reprise client par client et sessions signalées
+CREATE TABLE IF NOT EXISTS offline_session_sweep_checkpoint (
+    realm_name         VARCHAR(100) PRIMARY KEY,
+    pass_started_at    TIMESTAMP(6) WITH TIME ZONE,
+    last_client_uuid   VARCHAR(64),
+    clients_swept      INTEGER      NOT NULL,
+    sessions_scanned   BIGINT       NOT NULL,
+    stale_found        BIGINT       NOT NULL,
+    last_run_at        TIMESTAMP(6) WITH TIME ZONE,
+    last_completed_at  TIMESTAMP(6) WITH TIME ZONE,
+    last_pass_sessions BIGINT       NOT NULL,
+    last_pass_stale    BIGINT       NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS stale_offline_session (
+    id            BIGSERIAL PRIMARY KEY,
+    realm_name    VARCHAR(100) NOT NULL,
+    session_id    VARCHAR(64)  NOT NULL,
+    client_uuid   VARCHAR(64)  NOT NULL,
+    client_id     VARCHAR(255),
+    user_id       VARCHAR(64),
+    username      VARCHAR(255),
+    ip_address    VARCHAR(64),
+    session_start BIGINT       NOT NULL,
+    last_access   BIGINT       NOT NULL,
+    reason        VARCHAR(8)   NOT NULL,
+    detected_at   TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_stale_offline_session_start ON stale_offline_session (realm_name, session_start);
+CREATE INDEX IF NOT EXISTS idx_stale_offline_session_client ON stale_offline_session (realm_name, client_uuid);
+
+-- Rotation des secrets clients : planification et dernière rotation par client
+CREATE TABLE IF NOT EXISTS client_secret_rotation (
+    id               VARCHAR(170) PRIMARY KEY,
+    realm_name       VARCHAR(100) NOT NULL,
+    client_uuid      VARCHAR(64)  NOT NULL,
+    client_id        VARCHAR(255),
+    rotation_days    INTEGER,
+    last_rotated_at  TIMESTAMP(6) WITH TIME ZONE,
+    next_rotation_at TIMESTAMP(6) WITH TIME ZONE,
+    overlap_until    TIMESTAMP(6) WITH TIME ZONE,
+    rotation_count   INTEGER      NOT NULL,
+    last_error       VARCHAR(500)
+);
+CREATE INDEX IF NOT EXISTS idx_client_secret_rotation_next ON client_secret_rotation (next_rotation_at);
+CREATE INDEX IF NOT EXISTS idx_client_secret_rotation_overlap ON client_secret_rotation (overlap_until);
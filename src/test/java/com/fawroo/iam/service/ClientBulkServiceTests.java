@@ -0,0 +1,155 @@
+package com.fawroo.iam.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.admin.client.resource.ClientResource;
+import org.keycloak.admin.client.resource.ClientsResource;
+import org.keycloak.admin.client.resource.RealmResource;
+import org.keycloak.representations.idm.ClientRepresentation;
+import org.keycloak.representations.idm.ProtocolMapperRepresentation;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fawroo.iam.model.dto.ClientBulkApplyRequest;
+
+class ClientBulkServiceTests {
+
+    private static final String REALM = "acme";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ClientsResource clients = mock(ClientsResource.class);
+    private final ClientResource clientResource = mock(ClientResource.class);
+    private ClientRepresentation existing;
+    private ClientBulkService service;
+
+    @BeforeEach
+    void setUp() {
+        existing = new ClientRepresentation();
+        existing.setId("c-1");
+        existing.setClientId("portal");
+        existing.setProtocol("openid-connect");
+        existing.setPublicClient(false);
+        existing.setEnabled(true);
+        existing.setRedirectUris(List.of("https://portal/a", "https://portal/b"));
+        existing.setAttributes(new LinkedHashMap<>(Map.of("pkce.code.challenge.method", "S256",
+                "post.logout.redirect.uris", "+", "access.token.lifespan", "300")));
+        ProtocolMapperRepresentation mapper = new ProtocolMapperRepresentation();
+        mapper.setName("existing-mapper");
+        existing.setProtocolMappers(List.of(mapper));
+        when(clients.findByClientId("portal")).thenAnswer(invocation -> List.of(existing));
+        when(clients.get("c-1")).thenReturn(clientResource);
+
+        Keycloak keycloak = mock(Keycloak.class);
+        RealmResource realm = mock(RealmResource.class);
+        when(keycloak.realm(REALM)).thenReturn(realm);
+        when(realm.clients()).thenReturn(clients);
+
+        service = new ClientBulkService(keycloak, mock(ClientIdResolver.class), new KeycloakTaskRunner(4, 0),
+                objectMapper);
+        ReflectionTestUtils.setField(service, "defaultParallelism", 2);
+        ReflectionTestUtils.setField(service, "maxParallelism", 4);
+    }
+
+    @Test
+    void existingFieldsOutsideTheDefinitionAreIgnored() throws Exception {
+        Map<String, Object> overrides = new LinkedHashMap<>();
+        overrides.put("publicClient", false);
+        overrides.put("attributes", Map.of("pkce.code.challenge.method", "S256"));
+
+        assertThat(apply(overrides)).isEqualTo("unchanged");
+        verify(clientResource, never()).update(any());
+    }
+
+    @Test
+    void keyOrderDoesNotChangeTheHash() throws Exception {
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        attributes.put("access.token.lifespan", "300");
+        attributes.put("post.logout.redirect.uris", "+");
+        attributes.put("pkce.code.challenge.method", "S256");
+        Map<String, Object> overrides = new LinkedHashMap<>();
+        overrides.put("attributes", attributes);
+        overrides.put("enabled", true);
+        overrides.put("protocol", "openid-connect");
+
+        assertThat(apply(overrides)).isEqualTo("unchanged");
+    }
+
+    @Test
+    void changedNestedValueIsUpdated() throws Exception {
+        assertThat(apply(Map.of("attributes", Map.of("access.token.lifespan", "600")))).isEqualTo("updated");
+        verify(clientResource).update(any());
+    }
+
+    @Test
+    void missingExistingValueIsUpdated() throws Exception {
+        assertThat(apply(Map.of("attributes", Map.of("use.refresh.tokens", "true")))).isEqualTo("updated");
+        assertThat(apply(Map.of("description", "Customer portal"))).isEqualTo("updated");
+    }
+
+    @Test
+    void listsAreComparedInOrder() throws Exception {
+        assertThat(apply(Map.of("redirectUris", List.of("https://portal/a", "https://portal/b"))))
+                .isEqualTo("unchanged");
+        assertThat(apply(Map.of("redirectUris", List.of("https://portal/b", "https://portal/a"))))
+                .isEqualTo("updated");
+        assertThat(apply(Map.of("redirectUris", List.of("https://portal/a")))).isEqualTo("updated");
+    }
+
+    @Test
+    void protocolMappersAreNotCompared() throws Exception {
+        Map<String, Object> mapper = Map.of("name", "other-mapper", "protocol", "openid-connect",
+                "protocolMapper", "oidc-audience-mapper");
+
+        assertThat(apply(Map.of("protocolMappers", List.of(mapper)))).isEqualTo("unchanged");
+    }
+
+    @Test
+    void invalidRequestIsABadRequest() {
+        ClientBulkApplyRequest.ClientItem item = new ClientBulkApplyRequest.ClientItem();
+        item.setClientId("portal");
+        item.setTemplate("missing");
+        ClientBulkApplyRequest request = new ClientBulkApplyRequest();
+        request.setClients(List.of(item));
+
+        assertThatThrownBy(() -> service.validateRequest(request))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+        assertThatThrownBy(() -> service.validateRequest(new ClientBulkApplyRequest()))
+                .isInstanceOf(ResponseStatusException.class);
+    }
+
+    // ========== HELPER METHODS ==========
+
+    // Applique un seul client "portal" et renvoie l'action de sa ligne NDJSON
+    private String apply(Map<String, Object> overrides) throws Exception {
+        ClientBulkApplyRequest.ClientItem item = new ClientBulkApplyRequest.ClientItem();
+        item.setClientId("portal");
+        item.setOverrides(overrides);
+        ClientBulkApplyRequest request = new ClientBulkApplyRequest();
+        request.setClients(List.of(item));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        service.streamApply(REALM, request, output);
+
+        String line = output.toString().lines().findFirst().orElseThrow();
+        Map<?, ?> result = objectMapper.readValue(line, Map.class);
+        assertThat(result.get("success")).as(line).isEqualTo(true);
+        return (String) result.get("action");
+    }
+}
@@ -0,0 +1,63 @@
+package com.fawroo.iam.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+class CompactIdSetTests {
+
+    @Test
+    void duplicateUuidIsAddedOnce() {
+        CompactIdSet set = new CompactIdSet();
+        String id = UUID.randomUUID().toString();
+
+        assertThat(set.add(id)).isTrue();
+        assertThat(set.add(id)).isFalse();
+        assertThat(set.add(id.toUpperCase())).isFalse();
+        assertThat(set.size()).isEqualTo(1);
+    }
+
+    @Test
+    void nonUuidIdsAreKeptAndDeduplicated() {
+        CompactIdSet set = new CompactIdSet();
+
+        assertThat(set.add("service-account-1")).isTrue();
+        assertThat(set.add("service-account-1")).isFalse();
+        assertThat(set.add(UUID.randomUUID().toString())).isTrue();
+        assertThat(set.size()).isEqualTo(2);
+    }
+
+    @Test
+    void growthKeepsEveryEntryAndStillDetectsDuplicates() {
+        CompactIdSet set = new CompactIdSet();
+        List<String> ids = new ArrayList<>();
+        // Bien au-delà de la capacité initiale (1024 slots, agrandie à moitié pleine)
+        for (int i = 0; i < 5_000; i++) {
+            ids.add(UUID.randomUUID().toString());
+        }
+
+        ids.forEach(id -> assertThat(set.add(id)).isTrue());
+        assertThat(set.size()).isEqualTo(ids.size());
+
+        ids.forEach(id -> assertThat(set.add(id)).isFalse());
+        assertThat(set.size()).isEqualTo(ids.size());
+    }
+
+    @Test
+    void collidingHashesAreDistinctEntries() {
+        CompactIdSet set = new CompactIdSet();
+        // Même hash de slot (msb * 31 + lsb identique), UUID différents
+        UUID first = new UUID(1, 0);
+        UUID second = new UUID(0, 31);
+
+        assertThat(set.add(first.toString())).isTrue();
+        assertThat(set.add(second.toString())).isTrue();
+        assertThat(set.add(first.toString())).isFalse();
+        assertThat(set.add(second.toString())).isFalse();
+        assertThat(set.size()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,163 @@
+package com.fawroo.iam.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.admin.client.resource.GroupResource;
+import org.keycloak.admin.client.resource.GroupsResource;
+import org.keycloak.admin.client.resource.RealmResource;
+import org.keycloak.representations.idm.GroupRepresentation;
+import org.keycloak.representations.idm.UserRepresentation;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class GroupTreeServiceTests {
+
+    private static final String REALM = "acme";
+
+    private final GroupsResource groups = mock(GroupsResource.class);
+    private GroupTreeService service;
+
+    /*
+     * /eng (u1)
+     *   /eng/backend (u2, u1)
+     *     /eng/backend/api (u3)
+     *   /eng/frontend (u4)
+     * /sales (u1)
+     */
+    @BeforeEach
+    void setUp() {
+        GroupRepresentation api = group("api", "/eng/backend/api");
+        GroupRepresentation backend = group("backend", "/eng/backend", api);
+        GroupRepresentation frontend = group("frontend", "/eng/frontend");
+        GroupRepresentation eng = group("eng", "/eng", backend, frontend);
+        GroupRepresentation sales = group("sales", "/sales");
+        when(groups.groups(null, null, null, false)).thenReturn(List.of(eng, sales));
+        members("eng", "u1");
+        members("backend", "u2", "u1");
+        members("api", "u3");
+        members("frontend", "u4");
+        members("sales", "u1");
+
+        Keycloak keycloak = mock(Keycloak.class);
+        RealmResource realm = mock(RealmResource.class);
+        when(keycloak.realm(REALM)).thenReturn(realm);
+        when(realm.groups()).thenReturn(groups);
+
+        service = new GroupTreeService(keycloak, new KeycloakTaskRunner(4, 0));
+        ReflectionTestUtils.setField(service, "refreshMinutes", 15L);
+        ReflectionTestUtils.setField(service, "includeMembers", true);
+        ReflectionTestUtils.setField(service, "memberPageSize", 100);
+        ReflectionTestUtils.setField(service, "parallelism", 2);
+    }
+
+    @Test
+    void subtreeIsTheContiguousPreOrderInterval() {
+        assertThat(service.getSubtree(REALM, "eng")).extracting(group -> group.get("id"))
+                .containsExactly("eng", "backend", "api", "frontend");
+        assertThat(service.getSubtree(REALM, "backend")).extracting(group -> group.get("id"))
+                .containsExactly("backend", "api");
+        assertThat(service.getSubtree(REALM, "sales")).extracting(group -> group.get("id"))
+                .containsExactly("sales");
+    }
+
+    @Test
+    void ancestorMatchesOnlyStrictDescendants() {
+        assertThat(service.isAncestor(REALM, "eng", "api")).isTrue();
+        assertThat(service.isAncestor(REALM, "backend", "api")).isTrue();
+        assertThat(service.isAncestor(REALM, "eng", "eng")).isFalse();
+        assertThat(service.isAncestor(REALM, "backend", "frontend")).isFalse();
+        assertThat(service.isAncestor(REALM, "api", "backend")).isFalse();
+        assertThat(service.isAncestor(REALM, "eng", "sales")).isFalse();
+    }
+
+    @Test
+    void ancestorsAreListedRootFirst() {
+        assertThat(service.getAncestors(REALM, "api")).extracting(group -> group.get("id"))
+                .containsExactly("eng", "backend");
+        assertThat(service.getAncestors(REALM, "sales")).isEmpty();
+    }
+
+    @Test
+    void descendantCountsFollowTheIntervals() {
+        assertThat(service.getByPath(REALM, "/eng")).containsEntry("descendantCount", 3)
+                .containsEntry("subGroupCount", 2);
+        assertThat(service.getByPath(REALM, "eng/backend")).containsEntry("descendantCount", 1);
+        assertThat(service.getByPath(REALM, "/eng/backend/api")).containsEntry("descendantCount", 0);
+    }
+
+    @Test
+    void subgroupMembersAreDeduplicated() {
+        GroupTreeService.GroupTree tree = service.getSnapshot(REALM);
+
+        assertThat(tree.memberIds("eng", false)).containsExactly("u1");
+        assertThat(tree.memberIds("eng", true)).containsExactly("u1", "u2", "u3", "u4");
+        assertThat(tree.memberIds("backend", true)).containsExactly("u2", "u1", "u3");
+    }
+
+    @Test
+    void unboundedDepthFromANestedRootDoesNotOverflow() {
+        List<Map<String, Object>> tree = service.getTree(REALM, "backend", Integer.MAX_VALUE);
+
+        assertThat(tree).hasSize(1);
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> children = (List<Map<String, Object>>) tree.get(0).get("subGroups");
+        assertThat(children).extracting(group -> group.get("id")).containsExactly("api");
+    }
+
+    @Test
+    void depthLimitIsRelativeToTheRoot() {
+        Map<String, Object> eng = service.getTree(REALM, "eng", 0).get(0);
+        Map<String, Object> backend = service.getTree(REALM, "backend", 0).get(0);
+
+        assertThat(eng).doesNotContainKey("subGroups");
+        assertThat(backend).doesNotContainKey("subGroups");
+        assertThat(service.getTree(REALM, "eng", 1).get(0)).containsKey("subGroups");
+    }
+
+    @Test
+    void snapshotIsReusedUntilInvalidated() {
+        service.getSubtree(REALM, "eng");
+        service.isAncestor(REALM, "eng", "api");
+        verify(groups, times(1)).groups(null, null, null, false);
+
+        service.invalidate(REALM);
+        service.getSubtree(REALM, "eng");
+        verify(groups, times(2)).groups(null, null, null, false);
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private static GroupRepresentation group(String id, String path, GroupRepresentation... children) {
+        GroupRepresentation group = new GroupRepresentation();
+        group.setId(id);
+        group.setName(id);
+        group.setPath(path);
+        group.setSubGroups(new ArrayList<>(List.of(children)));
+        return group;
+    }
+
+    private void members(String groupId, String... userIds) {
+        List<UserRepresentation> users = new ArrayList<>();
+        for (String userId : userIds) {
+            UserRepresentation user = new UserRepresentation();
+            user.setId(userId);
+            user.setUsername("name-" + userId);
+            users.add(user);
+        }
+        GroupResource group = mock(GroupResource.class);
+        when(group.members(anyInt(), anyInt(), eq(true))).thenReturn(users);
+        when(groups.group(groupId)).thenReturn(group);
+    }
+}
@@ -0,0 +1,75 @@
+package com.fawroo.iam.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+import com.fawroo.iam.service.SessionRevocationService.IpRange;
+
+class IpRangeTests {
+
+    @Test
+    void zeroPrefixMatchesEveryAddressOfTheSameFamily() {
+        IpRange range = IpRange.parse("0.0.0.0/0");
+
+        assertThat(range.contains("10.1.2.3")).isTrue();
+        assertThat(range.contains("255.255.255.255")).isTrue();
+        assertThat(range.contains("::1")).isFalse();
+    }
+
+    @Test
+    void partialBytePrefix() {
+        IpRange range = IpRange.parse("172.16.0.0/12");
+
+        assertThat(range.contains("172.16.0.1")).isTrue();
+        assertThat(range.contains("172.31.255.255")).isTrue();
+        assertThat(range.contains("172.15.255.255")).isFalse();
+        assertThat(range.contains("172.32.0.0")).isFalse();
+    }
+
+    @Test
+    void singleAddressIsAFullPrefix() {
+        IpRange explicit = IpRange.parse("192.168.1.10/32");
+        IpRange implicit = IpRange.parse("192.168.1.10");
+
+        assertThat(explicit.contains("192.168.1.10")).isTrue();
+        assertThat(explicit.contains("192.168.1.11")).isFalse();
+        assertThat(implicit.contains("192.168.1.10")).isTrue();
+        assertThat(implicit.contains("192.168.1.11")).isFalse();
+    }
+
+    @Test
+    void ipv6Prefixes() {
+        IpRange documentation = IpRange.parse("2001:db8::/32");
+        IpRange odd = IpRange.parse("2001:db8:abcd:0012::/60");
+        IpRange loopback = IpRange.parse("::1");
+
+        assertThat(documentation.contains("2001:db8:1::42")).isTrue();
+        assertThat(documentation.contains("2001:db9::1")).isFalse();
+        assertThat(documentation.contains("10.0.0.1")).isFalse();
+        assertThat(odd.contains("2001:db8:abcd:001f::1")).isTrue();
+        assertThat(odd.contains("2001:db8:abcd:0020::1")).isFalse();
+        assertThat(loopback.contains("0:0:0:0:0:0:0:1")).isTrue();
+        assertThat(loopback.contains("::2")).isFalse();
+    }
+
+    @Test
+    void rejectsHostnamesAndMalformedRanges() {
+        for (String value : new String[] { "cafe", "deadbeef", "face/8", "localhost", "1.2.3", "1.2.3.256",
+                "1.2.3.4.5", "10.0.0.0/33", "::/129", "10.0.0.0/-1", "10.0.0.0/x" }) {
+            assertThatThrownBy(() -> IpRange.parse(value))
+                    .as(value)
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    void unparsableSessionAddressIsNotContained() {
+        IpRange range = IpRange.parse("0.0.0.0/0");
+
+        assertThat(range.contains(null)).isFalse();
+        assertThat(range.contains("")).isFalse();
+        assertThat(range.contains("beef")).isFalse();
+    }
+}
@@ -0,0 +1,192 @@
+package com.fawroo.iam.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.representations.idm.authorization.DecisionStrategy;
+import org.keycloak.representations.idm.authorization.Logic;
+import org.keycloak.representations.idm.authorization.PolicyEnforcementMode;
+import org.keycloak.representations.idm.authorization.PolicyRepresentation;
+import org.keycloak.representations.idm.authorization.ResourceRepresentation;
+import org.keycloak.representations.idm.authorization.ResourceServerRepresentation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class PolicyDecisionServiceTests {
+
+    private static final String REALM = "acme";
+    private static final String CLIENT = "documents";
+    private static final String USER = "user-1";
+
+    private final ClientIdResolver clientIdResolver = mock(ClientIdResolver.class);
+    private final EffectivePermissionService effectivePermissionService = mock(EffectivePermissionService.class);
+    private final ResourceServerRepresentation settings = new ResourceServerRepresentation();
+    private final List<PolicyRepresentation> policies = new ArrayList<>();
+    private PolicyDecisionService service;
+
+    @BeforeEach
+    void setUp() {
+        // Le sujet détient le rôle "admin" (bit 0) et appartient au groupe /staff
+        EffectivePermissionService.RoleGraph graph = mock(EffectivePermissionService.RoleGraph.class);
+        when(graph.bitOfRoleId(any())).thenReturn(null);
+        when(graph.bitOf(any(), any())).thenReturn(null);
+        when(graph.bitOfRoleId("admin")).thenReturn(0);
+        when(graph.groupPath("g-staff")).thenReturn("/staff");
+        BitSet roles = new BitSet();
+        roles.set(0);
+        EffectivePermissionService.UserGrants grants = mock(EffectivePermissionService.UserGrants.class);
+        when(grants.effectiveRoles(graph)).thenReturn(roles);
+        when(grants.getGroupIds()).thenReturn(List.of("g-staff"));
+        when(effectivePermissionService.getRoleGraph(REALM)).thenReturn(graph);
+        when(effectivePermissionService.getUserGrants(REALM, USER)).thenReturn(grants);
+
+        ResourceRepresentation resource = new ResourceRepresentation("report");
+        settings.setResources(List.of(resource));
+        settings.setPolicies(policies);
+        when(clientIdResolver.withClient(eq(REALM), eq(CLIENT), any())).thenReturn(settings);
+
+        service = new PolicyDecisionService(mock(Keycloak.class), new ObjectMapper(), effectivePermissionService,
+                clientIdResolver);
+    }
+
+    @Test
+    void rolePolicyGrantsOnlyToHolders() {
+        policies.add(policy("admins", "role", Logic.POSITIVE, Map.of("roles", "[{\"id\":\"admin\"}]")));
+        policies.add(policy("auditors", "role", Logic.POSITIVE, Map.of("roles", "[{\"id\":\"auditor\"}]")));
+        policies.add(permission("admins-only", "admins"));
+        policies.add(permission("auditors-only", "auditors"));
+
+        Map<String, Object> decision = evaluate();
+
+        assertThat(decision.get("granted")).isEqualTo(false);
+        assertThat((String) decision.get("reason")).contains("auditors-only").doesNotContain("admins-only");
+    }
+
+    @Test
+    void negativeLogicInvertsAValidPolicy() {
+        policies.add(policy("not-admins", "role", Logic.NEGATIVE, Map.of("roles", "[{\"id\":\"admin\"}]")));
+        policies.add(policy("not-auditors", "role", Logic.NEGATIVE, Map.of("roles", "[{\"id\":\"auditor\"}]")));
+        policies.add(permission("no-admin", "not-admins"));
+
+        assertThat(evaluate().get("granted")).isEqualTo(false);
+
+        policies.clear();
+        policies.add(policy("not-auditors", "role", Logic.NEGATIVE, Map.of("roles", "[{\"id\":\"auditor\"}]")));
+        policies.add(permission("no-auditor", "not-auditors"));
+        service.invalidate(REALM, CLIENT);
+
+        assertThat(evaluate().get("granted")).isEqualTo(true);
+    }
+
+    @Test
+    void unparsablePolicyDeniesWhateverItsLogic() {
+        for (String type : new String[] { "role", "group", "user" }) {
+            String field = type + "s";
+            policies.clear();
+            policies.add(policy("broken", type, Logic.NEGATIVE, Map.of(field, "{not json")));
+            policies.add(permission("guarded", "broken"));
+            service.invalidate(REALM, CLIENT);
+
+            assertThat(evaluate().get("granted")).as(type).isEqualTo(false);
+            assertThat(service.getStatus(REALM, CLIENT).get("unsupportedPolicies")).as(type)
+                    .isEqualTo(List.of("broken (invalid " + type + " configuration)"));
+        }
+    }
+
+    @Test
+    void invalidTimePolicyDeniesWithoutAffectingOtherPolicies() {
+        policies.add(policy("office-hours", "time", Logic.NEGATIVE, Map.of("hour", "nine")));
+        policies.add(policy("staff", "group", Logic.POSITIVE, Map.of("groups", "[{\"path\":\"/staff\"}]")));
+        policies.add(permission("timed", "office-hours"));
+        PolicyRepresentation staffOnly = permission("staff-only", "staff");
+        policies.add(staffOnly);
+        settings.setDecisionStrategy(DecisionStrategy.AFFIRMATIVE);
+
+        Map<String, Object> decision = evaluate();
+
+        assertThat(decision.get("granted")).isEqualTo(true);
+        assertThat((String) decision.get("reason")).contains("staff-only");
+    }
+
+    @Test
+    void aggregatePolicyAppliesItsDecisionStrategy() {
+        policies.add(policy("admins", "role", Logic.POSITIVE, Map.of("roles", "[{\"id\":\"admin\"}]")));
+        policies.add(policy("auditors", "role", Logic.POSITIVE, Map.of("roles", "[{\"id\":\"auditor\"}]")));
+        PolicyRepresentation either = policy("either", "aggregate", Logic.POSITIVE,
+                Map.of("applyPolicies", "[\"admins\",\"auditors\"]"));
+        either.setDecisionStrategy(DecisionStrategy.AFFIRMATIVE);
+        policies.add(either);
+        policies.add(permission("either-role", "either"));
+
+        assertThat(evaluate().get("granted")).isEqualTo(true);
+
+        either.setDecisionStrategy(DecisionStrategy.UNANIMOUS);
+        service.invalidate(REALM, CLIENT);
+
+        assertThat(evaluate().get("granted")).isEqualTo(false);
+    }
+
+    @Test
+    void userPolicyMatchesTheUserId() {
+        policies.add(policy("owner", "user", Logic.POSITIVE, Map.of("users", "[\"" + USER + "\"]")));
+        policies.add(permission("owner-only", "owner"));
+
+        assertThat(evaluate().get("granted")).isEqualTo(true);
+    }
+
+    @Test
+    void enforcementModeDecidesWhenNoPermissionApplies() {
+        settings.setPolicyEnforcementMode(PolicyEnforcementMode.ENFORCING);
+        assertThat(evaluate().get("granted")).isEqualTo(false);
+
+        settings.setPolicyEnforcementMode(PolicyEnforcementMode.PERMISSIVE);
+        service.invalidate(REALM, CLIENT);
+        assertThat(evaluate().get("granted")).isEqualTo(true);
+    }
+
+    @Test
+    void unreadablePermissionFailsInsteadOfGranting() {
+        settings.setPolicyEnforcementMode(PolicyEnforcementMode.PERMISSIVE);
+        PolicyRepresentation broken = new PolicyRepresentation();
+        broken.setName("broken-permission");
+        broken.setType("resource");
+        broken.setConfig(Map.of("resources", "[\"report\""));
+        policies.add(broken);
+
+        assertThatThrownBy(this::evaluate)
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("Could not parse policy configuration");
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private Map<String, Object> evaluate() {
+        return service.evaluate(REALM, CLIENT, USER, "report", null);
+    }
+
+    private static PolicyRepresentation policy(String name, String type, Logic logic, Map<String, String> config) {
+        PolicyRepresentation policy = new PolicyRepresentation();
+        policy.setName(name);
+        policy.setType(type);
+        policy.setLogic(logic);
+        policy.setConfig(config);
+        return policy;
+    }
+
+    private static PolicyRepresentation permission(String name, String policy) {
+        return policy(name, "resource", Logic.POSITIVE,
+                Map.of("resources", "[\"report\"]", "applyPolicies", "[\"" + policy + "\"]"));
+    }
+}
@@ -0,0 +1,150 @@
+package com.fawroo.iam.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.admin.client.resource.RealmResource;
+import org.keycloak.representations.idm.RealmRepresentation;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class RealmSettingsServiceTests {
+
+    private static final String REALM = "acme";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final RealmResource realmResource = mock(RealmResource.class);
+    private RealmRepresentation stored;
+    private RealmRepresentation lastUpdate;
+    private RealmSettingsService service;
+
+    @BeforeEach
+    void setUp() {
+        stored = new RealmRepresentation();
+        stored.setRealm(REALM);
+        stored.setDisplayName("Acme");
+        stored.setBruteForceProtected(false);
+        stored.setWebAuthnPolicyRpEntityName("acme-rp");
+        stored.setAttributes(Map.of("cibaBackchannelTokenDeliveryMode", "poll"));
+
+        // Keycloak simulé : chaque lecture renvoie une copie, chaque écriture remplace l'état
+        when(realmResource.toRepresentation())
+                .thenAnswer(invocation -> objectMapper.convertValue(stored, RealmRepresentation.class));
+        doAnswer(invocation -> {
+            lastUpdate = invocation.getArgument(0);
+            stored = objectMapper.convertValue(lastUpdate, RealmRepresentation.class);
+            return null;
+        }).when(realmResource).update(any());
+        Keycloak keycloak = mock(Keycloak.class);
+        when(keycloak.realm(REALM)).thenReturn(realmResource);
+
+        service = new RealmSettingsService(keycloak, objectMapper, mock(RealmSnapshotService.class));
+    }
+
+    @Test
+    void changeIsAppliedOnTheFullRepresentation() {
+        service.applyChanges(REALM, Map.of("bruteForceProtected", true), null);
+
+        assertThat(lastUpdate.isBruteForceProtected()).isTrue();
+        assertThat(lastUpdate.getDisplayName()).isEqualTo("Acme");
+        assertThat(lastUpdate.getWebAuthnPolicyRpEntityName()).isEqualTo("acme-rp");
+        assertThat(lastUpdate.getAttributes()).containsEntry("cibaBackchannelTokenDeliveryMode", "poll");
+    }
+
+    @Test
+    void unchangedValuesDoNotUpdateTheRealm() {
+        Map<String, Object> result = service.applyChanges(REALM, Map.of("displayName", "Acme"), null);
+
+        assertThat(result).containsEntry("realmUpdated", false);
+        assertThat(result.get("unchanged")).isEqualTo(List.of("displayName"));
+        verify(realmResource, never()).update(any());
+    }
+
+    @Test
+    void staleVersionIsAcceptedForFieldsNotModifiedSince() {
+        String version = version();
+        service.applyChanges(REALM, Map.of("displayName", "Acme Corp"), null);
+
+        Map<String, Object> result = service.applyChanges(REALM, Map.of("bruteForceProtected", true), version);
+
+        assertThat(result.get("changed")).isEqualTo(List.of("bruteForceProtected"));
+        assertThat(stored.getDisplayName()).isEqualTo("Acme Corp");
+        assertThat(stored.isBruteForceProtected()).isTrue();
+    }
+
+    @Test
+    void staleVersionIsRejectedForAFieldModifiedSince() {
+        String version = version();
+        service.applyChanges(REALM, Map.of("displayName", "Acme Corp"), null);
+
+        assertThatThrownBy(() -> service.applyChanges(REALM, Map.of("displayName", "Other"), version))
+                .isInstanceOfSatisfying(ResponseStatusException.class, e -> {
+                    assertThat(e.getStatusCode()).isEqualTo(HttpStatus.PRECONDITION_FAILED);
+                    assertThat(e.getReason()).endsWith("displayName");
+                });
+        assertThat(stored.getDisplayName()).isEqualTo("Acme Corp");
+    }
+
+    @Test
+    void modificationMadeDirectlyInKeycloakIsDetected() {
+        String version = version();
+        stored.setDisplayName("Changed elsewhere");
+
+        assertThatThrownBy(() -> service.applyChanges(REALM, Map.of("displayName", "Other"), version))
+                .isInstanceOf(ResponseStatusException.class);
+    }
+
+    @Test
+    void versionStaysKnownForSixteenVersions() {
+        String version = version();
+        // La version lue plus 15 versions suivantes : 16 entrées d'historique
+        for (int i = 1; i <= 15; i++) {
+            service.applyChanges(REALM, Map.of("displayName", "Acme " + i), null);
+        }
+
+        Map<String, Object> result = service.applyChanges(REALM, Map.of("bruteForceProtected", true), version);
+
+        assertThat(result).containsEntry("realmUpdated", true);
+    }
+
+    @Test
+    void versionEvictedFromTheHistoryMustBeCurrent() {
+        String version = version();
+        for (int i = 1; i <= 16; i++) {
+            service.applyChanges(REALM, Map.of("displayName", "Acme " + i), null);
+        }
+
+        assertThatThrownBy(() -> service.applyChanges(REALM, Map.of("bruteForceProtected", true), version))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getReason()).contains("unknown version"));
+    }
+
+    @Test
+    void invalidChangesAreRejectedBeforeAnyKeycloakCall() {
+        assertThatThrownBy(() -> service.applyChanges(REALM, Map.of("notARealmSetting", 1), null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.applyChanges(REALM, Map.of(), null))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(realmResource, never()).toRepresentation();
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private String version() {
+        return (String) service.getSettings(REALM).get("version");
+    }
+}
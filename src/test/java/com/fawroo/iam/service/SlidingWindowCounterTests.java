@@ -0,0 +1,62 @@
+package com.fawroo.iam.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import com.fawroo.iam.service.LoginFailureAggregationService.SlidingWindowCounter;
+
+class SlidingWindowCounterTests {
+
+    private static final int WINDOW = 60;
+
+    @Test
+    void sumsOnlyTheRequestedMinutes() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(WINDOW);
+        counter.increment(1_000);
+        counter.increment(1_000);
+        counter.increment(1_001);
+        counter.increment(1_005);
+
+        assertThat(counter.sum(1_000, 1_005)).isEqualTo(4);
+        assertThat(counter.sum(1_001, 1_004)).isEqualTo(1);
+        assertThat(counter.sum(1_006, 1_059)).isZero();
+        assertThat(counter.series(1_000, 1_005)).containsExactly(2, 1, 0, 0, 0, 1);
+    }
+
+    @Test
+    void minuteLeavingTheWindowIsDroppedWhenItsSlotIsReused() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(WINDOW);
+        counter.increment(1_000);
+        counter.increment(1_000);
+
+        // Même slot, une fenêtre plus tard : l'ancienne minute est remplacée
+        counter.increment(1_000 + WINDOW);
+
+        assertThat(counter.sum(1_000, 1_000)).isZero();
+        assertThat(counter.sum(1_000 + WINDOW, 1_000 + WINDOW)).isEqualTo(1);
+        assertThat(counter.sum(1_000, 1_000 + WINDOW)).isEqualTo(1);
+    }
+
+    @Test
+    void expiredMinutesAreExcludedByTheQueryRange() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(WINDOW);
+        counter.increment(1_000);
+        counter.increment(1_030);
+
+        // Fenêtre courante [1_031, 1_090] : 1_000 et 1_030 sont sorties même si leurs slots n'ont pas été réutilisés
+        assertThat(counter.sum(1_031, 1_090)).isZero();
+        assertThat(counter.sum(1_030, 1_089)).isEqualTo(1);
+    }
+
+    @Test
+    void lateIncrementForAMinuteAlreadyOutOfTheWindowIsIgnored() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(WINDOW);
+        counter.increment(1_000 + WINDOW);
+
+        counter.increment(1_000);
+
+        assertThat(counter.sum(1_000, 1_000)).isZero();
+        assertThat(counter.sum(1_000 + WINDOW, 1_000 + WINDOW)).isEqualTo(1);
+    }
+}